@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.build.jmh;
+
+import java.io.File;
+import java.util.Arrays;
+
+import me.champeau.gradle.JMHPlugin;
+import me.champeau.gradle.JMHPluginExtension;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.file.DuplicatesStrategy;
+import org.gradle.api.plugins.JavaPlugin;
+
+/**
+ * {@link Plugin} that applies the {@code "jmh-gradle-plugin"} to projects
+ * containing benchmarks in {@code "src/jmh/java"}, with shared conventions
+ * for the Spring Framework build.
+ * <p>{@code "./gradlew :spring-beans:jmh"} runs all benchmarks of a module and writes
+ * the results to {@code "build/reports/jmh/"}. The benchmarks to run can be
+ * narrowed down with a regular expression: {@code "./gradlew :spring-core:jmh -PjmhInclude=ResolvableType"},
+ * and the result format switched to any JMH format, e.g. {@code "-PjmhResultFormat=CSV"}.
+ * Profilers are enabled with {@code "-PjmhProfilers=gc"}.
+ */
+public class JmhConventionsPlugin implements Plugin<Project> {
+
+	/**
+	 * The project property that can be used to select benchmarks with a regular expression.
+	 */
+	public static final String JMH_INCLUDE_PROPERTY = "jmhInclude";
+
+	/**
+	 * The project property that can be used to switch the format of the results file.
+	 */
+	public static final String JMH_RESULT_FORMAT_PROPERTY = "jmhResultFormat";
+
+	/**
+	 * The project property that can be used to enable JMH profilers, e.g. {@code "gc"}
+	 * for the allocation rate per operation.
+	 */
+	public static final String JMH_PROFILERS_PROPERTY = "jmhProfilers";
+
+	public static final String JMH_VERSION = "1.22";
+
+	private static final String JMH_SOURCE_DIRECTORY = "src/jmh/java";
+
+	@Override
+	public void apply(Project project) {
+		project.getPlugins().withType(JavaPlugin.class, javaPlugin -> {
+			if (project.file(JMH_SOURCE_DIRECTORY).isDirectory()) {
+				project.getPluginManager().apply(JMHPlugin.class);
+				applyJmhConventions(project);
+			}
+		});
+	}
+
+	/**
+	 * Applies the common JMH options; benchmarks can override them with the
+	 * usual JMH annotations.
+	 * @param project the current project
+	 */
+	private void applyJmhConventions(Project project) {
+		JMHPluginExtension jmh = project.getExtensions().getByType(JMHPluginExtension.class);
+		jmh.setJmhVersion(JMH_VERSION);
+		jmh.setFork(1);
+		jmh.setWarmupIterations(3);
+		jmh.setIterations(5);
+		jmh.setFailOnError(true);
+		jmh.setIncludeTests(false);
+		jmh.setZip64(true);
+		// The jmh source set sees main classes both as project output and on the runtime classpath
+		jmh.setDuplicateClassesStrategy(DuplicatesStrategy.WARN);
+		if (project.hasProperty(JMH_INCLUDE_PROPERTY)) {
+			jmh.setInclude(Arrays.asList(project.property(JMH_INCLUDE_PROPERTY).toString().split(",")));
+		}
+		if (project.hasProperty(JMH_PROFILERS_PROPERTY)) {
+			jmh.setProfilers(Arrays.asList(project.property(JMH_PROFILERS_PROPERTY).toString().split(",")));
+		}
+		String resultFormat = (project.hasProperty(JMH_RESULT_FORMAT_PROPERTY) ?
+				project.property(JMH_RESULT_FORMAT_PROPERTY).toString() : "JSON");
+		jmh.setResultFormat(resultFormat);
+		File reportsDir = new File(project.getBuildDir(), "reports/jmh");
+		jmh.setResultsFile(new File(reportsDir, "results." + resultFormat.toLowerCase()));
+		jmh.setHumanOutputFile(new File(reportsDir, "human.txt"));
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.aop.support.NameMatchMethodPointcutAdvisor;
+
+/**
+ * Benchmarks for invoking advised methods through AOP proxies, comparing
+ * JDK dynamic proxies and CGLIB proxies with the fixed interceptor chains
+ * of a frozen CGLIB proxy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProxyInvocationBenchmark {
+
+	@Benchmark
+	public String twoInterceptors(BenchmarkState state) {
+		return state.proxy.echo("value");
+	}
+
+	@Benchmark
+	public int singleInterceptor(BenchmarkState state) {
+		return state.proxy.length("value");
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"jdk", "cglib", "cglib-frozen"})
+		public String proxyType;
+
+		Echo proxy;
+
+		@Setup
+		public void setup() {
+			ProxyFactory proxyFactory = new ProxyFactory(new SimpleEcho());
+			proxyFactory.setProxyTargetClass(!this.proxyType.equals("jdk"));
+			MethodInterceptor interceptor = invocation -> invocation.proceed();
+			NameMatchMethodPointcutAdvisor advisor = new NameMatchMethodPointcutAdvisor(interceptor);
+			advisor.setMappedName("echo");
+			proxyFactory.addAdvisor(advisor);
+			proxyFactory.addAdvice(interceptor);
+			proxyFactory.setFrozen(this.proxyType.equals("cglib-frozen"));
+			this.proxy = (Echo) proxyFactory.getProxy();
+		}
+	}
+
+
+	public interface Echo {
+
+		String echo(String value);
+
+		int length(String value);
+	}
+
+
+	public static class SimpleEcho implements Echo {
+
+		@Override
+		public String echo(String value) {
+			return value;
+		}
+
+		@Override
+		public int length(String value) {
+			return value.length();
+		}
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.interceptor.ExposeInvocationInterceptor;
+
+/**
+ * Startup benchmarks for {@link AopUtils#findAdvisorsThatCanApply}, determining
+ * the advisors for a set of bean classes with freshly created AspectJ advisors,
+ * as an auto-proxy creator does on every application context refresh.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AopUtilsBenchmark {
+
+	private static final String[] EXPRESSIONS = {
+			"execution(* org.springframework.aop.support.AopUtilsBenchmark.OrderService.*(..))",
+			"execution(* org.springframework.aop.support.AopUtilsBenchmark.*Repository.find*(..))",
+			"execution(public * *(..)) && within(org.springframework.aop.support.AopUtilsBenchmark.*Service)",
+			"execution(* *..*Repository.save(..)) && args(entity)",
+			"execution(* *..InventoryService.reserve(String, int))",
+			"within(org.springframework.aop.support.AopUtilsBenchmark.CustomerRepository)",
+			"execution(* org.springframework.aop.support.AopUtilsBenchmark.*.*(String))",
+			"execution(void *..*Service.cancel*(..))"
+	};
+
+	private static final Class<?>[] BEAN_CLASSES = {
+			OrderService.class, InventoryService.class, CustomerRepository.class,
+			OrderRepository.class, PlainComponent.class, StringBuilder.class
+	};
+
+
+	@Benchmark
+	public void findAdvisorsThatCanApply(BenchmarkState state, Blackhole bh) {
+		List<Advisor> advisors = state.createAdvisors();
+		for (Class<?> beanClass : BEAN_CLASSES) {
+			bh.consume(AopUtils.findAdvisorsThatCanApply(advisors, beanClass));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param("40")
+		public int advisorCount;
+
+		List<Advisor> createAdvisors() {
+			List<Advisor> advisors = new ArrayList<>(this.advisorCount);
+			for (int i = 0; i < this.advisorCount; i++) {
+				String expression = EXPRESSIONS[i % EXPRESSIONS.length];
+				AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+				pointcut.setExpression(expression);
+				if (expression.contains("args(entity)")) {
+					pointcut.setParameterNames("entity");
+					pointcut.setParameterTypes(Object.class);
+				}
+				advisors.add(new DefaultPointcutAdvisor(pointcut, ExposeInvocationInterceptor.INSTANCE));
+			}
+			return advisors;
+		}
+	}
+
+
+	public static class OrderService {
+
+		public void placeOrder(String item) {
+		}
+
+		public void cancelOrder(String id) {
+		}
+
+		public int countOrders() {
+			return 0;
+		}
+	}
+
+
+	public static class InventoryService {
+
+		public void reserve(String item, int quantity) {
+		}
+
+		public void release(String item) {
+		}
+	}
+
+
+	public static class CustomerRepository {
+
+		public Object findById(String id) {
+			return id;
+		}
+
+		public void save(Object entity) {
+		}
+	}
+
+
+	public static class OrderRepository {
+
+		public Object findAll() {
+			return null;
+		}
+
+		public void save(Object entity) {
+		}
+
+		public void delete(Object entity) {
+		}
+	}
+
+
+	public static class PlainComponent {
+
+		public void run() {
+		}
+
+		public String describe(String prefix) {
+			return prefix;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,9 +21,11 @@ import java.io.ObjectInputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.aopalliance.intercept.MethodInvocation;
@@ -103,6 +105,14 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
 	private static final Log logger = LogFactory.getLog(AspectJExpressionPointcut.class);
 
+	/**
+	 * Parsed expressions and match caches shared between the pointcut instances
+	 * of a bean factory, weakly keyed by the bean factory so that they go away
+	 * along with it.
+	 */
+	private static final Map<BeanFactory, SharedExpressions> sharedExpressionsByBeanFactory =
+			Collections.synchronizedMap(new WeakHashMap<>(4));
+
 	@Nullable
 	private Class<?> pointcutDeclarationScope;
 
@@ -121,6 +131,19 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
 	private transient Map<Method, ShadowMatch> shadowMatchCache = new ConcurrentHashMap<>(32);
 
+	/**
+	 * Shadow matches per method and target class, sparing the most specific
+	 * method lookup for repeated checks against the same target class.
+	 */
+	private transient Map<Class<?>, Map<Method, ShadowMatch>> targetShadowMatchCache = new ConcurrentHashMap<>(32);
+
+	/**
+	 * Class filter results, or {@code null} if these depend on the bean
+	 * being proxied (i.e. the expression uses the {@code bean()} designator).
+	 */
+	@Nullable
+	private transient Map<Class<?>, Boolean> classMatchCache;
+
 
 	/**
 	 * Create a new default AspectJExpressionPointcut.
@@ -194,12 +217,69 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 			throw new IllegalStateException("Must set property 'expression' before attempting to match");
 		}
 		if (this.pointcutExpression == null) {
-			this.pointcutClassLoader = determinePointcutClassLoader();
-			this.pointcutExpression = buildPointcutExpression(this.pointcutClassLoader);
+			ClassLoader classLoader = determinePointcutClassLoader();
+			SharedExpression shared = obtainSharedExpression(classLoader);
+			this.pointcutClassLoader = classLoader;
+			this.shadowMatchCache = shared.shadowMatchCache;
+			this.targetShadowMatchCache = shared.targetShadowMatchCache;
+			this.classMatchCache = shared.classMatchCache;
+			this.pointcutExpression = shared.pointcutExpression;
 		}
 		return this.pointcutExpression;
 	}
 
+	/**
+	 * Obtain the parsed expression and match caches for this pointcut's configuration,
+	 * parsing the expression only if no equivalent pointcut in the same bean factory
+	 * has done so before. Expressions using the {@code bean()} designator are not
+	 * shared, since their matcher refers to this pointcut.
+	 */
+	private SharedExpression obtainSharedExpression(@Nullable ClassLoader classLoader) {
+		String expression = resolveExpression();
+		SharedExpressions sharedExpressions = getSharedExpressions();
+		if (sharedExpressions == null) {
+			return buildSharedExpression(expression, classLoader);
+		}
+		SharedExpressionKey key = new SharedExpressionKey(expression, this.pointcutDeclarationScope,
+				this.pointcutParameterNames, this.pointcutParameterTypes, classLoader);
+		SharedExpression shared = sharedExpressions.expressions.get(key);
+		if (shared == null) {
+			shared = buildSharedExpression(expression, classLoader);
+			if (shared.beanSpecific) {
+				// bean() 的匹配器引用当前切点及其 BeanFactory, 不放入以 BeanFactory 为弱引用键的缓存
+				return shared;
+			}
+			SharedExpression existing = sharedExpressions.expressions.putIfAbsent(key, shared);
+			if (existing != null) {
+				shared = existing;
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * Return the shared expressions of this pointcut's bean factory.
+	 * <p>These are kept outside of the bean factory's singleton registry, so
+	 * pointcut matching does not register internal objects with the factory.
+	 * @return the shared expressions, or {@code null} if this pointcut is not
+	 * running in a {@link BeanFactory}
+	 */
+	@Nullable
+	private SharedExpressions getSharedExpressions() {
+		if (this.beanFactory == null) {
+			return null;
+		}
+		return sharedExpressionsByBeanFactory.computeIfAbsent(this.beanFactory, bf -> new SharedExpressions());
+	}
+
+	private SharedExpression buildSharedExpression(String expression, @Nullable ClassLoader classLoader) {
+		BeanPointcutDesignatorHandler beanDesignatorHandler = new BeanPointcutDesignatorHandler();
+		PointcutExpression pointcutExpression = buildPointcutExpression(classLoader, beanDesignatorHandler);
+		// bean() 的匹配结果取决于当前创建代理的 bean, 此时不缓存类级别的匹配结果
+		boolean beanSpecific = (beanDesignatorHandler.used || expression.contains("bean("));
+		return new SharedExpression(pointcutExpression, beanSpecific);
+	}
+
 	/**
 	 * Determine the ClassLoader to use for pointcut evaluation.
 	 */
@@ -218,7 +298,17 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	 * Build the underlying AspectJ pointcut expression.
 	 */
 	private PointcutExpression buildPointcutExpression(@Nullable ClassLoader classLoader) {
-		PointcutParser parser = initializePointcutParser(classLoader);
+		return buildPointcutExpression(classLoader, new BeanPointcutDesignatorHandler());
+	}
+
+	/**
+	 * Build the underlying AspectJ pointcut expression, using the given handler
+	 * for the {@code bean()} designator.
+	 */
+	private PointcutExpression buildPointcutExpression(
+			@Nullable ClassLoader classLoader, BeanPointcutDesignatorHandler beanDesignatorHandler) {
+
+		PointcutParser parser = initializePointcutParser(classLoader, beanDesignatorHandler);
 		PointcutParameter[] pointcutParameters = new PointcutParameter[this.pointcutParameterNames.length];
 		for (int i = 0; i < pointcutParameters.length; i++) {
 			pointcutParameters[i] = parser.createPointcutParameter(
@@ -237,11 +327,13 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	/**
 	 * Initialize the underlying AspectJ pointcut parser.
 	 */
-	private PointcutParser initializePointcutParser(@Nullable ClassLoader classLoader) {
+	private PointcutParser initializePointcutParser(
+			@Nullable ClassLoader classLoader, BeanPointcutDesignatorHandler beanDesignatorHandler) {
+
 		PointcutParser parser = PointcutParser
 				.getPointcutParserSupportingSpecifiedPrimitivesAndUsingSpecifiedClassLoaderForResolution(
 						SUPPORTED_PRIMITIVES, classLoader);
-		parser.registerPointcutDesignatorHandler(new BeanPointcutDesignatorHandler());
+		parser.registerPointcutDesignatorHandler(beanDesignatorHandler);
 		return parser;
 	}
 
@@ -270,6 +362,19 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	@Override
 	public boolean matches(Class<?> targetClass) {
 		PointcutExpression pointcutExpression = obtainPointcutExpression();
+		Map<Class<?>, Boolean> classMatchCache = this.classMatchCache;
+		if (classMatchCache == null) {
+			return couldMatchJoinPointsInType(pointcutExpression, targetClass);
+		}
+		Boolean match = classMatchCache.get(targetClass);
+		if (match == null) {
+			match = couldMatchJoinPointsInType(pointcutExpression, targetClass);
+			classMatchCache.put(targetClass, match);
+		}
+		return match;
+	}
+
+	private boolean couldMatchJoinPointsInType(PointcutExpression pointcutExpression, Class<?> targetClass) {
 		try {
 			try {
 				return pointcutExpression.couldMatchJoinPointsInType(targetClass);
@@ -425,7 +530,26 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		invocation.setUserAttribute(resolveExpression(), jpm);
 	}
 
-	private ShadowMatch getTargetShadowMatch(Method method, Class<?> targetClass) {
+	private ShadowMatch getTargetShadowMatch(Method method, @Nullable Class<?> targetClass) {
+		obtainPointcutExpression();
+		if (targetClass == null) {
+			return determineTargetShadowMatch(method, null);
+		}
+		// 按目标类分组缓存方法匹配结果
+		Map<Method, ShadowMatch> shadowMatches = this.targetShadowMatchCache.get(targetClass);
+		if (shadowMatches == null) {
+			shadowMatches = this.targetShadowMatchCache.computeIfAbsent(
+					targetClass, key -> new ConcurrentHashMap<>(16));
+		}
+		ShadowMatch shadowMatch = shadowMatches.get(method);
+		if (shadowMatch == null) {
+			shadowMatch = determineTargetShadowMatch(method, targetClass);
+			shadowMatches.put(method, shadowMatch);
+		}
+		return shadowMatch;
+	}
+
+	private ShadowMatch determineTargetShadowMatch(Method method, @Nullable Class<?> targetClass) {
 		Method targetMethod = AopUtils.getMostSpecificMethod(method, targetClass);
 		if (targetMethod.getDeclaringClass().isInterface()) {
 			// Try to build the most specific interface possible for inherited methods to be
@@ -448,6 +572,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	}
 
 	private ShadowMatch getShadowMatch(Method targetMethod, Method originalMethod) {
+		obtainPointcutExpression();
 		// Avoid lock contention for known Methods through concurrent access...
 		ShadowMatch shadowMatch = this.shadowMatchCache.get(targetMethod);
 		if (shadowMatch == null) {
@@ -574,6 +699,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		// Initialize transient fields.
 		// pointcutExpression will be initialized lazily by checkReadyToMatch()
 		this.shadowMatchCache = new ConcurrentHashMap<>(32);
+		this.targetShadowMatchCache = new ConcurrentHashMap<>(32);
 	}
 
 
@@ -589,6 +715,11 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
 		private static final String BEAN_DESIGNATOR_NAME = "bean";
 
+		/**
+		 * 解析的表达式 (包括引用的命名切点) 是否使用了 bean() 指示符
+		 */
+		volatile boolean used;
+
 		@Override
 		public String getDesignatorName() {
 			return BEAN_DESIGNATOR_NAME;
@@ -596,6 +727,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
 		@Override
 		public ContextBasedMatcher parse(String expression) {
+			this.used = true;
 			return new BeanContextMatcher(expression);
 		}
 	}
@@ -715,4 +847,95 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		}
 	}
 
+
+	/**
+	 * Parsed expressions and match caches of the pointcuts in a bean factory.
+	 */
+	private static final class SharedExpressions {
+
+		final Map<SharedExpressionKey, SharedExpression> expressions = new ConcurrentHashMap<>(64);
+	}
+
+
+	/**
+	 * Cache key for {@link SharedExpression} instances.
+	 */
+	private static final class SharedExpressionKey {
+
+		private final String expression;
+
+		@Nullable
+		private final Class<?> pointcutDeclarationScope;
+
+		private final String[] pointcutParameterNames;
+
+		private final Class<?>[] pointcutParameterTypes;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		private final int hashCode;
+
+		SharedExpressionKey(String expression, @Nullable Class<?> pointcutDeclarationScope,
+				String[] pointcutParameterNames, Class<?>[] pointcutParameterTypes,
+				@Nullable ClassLoader classLoader) {
+
+			this.expression = expression;
+			this.pointcutDeclarationScope = pointcutDeclarationScope;
+			this.pointcutParameterNames = pointcutParameterNames.clone();
+			this.pointcutParameterTypes = pointcutParameterTypes.clone();
+			this.classLoader = classLoader;
+			int hashCode = expression.hashCode();
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(pointcutDeclarationScope);
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(this.pointcutParameterNames);
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(this.pointcutParameterTypes);
+			this.hashCode = hashCode;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof SharedExpressionKey)) {
+				return false;
+			}
+			SharedExpressionKey otherKey = (SharedExpressionKey) other;
+			return (this.expression.equals(otherKey.expression) &&
+					this.pointcutDeclarationScope == otherKey.pointcutDeclarationScope &&
+					this.classLoader == otherKey.classLoader &&
+					Arrays.equals(this.pointcutParameterNames, otherKey.pointcutParameterNames) &&
+					Arrays.equals(this.pointcutParameterTypes, otherKey.pointcutParameterTypes));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+
+	/**
+	 * A parsed pointcut expression along with its match caches.
+	 */
+	private static final class SharedExpression {
+
+		final PointcutExpression pointcutExpression;
+
+		final Map<Method, ShadowMatch> shadowMatchCache = new ConcurrentHashMap<>(32);
+
+		final Map<Class<?>, Map<Method, ShadowMatch>> targetShadowMatchCache = new ConcurrentHashMap<>(32);
+
+		@Nullable
+		final Map<Class<?>, Boolean> classMatchCache;
+
+		final boolean beanSpecific;
+
+		SharedExpression(PointcutExpression pointcutExpression, boolean beanSpecific) {
+			this.pointcutExpression = pointcutExpression;
+			this.classMatchCache = (beanSpecific ? null : new ConcurrentHashMap<>(32));
+			this.beanSpecific = beanSpecific;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,7 +20,9 @@ import java.io.Serializable;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
@@ -79,6 +81,17 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 	/** We use a static Log to avoid serialization issues. */
 	private static final Log logger = LogFactory.getLog(JdkDynamicAopProxy.class);
 
+	/**
+	 * {@link Advised} and its super-interfaces, whose methods are dispatched to
+	 * the proxy configuration: cheaper to check per invocation than
+	 * {@link Class#isAssignableFrom} for an arbitrary interface.
+	 */
+	private static final Set<Class<?>> advisedInterfaces = new HashSet<>();
+
+	static {
+		addInterfaceHierarchy(Advised.class, advisedInterfaces);
+	}
+
 	/** Config used to configure this proxy. */
 	private final AdvisedSupport advised;
 
@@ -175,8 +188,7 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 				// There is only getDecoratedClass() declared -> dispatch to proxy config.
 				return AopProxyUtils.ultimateTargetClass(this.advised);
 			}
-			else if (!this.advised.opaque && method.getDeclaringClass().isInterface() &&
-					method.getDeclaringClass().isAssignableFrom(Advised.class)) {
+			else if (!this.advised.opaque && advisedInterfaces.contains(method.getDeclaringClass())) {
 				// Service invocations on ProxyConfig with the proxy config...
 				return AopUtils.invokeJoinpointUsingReflection(this.advised, method, args);
 			}
@@ -293,4 +305,13 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 		return JdkDynamicAopProxy.class.hashCode() * 13 + this.advised.getTargetSource().hashCode();
 	}
 
+
+	private static void addInterfaceHierarchy(Class<?> ifc, Set<Class<?>> interfaces) {
+		if (interfaces.add(ifc)) {
+			for (Class<?> superIfc : ifc.getInterfaces()) {
+				addInterfaceHierarchy(superIfc, interfaces);
+			}
+		}
+	}
+
 }
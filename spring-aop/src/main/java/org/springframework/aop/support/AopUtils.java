@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,8 +21,10 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.springframework.aop.Advisor;
 import org.springframework.aop.AopInvocationException;
@@ -38,6 +40,7 @@ import org.springframework.core.MethodIntrospector;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReadMostlyConcurrentReferenceHashMap;
 import org.springframework.util.ReflectionUtils;
 
 /**
@@ -56,6 +59,14 @@ import org.springframework.util.ReflectionUtils;
  */
 public abstract class AopUtils {
 
+	/**
+	 * Cache of the candidate methods per target class, checked against every
+	 * advisor's method matcher in {@link #canApply(Pointcut, Class, boolean)}.
+	 */
+	private static final Map<Class<?>, Method[]> candidateMethodsCache =
+			new ReadMostlyConcurrentReferenceHashMap<>(256);
+
+
 	/**
 	 * Check whether the given object is a JDK dynamic proxy or a CGLIB proxy.
 	 * <p>This method additionally checks if the given object is an instance
@@ -252,27 +263,46 @@ public abstract class AopUtils {
 			introductionAwareMethodMatcher = (IntroductionAwareMethodMatcher) methodMatcher;
 		}
 
-		Set<Class<?>> classes = new LinkedHashSet<>();
-		if (!Proxy.isProxyClass(targetClass)) {
-			classes.add(ClassUtils.getUserClass(targetClass));
-		}
-		classes.addAll(ClassUtils.getAllInterfacesForClassAsSet(targetClass));
-
-		for (Class<?> clazz : classes) {
-			Method[] methods = ReflectionUtils.getAllDeclaredMethods(clazz);
-			for (Method method : methods) {
-				if (introductionAwareMethodMatcher != null ?
-						introductionAwareMethodMatcher
-								.matches(method, targetClass, hasIntroductions) :
-						methodMatcher.matches(method, targetClass)) {
-					return true;
-				}
+		for (Method method : getCandidateMethods(targetClass)) {
+			if (introductionAwareMethodMatcher != null ?
+					introductionAwareMethodMatcher
+							.matches(method, targetClass, hasIntroductions) :
+					methodMatcher.matches(method, targetClass)) {
+				return true;
 			}
 		}
 
 		return false;
 	}
 
+	/**
+	 * Return the methods to check a method matcher against for the given target class:
+	 * all methods declared on the user class, its superclasses and its interfaces.
+	 * <p>Cached per target class, since every advisor gets checked against the same
+	 * methods when determining the advisors for a bean.
+	 * @param targetClass the class to test
+	 * @return the candidate methods (not to be modified)
+	 * @since 5.3
+	 */
+	private static Method[] getCandidateMethods(Class<?> targetClass) {
+		Method[] candidateMethods = candidateMethodsCache.get(targetClass);
+		if (candidateMethods == null) {
+			Set<Class<?>> classes = new LinkedHashSet<>();
+			if (!Proxy.isProxyClass(targetClass)) {
+				classes.add(ClassUtils.getUserClass(targetClass));
+			}
+			classes.addAll(ClassUtils.getAllInterfacesForClassAsSet(targetClass));
+
+			List<Method> methods = new ArrayList<>();
+			for (Class<?> clazz : classes) {
+				Collections.addAll(methods, ReflectionUtils.getAllDeclaredMethods(clazz));
+			}
+			candidateMethods = methods.toArray(new Method[0]);
+			candidateMethodsCache.put(targetClass, candidateMethods);
+		}
+		return candidateMethods;
+	}
+
 	/**
 	 * Can the given advisor apply at all on the given class? This is an important test as it can be
 	 * used to optimize out a advisor for a class.
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.target;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.support.AbstractBeanFactory;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link org.springframework.aop.TargetSource} implementation for scoped beans,
+ * obtaining the current target instance from its containing
+ * {@link org.springframework.beans.factory.BeanFactory} through a factory
+ * that caches the resolved bean definition and scope of the target bean.
+ *
+ * <p>Equivalent to {@link SimpleBeanTargetSource}, but saves the bean name
+ * transformation and bean definition lookup of a full {@code getBean} call
+ * on every method invocation on a scoped proxy.
+ *
+ * @since 5.3
+ * @see AbstractBeanFactory#getScopedTargetFactory
+ * @see org.springframework.aop.scope.ScopedProxyFactoryBean
+ */
+@SuppressWarnings("serial")
+public class ScopedBeanTargetSource extends SimpleBeanTargetSource {
+
+	@Nullable
+	private transient volatile ObjectFactory<?> targetFactory;
+
+
+	@Override
+	public void setTargetBeanName(String targetBeanName) {
+		super.setTargetBeanName(targetBeanName);
+		this.targetFactory = null;
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		super.setBeanFactory(beanFactory);
+		this.targetFactory = null;
+	}
+
+	@Override
+	public Object getTarget() throws Exception {
+		ObjectFactory<?> targetFactory = this.targetFactory;
+		if (targetFactory == null) {
+			BeanFactory beanFactory = getBeanFactory();
+			String targetBeanName = getTargetBeanName();
+			targetFactory = (beanFactory instanceof AbstractBeanFactory ?
+					((AbstractBeanFactory) beanFactory).getScopedTargetFactory(targetBeanName) :
+					() -> beanFactory.getBean(targetBeanName));
+			this.targetFactory = targetFactory;
+		}
+		return targetFactory.getObject();
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,8 @@ import org.springframework.aop.MethodMatcher;
 import org.springframework.aop.Pointcut;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.testfixture.beans.IOther;
 import org.springframework.beans.testfixture.beans.ITestBean;
 import org.springframework.beans.testfixture.beans.TestBean;
@@ -284,12 +286,64 @@ public class AspectJExpressionPointcutTests {
 		assertThat(expr.getPointcutExpression()).isEqualTo("execution(* *(..)) && args(String) && this(Object)");
 	}
 
+	@Test
+	public void testEquivalentPointcutsShareParsedExpression() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		String expression = "execution(int org.springframework.beans.testfixture.beans.TestBean.getAge())";
+		AspectJExpressionPointcut pc1 = getPointcut(expression, beanFactory);
+		AspectJExpressionPointcut pc2 = getPointcut(expression, beanFactory);
+		AspectJExpressionPointcut other = getPointcut(MATCH_ALL_METHODS, beanFactory);
+		AspectJExpressionPointcut intArg = getPointcut("execution(* *(..)) && args(arg)", beanFactory);
+		intArg.setParameterNames("arg");
+		intArg.setParameterTypes(int.class);
+		AspectJExpressionPointcut numberArg = getPointcut("execution(* *(..)) && args(arg)", beanFactory);
+		numberArg.setParameterNames("arg");
+		numberArg.setParameterTypes(Number.class);
+
+		assertThat(pc1.getPointcutExpression()).isSameAs(pc2.getPointcutExpression());
+		assertThat(other.getPointcutExpression()).isNotSameAs(pc1.getPointcutExpression());
+		assertThat(intArg.getPointcutExpression()).isNotSameAs(numberArg.getPointcutExpression());
+		assertThat(intArg.matches(setAge, TestBean.class)).isTrue();
+		assertThat(intArg.matches(setSomeNumber, TestBean.class)).isFalse();
+		assertThat(numberArg.matches(setSomeNumber, TestBean.class)).isTrue();
+
+		assertThat(pc1.matches(TestBean.class)).isTrue();
+		assertThat(pc2.matches(TestBean.class)).isTrue();
+		assertThat(pc2.matches(OtherIOther.class)).isFalse();
+		assertThat(pc1.matches(getAge, TestBean.class)).isTrue();
+		assertThat(pc2.matches(getAge, TestBean.class)).isTrue();
+		assertThat(pc2.matches(setAge, TestBean.class)).isFalse();
+	}
+
+	@Test
+	public void testParsedExpressionSharedPerBeanFactory() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		PointcutExpression expression = getPointcut(MATCH_ALL_METHODS, beanFactory).getPointcutExpression();
+
+		assertThat(getPointcut(MATCH_ALL_METHODS, beanFactory).getPointcutExpression()).isSameAs(expression);
+		assertThat(getPointcut(MATCH_ALL_METHODS, new DefaultListableBeanFactory()).getPointcutExpression())
+				.isNotSameAs(expression);
+		assertThat(((AspectJExpressionPointcut) getPointcut(MATCH_ALL_METHODS)).getPointcutExpression())
+				.isNotSameAs(((AspectJExpressionPointcut) getPointcut(MATCH_ALL_METHODS)).getPointcutExpression());
+
+		assertThat(beanFactory.getSingletonNames()).isEmpty();
+		assertThat(getPointcut("bean(tb*)", beanFactory).getPointcutExpression())
+				.isNotSameAs(getPointcut("bean(tb*)", beanFactory).getPointcutExpression());
+	}
+
 	private Pointcut getPointcut(String expression) {
 		AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
 		pointcut.setExpression(expression);
 		return pointcut;
 	}
 
+	private AspectJExpressionPointcut getPointcut(String expression, BeanFactory beanFactory) {
+		AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+		pointcut.setExpression(expression);
+		pointcut.setBeanFactory(beanFactory);
+		return pointcut;
+	}
+
 
 	public static class OtherIOther implements IOther {
 
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.target;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.Scope;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.beans.testfixture.beans.DerivedTestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link ScopedBeanTargetSource}.
+ *
+ * @since 5.3
+ */
+class ScopedBeanTargetSourceTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private final MapScope scope = new MapScope();
+
+	private final ScopedBeanTargetSource targetSource = new ScopedBeanTargetSource();
+
+
+	@BeforeEach
+	void setup() {
+		this.beanFactory.registerScope("custom", this.scope);
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope("custom");
+		this.beanFactory.registerBeanDefinition("scoped", bd);
+		this.beanFactory.registerAlias("scoped", "alias");
+		this.targetSource.setTargetBeanName("alias");
+		this.targetSource.setBeanFactory(this.beanFactory);
+	}
+
+
+	@Test
+	void targetFromScope() throws Exception {
+		Object target = this.targetSource.getTarget();
+		assertThat(target).isInstanceOf(TestBean.class).isSameAs(this.beanFactory.getBean("scoped"));
+		assertThat(this.targetSource.getTarget()).isSameAs(target);
+
+		this.scope.objects.clear();
+		assertThat(this.targetSource.getTarget()).isNotSameAs(target);
+	}
+
+	@Test
+	void targetAfterBeanDefinitionOverride() throws Exception {
+		assertThat(this.targetSource.getTarget()).isExactlyInstanceOf(TestBean.class);
+
+		RootBeanDefinition bd = new RootBeanDefinition(DerivedTestBean.class);
+		bd.setScope("custom");
+		this.beanFactory.registerBeanDefinition("scoped", bd);
+		this.scope.objects.clear();
+		assertThat(this.targetSource.getTarget()).isExactlyInstanceOf(DerivedTestBean.class);
+
+		this.beanFactory.registerBeanDefinition("scoped", new RootBeanDefinition(TestBean.class));
+		Object singleton = this.targetSource.getTarget();
+		assertThat(singleton).isSameAs(this.beanFactory.getBean("scoped"));
+		assertThat(this.scope.objects.get("scoped")).isNotSameAs(singleton);
+	}
+
+	@Test
+	void targetAfterScopeRegistration() throws Exception {
+		Object target = this.targetSource.getTarget();
+
+		MapScope newScope = new MapScope();
+		this.beanFactory.registerScope("custom", newScope);
+		assertThat(this.targetSource.getTarget()).isNotSameAs(target).isSameAs(newScope.objects.get("scoped"));
+	}
+
+	@Test
+	void inactiveScope() {
+		this.scope.active = false;
+		assertThatExceptionOfType(BeanCreationException.class)
+				.isThrownBy(this.targetSource::getTarget)
+				.withMessageContaining("Scope 'custom' is not active")
+				.withCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void prototypeTarget() throws Exception {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition("prototype", bd);
+		this.targetSource.setTargetBeanName("prototype");
+
+		assertThat(this.targetSource.getTarget()).isNotSameAs(this.targetSource.getTarget());
+	}
+
+
+	private static class MapScope implements Scope {
+
+		final Map<String, Object> objects = new HashMap<>();
+
+		boolean active = true;
+
+		@Override
+		public Object get(String name, ObjectFactory<?> objectFactory) {
+			if (!this.active) {
+				throw new IllegalStateException("Not active");
+			}
+			return this.objects.computeIfAbsent(name, key -> objectFactory.getObject());
+		}
+
+		@Override
+		public Object remove(String name) {
+			return this.objects.remove(name);
+		}
+
+		@Override
+		public void registerDestructionCallback(String name, Runnable callback) {
+		}
+
+		@Override
+		public Object resolveContextualObject(String key) {
+			return null;
+		}
+
+		@Override
+		public String getConversationId() {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for property access through {@link BeanWrapperImpl}, including
+ * type conversion, nested paths and indexed collections.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanWrapperBenchmark {
+
+	@Benchmark
+	public Object newBeanWrapper(BenchmarkState state) {
+		return new BeanWrapperImpl(state.target).getPropertyValue("name");
+	}
+
+	@Benchmark
+	public Object simpleProperty(BenchmarkState state) {
+		state.beanWrapper.setPropertyValue("name", "value");
+		return state.beanWrapper.getPropertyValue("name");
+	}
+
+	@Benchmark
+	public Object convertedProperty(BenchmarkState state) {
+		state.beanWrapper.setPropertyValue("age", "42");
+		return state.beanWrapper.getPropertyValue("age");
+	}
+
+	@Benchmark
+	public Object nestedProperty(BenchmarkState state) {
+		state.beanWrapper.setPropertyValue("spouse.name", "nested");
+		return state.beanWrapper.getPropertyValue("spouse.name");
+	}
+
+	@Benchmark
+	public Object indexedProperty(BenchmarkState state) {
+		state.beanWrapper.setPropertyValue("numbers[1]", "7");
+		return state.beanWrapper.getPropertyValue("numbers[1]");
+	}
+
+	@Benchmark
+	public Object propertyValues(BenchmarkState state) {
+		state.beanWrapper.setPropertyValues(state.propertyValues);
+		return state.target;
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		Person target;
+
+		BeanWrapper beanWrapper;
+
+		MutablePropertyValues propertyValues;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.target = new Person();
+			this.target.setSpouse(new Person());
+			this.target.getNumbers().add(1);
+			this.target.getNumbers().add(2);
+			this.beanWrapper = new BeanWrapperImpl(this.target);
+			this.propertyValues = new MutablePropertyValues();
+			this.propertyValues.add("name", "name");
+			this.propertyValues.add("age", "21");
+			this.propertyValues.add("spouse.age", 22);
+		}
+	}
+
+
+	public static class Person {
+
+		private String name;
+
+		private int age;
+
+		private Person spouse;
+
+		private List<Integer> numbers = new ArrayList<>();
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public Person getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(Person spouse) {
+			this.spouse = spouse;
+		}
+
+		public List<Integer> getNumbers() {
+			return this.numbers;
+		}
+
+		public void setNumbers(List<Integer> numbers) {
+			this.numbers = numbers;
+		}
+	}
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.ResolvableType;
+
+/**
+ * Benchmarks for the hot paths of {@link DefaultListableBeanFactory}:
+ * prototype and scoped bean creation through {@code doGetBean},
+ * annotation-driven injection and type-based bean name lookups.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@Benchmark
+	public Object prototypeWithPropertyValues(BeanCreationState state) {
+		return state.beanFactory.getBean("prototype");
+	}
+
+	@Benchmark
+	public Object prototypeWithAutowiring(BeanCreationState state) {
+		return state.beanFactory.getBean("autowiredPrototype");
+	}
+
+	@Benchmark
+	public Object scopedWithAutowiring(BeanCreationState state) {
+		// 每次调用模拟一个新的请求, 作用域内总是新建实例
+		state.scope.objects.clear();
+		return state.beanFactory.getBean("scoped");
+	}
+
+	@Benchmark
+	public Object singletonLookup(BeanCreationState state) {
+		return state.beanFactory.getBean("singleton");
+	}
+
+	@Benchmark
+	public void beanNamesForType(BeanNamesState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBeanNamesForType(Service.class));
+		bh.consume(state.beanFactory.getBeanNamesForType(state.genericType));
+	}
+
+	@Benchmark
+	public Object beansOfType(BeanNamesState state) {
+		return state.beanFactory.getBeansOfType(Repository.class);
+	}
+
+
+	@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+	public static class BeanCreationState {
+
+		DefaultListableBeanFactory beanFactory;
+
+		MapScope scope;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+			bpp.setBeanFactory(this.beanFactory);
+			this.beanFactory.addBeanPostProcessor(bpp);
+			this.scope = new MapScope();
+			this.beanFactory.registerScope("request", this.scope);
+
+			this.beanFactory.registerBeanDefinition("singleton", new RootBeanDefinition(Service.class));
+			this.beanFactory.registerBeanDefinition("repository", new RootBeanDefinition(Repository.class));
+
+			RootBeanDefinition prototype = new RootBeanDefinition(Service.class);
+			prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			prototype.setAutowireCandidate(false);
+			prototype.getPropertyValues().add("name", "prototype");
+			prototype.getPropertyValues().add("age", "42");
+			prototype.getPropertyValues().add("repository", new RuntimeBeanReference("repository"));
+			this.beanFactory.registerBeanDefinition("prototype", prototype);
+
+			RootBeanDefinition autowiredPrototype = new RootBeanDefinition(AutowiredService.class);
+			autowiredPrototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			this.beanFactory.registerBeanDefinition("autowiredPrototype", autowiredPrototype);
+
+			RootBeanDefinition scoped = new RootBeanDefinition(AutowiredService.class);
+			scoped.setScope("request");
+			this.beanFactory.registerBeanDefinition("scoped", scoped);
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+	public static class BeanNamesState {
+
+		@Param({"100", "1000"})
+		public int beanCount;
+
+		@Param({"true", "false"})
+		public boolean frozen;
+
+		DefaultListableBeanFactory beanFactory;
+
+		ResolvableType genericType = ResolvableType.forClassWithGenerics(GenericHolder.class, Repository.class);
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			for (int i = 0; i < this.beanCount; i++) {
+				Class<?> beanClass = (i % 10 == 0 ? Repository.class : (i % 10 == 1 ? RepositoryHolder.class : Service.class));
+				this.beanFactory.registerBeanDefinition("bean" + i, new RootBeanDefinition(beanClass));
+			}
+			this.beanFactory.preInstantiateSingletons();
+			if (this.frozen) {
+				this.beanFactory.freezeConfiguration();
+			}
+		}
+	}
+
+
+	public static class Repository {
+	}
+
+
+	public static class GenericHolder<T> {
+	}
+
+
+	public static class RepositoryHolder extends GenericHolder<Repository> {
+	}
+
+
+	public static class Service {
+
+		private String name;
+
+		private int age;
+
+		private Repository repository;
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setRepository(Repository repository) {
+			this.repository = repository;
+		}
+
+		public Repository getRepository() {
+			return this.repository;
+		}
+	}
+
+
+	public static class AutowiredService {
+
+		@Autowired
+		private Repository repository;
+
+		private Service service;
+
+		@Autowired
+		public void setService(Service service) {
+			this.service = service;
+		}
+
+		public Repository getRepository() {
+			return this.repository;
+		}
+
+		public Service getService() {
+			return this.service;
+		}
+	}
+
+
+	/**
+	 * Minimal {@link org.springframework.beans.factory.config.Scope} holding
+	 * objects in a map, similar to a request scope.
+	 */
+	static class MapScope implements org.springframework.beans.factory.config.Scope {
+
+		final Map<String, Object> objects = new HashMap<>();
+
+		@Override
+		public Object get(String name, ObjectFactory<?> objectFactory) {
+			return this.objects.computeIfAbsent(name, key -> objectFactory.getObject());
+		}
+
+		@Override
+		public Object remove(String name) {
+			return this.objects.remove(name);
+		}
+
+		@Override
+		public void registerDestructionCallback(String name, Runnable callback) {
+		}
+
+		@Override
+		public Object resolveContextualObject(String key) {
+			return null;
+		}
+
+		@Override
+		public String getConversationId() {
+			return null;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.CollectionFactory;
 import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.core.convert.ConversionPlan;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.lang.Nullable;
@@ -144,11 +145,12 @@ class TypeConverterDelegate {
 		if (editor == null && conversionService != null && newValue != null && typeDescriptor != null) {
 			// 新对象的类型描述创建
 			TypeDescriptor sourceTypeDesc = TypeDescriptor.forObject(newValue);
-			// 判断是否可以进行转换
-			if (conversionService.canConvert(sourceTypeDesc, typeDescriptor)) {
+			// 获取转换计划, 为空表示无法转换
+			ConversionPlan conversionPlan = conversionService.getConversionPlan(sourceTypeDesc, typeDescriptor);
+			if (conversionPlan != null) {
 				try {
-					// 通过转换服务直接进行转换
-					return (T) conversionService.convert(newValue, sourceTypeDesc, typeDescriptor);
+					// 通过转换计划直接进行转换
+					return (T) conversionPlan.convert(newValue);
 				}
 				catch (ConversionFailedException ex) {
 					// fallback to default conversion logic below
@@ -279,8 +281,9 @@ class TypeConverterDelegate {
 					// ConversionService not tried before, probably custom editor found
 					// but editor couldn't produce the required type...
 					TypeDescriptor sourceTypeDesc = TypeDescriptor.forObject(newValue);
-					if (conversionService.canConvert(sourceTypeDesc, typeDescriptor)) {
-						return (T) conversionService.convert(newValue, sourceTypeDesc, typeDescriptor);
+					ConversionPlan conversionPlan = conversionService.getConversionPlan(sourceTypeDesc, typeDescriptor);
+					if (conversionPlan != null) {
+						return (T) conversionPlan.convert(newValue);
 					}
 				}
 
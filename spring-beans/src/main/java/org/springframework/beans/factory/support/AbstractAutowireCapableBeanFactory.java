@@ -76,6 +76,7 @@ import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.PriorityOrdered;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -481,7 +482,14 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
 		Object result = existingBean;
 		for (BeanPostProcessor processor : getBeanPostProcessors()) {
-			Object current = processor.postProcessBeforeInitialization(result, beanName);
+			StartupStep step = startPostProcessorStep(processor, beanName, "before-initialization");
+			Object current;
+			try {
+				current = processor.postProcessBeforeInitialization(result, beanName);
+			}
+			finally {
+				step.end();
+			}
 			if (current == null) {
 				return result;
 			}
@@ -507,7 +515,14 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		Object result = existingBean;
 		for (BeanPostProcessor processor : getBeanPostProcessors()) {
 			// 执行 spring 容器中 BeanPostProcessor
-			Object current = processor.postProcessAfterInitialization(result, beanName);
+			StartupStep step = startPostProcessorStep(processor, beanName, "after-initialization");
+			Object current;
+			try {
+				current = processor.postProcessAfterInitialization(result, beanName);
+			}
+			finally {
+				step.end();
+			}
 			if (current == null) {
 				return result;
 			}
@@ -516,6 +531,21 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		return result;
 	}
 
+	/**
+	 * Start a {@link StartupStep} recording the invocation of the given
+	 * {@link BeanPostProcessor} for the given bean.
+	 * @param processor the post-processor about to be invoked
+	 * @param beanName the name of the bean
+	 * @param phase the post-processing phase
+	 * @since 5.3
+	 */
+	private StartupStep startPostProcessorStep(BeanPostProcessor processor, String beanName, String phase) {
+		return getApplicationStartup().start("spring.beans.post-process")
+				.tag("postProcessor", processor.getClass().getName())
+				.tag("beanName", beanName)
+				.tag("phase", phase);
+	}
+
 	@Override
 	public void destroyBean(Object existingBean) {
 		new DisposableBeanAdapter(existingBean, getBeanPostProcessors(), getAccessControlContext()).destroy();
@@ -561,74 +591,85 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	protected Object createBean(String beanName, RootBeanDefinition mbd, @Nullable Object[] args)
 			throws BeanCreationException {
 
-		// 第一部分: 准备 BeanDefinition
-		if (logger.isTraceEnabled()) {
-			logger.trace("Creating instance of bean '" + beanName + "'");
-		}
-		// beanDefinition
-		RootBeanDefinition mbdToUse = mbd;
-
-		// Make sure bean class is actually resolved at this point, and
-		// clone the bean definition in case of a dynamically resolved Class
-		// which cannot be stored in the shared merged bean definition.
-		// 获取当前需要加载的类
-		Class<?> resolvedClass = resolveBeanClass(mbd, beanName);
-		// 1. 待处理的类不为空
-		// 2. bean定义中含有 beanClass
-		// 3. className 不为空
-		// 满足、上述三点的情况下会去创建 RootBeanDefinition
-		if (resolvedClass != null && !mbd.hasBeanClass() && mbd.getBeanClassName() != null) {
-			// 创建 beanDefinition
-			mbdToUse = new RootBeanDefinition(mbd);
-			// 设置bean class
-			mbdToUse.setBeanClass(resolvedClass);
-		}
-
-
-		// 第二部分：BeanDefition 中处理重写方法
-		// Prepare method overrides.
+		// 记录 bean 实例化步骤, 默认的 ApplicationStartup 不产生任何开销
+		StartupStep beanCreation = getApplicationStartup().start("spring.beans.instantiate")
+				.tag("beanName", beanName);
 		try {
-			// 方法重写
-			mbdToUse.prepareMethodOverrides();
-		}
-		catch (BeanDefinitionValidationException ex) {
-			throw new BeanDefinitionStoreException(mbdToUse.getResourceDescription(),
-					beanName, "Validation of method overrides failed", ex
-			);
-		}
+			// 第一部分: 准备 BeanDefinition
+			if (logger.isTraceEnabled()) {
+				logger.trace("Creating instance of bean '" + beanName + "'");
+			}
+			// beanDefinition
+			RootBeanDefinition mbdToUse = mbd;
 
-		// 第三部分：bean 创建之前的处理
-		try {
-			// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
-			// 创建bean之前的行为
-			Object bean = resolveBeforeInstantiation(beanName, mbdToUse);
-			if (bean != null) {
-				return bean;
+			// Make sure bean class is actually resolved at this point, and
+			// clone the bean definition in case of a dynamically resolved Class
+			// which cannot be stored in the shared merged bean definition.
+			// 获取当前需要加载的类
+			Class<?> resolvedClass = resolveBeanClass(mbd, beanName);
+			// 1. 待处理的类不为空
+			// 2. bean定义中含有 beanClass
+			// 3. className 不为空
+			// 满足、上述三点的情况下会去创建 RootBeanDefinition
+			if (resolvedClass != null && !mbd.hasBeanClass() && mbd.getBeanClassName() != null) {
+				// 创建 beanDefinition
+				mbdToUse = new RootBeanDefinition(mbd);
+				// 设置bean class
+				mbdToUse.setBeanClass(resolvedClass);
+			}
+			if (resolvedClass != null) {
+				beanCreation.tag("beanType", resolvedClass::getName);
 			}
-		}
-		catch (Throwable ex) {
-			throw new BeanCreationException(mbdToUse.getResourceDescription(), beanName,
-					"BeanPostProcessor before instantiation of bean failed", ex
-			);
-		}
 
-		// 第四部分
-		try {
-			// 创建bean
-			Object beanInstance = doCreateBean(beanName, mbdToUse, args);
-			if (logger.isTraceEnabled()) {
-				logger.trace("Finished creating instance of bean '" + beanName + "'");
+
+			// 第二部分：BeanDefition 中处理重写方法
+			// Prepare method overrides.
+			try {
+				// 方法重写
+				mbdToUse.prepareMethodOverrides();
+			}
+			catch (BeanDefinitionValidationException ex) {
+				throw new BeanDefinitionStoreException(mbdToUse.getResourceDescription(),
+						beanName, "Validation of method overrides failed", ex
+				);
+			}
+
+			// 第三部分：bean 创建之前的处理
+			try {
+				// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
+				// 创建bean之前的行为
+				Object bean = resolveBeforeInstantiation(beanName, mbdToUse);
+				if (bean != null) {
+					return bean;
+				}
+			}
+			catch (Throwable ex) {
+				throw new BeanCreationException(mbdToUse.getResourceDescription(), beanName,
+						"BeanPostProcessor before instantiation of bean failed", ex
+				);
+			}
+
+			// 第四部分
+			try {
+				// 创建bean
+				Object beanInstance = doCreateBean(beanName, mbdToUse, args);
+				if (logger.isTraceEnabled()) {
+					logger.trace("Finished creating instance of bean '" + beanName + "'");
+				}
+				return beanInstance;
+			}
+			catch (BeanCreationException | ImplicitlyAppearedSingletonException ex) {
+				// A previously detected exception with proper bean creation context already,
+				// or illegal singleton state to be communicated up to DefaultSingletonBeanRegistry.
+				throw ex;
+			}
+			catch (Throwable ex) {
+				throw new BeanCreationException(
+						mbdToUse.getResourceDescription(), beanName, "Unexpected exception during bean creation", ex);
 			}
-			return beanInstance;
-		}
-		catch (BeanCreationException | ImplicitlyAppearedSingletonException ex) {
-			// A previously detected exception with proper bean creation context already,
-			// or illegal singleton state to be communicated up to DefaultSingletonBeanRegistry.
-			throw ex;
 		}
-		catch (Throwable ex) {
-			throw new BeanCreationException(
-					mbdToUse.getResourceDescription(), beanName, "Unexpected exception during bean creation", ex);
+		finally {
+			beanCreation.end();
 		}
 	}
 
@@ -1206,67 +1247,91 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Nullable
 	private FactoryBean<?> getSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
-		synchronized (getSingletonMutex()) {
-			// 获取 beanName 对应的 BeanWrapper
-			BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
-
-			if (bw != null) {
-				// 直接返回 beanWrapper 的强制转换
-				return (FactoryBean<?>) bw.getWrappedInstance();
-			}
-			// 获取单例对象
-			Object beanInstance = getSingleton(beanName, false);
-			// 类型比较
-			if (beanInstance instanceof FactoryBean) {
-				return (FactoryBean<?>) beanInstance;
-			}
-			if (isSingletonCurrentlyInCreation(beanName) ||
-					(mbd.getFactoryBeanName() != null && isSingletonCurrentlyInCreation(mbd.getFactoryBeanName()))) {
+		if (isSingletonCreationLocking()) {
+			// Do not interfere with a creation of the same bean on another thread.
+			// The singleton mutex is not held, since dependencies of the FactoryBean
+			// may be in creation on other threads.
+			if (!acquireSingletonCreationLock(beanName, false)) {
 				return null;
 			}
-
-			Object instance;
 			try {
-				// Mark this bean as currently in creation, even if just partially.
-				// 创建前的验证
-				beforeSingletonCreation(beanName);
-				// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
-				// 实例解析
-				instance = resolveBeforeInstantiation(beanName, mbd);
-				if (instance == null) {
-					// 创建 beanWrapper
-					bw = createBeanInstance(beanName, mbd, null);
-					// 获取实例
-					instance = bw.getWrappedInstance();
-				}
-			}
-			catch (UnsatisfiedDependencyException ex) {
-				// Don't swallow, probably misconfiguration...
-				throw ex;
-			}
-			catch (BeanCreationException ex) {
-				// Instantiation failure, maybe too early...
-				if (logger.isDebugEnabled()) {
-					logger.debug("Bean creation exception on singleton FactoryBean type check: " + ex);
-				}
-				onSuppressedException(ex);
-				return null;
+				return doGetSingletonFactoryBeanForTypeCheck(beanName, mbd);
 			}
 			finally {
-				// Finished partial creation of this bean.
-				// 创建后的行为
-				afterSingletonCreation(beanName);
+				releaseSingletonCreationLock(beanName);
 			}
+		}
+		synchronized (getSingletonMutex()) {
+			return doGetSingletonFactoryBeanForTypeCheck(beanName, mbd);
+		}
+	}
+
+	/**
+	 * Actually obtain a "shortcut" singleton FactoryBean instance for a type check,
+	 * with either the singleton mutex or the bean's creation lock held.
+	 * @see #getSingletonFactoryBeanForTypeCheck
+	 */
+	@Nullable
+	private FactoryBean<?> doGetSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
+		// 获取 beanName 对应的 BeanWrapper
+		BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
+
+		if (bw != null) {
+			// 直接返回 beanWrapper 的强制转换
+			return (FactoryBean<?>) bw.getWrappedInstance();
+		}
+		// 获取单例对象
+		Object beanInstance = getSingleton(beanName, false);
+		// 类型比较
+		if (beanInstance instanceof FactoryBean) {
+			return (FactoryBean<?>) beanInstance;
+		}
+		if (isSingletonCurrentlyInCreation(beanName) ||
+				(mbd.getFactoryBeanName() != null && isSingletonCurrentlyInCreation(mbd.getFactoryBeanName()))) {
+			return null;
+		}
 
-			// 获取 factoryBean
-			// instance 强转 FactoryBean
-			FactoryBean<?> fb = getFactoryBean(beanName, instance);
-			if (bw != null) {
-				// 置入容器
-				this.factoryBeanInstanceCache.put(beanName, bw);
+		Object instance;
+		try {
+			// Mark this bean as currently in creation, even if just partially.
+			// 创建前的验证
+			beforeSingletonCreation(beanName);
+			// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
+			// 实例解析
+			instance = resolveBeforeInstantiation(beanName, mbd);
+			if (instance == null) {
+				// 创建 beanWrapper
+				bw = createBeanInstance(beanName, mbd, null);
+				// 获取实例
+				instance = bw.getWrappedInstance();
 			}
-			return fb;
 		}
+		catch (UnsatisfiedDependencyException ex) {
+			// Don't swallow, probably misconfiguration...
+			throw ex;
+		}
+		catch (BeanCreationException ex) {
+			// Instantiation failure, maybe too early...
+			if (logger.isDebugEnabled()) {
+				logger.debug("Bean creation exception on singleton FactoryBean type check: " + ex);
+			}
+			onSuppressedException(ex);
+			return null;
+		}
+		finally {
+			// Finished partial creation of this bean.
+			// 创建后的行为
+			afterSingletonCreation(beanName);
+		}
+
+		// 获取 factoryBean
+		// instance 强转 FactoryBean
+		FactoryBean<?> fb = getFactoryBean(beanName, instance);
+		if (bw != null) {
+			// 置入容器
+			this.factoryBeanInstanceCache.put(beanName, bw);
+		}
+		return fb;
 	}
 
 	/**
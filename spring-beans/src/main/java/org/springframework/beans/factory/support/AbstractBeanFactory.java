@@ -55,6 +55,7 @@ import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
 import org.springframework.beans.factory.CannotLoadBeanClassException;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.SmartFactoryBean;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
@@ -71,6 +72,7 @@ import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.log.LogMessage;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -249,6 +251,12 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	@Nullable
 	private SecurityContextProvider securityContextProvider;
 
+	/**
+	 * Application startup metrics.
+	 * 启动步骤记录器
+	 * */
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 
 	/**
 	 * Create a new AbstractBeanFactory.
@@ -1233,6 +1241,17 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 				AccessController.getContext());
 	}
 
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "applicationStartup should not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	@Override
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
 		Assert.notNull(otherFactory, "BeanFactory must not be null");
@@ -1240,6 +1259,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		setCacheBeanMetadata(otherFactory.isCacheBeanMetadata());
 		setBeanExpressionResolver(otherFactory.getBeanExpressionResolver());
 		setConversionService(otherFactory.getConversionService());
+		setApplicationStartup(otherFactory.getApplicationStartup());
 		if (otherFactory instanceof AbstractBeanFactory) {
 			AbstractBeanFactory otherAbstractFactory = (AbstractBeanFactory) otherFactory;
 			this.propertyEditorRegistrars.addAll(otherAbstractFactory.propertyEditorRegistrars);
@@ -1422,6 +1442,24 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		}
 	}
 
+	/**
+	 * Return a factory for the current instance of the specified bean, meant for
+	 * repeated access to a scoped bean, e.g. from a scoped proxy's target source.
+	 * <p>The returned factory behaves like {@link #getBean(String)}, but resolves
+	 * the merged bean definition, the {@link Scope} and the creation callback for
+	 * the bean only once, re-resolving them if the bean definition is changed or
+	 * the scope is re-registered. Each call then amounts to a {@link Scope#get}
+	 * call. Beans that are not in a custom scope, that have {@code depends-on}
+	 * declarations or that are defined in a parent factory are obtained through
+	 * {@link #getBean(String)} instead.
+	 * @param name the name of the bean
+	 * @return the factory for the current bean instance
+	 * @since 5.3
+	 */
+	public ObjectFactory<Object> getScopedTargetFactory(String name) {
+		return new ScopedTargetFactory(name);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation methods
@@ -2281,4 +2319,110 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	protected abstract Object createBean(String beanName, RootBeanDefinition mbd, @Nullable Object[] args)
 			throws BeanCreationException;
 
+
+	/**
+	 * Factory for the current instance of a scoped bean, caching the resolved
+	 * bean definition, scope and creation callback.
+	 * @see #getScopedTargetFactory
+	 */
+	private final class ScopedTargetFactory implements ObjectFactory<Object> {
+
+		private final String name;
+
+		@Nullable
+		private volatile ScopedTarget target;
+
+		ScopedTargetFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Object getObject() throws BeansException {
+			ScopedTarget target = this.target;
+			if (target == null || !target.isCurrent()) {
+				target = resolveTarget();
+				this.target = target;
+			}
+			if (target.scope == null) {
+				return getBean(this.name);
+			}
+			String beanName = target.beanName;
+			try {
+				Object scopedInstance = target.scope.get(beanName, target.creator);
+				return getObjectForBeanInstance(scopedInstance, this.name, beanName, target.mbd);
+			}
+			catch (IllegalStateException ex) {
+				throw new BeanCreationException(beanName,
+						"Scope '" + target.mbd.getScope() + "' is not active for the current thread; consider " +
+								"defining a scoped proxy for this bean if you intend to refer to it from a singleton",
+						ex);
+			}
+			catch (BeansException ex) {
+				cleanupAfterBeanCreationFailure(beanName);
+				throw ex;
+			}
+		}
+
+		private ScopedTarget resolveTarget() {
+			String beanName = transformedBeanName(this.name);
+			if (!containsBeanDefinition(beanName) || getSingleton(beanName, false) != null) {
+				return new ScopedTarget(beanName, null, null);
+			}
+			markBeanAsCreated(beanName);
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			checkMergedBeanDefinition(mbd, beanName, null);
+			// 单例、原型以及存在 depends-on 的 bean 走完整的 getBean 流程
+			if (mbd.isSingleton() || mbd.isPrototype() || mbd.getDependsOn() != null) {
+				return new ScopedTarget(beanName, mbd, null);
+			}
+			Scope scope = scopes.get(mbd.getScope());
+			if (scope == null) {
+				throw new IllegalStateException("No Scope registered for scope name '" + mbd.getScope() + "'");
+			}
+			return new ScopedTarget(beanName, mbd, scope);
+		}
+	}
+
+
+	/**
+	 * Resolved state of a {@link ScopedTargetFactory}.
+	 */
+	private final class ScopedTarget {
+
+		final String beanName;
+
+		@Nullable
+		final RootBeanDefinition mbd;
+
+		@Nullable
+		final Scope scope;
+
+		final ObjectFactory<?> creator;
+
+		ScopedTarget(String beanName, @Nullable RootBeanDefinition mbd, @Nullable Scope scope) {
+			this.beanName = beanName;
+			this.mbd = mbd;
+			this.scope = scope;
+			this.creator = () -> {
+				beforePrototypeCreation(beanName);
+				try {
+					return createBean(beanName, mbd, null);
+				}
+				finally {
+					afterPrototypeCreation(beanName);
+				}
+			};
+		}
+
+		/**
+		 * Check whether the bean definition and the scope are still the resolved ones.
+		 */
+		boolean isCurrent() {
+			if (this.mbd == null) {
+				return !containsBeanDefinition(this.beanName);
+			}
+			return (!this.mbd.stale && (this.scope == null || scopes.get(this.mbd.getScope()) == this.scope));
+		}
+	}
+
 }
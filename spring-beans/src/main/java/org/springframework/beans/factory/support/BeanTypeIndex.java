@@ -0,0 +1,261 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Index of bean definition names by type, used by {@link DefaultListableBeanFactory}
+ * to narrow down the bean definitions to check in a by-type lookup.
+ *
+ * <p>Each bean is indexed under its raw class and all of its superclasses and
+ * interfaces, once its type is known: typically the class of its singleton
+ * instance, or its predicted type until the instance has been created. Beans
+ * whose type cannot be determined upfront (e.g. {@code FactoryBean} definitions)
+ * or that may match covariantly (arrays) are candidates for every lookup, as are
+ * beans whose type is not known yet. Primitive types are indexed and looked up
+ * as their wrapper types. Candidates are returned in registration order and
+ * still need to be checked with the regular type matching algorithm, which keeps
+ * lookups semantically identical to a full scan.
+ *
+ * <p>Registrations and invalidations are incremental: only the affected bean
+ * is re-indexed on its next lookup. Types are determined outside of the index
+ * lock, so that the type resolution callback may acquire other locks. The
+ * candidates per type are cached until the index changes.
+ *
+ * @since 5.3
+ */
+final class BeanTypeIndex {
+
+	/**
+	 * Marker returned by the type resolution callback for beans that
+	 * can match any type, until they are invalidated.
+	 */
+	static final Class<?> UNTYPED = Void.class;
+
+
+	/**
+	 * bean 名称 -> 索引条目, 按注册顺序编号
+	 */
+	private final Map<String, Entry> entries = new HashMap<>(256);
+
+	private final Map<Class<?>, Set<String>> namesByType = new HashMap<>(256);
+
+	/**
+	 * Beans that are candidates for every lookup, either because their
+	 * type is not known yet or because they are untyped.
+	 */
+	private final Set<String> unindexedNames = new LinkedHashSet<>(64);
+
+	private final Set<String> unresolvedNames = new LinkedHashSet<>(64);
+
+	/**
+	 * 按类型缓存的候选 bean 名称, 索引变化时清空; 仅缓存对 bean 类加载器安全的类型
+	 */
+	private final Map<Class<?>, List<String>> candidateNamesCache = new HashMap<>(64);
+
+	private long sequence;
+
+
+	/**
+	 * Register a bean definition name; a no-op if already registered.
+	 */
+	synchronized void register(String beanName) {
+		if (!this.entries.containsKey(beanName)) {
+			this.entries.put(beanName, new Entry(this.sequence++));
+			this.unindexedNames.add(beanName);
+			this.unresolvedNames.add(beanName);
+			this.candidateNamesCache.clear();
+		}
+	}
+
+	/**
+	 * Remove the given bean definition name from the index.
+	 */
+	synchronized void remove(String beanName) {
+		Entry entry = this.entries.remove(beanName);
+		if (entry != null) {
+			unindex(beanName, entry);
+			this.unindexedNames.remove(beanName);
+			this.unresolvedNames.remove(beanName);
+			this.candidateNamesCache.clear();
+		}
+	}
+
+	/**
+	 * Invalidate the type of the given bean, to be determined again on the next lookup.
+	 */
+	synchronized void invalidate(String beanName) {
+		Entry entry = this.entries.get(beanName);
+		if (entry != null) {
+			unindex(beanName, entry);
+			entry.version++;
+			this.unindexedNames.add(beanName);
+			this.unresolvedNames.add(beanName);
+			this.candidateNamesCache.clear();
+		}
+	}
+
+	/**
+	 * Invalidate the types of all beans.
+	 */
+	synchronized void invalidateAll() {
+		this.namesByType.clear();
+		this.candidateNamesCache.clear();
+		for (Map.Entry<String, Entry> mapEntry : this.entries.entrySet()) {
+			Entry entry = mapEntry.getValue();
+			entry.types = null;
+			entry.version++;
+			this.unindexedNames.add(mapEntry.getKey());
+			this.unresolvedNames.add(mapEntry.getKey());
+		}
+	}
+
+	/**
+	 * Return the names of the beans that may match the given type, in registration order.
+	 * @param type the raw type to match
+	 * @param typeResolver callback determining the type to index a bean under:
+	 * {@link #UNTYPED} for a bean that may match any type, or {@code null} if its
+	 * type cannot be determined at this point
+	 * @param cacheable whether the candidates may be cached for the given type,
+	 * i.e. whether the type is cache-safe with respect to the bean class loader
+	 * @return the candidate bean names (not to be modified)
+	 */
+	List<String> getCandidateNames(Class<?> type, Function<String, Class<?>> typeResolver, boolean cacheable) {
+		Class<?> typeToMatch = ClassUtils.resolvePrimitiveIfNecessary(type);
+		String[] unresolvedNames;
+		long[] versions;
+		synchronized (this) {
+			if (cacheable && this.unresolvedNames.isEmpty()) {
+				List<String> candidates = this.candidateNamesCache.get(typeToMatch);
+				if (candidates != null) {
+					return candidates;
+				}
+			}
+			unresolvedNames = StringUtils.toStringArray(this.unresolvedNames);
+			versions = new long[unresolvedNames.length];
+			for (int i = 0; i < unresolvedNames.length; i++) {
+				versions[i] = this.entries.get(unresolvedNames[i]).version;
+			}
+		}
+		Class<?>[] resolvedTypes = new Class<?>[unresolvedNames.length];
+		for (int i = 0; i < unresolvedNames.length; i++) {
+			resolvedTypes[i] = typeResolver.apply(unresolvedNames[i]);
+		}
+
+		synchronized (this) {
+			for (int i = 0; i < unresolvedNames.length; i++) {
+				String beanName = unresolvedNames[i];
+				Class<?> resolvedType = resolvedTypes[i];
+				Entry entry = this.entries.get(beanName);
+				// 解析期间被重新注册或失效的 bean 保持未解析状态
+				if (resolvedType != null && entry != null && entry.version == versions[i]) {
+					this.unresolvedNames.remove(beanName);
+					// 数组类型可协变匹配, 与 UNTYPED 一样不建立索引
+					if (resolvedType != UNTYPED && !resolvedType.isArray()) {
+						index(beanName, entry, resolvedType);
+						this.unindexedNames.remove(beanName);
+						this.candidateNamesCache.clear();
+					}
+				}
+			}
+			List<String> candidates = (cacheable ? this.candidateNamesCache.get(typeToMatch) : null);
+			if (candidates == null) {
+				Set<String> indexed = this.namesByType.get(typeToMatch);
+				List<String> names = new ArrayList<>(
+						this.unindexedNames.size() + (indexed != null ? indexed.size() : 0));
+				names.addAll(this.unindexedNames);
+				if (indexed != null) {
+					names.addAll(indexed);
+				}
+				names.sort(Comparator.comparingLong(beanName -> this.entries.get(beanName).sequence));
+				candidates = Collections.unmodifiableList(names);
+				if (cacheable) {
+					this.candidateNamesCache.put(typeToMatch, candidates);
+				}
+			}
+			return candidates;
+		}
+	}
+
+	private void index(String beanName, Entry entry, Class<?> type) {
+		Set<Class<?>> types = new LinkedHashSet<>();
+		// 基本类型与其包装类型互相匹配
+		collectTypeHierarchy(ClassUtils.resolvePrimitiveIfNecessary(type), types);
+		for (Class<?> candidate : types) {
+			this.namesByType.computeIfAbsent(candidate, key -> new LinkedHashSet<>()).add(beanName);
+		}
+		entry.types = types;
+	}
+
+	private void unindex(String beanName, Entry entry) {
+		Set<Class<?>> types = entry.types;
+		if (types != null) {
+			for (Class<?> type : types) {
+				Set<String> names = this.namesByType.get(type);
+				if (names != null) {
+					names.remove(beanName);
+					if (names.isEmpty()) {
+						this.namesByType.remove(type);
+					}
+				}
+			}
+			entry.types = null;
+		}
+	}
+
+	/**
+	 * Collect the given type with all of its superclasses and all of
+	 * its interfaces, including inherited super-interfaces.
+	 */
+	private static void collectTypeHierarchy(@Nullable Class<?> type, Set<Class<?>> types) {
+		if (type != null && types.add(type)) {
+			collectTypeHierarchy(type.getSuperclass(), types);
+			for (Class<?> ifc : type.getInterfaces()) {
+				collectTypeHierarchy(ifc, types);
+			}
+		}
+	}
+
+
+	private static final class Entry {
+
+		final long sequence;
+
+		@Nullable
+		Set<Class<?>> types;
+
+		long version;
+
+		Entry(long sequence) {
+			this.sequence = sequence;
+		}
+	}
+
+}
@@ -30,6 +30,7 @@ import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
@@ -40,6 +41,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -72,6 +74,7 @@ import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
@@ -174,6 +177,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	 * */
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
 
+	/**
+	 * Index of bean definition names by type, narrowing down by-type lookups.
+	 * 类型索引, 按类型查找时只检查可能匹配的 bean
+	 */
+	private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex();
+
 	/**
 	 *  Optional id for this factory, for serialization purposes.
 	 * 序列化 id (BeanFactory 的id)
@@ -193,6 +202,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	 * */
 	private boolean allowEagerClassLoading = true;
 
+	/**
+	 * Number of threads for pre-instantiating singletons, 1 for sequential pre-instantiation.
+	 * 单例预加载的并行度
+	 * */
+	private int preInstantiationParallelism = 1;
+
 	/** Optional OrderComparator for dependency Lists and arrays. */
 	@Nullable
 	private Comparator<Object> dependencyComparator;
@@ -314,6 +329,41 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		this.allowEagerClassLoading = allowEagerClassLoading;
 	}
 
+	/**
+	 * Return the number of threads used for pre-instantiating singletons.
+	 * @since 5.3
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
+	/**
+	 * Set the number of threads to use for pre-instantiating singletons
+	 * in {@link #preInstantiateSingletons()}.
+	 * <p>Default is 1, creating all non-lazy singletons one after another in
+	 * registration order. A higher value creates singletons without mutual
+	 * dependencies on a bounded pool of the given size, based on a dependency
+	 * graph derived from the bean definitions (depends-on, bean references,
+	 * factory beans and constructor autowire candidates). Singleton creation is
+	 * guarded by per-bean creation locks during that phase, so that dependencies
+	 * not visible in the bean definitions (e.g. annotation-driven injection)
+	 * are still resolved safely. {@link SmartInitializingSingleton} callbacks
+	 * are invoked on the calling thread in registration order afterwards.
+	 * <p>Note that the relative creation order of independent singletons
+	 * is not defined in parallel mode. Code obtaining beans while holding the
+	 * {@link #getSingletonMutex() singleton mutex} cannot wait for a singleton
+	 * created on another thread and fails with a
+	 * {@link org.springframework.beans.factory.BeanCurrentlyInCreationException}
+	 * in that case.
+	 * 设置单例预加载的并行度, 大于1时开启并行预加载
+	 * @since 5.3
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be positive");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
 	/**
 	 * Return the dependency comparator for this BeanFactory (may be {@code null}.
 	 * @since 4.0
@@ -368,6 +418,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			DefaultListableBeanFactory otherListableFactory = (DefaultListableBeanFactory) otherFactory;
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(
@@ -606,9 +657,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 
 
 		// 第一部分
-		// Check all bean definitions.
-		// 循环所有的 beanName
-		for (String beanName : this.beanDefinitionNames) {
+		// Check all bean definitions that may match, as indicated by the type index.
+		// 循环所有可能匹配的 beanName
+		Class<?> rawType = type.resolve();
+		List<String> beanDefinitionNames = (rawType != null && rawType != Object.class ?
+				this.beanTypeIndex.getCandidateNames(rawType, this::determineIndexedType,
+						ClassUtils.isCacheSafe(rawType, getBeanClassLoader())) : this.beanDefinitionNames);
+		for (String beanName : beanDefinitionNames) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
 			// 确定是否存在别名
@@ -676,37 +731,93 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		// 第二部分
 		// Check manually registered singletons too.
 		for (String beanName : this.manualSingletonNames) {
-			try {
-				// In case of FactoryBean, match object created by FactoryBean.
-				// 是否是 工厂 bean
-				if (isFactoryBean(beanName)) {
-					if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
-						result.add(beanName);
-						// Match found for this bean: do not match FactoryBean itself anymore.
-						continue;
-					}
-					// In case of FactoryBean, try to match FactoryBean itself next.
-					// 如果是 工厂bean的情况下修正beanName
-					beanName = FACTORY_BEAN_PREFIX + beanName;
-				}
-				// Match raw bean instance (might be raw FactoryBean).
-				if (isTypeMatch(beanName, type)) {
+			addManualSingletonMatch(beanName, type, includeNonSingletons, result);
+		}
+
+		return StringUtils.toStringArray(result);
+	}
+
+	/**
+	 * Add the given manually registered singleton to the result if it matches
+	 * the given type, either as the object it exposes or as the raw bean instance.
+	 */
+	private void addManualSingletonMatch(
+			String beanName, ResolvableType type, boolean includeNonSingletons, List<String> result) {
+
+		try {
+			// In case of FactoryBean, match object created by FactoryBean.
+			// 是否是 工厂 bean
+			if (isFactoryBean(beanName)) {
+				if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
 					result.add(beanName);
+					// Match found for this bean: do not match FactoryBean itself anymore.
+					return;
 				}
+				// In case of FactoryBean, try to match FactoryBean itself next.
+				// 如果是 工厂bean的情况下修正beanName
+				beanName = FACTORY_BEAN_PREFIX + beanName;
 			}
-			catch (NoSuchBeanDefinitionException ex) {
-				// Shouldn't happen - probably a result of circular reference resolution...
-				logger.trace(LogMessage.format("Failed to check manually registered singleton with name '%s'", beanName), ex);
+			// Match raw bean instance (might be raw FactoryBean).
+			if (isTypeMatch(beanName, type)) {
+				result.add(beanName);
 			}
 		}
-
-		return StringUtils.toStringArray(result);
+		catch (NoSuchBeanDefinitionException ex) {
+			// Shouldn't happen - probably a result of circular reference resolution...
+			logger.trace(LogMessage.format("Failed to check manually registered singleton with name '%s'", beanName), ex);
+		}
 	}
 
 	private boolean isSingleton(String beanName, RootBeanDefinition mbd, @Nullable BeanDefinitionHolder dbd) {
 		return (dbd != null ? mbd.isSingleton() : isSingleton(beanName));
 	}
 
+	/**
+	 * Determine the type to index the given bean under in the {@link BeanTypeIndex},
+	 * consistent with {@link #isTypeMatch(String, ResolvableType)}: the class of its
+	 * singleton instance, or its predicted type until the instance has been created.
+	 * @param beanName the name of the bean definition
+	 * @return the type to index the bean under, {@link BeanTypeIndex#UNTYPED}
+	 * for a bean that may match any type, or {@code null} if its type cannot be
+	 * determined at this point
+	 */
+	@Nullable
+	private Class<?> determineIndexedType(String beanName) {
+		try {
+			Object beanInstance = getSingleton(beanName, false);
+			if (beanInstance != null) {
+				return (beanInstance instanceof FactoryBean || beanInstance.getClass() == NullBean.class ?
+						BeanTypeIndex.UNTYPED : beanInstance.getClass());
+			}
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			if (mbd.isAbstract()) {
+				return BeanTypeIndex.UNTYPED;
+			}
+			// 装饰的 bean 定义与方法覆盖的实例类型与预测类型不同;
+			// 非单例 bean 的预测类型可能在创建代理后由后置处理器改变, 且不会触发重新索引
+			if (mbd.getDecoratedDefinition() != null || mbd.hasMethodOverrides() ||
+					(!mbd.isSingleton() && !mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors())) {
+				return BeanTypeIndex.UNTYPED;
+			}
+			// 与按类型查找相同, 不为类型预测加载类或初始化工厂 bean
+			if ((!mbd.hasBeanClass() && mbd.isLazyInit() && !isAllowEagerClassLoading()) ||
+					requiresEagerInitForType(mbd.getFactoryBeanName())) {
+				return null;
+			}
+			Class<?> predictedType = predictBeanType(beanName, mbd);
+			if (predictedType == null) {
+				return null;
+			}
+			Class<?> targetType = mbd.getTargetType();
+			return (FactoryBean.class.isAssignableFrom(predictedType) ||
+					(targetType != null && FactoryBean.class.isAssignableFrom(targetType)) ?
+					BeanTypeIndex.UNTYPED : predictedType);
+		}
+		catch (BeansException ex) {
+			return null;
+		}
+	}
+
 	/**
 	 * Check whether the specified bean would need to be eagerly initialized
 	 * in order to determine its type.
@@ -970,6 +1081,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Override
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
+		this.beanTypeIndex.invalidateAll();
 		clearByTypeCache();
 	}
 
@@ -1007,44 +1119,14 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 
 		// Trigger initialization of all non-lazy singleton beans...
 		// 处理非懒加载的bean进行实例化
+		if (this.preInstantiationParallelism > 1) {
+			// 并行预加载, 存在依赖关系的bean按照依赖顺序创建
+			new ParallelSingletonInstantiator(this, this.preInstantiationParallelism).instantiate(beanNames);
+		}
+		// Sequential pass, also covering singletons skipped by parallel pre-instantiation
+		// (e.g. circular references) - already created singletons are simply looked up.
 		for (String beanName : beanNames) {
-			// 获取 bean定义
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			// 条件过滤
-			// 1. abstract 修饰
-			// 2. 是否单例
-			// 3. 是否懒加载
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				// 是否是工厂bean
-				if (isFactoryBean(beanName)) {
-					// 获取 bean
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					// 类型判断是否是 FactoryBean
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						// 是否立即加载
-						boolean isEagerInit;
-						// 计算 isEagerInit
-						// 1. 是否是 SmartFactoryBean
-						// 2. 执行SmartFactoryBean 的 isEagerInit 方法
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					getBean(beanName);
-				}
-			}
+			preInstantiateSingleton(beanName);
 		}
 
 		// Trigger post-initialization callback for all applicable beans...
@@ -1069,6 +1151,54 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	/**
+	 * Pre-instantiate the given bean if it is a non-lazy singleton, initializing
+	 * the object of a {@link FactoryBean} only if it requests eager initialization.
+	 * @param beanName the name of the bean
+	 * @throws BeansException if the bean could not be created
+	 * @since 5.3
+	 * @see #preInstantiateSingletons()
+	 */
+	void preInstantiateSingleton(String beanName) throws BeansException {
+		// 获取 bean定义
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		// 条件过滤
+		// 1. abstract 修饰
+		// 2. 是否单例
+		// 3. 是否懒加载
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			// 是否是工厂bean
+			if (isFactoryBean(beanName)) {
+				// 获取 bean
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				// 类型判断是否是 FactoryBean
+				if (bean instanceof FactoryBean) {
+					final FactoryBean<?> factory = (FactoryBean<?>) bean;
+					// 是否立即加载
+					boolean isEagerInit;
+					// 计算 isEagerInit
+					// 1. 是否是 SmartFactoryBean
+					// 2. 执行SmartFactoryBean 的 isEagerInit 方法
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+										((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			}
+			else {
+				getBean(beanName);
+			}
+		}
+	}
+
 	@Override
 	public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition)
 			throws BeanDefinitionStoreException {
@@ -1123,6 +1253,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 			// 设置 beanName 和 beanDefinition 关系
 			this.beanDefinitionMap.put(beanName, beanDefinition);
+			this.beanTypeIndex.invalidate(beanName);
 		}
 
 
@@ -1142,6 +1273,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 					updatedDefinitions.add(beanName);
 					// 对象替换
 					this.beanDefinitionNames = updatedDefinitions;
+					this.beanTypeIndex.register(beanName);
 					// 移除当前的beanName
 					removeManualSingletonName(beanName);
 				}
@@ -1151,6 +1283,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 				// 设置容器数据
 				this.beanDefinitionMap.put(beanName, beanDefinition);
 				this.beanDefinitionNames.add(beanName);
+				this.beanTypeIndex.register(beanName);
 				// 移除当前的beanName
 				removeManualSingletonName(beanName);
 			}
@@ -1198,6 +1331,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			// 移除 beanName
 			this.beanDefinitionNames.remove(beanName);
 		}
+		this.beanTypeIndex.remove(beanName);
 		this.frozenBeanDefinitionNames = null;
 
 		// 刷新bean definition
@@ -1263,7 +1397,28 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		super.registerSingleton(beanName, singletonObject);
 		updateManualSingletonNames(set -> set.add(beanName), set -> !this.beanDefinitionMap.containsKey(beanName));
-		clearByTypeCache();
+		if (this.beanDefinitionMap.containsKey(beanName)) {
+			clearByTypeCache();
+		}
+		else {
+			// 手动注册的单例只影响自身的匹配结果, 追加到已缓存的类型映射中
+			addManualSingletonToByTypeCache(beanName);
+		}
+	}
+
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		this.beanTypeIndex.invalidate(beanName);
+	}
+
+	@Override
+	public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+		super.addBeanPostProcessor(beanPostProcessor);
+		if (beanPostProcessor instanceof InstantiationAwareBeanPostProcessor) {
+			// 后置处理器可能改变预测的 bean 类型
+			this.beanTypeIndex.invalidateAll();
+		}
 	}
 
 	/**
@@ -1276,6 +1431,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		// 更新单例bean容器
 		updateManualSingletonNames(Set::clear, set -> !set.isEmpty());
 		// 清理类型缓存
+		this.beanTypeIndex.invalidateAll();
 		clearByTypeCache();
 	}
 
@@ -1285,13 +1441,20 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	 */
 	@Override
 	public void destroySingleton(String beanName) {
+		boolean manualSingleton = this.manualSingletonNames.contains(beanName);
 		// 摧毁方法的调用
 		super.destroySingleton(beanName);
 		// 删除 manualSingletonNames 中的BeanName
 		removeManualSingletonName(beanName);
-		//allBeanNamesByType clean
-		//singletonBeanNamesByType clean
-		clearByTypeCache();
+		this.beanTypeIndex.invalidate(beanName);
+		if (manualSingleton) {
+			removeManualSingletonFromByTypeCache(beanName);
+		}
+		else {
+			//allBeanNamesByType clean
+			//singletonBeanNamesByType clean
+			clearByTypeCache();
+		}
 	}
 
 	private void removeManualSingletonName(String beanName) {
@@ -1337,6 +1500,49 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		this.singletonBeanNamesByType.clear();
 	}
 
+	/**
+	 * Add the given manually registered singleton to the cached by-type mappings
+	 * that it matches, keeping all other cached mappings intact.
+	 */
+	private void addManualSingletonToByTypeCache(String beanName) {
+		this.allBeanNamesByType.replaceAll((type, beanNames) ->
+				addManualSingletonMatch(beanNames, beanName, type, true));
+		this.singletonBeanNamesByType.replaceAll((type, beanNames) ->
+				addManualSingletonMatch(beanNames, beanName, type, false));
+	}
+
+	private String[] addManualSingletonMatch(
+			String[] beanNames, String beanName, Class<?> type, boolean includeNonSingletons) {
+
+		List<String> result = new ArrayList<>(beanNames.length + 1);
+		Collections.addAll(result, beanNames);
+		addManualSingletonMatch(beanName, ResolvableType.forRawClass(type), includeNonSingletons, result);
+		return (result.size() > beanNames.length ? StringUtils.toStringArray(result) : beanNames);
+	}
+
+	/**
+	 * Remove the given manually registered singleton from the cached by-type
+	 * mappings, keeping all other cached mappings intact.
+	 */
+	private void removeManualSingletonFromByTypeCache(String beanName) {
+		String factoryBeanName = FACTORY_BEAN_PREFIX + beanName;
+		BiFunction<Class<?>, String[], String[]> remover = (type, beanNames) -> {
+			if (!ObjectUtils.containsElement(beanNames, beanName) &&
+					!ObjectUtils.containsElement(beanNames, factoryBeanName)) {
+				return beanNames;
+			}
+			List<String> result = new ArrayList<>(beanNames.length);
+			for (String candidate : beanNames) {
+				if (!candidate.equals(beanName) && !candidate.equals(factoryBeanName)) {
+					result.add(candidate);
+				}
+			}
+			return StringUtils.toStringArray(result);
+		};
+		this.allBeanNamesByType.replaceAll(remover);
+		this.singletonBeanNamesByType.replaceAll(remover);
+	}
+
 	@Override
 	public <T> NamedBeanHolder<T> resolveNamedBean(Class<T> requiredType) throws BeansException {
 		Assert.notNull(requiredType, "Required type must not be null");
@@ -25,6 +25,10 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
@@ -32,6 +36,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -61,6 +66,13 @@ import org.springframework.util.StringUtils;
  * (which inherit from it). Can alternatively also be used as a nested
  * helper to delegate to.
  *
+ * <p>Lookups of existing singletons and of already exposed early references
+ * do not acquire any lock. By default, singleton creation is serialized on the
+ * global {@link #getSingletonMutex() singleton mutex}. The registry may be switched
+ * to {@link #setSingletonCreationLocking per-bean creation locks} for phases in
+ * which several threads create singletons concurrently, e.g. during parallel
+ * pre-instantiation or for lazy-init singletons under load.
+ *
  * 默认的单例bean注册
  * @author Juergen Hoeller
  * @since 2.0
@@ -71,6 +83,9 @@ import org.springframework.util.StringUtils;
  */
 public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements SingletonBeanRegistry {
 
+	/** Interval for re-checking a creation lock held by another thread, in milliseconds. */
+	private static final long CREATION_LOCK_POLL_MILLIS = 10;
+
 	/**
 	 *  Cache of singleton objects: bean name to bean instance.
 	 *
@@ -90,7 +105,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 *
 	 * 提前暴露的对象 key: beanName , value: object
 	 * */
-	private final Map<String, Object> earlySingletonObjects = new HashMap<>(16);
+	private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>(16);
 
 	/**
 	 *
@@ -155,6 +170,46 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	@Nullable
 	private Set<Exception> suppressedExceptions;
 
+	/**
+	 * Suppressed Exceptions of the singleton created by the current thread,
+	 * if creation is guarded by per-bean creation locks.
+	 * */
+	private final NamedThreadLocal<Set<Exception>> lockedCreationSuppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions of singleton in creation");
+
+	/**
+	 * Per-bean creation locks: bean name to lock, used if creation locking is active.
+	 *
+	 * 单例创建锁, key: beanName , value: 锁
+	 * */
+	private final Map<String, SingletonCreationLock> singletonCreationLocks = new ConcurrentHashMap<>(64);
+
+	/**
+	 * Threads currently waiting for a creation lock: thread to bean name.
+	 * Used for detecting circular references between creating threads.
+	 * */
+	private final Map<Thread, String> singletonCreationWaiters = new ConcurrentHashMap<>(16);
+
+	/**
+	 * Whether singleton creation is guarded by per-bean locks instead of the singleton mutex.
+	 * */
+	private volatile boolean singletonCreationLocking = false;
+
+	/** Number of singletons created through this registry. */
+	private final LongAdder createdSingletonCount = new LongAdder();
+
+	/** Number of times a thread waited for a creation lock held by another thread. */
+	private final LongAdder contendedCreationCount = new LongAdder();
+
+	/** Total time spent waiting for creation locks held by other threads, in nanoseconds. */
+	private final LongAdder creationWaitNanos = new LongAdder();
+
+	/** Longest single wait for a creation lock held by another thread, in nanoseconds. */
+	private final AtomicLong maxCreationWaitNanos = new AtomicLong();
+
+	/** Number of early references exposed to resolve circular references across threads. */
+	private final LongAdder crossThreadEarlyReferenceCount = new LongAdder();
+
 	/**
 	 * Flag that indicates whether we're currently within destroySingletons.
 	 *
@@ -236,24 +291,36 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	@Nullable
 	protected Object getSingleton(String beanName, boolean allowEarlyReference) {
+		// Quick check for existing instance without full singleton lock
 		// 尝试从单例缓存中获取
 		Object singletonObject = this.singletonObjects.get(beanName);
 		// 单例对象是否null
 		// 这个 beanName 是否正在创建
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-			// 锁
-			synchronized (this.singletonObjects) {
-				// 从早期加载的map中获取
-				singletonObject = this.earlySingletonObjects.get(beanName);
-				// 对象是否空 ， 是否允许提前应用
-				if (singletonObject == null && allowEarlyReference) {
-					// 从对象工厂map中获取对象工厂
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
-						// 对象获取后设置
-						singletonObject = singletonFactory.getObject();
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						this.singletonFactories.remove(beanName);
+			// Do not expose early references of singletons that another thread is creating:
+			// the caller is supposed to wait for the fully initialized instance instead.
+			if (this.singletonCreationLocking && isSingletonCreationLockedByOtherThread(beanName)) {
+				return null;
+			}
+			// 从早期加载的map中获取, 无需加锁
+			singletonObject = this.earlySingletonObjects.get(beanName);
+			// 对象是否空 ， 是否允许提前应用
+			if (singletonObject == null && allowEarlyReference) {
+				// Consistent creation of early reference within full singleton lock
+				synchronized (this.singletonObjects) {
+					singletonObject = this.singletonObjects.get(beanName);
+					if (singletonObject == null) {
+						singletonObject = this.earlySingletonObjects.get(beanName);
+						if (singletonObject == null) {
+							// 从对象工厂map中获取对象工厂
+							ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+							if (singletonFactory != null) {
+								// 对象获取后设置
+								singletonObject = singletonFactory.getObject();
+								this.earlySingletonObjects.put(beanName, singletonObject);
+								this.singletonFactories.remove(beanName);
+							}
+						}
 					}
 				}
 			}
@@ -271,61 +338,309 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.singletonCreationLocking) {
+			// 单例级别的创建锁
+			if (!acquireSingletonCreationLock(beanName, true)) {
+				// Circular reference with a singleton created by another thread
+				this.crossThreadEarlyReferenceCount.increment();
+				return getEarlySingletonReference(beanName);
+			}
+			try {
+				return createSingletonIfNecessary(beanName, singletonFactory, false);
+			}
+			finally {
+				releaseSingletonCreationLock(beanName);
+			}
+		}
 		synchronized (this.singletonObjects) {
-			// 从单例对象缓存中获取
-			Object singletonObject = this.singletonObjects.get(beanName);
-			if (singletonObject == null) {
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
-									"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			return createSingletonIfNecessary(beanName, singletonFactory, true);
+		}
+	}
+
+	/**
+	 * Create and register the singleton with the given name if not registered yet.
+	 * To be called with either the singleton mutex or the bean's creation lock held.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to lazily create the singleton with
+	 * @param serialized whether creation is serialized on the singleton mutex,
+	 * as opposed to being guarded by the bean's creation lock
+	 * @return the registered singleton object
+	 */
+	private Object createSingletonIfNecessary(
+			String beanName, ObjectFactory<?> singletonFactory, boolean serialized) {
+
+		// 从单例对象缓存中获取
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject == null) {
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+								"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			// 单例创建前的验证
+			beforeSingletonCreation(beanName);
+			// 是否是新的单例对象
+			boolean newSingleton = false;
+			// 是否存在异常
+			// 创建锁模式下异常列表按线程记录
+			Set<Exception> suppressedExceptions =
+					(serialized ? this.suppressedExceptions : this.lockedCreationSuppressedExceptions.get());
+			boolean recordSuppressedExceptions = (suppressedExceptions == null);
+			if (recordSuppressedExceptions) {
+				suppressedExceptions = new LinkedHashSet<>();
+				setSuppressedExceptions(suppressedExceptions, serialized);
+			}
+			try {
+				// 从 ObjectFactory 中获取
+				singletonObject = singletonFactory.getObject();
+				newSingleton = true;
+				this.createdSingletonCount.increment();
+			}
+			catch (IllegalStateException ex) {
+				// Has the singleton object implicitly appeared in the meantime ->
+				// if yes, proceed with it since the exception indicates that state.
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject == null) {
+					throw ex;
 				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			catch (BeanCreationException ex) {
+				if (recordSuppressedExceptions) {
+					for (Exception suppressedException : suppressedExceptions) {
+						ex.addRelatedCause(suppressedException);
+					}
 				}
-				// 单例创建前的验证
-				beforeSingletonCreation(beanName);
-				// 是否是新的单例对象
-				boolean newSingleton = false;
-				// 是否存在异常
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
+				throw ex;
+			}
+			finally {
 				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
+					setSuppressedExceptions(null, serialized);
 				}
-				try {
-					// 从 ObjectFactory 中获取
+				// 创建单例对象后的验证
+				afterSingletonCreation(beanName);
+			}
+			if (newSingleton) {
+				// 添加到 单例容器中
+				addSingleton(beanName, singletonObject);
+			}
+		}
+		return singletonObject;
+	}
+
+	private void setSuppressedExceptions(@Nullable Set<Exception> suppressedExceptions, boolean serialized) {
+		if (serialized) {
+			this.suppressedExceptions = suppressedExceptions;
+		}
+		else if (suppressedExceptions != null) {
+			this.lockedCreationSuppressedExceptions.set(suppressedExceptions);
+		}
+		else {
+			this.lockedCreationSuppressedExceptions.remove();
+		}
+	}
+
+	/**
+	 * Return the early reference for the given singleton, regardless of the
+	 * thread that is creating it, or the fully initialized instance if the
+	 * singleton has been completed in the meantime.
+	 * @param beanName the name of the bean
+	 * @return the early singleton reference
+	 * @throws BeanCurrentlyInCreationException if no early reference is available
+	 */
+	private Object getEarlySingletonReference(String beanName) {
+		synchronized (this.singletonObjects) {
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				singletonObject = this.earlySingletonObjects.get(beanName);
+			}
+			if (singletonObject == null) {
+				ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+				if (singletonFactory != null) {
 					singletonObject = singletonFactory.getObject();
-					newSingleton = true;
+					this.earlySingletonObjects.put(beanName, singletonObject);
+					this.singletonFactories.remove(beanName);
 				}
-				catch (IllegalStateException ex) {
-					// Has the singleton object implicitly appeared in the meantime ->
-					// if yes, proceed with it since the exception indicates that state.
-					singletonObject = this.singletonObjects.get(beanName);
-					if (singletonObject == null) {
-						throw ex;
-					}
-				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
-					}
-					throw ex;
+			}
+			if (singletonObject == null) {
+				throw new BeanCurrentlyInCreationException(beanName);
+			}
+			return singletonObject;
+		}
+	}
+
+	/**
+	 * Set whether singleton creation should be guarded by per-bean creation
+	 * locks instead of the global {@link #getSingletonMutex() singleton mutex},
+	 * allowing independent singletons to be created by several threads at once.
+	 * <p>A thread requesting a singleton that another thread is currently creating
+	 * waits for that bean only; an early reference is exposed across threads only
+	 * to resolve a circular reference between the creating threads.
+	 * <p>Besides parallel pre-instantiation, this mode may be kept active at
+	 * runtime for lazy-init singletons requested by many threads at once: no
+	 * global lock is held while such a singleton is created, so lookups of other
+	 * singletons and users of the singleton mutex do not have to wait for it.
+	 * Waits are reported in the {@link #getSingletonCreationMetrics() metrics}.
+	 * <p>Can only be switched while no singleton is being created.
+	 * @throws IllegalStateException if a singleton is currently in creation
+	 * @since 5.3
+	 * @see #acquireSingletonCreationLock
+	 */
+	public void setSingletonCreationLocking(boolean singletonCreationLocking) {
+		if (singletonCreationLocking != this.singletonCreationLocking) {
+			Assert.state(this.singletonsCurrentlyInCreation.isEmpty(),
+					"Cannot switch singleton creation locking while singletons are currently in creation");
+			this.singletonCreationLocking = singletonCreationLocking;
+		}
+	}
+
+	/**
+	 * Return whether singleton creation is guarded by per-bean creation locks.
+	 * @since 5.3
+	 */
+	public boolean isSingletonCreationLocking() {
+		return this.singletonCreationLocking;
+	}
+
+	/**
+	 * Acquire the creation lock for the given bean, if per-bean creation locking
+	 * is active. Has to be paired with {@link #releaseSingletonCreationLock}
+	 * if successful.
+	 * <p>A thread holding the singleton mutex does not wait, since the thread
+	 * owning the creation lock may need the mutex in order to complete.
+	 * @param beanName the name of the bean
+	 * @param wait whether to wait for a creation lock held by another thread
+	 * @return {@code true} if the lock has been acquired (or locking is inactive);
+	 * {@code false} if the lock is held by another thread and either {@code wait}
+	 * is {@code false} or a circular reference between the creating threads has
+	 * been detected, which is to be resolved through the early singleton reference
+	 * @throws BeanCurrentlyInCreationException for an unresolvable circular reference
+	 * between the creating threads, or if the lock is held by another thread while
+	 * the current thread holds the singleton mutex
+	 * @since 5.3
+	 */
+	protected boolean acquireSingletonCreationLock(String beanName, boolean wait) {
+		if (!this.singletonCreationLocking) {
+			return true;
+		}
+		SingletonCreationLock lock = this.singletonCreationLocks.computeIfAbsent(beanName, k -> new SingletonCreationLock());
+		if (lock.tryLock()) {
+			return true;
+		}
+		if (!wait) {
+			return false;
+		}
+		if (Thread.holdsLock(getSingletonMutex())) {
+			// 持有单例锁时不能等待, 否则可能与持有创建锁的线程发生死锁
+			throw new BeanCurrentlyInCreationException(beanName,
+					"Requested bean is currently in creation on another thread " +
+					"while the singleton mutex is held by the current thread");
+		}
+		Thread currentThread = Thread.currentThread();
+		this.singletonCreationWaiters.put(currentThread, beanName);
+		this.contendedCreationCount.increment();
+		long waitStart = System.nanoTime();
+		try {
+			while (true) {
+				if (lock.tryLock(CREATION_LOCK_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					recordCreationWait(System.nanoTime() - waitStart);
+					return true;
 				}
-				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
-					}
-					// 创建单例对象后的验证
-					afterSingletonCreation(beanName);
+				if (isCrossThreadCircularReference(beanName, currentThread)) {
+					return false;
 				}
-				if (newSingleton) {
-					// 添加到 单例容器中
-					addSingleton(beanName, singletonObject);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new BeanCreationException(beanName, "Interrupted while waiting for singleton creation", ex);
+		}
+		finally {
+			this.singletonCreationWaiters.remove(currentThread);
+		}
+	}
+
+	private void recordCreationWait(long waitNanos) {
+		this.creationWaitNanos.add(waitNanos);
+		this.maxCreationWaitNanos.accumulateAndGet(waitNanos, Math::max);
+	}
+
+	/**
+	 * Return a snapshot of the singleton creation metrics of this registry:
+	 * the number of created singletons and, with
+	 * {@link #setSingletonCreationLocking per-bean creation locking} active,
+	 * the contention on the creation locks.
+	 * @since 5.3
+	 */
+	public SingletonCreationMetrics getSingletonCreationMetrics() {
+		return new SingletonCreationMetrics(this.createdSingletonCount.sum(),
+				this.contendedCreationCount.sum(), this.creationWaitNanos.sum(),
+				this.maxCreationWaitNanos.get(), this.crossThreadEarlyReferenceCount.sum());
+	}
+
+	/**
+	 * Release the creation lock for the given bean, if held by the current thread.
+	 * @param beanName the name of the bean
+	 * @since 5.3
+	 * @see #acquireSingletonCreationLock
+	 */
+	protected void releaseSingletonCreationLock(String beanName) {
+		SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+		if (lock != null && lock.isHeldByCurrentThread()) {
+			lock.unlock();
+		}
+	}
+
+	private boolean isSingletonCreationLockedByOtherThread(String beanName) {
+		SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+		return (lock != null && lock.isLocked() && !lock.isHeldByCurrentThread());
+	}
+
+	/**
+	 * Check whether the current thread is part of a wait cycle between creating
+	 * threads (i.e. a circular reference between singletons created by different
+	 * threads) which the early reference of the requested bean is able to break.
+	 * <p>If another bean in the cycle exposes an early reference instead, the thread
+	 * waiting for that bean is expected to break the cycle, so we keep waiting.
+	 * @param beanName the name of the bean the current thread is waiting for
+	 * @param currentThread the current thread
+	 * @return {@code true} if the early reference of the requested bean is to be used
+	 * @throws BeanCurrentlyInCreationException if none of the beans in the
+	 * cycle exposes an early reference
+	 */
+	private boolean isCrossThreadCircularReference(String beanName, Thread currentThread) {
+		boolean earlyReferenceInCycle = false;
+		String waitedFor = beanName;
+		// bean -> 持有锁的线程 -> 该线程等待的bean -> ...
+		for (int i = 0; i <= this.singletonCreationWaiters.size(); i++) {
+			SingletonCreationLock lock = this.singletonCreationLocks.get(waitedFor);
+			Thread owner = (lock != null ? lock.getOwnerThread() : null);
+			if (owner == null) {
+				// Released in the meantime
+				return false;
+			}
+			earlyReferenceInCycle |= hasEarlySingletonReference(waitedFor);
+			if (owner == currentThread) {
+				if (!earlyReferenceInCycle) {
+					throw new BeanCurrentlyInCreationException(beanName,
+							"Requested bean is currently in creation on another thread: " +
+							"Is there an unresolvable circular reference?");
 				}
+				return hasEarlySingletonReference(beanName);
 			}
-			return singletonObject;
+			waitedFor = this.singletonCreationWaiters.get(owner);
+			if (waitedFor == null) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private boolean hasEarlySingletonReference(String beanName) {
+		synchronized (this.singletonObjects) {
+			return (this.earlySingletonObjects.containsKey(beanName) || this.singletonFactories.containsKey(beanName));
 		}
 	}
 
@@ -335,6 +650,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
+		Set<Exception> lockedCreationSuppressedExceptions = this.lockedCreationSuppressedExceptions.get();
+		if (lockedCreationSuppressedExceptions != null) {
+			lockedCreationSuppressedExceptions.add(ex);
+			return;
+		}
 		synchronized (this.singletonObjects) {
 			if (this.suppressedExceptions != null) {
 				this.suppressedExceptions.add(ex);
@@ -627,6 +947,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.registeredSingletons.clear();
 			this.singletonsCurrentlyInDestruction = false;
 		}
+		this.singletonCreationLocks.clear();
 	}
 
 	/**
@@ -728,4 +1049,19 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonObjects;
 	}
 
+
+
+	/**
+	 * Reentrant creation lock for a single bean, exposing its owner thread
+	 * for detecting wait cycles between creating threads.
+	 */
+	@SuppressWarnings("serial")
+	private static class SingletonCreationLock extends ReentrantLock {
+
+		@Nullable
+		Thread getOwnerThread() {
+			return getOwner();
+		}
+	}
+
 }
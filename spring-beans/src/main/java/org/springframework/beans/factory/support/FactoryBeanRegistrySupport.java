@@ -108,54 +108,21 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	protected Object getObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
 		// 是否单例 是否已经包含
 		if (factory.isSingleton() && containsSingleton(beanName)) {
-			synchronized (getSingletonMutex()) {
-				// 从工厂bean的缓存中获取
-				Object object = this.factoryBeanObjectCache.get(beanName);
-				if (object == null) {
-
-					// 从 factoryBean 接口中获取
-					object = doGetObjectFromFactoryBean(factory, beanName);
-					// Only post-process and store if not put there already during getObject() call above
-					// (e.g. because of circular reference processing triggered by custom getBean calls)
-					// 从缓存map中获取
-					Object alreadyThere = this.factoryBeanObjectCache.get(beanName);
-					if (alreadyThere != null) {
-						// 如果缓存中获取有值
-						// object 覆盖
-						object = alreadyThere;
-					}
-					else {
-						// 判断是否需要后置处理
-						if (shouldPostProcess) {
-							// 是否处于创建中
-							if (isSingletonCurrentlyInCreation(beanName)) {
-								// Temporarily return non-post-processed object, not storing it yet..
-								return object;
-							}
-							// 单例创建前的验证
-							beforeSingletonCreation(beanName);
-							try {
-								// 从 FactoryBean 接口创建的 后置处理
-								object = postProcessObjectFromFactoryBean(object, beanName);
-							}
-							catch (Throwable ex) {
-								throw new BeanCreationException(beanName,
-										"Post-processing of FactoryBean's singleton object failed", ex);
-							}
-							finally {
-								// 单例bean创建之后
-								afterSingletonCreation(beanName);
-							}
-						}
-						// 是否包含bean name
-						if (containsSingleton(beanName)) {
-							// 插入缓存
-							// 后续使用的时候可以直接获取
-							this.factoryBeanObjectCache.put(beanName, object);
-						}
-					}
+			if (isSingletonCreationLocking()) {
+				// 单例级别的创建锁
+				if (!acquireSingletonCreationLock(beanName, true)) {
+					// Circular reference across creating threads: temporarily return non-cached object.
+					return doGetObjectFromFactoryBean(factory, beanName);
+				}
+				try {
+					return getSingletonObjectFromFactoryBean(factory, beanName, shouldPostProcess);
+				}
+				finally {
+					releaseSingletonCreationLock(beanName);
 				}
-				return object;
+			}
+			synchronized (getSingletonMutex()) {
+				return getSingletonObjectFromFactoryBean(factory, beanName, shouldPostProcess);
 			}
 		}
 		else {
@@ -175,6 +142,65 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 		}
 	}
 
+	/**
+	 * Obtain the singleton object to expose from the given FactoryBean, caching it
+	 * for subsequent calls. To be called with either the singleton mutex or the
+	 * bean's creation lock held.
+	 * @param factory the FactoryBean instance
+	 * @param beanName the name of the bean
+	 * @param shouldPostProcess whether the bean is subject to post-processing
+	 * @return the object obtained from the FactoryBean
+	 * @throws BeanCreationException if FactoryBean object creation failed
+	 */
+	private Object getSingletonObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
+		// 从工厂bean的缓存中获取
+		Object object = this.factoryBeanObjectCache.get(beanName);
+		if (object == null) {
+			// 从 factoryBean 接口中获取
+			object = doGetObjectFromFactoryBean(factory, beanName);
+			// Only post-process and store if not put there already during getObject() call above
+			// (e.g. because of circular reference processing triggered by custom getBean calls)
+			// 从缓存map中获取
+			Object alreadyThere = this.factoryBeanObjectCache.get(beanName);
+			if (alreadyThere != null) {
+				// 如果缓存中获取有值
+				// object 覆盖
+				object = alreadyThere;
+			}
+			else {
+				// 判断是否需要后置处理
+				if (shouldPostProcess) {
+					// 是否处于创建中
+					if (isSingletonCurrentlyInCreation(beanName)) {
+						// Temporarily return non-post-processed object, not storing it yet..
+						return object;
+					}
+					// 单例创建前的验证
+					beforeSingletonCreation(beanName);
+					try {
+						// 从 FactoryBean 接口创建的 后置处理
+						object = postProcessObjectFromFactoryBean(object, beanName);
+					}
+					catch (Throwable ex) {
+						throw new BeanCreationException(beanName,
+								"Post-processing of FactoryBean's singleton object failed", ex);
+					}
+					finally {
+						// 单例bean创建之后
+						afterSingletonCreation(beanName);
+					}
+				}
+				// 是否包含bean name
+				if (containsSingleton(beanName)) {
+					// 插入缓存
+					// 后续使用的时候可以直接获取
+					this.factoryBeanObjectCache.put(beanName, object);
+				}
+			}
+		}
+		return object;
+	}
+
 	/**
 	 * Obtain an object to expose from the given FactoryBean.
 	 * @param factory the FactoryBean instance
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.lang.Nullable;
+
+/**
+ * Helper for {@link DefaultListableBeanFactory#preInstantiateSingletons()} that
+ * creates non-lazy singletons on a bounded {@link ForkJoinPool}.
+ *
+ * <p>A dependency graph is derived from the merged bean definitions: depends-on
+ * declarations, bean references in constructor arguments and property values
+ * (including inner beans and managed collections), factory bean names as well
+ * as autowire candidates for constructor and factory method parameters. A
+ * singleton is scheduled once all of its known dependencies have been created,
+ * so independent subtrees of the graph are created concurrently. Singletons that
+ * are part of a cycle in the graph are left to the subsequent sequential pass.
+ *
+ * <p>Per-bean {@link DefaultSingletonBeanRegistry#setSingletonCreationLocking
+ * creation locks} are active while the pool is running, covering dependencies
+ * that are only discovered during creation.
+ *
+ * 并行预加载单例bean
+ *
+ * @since 5.3
+ * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+ */
+final class ParallelSingletonInstantiator {
+
+	private static final Log logger = LogFactory.getLog(ParallelSingletonInstantiator.class);
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	private final int parallelism;
+
+	/** Dependent singletons: bean name to names of the singletons depending on it. */
+	private final Map<String, List<String>> dependents = new HashMap<>(256);
+
+	/** Number of dependencies that have not been created yet: bean name to count. */
+	private final Map<String, AtomicInteger> pendingDependencies = new HashMap<>(256);
+
+	private final AtomicInteger outstandingTasks = new AtomicInteger();
+
+	private final CountDownLatch completion = new CountDownLatch(1);
+
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	@Nullable
+	private ForkJoinPool pool;
+
+
+	ParallelSingletonInstantiator(DefaultListableBeanFactory beanFactory, int parallelism) {
+		this.beanFactory = beanFactory;
+		this.parallelism = parallelism;
+	}
+
+
+	/**
+	 * Create the non-lazy singletons among the given bean names, in dependency order.
+	 * @param beanNames the names of all bean definitions, in registration order
+	 * @throws BeansException if any of the singletons could not be created
+	 */
+	void instantiate(List<String> beanNames) throws BeansException {
+		Set<String> candidates = new LinkedHashSet<>(beanNames.size());
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				candidates.add(beanName);
+			}
+		}
+		List<String> roots = buildDependencyGraph(candidates);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiating " + candidates.size() + " singletons with parallelism " +
+					this.parallelism + " (" + roots.size() + " without dependencies)");
+		}
+		if (roots.isEmpty()) {
+			return;
+		}
+
+		ClassLoader beanClassLoader = this.beanFactory.getBeanClassLoader();
+		this.pool = new ForkJoinPool(this.parallelism, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("singleton-bootstrap-" + thread.getPoolIndex());
+			thread.setContextClassLoader(beanClassLoader);
+			return thread;
+		}, null, false);
+		boolean singletonCreationLocking = this.beanFactory.isSingletonCreationLocking();
+		this.beanFactory.setSingletonCreationLocking(true);
+		try {
+			for (String root : roots) {
+				submit(root);
+			}
+			this.completion.await();
+		}
+		catch (InterruptedException ex) {
+			// 不再调度后续单例, 并等待正在创建单例的工作线程结束
+			this.failure.compareAndSet(null, ex);
+			this.pool.shutdownNow();
+			awaitTermination(this.pool);
+			Thread.currentThread().interrupt();
+			throw new FatalBeanException("Interrupted during parallel pre-instantiation of singletons", ex);
+		}
+		finally {
+			this.pool.shutdown();
+			this.beanFactory.setSingletonCreationLocking(singletonCreationLocking);
+		}
+
+		Throwable ex = this.failure.get();
+		if (ex instanceof RuntimeException) {
+			throw (RuntimeException) ex;
+		}
+		if (ex instanceof Error) {
+			throw (Error) ex;
+		}
+	}
+
+	/**
+	 * Register the dependencies between the given singletons.
+	 * @param candidates the names of the singletons to create
+	 * @return the names of the singletons without dependencies, in registration order
+	 */
+	private List<String> buildDependencyGraph(Set<String> candidates) {
+		Map<String, Set<String>> resolved = new HashMap<>(candidates.size());
+		List<String> roots = new ArrayList<>();
+		for (String beanName : candidates) {
+			Set<String> dependencies = new LinkedHashSet<>();
+			collectCandidateDependencies(beanName, candidates, resolved, dependencies, new LinkedHashSet<>());
+			dependencies.remove(beanName);
+			this.pendingDependencies.put(beanName, new AtomicInteger(dependencies.size()));
+			if (dependencies.isEmpty()) {
+				roots.add(beanName);
+			}
+			for (String dependency : dependencies) {
+				this.dependents.computeIfAbsent(dependency, k -> new ArrayList<>(4)).add(beanName);
+			}
+		}
+		return roots;
+	}
+
+	/**
+	 * Collect the singletons that the given bean needs, following dependencies
+	 * through non-candidate beans (e.g. prototypes) to the candidates they refer to.
+	 */
+	private void collectCandidateDependencies(String beanName, Set<String> candidates,
+			Map<String, Set<String>> resolved, Set<String> result, Set<String> visited) {
+
+		if (!visited.add(beanName)) {
+			return;
+		}
+		Set<String> dependencies = resolved.computeIfAbsent(beanName, this::getDeclaredDependencies);
+		for (String dependency : dependencies) {
+			if (candidates.contains(dependency)) {
+				result.add(dependency);
+			}
+			else if (this.beanFactory.containsBeanDefinition(dependency)) {
+				collectCandidateDependencies(dependency, candidates, resolved, result, visited);
+			}
+		}
+	}
+
+	/**
+	 * Determine the names of the beans that the given bean directly depends on,
+	 * as far as derivable from its bean definition.
+	 */
+	private Set<String> getDeclaredDependencies(String beanName) {
+		RootBeanDefinition mbd;
+		try {
+			mbd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+		}
+		catch (BeansException ex) {
+			// Let the actual creation attempt report the problem
+			return Collections.emptySet();
+		}
+		Set<String> dependencies = new LinkedHashSet<>();
+		addBeanDefinitionReferences(mbd, dependencies);
+		addAutowireCandidates(mbd, dependencies);
+		Set<String> canonicalNames = new LinkedHashSet<>(dependencies.size());
+		for (String dependency : dependencies) {
+			canonicalNames.add(this.beanFactory.transformedBeanName(dependency));
+		}
+		return canonicalNames;
+	}
+
+	private void addBeanDefinitionReferences(BeanDefinition bd, Set<String> dependencies) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			Collections.addAll(dependencies, dependsOn);
+		}
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(bd.getFactoryBeanName());
+		}
+		if (bd.hasConstructorArgumentValues()) {
+			for (ValueHolder valueHolder : bd.getConstructorArgumentValues().getIndexedArgumentValues().values()) {
+				addValueReferences(valueHolder.getValue(), dependencies);
+			}
+			for (ValueHolder valueHolder : bd.getConstructorArgumentValues().getGenericArgumentValues()) {
+				addValueReferences(valueHolder.getValue(), dependencies);
+			}
+		}
+		if (bd.hasPropertyValues()) {
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				addValueReferences(pv.getValue(), dependencies);
+			}
+		}
+	}
+
+	private void addValueReferences(@Nullable Object value, Set<String> dependencies) {
+		if (value instanceof RuntimeBeanReference) {
+			dependencies.add(((RuntimeBeanReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			addBeanDefinitionReferences(((BeanDefinitionHolder) value).getBeanDefinition(), dependencies);
+		}
+		else if (value instanceof BeanDefinition) {
+			addBeanDefinitionReferences((BeanDefinition) value, dependencies);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				addValueReferences(element, dependencies);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				addValueReferences(entry.getKey(), dependencies);
+				addValueReferences(entry.getValue(), dependencies);
+			}
+		}
+	}
+
+	/**
+	 * Add the autowire candidates for the parameters of the factory method or of the
+	 * constructor, if the latter is going to be autowired (explicitly or implicitly).
+	 */
+	private void addAutowireCandidates(RootBeanDefinition mbd, Set<String> dependencies) {
+		Executable executable = mbd.getResolvedFactoryMethod();
+		if (executable == null && mbd.getFactoryMethodName() == null && mbd.hasBeanClass()) {
+			Constructor<?>[] ctors = mbd.getBeanClass().getDeclaredConstructors();
+			if (ctors.length == 1 && (ctors[0].getParameterCount() > 0 &&
+					(mbd.getResolvedAutowireMode() == AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR ||
+					!mbd.hasConstructorArgumentValues()))) {
+				executable = ctors[0];
+			}
+		}
+		if (executable == null) {
+			return;
+		}
+		for (Class<?> paramType : executable.getParameterTypes()) {
+			if (!BeanUtils.isSimpleProperty(paramType) && !paramType.isArray() &&
+					!Collection.class.isAssignableFrom(paramType) && !Map.class.isAssignableFrom(paramType) &&
+					!ObjectFactory.class.isAssignableFrom(paramType) && paramType != Object.class) {
+				Collections.addAll(dependencies, this.beanFactory.getBeanNamesForType(paramType, true, false));
+			}
+		}
+	}
+
+	/**
+	 * Wait for the given pool to terminate, regardless of interrupts:
+	 * no worker thread may still be creating singletons once we return.
+	 */
+	private static void awaitTermination(ForkJoinPool pool) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				if (pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+					break;
+				}
+			}
+			catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void submit(String beanName) {
+		this.outstandingTasks.incrementAndGet();
+		ForkJoinPool pool = this.pool;
+		if (pool != null) {
+			pool.execute(() -> instantiate(beanName));
+		}
+	}
+
+	private void instantiate(String beanName) {
+		try {
+			if (this.failure.get() == null) {
+				this.beanFactory.preInstantiateSingleton(beanName);
+				List<String> beanDependents = this.dependents.get(beanName);
+				if (beanDependents != null) {
+					for (String dependent : beanDependents) {
+						if (this.pendingDependencies.get(dependent).decrementAndGet() == 0) {
+							submit(dependent);
+						}
+					}
+				}
+			}
+		}
+		catch (Throwable ex) {
+			this.failure.compareAndSet(null, ex);
+		}
+		finally {
+			if (this.outstandingTasks.decrementAndGet() == 0) {
+				this.completion.countDown();
+			}
+		}
+	}
+
+}
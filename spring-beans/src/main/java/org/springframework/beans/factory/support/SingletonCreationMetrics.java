@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of the singleton creation metrics of a {@link DefaultSingletonBeanRegistry}.
+ *
+ * <p>Contention is only tracked for the per-bean creation locks, i.e. while
+ * {@link DefaultSingletonBeanRegistry#setSingletonCreationLocking creation locking}
+ * is active: a thread requesting a singleton that another thread is currently
+ * creating waits for that bean only, and each such wait is recorded here.
+ * All values are cumulative since the creation of the registry.
+ *
+ * @since 5.3
+ * @see DefaultSingletonBeanRegistry#getSingletonCreationMetrics()
+ */
+public final class SingletonCreationMetrics {
+
+	private final long createdSingletonCount;
+
+	private final long contendedCreationCount;
+
+	private final long totalWaitNanos;
+
+	private final long maxWaitNanos;
+
+	private final long crossThreadEarlyReferenceCount;
+
+
+	SingletonCreationMetrics(long createdSingletonCount, long contendedCreationCount,
+			long totalWaitNanos, long maxWaitNanos, long crossThreadEarlyReferenceCount) {
+
+		this.createdSingletonCount = createdSingletonCount;
+		this.contendedCreationCount = contendedCreationCount;
+		this.totalWaitNanos = totalWaitNanos;
+		this.maxWaitNanos = maxWaitNanos;
+		this.crossThreadEarlyReferenceCount = crossThreadEarlyReferenceCount;
+	}
+
+
+	/**
+	 * Return the number of singletons created through the registry.
+	 */
+	public long getCreatedSingletonCount() {
+		return this.createdSingletonCount;
+	}
+
+	/**
+	 * Return the number of times a thread had to wait for a singleton
+	 * being created by another thread.
+	 */
+	public long getContendedCreationCount() {
+		return this.contendedCreationCount;
+	}
+
+	/**
+	 * Return the total time threads spent waiting for singletons
+	 * being created by other threads, until obtaining the fully
+	 * initialized singleton (i.e. excluding failed waits and waits
+	 * resolved through an early singleton reference).
+	 */
+	public Duration getTotalWaitTime() {
+		return Duration.ofNanos(this.totalWaitNanos);
+	}
+
+	/**
+	 * Return the longest time a single thread spent waiting for a singleton
+	 * being created by another thread.
+	 */
+	public Duration getMaxWaitTime() {
+		return Duration.ofNanos(this.maxWaitNanos);
+	}
+
+	/**
+	 * Return the number of early singleton references handed out to resolve
+	 * circular references between singletons created by different threads.
+	 */
+	public long getCrossThreadEarlyReferenceCount() {
+		return this.crossThreadEarlyReferenceCount;
+	}
+
+
+	@Override
+	public String toString() {
+		return "SingletonCreationMetrics: created=" + this.createdSingletonCount +
+				", contended=" + this.contendedCreationCount +
+				", totalWait=" + getTotalWaitTime().toMillis() + "ms" +
+				", maxWait=" + getMaxWaitTime().toMillis() + "ms" +
+				", crossThreadEarlyReferences=" + this.crossThreadEarlyReferenceCount;
+	}
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.beans.testfixture.beans.DerivedTestBean;
+import org.springframework.beans.testfixture.beans.ITestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BeanTypeIndex} and its use in by-type lookups of
+ * {@link DefaultListableBeanFactory}.
+ *
+ * @since 5.3
+ */
+class BeanTypeIndexTests {
+
+	private final BeanTypeIndex index = new BeanTypeIndex();
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@Test
+	void candidatesIndexedByTypeHierarchy() {
+		Map<String, Class<?>> types = new HashMap<>();
+		types.put("a", TestBean.class);
+		types.put("b", String.class);
+		types.put("c", DerivedTestBean.class);
+		this.index.register("a");
+		this.index.register("b");
+		this.index.register("c");
+		this.index.register("d");
+
+		assertThat(this.index.getCandidateNames(ITestBean.class, types::get, true)).containsExactly("a", "c", "d");
+		assertThat(this.index.getCandidateNames(Serializable.class, types::get, true)).containsExactly("b", "c", "d");
+		assertThat(this.index.getCandidateNames(Integer.class, types::get, true)).containsExactly("d");
+		assertThat(this.index.getCandidateNames(CharSequence.class, types::get, true)).containsExactly("b", "d");
+		assertThat(this.index.getCandidateNames(Object.class, types::get, true)).containsExactly("a", "b", "c", "d");
+	}
+
+	@Test
+	void candidatesIndexedByInheritedInterfaces() {
+		this.index.register("a");
+
+		assertThat(this.index.getCandidateNames(Collection.class, name -> ArrayList.class, true)).containsExactly("a");
+		assertThat(this.index.getCandidateNames(Iterable.class, name -> ArrayList.class, true)).containsExactly("a");
+	}
+
+	@Test
+	void primitiveTypesMatchWrapperTypes() {
+		this.index.register("a");
+		this.index.register("b");
+
+		Function<String, Class<?>> types = name -> (name.equals("a") ? int.class : Integer.class);
+		assertThat(this.index.getCandidateNames(int.class, types, true)).containsExactly("a", "b");
+		assertThat(this.index.getCandidateNames(Number.class, types, true)).containsExactly("a", "b");
+	}
+
+	@Test
+	void arrayBeansAreAlwaysCandidates() {
+		this.index.register("a");
+
+		assertThat(this.index.getCandidateNames(Object[].class, name -> String[].class, true)).containsExactly("a");
+		assertThat(this.index.getCandidateNames(Integer.class, name -> String[].class, true)).containsExactly("a");
+	}
+
+	@Test
+	void candidatesInRegistrationOrder() {
+		this.index.register("b");
+		this.index.register("a");
+		this.index.register("c");
+
+		assertThat(this.index.getCandidateNames(TestBean.class, name -> TestBean.class, true)).containsExactly("b", "a", "c");
+	}
+
+	@Test
+	void untypedBeansAreAlwaysCandidates() {
+		AtomicInteger resolutions = new AtomicInteger();
+		this.index.register("a");
+
+		assertThat(this.index.getCandidateNames(String.class, name -> {
+			resolutions.incrementAndGet();
+			return BeanTypeIndex.UNTYPED;
+		}, true)).containsExactly("a");
+		assertThat(this.index.getCandidateNames(Integer.class, name -> TestBean.class, true)).containsExactly("a");
+		assertThat(resolutions).hasValue(1);
+	}
+
+	@Test
+	void candidatesCachedUntilIndexChanges() {
+		AtomicInteger resolutions = new AtomicInteger();
+		Function<String, Class<?>> types = name -> {
+			resolutions.incrementAndGet();
+			return TestBean.class;
+		};
+		this.index.register("a");
+		List<String> candidates = this.index.getCandidateNames(ITestBean.class, types, true);
+		assertThat(candidates).containsExactly("a");
+		assertThat(this.index.getCandidateNames(ITestBean.class, types, true)).isSameAs(candidates);
+		assertThat(resolutions).hasValue(1);
+
+		this.index.register("b");
+		assertThat(this.index.getCandidateNames(ITestBean.class, types, true)).containsExactly("a", "b");
+		assertThat(resolutions).hasValue(2);
+	}
+
+	@Test
+	void candidatesNotCachedForNonCacheableType() {
+		this.index.register("a");
+		List<String> candidates = this.index.getCandidateNames(ITestBean.class, name -> TestBean.class, false);
+		assertThat(candidates).containsExactly("a");
+		assertThat(this.index.getCandidateNames(ITestBean.class, name -> TestBean.class, false))
+				.isEqualTo(candidates).isNotSameAs(candidates);
+	}
+
+	@Test
+	void invalidateAndRemove() {
+		this.index.register("a");
+		assertThat(this.index.getCandidateNames(String.class, name -> TestBean.class, true)).isEmpty();
+
+		this.index.invalidate("a");
+		assertThat(this.index.getCandidateNames(String.class, name -> String.class, true)).containsExactly("a");
+
+		this.index.remove("a");
+		assertThat(this.index.getCandidateNames(String.class, name -> String.class, true)).isEmpty();
+	}
+
+	@Test
+	void lookupMatchesFullScan() {
+		this.beanFactory.registerBeanDefinition("testBean", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.registerBeanDefinition("string", new RootBeanDefinition(String.class));
+		this.beanFactory.registerBeanDefinition("factory", new RootBeanDefinition(TestBeanFactoryBean.class));
+		this.beanFactory.registerBeanDefinition("derived", new RootBeanDefinition(DerivedTestBean.class));
+		RootBeanDefinition abstractDefinition = new RootBeanDefinition(TestBean.class);
+		abstractDefinition.setAbstract(true);
+		this.beanFactory.registerBeanDefinition("abstract", abstractDefinition);
+
+		assertThat(this.beanFactory.getBeanNamesForType(ITestBean.class)).containsExactly("testBean", "factory", "derived");
+		assertThat(this.beanFactory.getBeanNamesForType(FactoryBean.class)).containsExactly("&factory");
+		assertThat(this.beanFactory.getBeanNamesForType(String.class)).containsExactly("string");
+		assertThat(this.beanFactory.getBeanNamesForType(Object.class)).hasSize(4);
+	}
+
+	@Test
+	void lookupAfterDefinitionOverride() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		assertThat(this.beanFactory.getBeanNamesForType(TestBean.class)).containsExactly("bean");
+
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(String.class));
+		assertThat(this.beanFactory.getBeanNamesForType(TestBean.class)).isEmpty();
+		assertThat(this.beanFactory.getBeanNamesForType(String.class)).containsExactly("bean");
+
+		this.beanFactory.removeBeanDefinition("bean");
+		assertThat(this.beanFactory.getBeanNamesForType(String.class)).isEmpty();
+	}
+
+	@Test
+	void lookupReindexesCreatedSingleton() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setInstanceSupplier(DerivedTestBean::new);
+		this.beanFactory.registerBeanDefinition("bean", bd);
+		assertThat(this.beanFactory.getBeanNamesForType(DerivedTestBean.class)).isEmpty();
+
+		this.beanFactory.getBean("bean");
+		assertThat(this.beanFactory.getBeanNamesForType(DerivedTestBean.class)).containsExactly("bean");
+	}
+
+	@Test
+	void lookupReindexesReplacedSingleton() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.registerBeanDefinition("other", new RootBeanDefinition(String.class));
+		assertThat(this.beanFactory.getBeanNamesForType(DerivedTestBean.class)).isEmpty();
+
+		this.beanFactory.registerSingleton("bean", new DerivedTestBean());
+		assertThat(this.beanFactory.getBeanNamesForType(DerivedTestBean.class)).containsExactly("bean");
+
+		this.beanFactory.destroySingleton("bean");
+		assertThat(this.beanFactory.getBeanNamesForType(TestBean.class)).containsExactly("bean");
+	}
+
+	@Test
+	void lookupIndexesPredictedTypeWithInstantiationAwarePostProcessor() {
+		AtomicInteger predictions = new AtomicInteger();
+		this.beanFactory.addBeanPostProcessor(new SmartInstantiationAwareBeanPostProcessor() {
+			@Override
+			public Class<?> predictBeanType(Class<?> beanClass, String beanName) {
+				predictions.incrementAndGet();
+				return (beanName.equals("predicted") ? DerivedTestBean.class : null);
+			}
+		});
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.registerBeanDefinition("predicted", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition prototype = new RootBeanDefinition(String.class);
+		prototype.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition("prototype", prototype);
+
+		assertThat(this.beanFactory.getBeanNamesForType(ITestBean.class)).containsExactly("bean", "predicted");
+		assertThat(this.beanFactory.getBeanNamesForType(DerivedTestBean.class)).containsExactly("predicted");
+		assertThat(this.beanFactory.getBeanNamesForType(String.class)).containsExactly("prototype");
+		int count = predictions.get();
+		// 已索引的单例 bean 不再参与类型匹配
+		assertThat(this.beanFactory.getBeanNamesForType(Integer.class)).isEmpty();
+		assertThat(predictions).hasValue(count + 1);
+	}
+
+	@Test
+	void manualSingletonUpdatesFrozenCache() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.freezeConfiguration();
+		assertThat(this.beanFactory.getBeanNamesForType(ITestBean.class)).containsExactly("bean");
+		assertThat(this.beanFactory.getBeanNamesForType(String.class)).isEmpty();
+
+		this.beanFactory.registerSingleton("manual", new TestBean());
+		this.beanFactory.registerSingleton("factory", new TestBeanFactoryBean());
+		assertThat(this.beanFactory.getBeanNamesForType(ITestBean.class)).containsExactly("bean", "manual", "factory");
+		assertThat(this.beanFactory.getBeanNamesForType(FactoryBean.class)).containsExactly("&factory");
+		assertThat(this.beanFactory.getBeanNamesForType(String.class)).isEmpty();
+
+		this.beanFactory.destroySingleton("manual");
+		this.beanFactory.destroySingleton("factory");
+		assertThat(this.beanFactory.getBeanNamesForType(ITestBean.class)).containsExactly("bean");
+		assertThat(this.beanFactory.getBeanNamesForType(FactoryBean.class)).isEmpty();
+	}
+
+
+	static class TestBeanFactoryBean implements FactoryBean<TestBean> {
+
+		@Override
+		public TestBean getObject() {
+			return new TestBean();
+		}
+
+		@Override
+		public Class<?> getObjectType() {
+			return TestBean.class;
+		}
+	}
+
+}
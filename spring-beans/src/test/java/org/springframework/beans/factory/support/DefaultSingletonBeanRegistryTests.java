@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,24 @@
 
 package org.springframework.beans.factory.support;
 
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.testfixture.beans.DerivedTestBean;
 import org.springframework.beans.testfixture.beans.TestBean;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 
 /**
  * @author Juergen Hoeller
@@ -101,4 +111,132 @@ public class DefaultSingletonBeanRegistryTests {
 		assertThat(beanRegistry.isDependent("c", "c")).isTrue();
 	}
 
+	@Test
+	public void testEarlySingletonReferenceWithoutSingletonMutex() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		TestBean tb = new TestBean();
+		beanRegistry.beforeSingletonCreation("tb");
+		beanRegistry.addSingletonFactory("tb", () -> tb);
+		assertThat(beanRegistry.getSingleton("tb")).isSameAs(tb);
+
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread holder = new Thread(() -> {
+			synchronized (beanRegistry.getSingletonMutex()) {
+				locked.countDown();
+				awaitQuietly(release);
+			}
+		});
+		holder.start();
+		try {
+			locked.await();
+			assertThat(beanRegistry.getSingleton("tb")).isSameAs(tb);
+		}
+		finally {
+			release.countDown();
+			holder.join();
+		}
+	}
+
+	@Test
+	public void testSingletonCreationLockingWaitsForSameBeanOnly() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setSingletonCreationLocking(true);
+		CountDownLatch creating = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> first = executor.submit(() -> beanRegistry.getSingleton("tb", () -> {
+				creating.countDown();
+				awaitQuietly(release);
+				return new TestBean();
+			}));
+			creating.await();
+			Future<Object> second = executor.submit(() -> beanRegistry.getSingleton("tb", TestBean::new));
+
+			// 其他 bean 的创建不受影响
+			Object other = beanRegistry.getSingleton("other", TestBean::new);
+			assertThat(beanRegistry.getSingleton("other")).isSameAs(other);
+			assertThat(beanRegistry.getSingleton("tb")).isNull();
+
+			while (beanRegistry.getSingletonCreationMetrics().getContendedCreationCount() == 0 && !second.isDone()) {
+				Thread.sleep(5);
+			}
+			release.countDown();
+			assertThat(second.get()).isSameAs(first.get());
+		}
+		finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+
+		SingletonCreationMetrics metrics = beanRegistry.getSingletonCreationMetrics();
+		assertThat(metrics.getCreatedSingletonCount()).isEqualTo(2);
+		assertThat(metrics.getContendedCreationCount()).isEqualTo(1);
+		assertThat(metrics.getMaxWaitTime()).isEqualTo(metrics.getTotalWaitTime()).isGreaterThan(Duration.ZERO);
+		assertThat(metrics.getCrossThreadEarlyReferenceCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testSingletonCreationLockingDoesNotWaitWithinSingletonMutex() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setSingletonCreationLocking(true);
+		CountDownLatch creating = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> first = executor.submit(() -> beanRegistry.getSingleton("tb", () -> {
+				creating.countDown();
+				awaitQuietly(release);
+				return new TestBean();
+			}));
+			creating.await();
+			synchronized (beanRegistry.getSingletonMutex()) {
+				assertThatExceptionOfType(BeanCurrentlyInCreationException.class).isThrownBy(() ->
+						beanRegistry.getSingleton("tb", TestBean::new));
+			}
+			release.countDown();
+			Object tb = first.get();
+			assertThat(beanRegistry.getSingleton("tb")).isSameAs(tb);
+		}
+		finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSingletonCreationLockingRecordsSuppressedExceptions() {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setSingletonCreationLocking(true);
+		BeanCreationException suppressed = new BeanCreationException("suppressed");
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(() ->
+				beanRegistry.getSingleton("tb", () -> {
+					beanRegistry.onSuppressedException(suppressed);
+					throw new BeanCreationException("tb", "failed");
+				}))
+				.satisfies(ex -> assertThat(ex.getRelatedCauses()).containsExactly(suppressed));
+	}
+
+	@Test
+	public void testSingletonCreationLockingNotSwitchedDuringCreation() {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.getSingleton("tb", () -> {
+			assertThatIllegalStateException().isThrownBy(() -> beanRegistry.setSingletonCreationLocking(true));
+			beanRegistry.setSingletonCreationLocking(false);
+			return new TestBean();
+		});
+		beanRegistry.setSingletonCreationLocking(true);
+		assertThat(beanRegistry.isSingletonCreationLocking()).isTrue();
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 }
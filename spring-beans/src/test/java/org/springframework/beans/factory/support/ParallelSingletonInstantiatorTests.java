@@ -0,0 +1,285 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for parallel pre-instantiation of singletons in {@link DefaultListableBeanFactory}.
+ *
+ * @since 5.3
+ */
+class ParallelSingletonInstantiatorTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@Test
+	void independentSingletonsAreCreatedConcurrently() {
+		CountDownLatch latch = new CountDownLatch(3);
+		for (int i = 0; i < 3; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(LatchBean.class);
+			bd.getConstructorArgumentValues().addGenericArgumentValue(latch);
+			this.beanFactory.registerBeanDefinition("latch" + i, bd);
+		}
+		this.beanFactory.setPreInstantiationParallelism(3);
+		this.beanFactory.preInstantiateSingletons();
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(this.beanFactory.getBean("latch" + i, LatchBean.class).released).isTrue();
+		}
+	}
+
+	@Test
+	void dependenciesAreCreatedFirst() {
+		List<String> creationOrder = Collections.synchronizedList(new ArrayList<>());
+		registerRecordingBean("a", creationOrder, "b");
+		registerRecordingBean("b", creationOrder, "c");
+		registerRecordingBean("c", creationOrder, null);
+		registerRecordingBean("d", creationOrder, null);
+		this.beanFactory.setPreInstantiationParallelism(4);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertThat(creationOrder).containsExactlyInAnyOrder("a", "b", "c", "d");
+		assertThat(creationOrder.indexOf("c")).isLessThan(creationOrder.indexOf("b"));
+		assertThat(creationOrder.indexOf("b")).isLessThan(creationOrder.indexOf("a"));
+		assertThat(this.beanFactory.getBean("a", RecordingBean.class).dependency)
+				.isSameAs(this.beanFactory.getBean("b"));
+	}
+
+	@Test
+	void circularReferenceIsResolved() {
+		RootBeanDefinition first = new RootBeanDefinition(RecordingBean.class);
+		first.getPropertyValues().add("dependency", new RuntimeBeanReference("second"));
+		this.beanFactory.registerBeanDefinition("first", first);
+		RootBeanDefinition second = new RootBeanDefinition(RecordingBean.class);
+		second.getPropertyValues().add("dependency", new RuntimeBeanReference("first"));
+		this.beanFactory.registerBeanDefinition("second", second);
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		RecordingBean firstBean = this.beanFactory.getBean("first", RecordingBean.class);
+		RecordingBean secondBean = this.beanFactory.getBean("second", RecordingBean.class);
+		assertThat(firstBean.dependency).isSameAs(secondBean);
+		assertThat(secondBean.dependency).isSameAs(firstBean);
+	}
+
+	@Test
+	void undeclaredDependencyWaitsForCompleteInstance() {
+		CountDownLatch started = new CountDownLatch(1);
+		RootBeanDefinition slow = new RootBeanDefinition(SlowBean.class);
+		slow.getConstructorArgumentValues().addGenericArgumentValue(started);
+		this.beanFactory.registerBeanDefinition("slow", slow);
+		RootBeanDefinition lookup = new RootBeanDefinition(LookupBean.class);
+		lookup.getConstructorArgumentValues().addGenericArgumentValue(started);
+		this.beanFactory.registerBeanDefinition("lookup", lookup);
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		LookupBean lookupBean = this.beanFactory.getBean("lookup", LookupBean.class);
+		assertThat(lookupBean.slowBean).isSameAs(this.beanFactory.getBean("slow"));
+		assertThat(lookupBean.slowBean.initialized).isTrue();
+	}
+
+	@Test
+	void smartInitializingSingletonsAreCalledInRegistrationOrder() {
+		List<String> callbacks = new ArrayList<>();
+		Thread callingThread = Thread.currentThread();
+		for (int i = 0; i < 5; i++) {
+			String name = "smart" + i;
+			this.beanFactory.registerBeanDefinition(name, new RootBeanDefinition(SmartInitializingSingleton.class,
+					() -> (SmartInitializingSingleton) () -> {
+						assertThat(Thread.currentThread()).isSameAs(callingThread);
+						callbacks.add(name);
+					}));
+		}
+		this.beanFactory.setPreInstantiationParallelism(4);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertThat(callbacks).containsExactly("smart0", "smart1", "smart2", "smart3", "smart4");
+	}
+
+	@Test
+	void creationFailureIsPropagated() {
+		this.beanFactory.registerBeanDefinition("ok", new RootBeanDefinition(RecordingBean.class));
+		this.beanFactory.registerBeanDefinition("failing", new RootBeanDefinition(Object.class, () -> {
+			throw new IllegalArgumentException("failure");
+		}));
+		this.beanFactory.setPreInstantiationParallelism(2);
+
+		assertThatExceptionOfType(BeanCreationException.class)
+				.isThrownBy(this.beanFactory::preInstantiateSingletons)
+				.satisfies(ex -> assertThat(ex.getBeanName()).isEqualTo("failing"));
+	}
+
+	@Test
+	void singletonCreationLockingIsResetAfterPreInstantiation() {
+		this.beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(RecordingBean.class));
+		this.beanFactory.setPreInstantiationParallelism(2);
+		this.beanFactory.preInstantiateSingletons();
+
+		assertThat(this.beanFactory.isSingletonCreationLocking()).isFalse();
+	}
+
+	@Test
+	void interruptStopsWorkersAndResetsSingletonCreationLocking() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch stopped = new CountDownLatch(1);
+		this.beanFactory.registerBeanDefinition("blocking", new RootBeanDefinition(Object.class, () -> {
+			started.countDown();
+			try {
+				new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				stopped.countDown();
+				throw new IllegalStateException(ex);
+			}
+			return new Object();
+		}));
+		this.beanFactory.setPreInstantiationParallelism(2);
+		Thread callingThread = Thread.currentThread();
+		Thread interrupter = new Thread(() -> {
+			try {
+				if (started.await(10, TimeUnit.SECONDS)) {
+					callingThread.interrupt();
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		interrupter.start();
+
+		assertThatExceptionOfType(FatalBeanException.class).isThrownBy(this.beanFactory::preInstantiateSingletons);
+		assertThat(Thread.interrupted()).isTrue();
+		interrupter.join();
+		assertThat(stopped.getCount()).isEqualTo(0);
+		assertThat(this.beanFactory.containsSingleton("blocking")).isFalse();
+		assertThat(this.beanFactory.isSingletonCreationLocking()).isFalse();
+	}
+
+
+	private void registerRecordingBean(String name, List<String> creationOrder, String dependency) {
+		RootBeanDefinition bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getPropertyValues().add("creationOrder", creationOrder);
+		bd.getPropertyValues().add("name", name);
+		if (dependency != null) {
+			bd.getPropertyValues().add("dependency", new RuntimeBeanReference(dependency));
+		}
+		this.beanFactory.registerBeanDefinition(name, bd);
+	}
+
+
+	static class LatchBean {
+
+		final boolean released;
+
+		LatchBean(CountDownLatch latch) throws InterruptedException {
+			latch.countDown();
+			this.released = latch.await(10, TimeUnit.SECONDS);
+		}
+	}
+
+
+	static class RecordingBean implements InitializingBean {
+
+		private List<String> creationOrder;
+
+		private String name;
+
+		Object dependency;
+
+		public void setCreationOrder(List<String> creationOrder) {
+			this.creationOrder = creationOrder;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public void setDependency(Object dependency) {
+			this.dependency = dependency;
+		}
+
+		@Override
+		public void afterPropertiesSet() {
+			if (this.creationOrder != null) {
+				this.creationOrder.add(this.name);
+			}
+		}
+	}
+
+
+	static class SlowBean implements InitializingBean {
+
+		private final CountDownLatch started;
+
+		volatile boolean initialized;
+
+		SlowBean(CountDownLatch started) {
+			this.started = started;
+		}
+
+		@Override
+		public void afterPropertiesSet() throws Exception {
+			this.started.countDown();
+			Thread.sleep(200);
+			this.initialized = true;
+		}
+	}
+
+
+	static class LookupBean implements BeanFactoryAware {
+
+		private final CountDownLatch started;
+
+		SlowBean slowBean;
+
+		LookupBean(CountDownLatch started) {
+			this.started = started;
+		}
+
+		@Override
+		public void setBeanFactory(BeanFactory beanFactory) {
+			try {
+				this.started.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			this.slowBean = beanFactory.getBean("slow", SlowBean.class);
+		}
+	}
+
+}
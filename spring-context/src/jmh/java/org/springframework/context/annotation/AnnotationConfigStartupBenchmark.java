@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.context.annotation.startup.AlphaComponent;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Startup benchmarks for {@link AnnotationConfigApplicationContext}, comparing
+ * a refresh with configuration class parsing and classpath scanning against a
+ * refresh from a {@link BeanDefinitionSnapshot}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnnotationConfigStartupBenchmark {
+
+	@Benchmark
+	public Object refreshWithParsingAndScanning() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(StartupConfig.class);
+		context.close();
+		return context;
+	}
+
+	@Benchmark
+	public Object refreshFromSnapshot(BenchmarkState state) {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.addBeanFactoryPostProcessor(new BeanDefinitionSnapshotPostProcessor(state.snapshot));
+		context.refresh();
+		context.close();
+		return context;
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		ByteArrayResource snapshot;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+			context.register(StartupConfig.class);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			BeanDefinitionSnapshotGenerator.generate(context).writeTo(out);
+			this.snapshot = new ByteArrayResource(out.toByteArray());
+		}
+	}
+
+
+	@Configuration
+	@ComponentScan(basePackageClasses = AlphaComponent.class)
+	@Import({FirstConfig.class, SecondConfig.class})
+	static class StartupConfig {
+
+		@Bean
+		public String first() {
+			return "first";
+		}
+
+		@Bean
+		@Lazy
+		public String second() {
+			return "second";
+		}
+	}
+
+
+	@Configuration
+	static class FirstConfig {
+
+		@Bean
+		public StringBuilder firstBuilder() {
+			return new StringBuilder("first");
+		}
+
+		@Bean
+		@Conditional(NeverCondition.class)
+		public StringBuilder skippedBuilder() {
+			return new StringBuilder("skipped");
+		}
+	}
+
+
+	@Configuration
+	static class SecondConfig {
+
+		@Bean
+		public StringBuilder secondBuilder(StringBuilder firstBuilder) {
+			return new StringBuilder(firstBuilder);
+		}
+
+		@Bean
+		@Primary
+		public Object primary() {
+			return new Object();
+		}
+	}
+
+
+	static class NeverCondition implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			return false;
+		}
+	}
+
+}
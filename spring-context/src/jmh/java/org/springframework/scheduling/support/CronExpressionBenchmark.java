@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.support;
+
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for determining the next fire time of a cron pattern,
+ * comparing {@link CronExpression} against {@link CronSequenceGenerator}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CronExpressionBenchmark {
+
+	@Benchmark
+	public long cronSequenceGenerator(BenchmarkState state) {
+		return state.generator.next(new Date(state.time)).getTime();
+	}
+
+	@Benchmark
+	public long cronExpression(BenchmarkState state) {
+		return state.expression.next(state.time, state.zoneId);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"*/10 * * * * *", "0 0/30 8-10 * * MON-FRI", "0 0 0 1 1 *"})
+		public String pattern;
+
+		@Param({"UTC", "Europe/Berlin"})
+		public String zone;
+
+		long time = 1583316930500L;
+
+		ZoneId zoneId;
+
+		CronSequenceGenerator generator;
+
+		CronExpression expression;
+
+		@Setup
+		public void setup() {
+			this.zoneId = ZoneId.of(this.zone);
+			this.generator = new CronSequenceGenerator(this.pattern, TimeZone.getTimeZone(this.zoneId));
+			this.expression = CronExpression.parse(this.pattern);
+		}
+	}
+
+}
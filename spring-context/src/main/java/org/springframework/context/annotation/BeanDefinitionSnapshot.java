@@ -0,0 +1,761 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.LookupOverride;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedProperties;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.MethodOverride;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Compact binary snapshot of a fully processed {@link BeanDefinitionRegistry}:
+ * the bean definitions as registered after configuration class parsing and
+ * component scanning, with conditions already evaluated, along with their
+ * aliases, the import relationships needed for {@link ImportAware} beans and
+ * the profiles that were active when the snapshot was taken.
+ *
+ * <p>Snapshots are typically generated at build time through
+ * {@link BeanDefinitionSnapshotGenerator} and restored at runtime through
+ * {@link BeanDefinitionSnapshotPostProcessor}, skipping the parsing of
+ * configuration classes, classpath scanning and the associated ASM-based
+ * metadata reading on every refresh.
+ *
+ * <p>Only declarative bean definition state can be captured: bean definitions
+ * with an instance supplier, replaced methods or property values / constructor
+ * arguments of arbitrary object types are rejected with a
+ * {@link BeanDefinitionStoreException}. Bean definition attributes are retained
+ * for {@code String}, {@code Boolean}, {@code Integer} and {@code Long} values.
+ * Factory methods are restored as non-unique, i.e. resolved among overloaded
+ * methods on first use.
+ *
+ * @since 5.3
+ * @see BeanDefinitionSnapshotGenerator
+ * @see BeanDefinitionSnapshotPostProcessor
+ */
+public final class BeanDefinitionSnapshot {
+
+	/**
+	 * The location to look for a snapshot by default.
+	 * Can be present in multiple JAR files but only the first one is used.
+	 */
+	public static final String DEFAULT_SNAPSHOT_LOCATION = "META-INF/spring.snapshot";
+
+	private static final int MAGIC = 0x53424453;
+
+	private static final int VERSION = 1;
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte TYPED_STRING = 2;
+	private static final byte BEAN_REFERENCE = 3;
+	private static final byte BEAN_NAME_REFERENCE = 4;
+	private static final byte BOOLEAN = 5;
+	private static final byte INTEGER = 6;
+	private static final byte LONG = 7;
+	private static final byte CLASS = 8;
+	private static final byte ENUM = 9;
+	private static final byte LIST = 10;
+	private static final byte ARRAY = 11;
+	private static final byte SET = 12;
+	private static final byte MAP = 13;
+	private static final byte PROPERTIES = 14;
+	private static final byte BEAN_DEFINITION_HOLDER = 15;
+	private static final byte BEAN_DEFINITION = 16;
+
+
+	private final Map<String, BeanDefinition> beanDefinitions;
+
+	private final Map<String, String[]> aliases;
+
+	private final Map<String, String> importingClasses;
+
+	private final String[] activeProfiles;
+
+
+	private BeanDefinitionSnapshot(Map<String, BeanDefinition> beanDefinitions, Map<String, String[]> aliases,
+			Map<String, String> importingClasses, String[] activeProfiles) {
+
+		this.beanDefinitions = beanDefinitions;
+		this.aliases = aliases;
+		this.importingClasses = importingClasses;
+		this.activeProfiles = activeProfiles;
+	}
+
+
+	/**
+	 * Return the number of bean definitions in this snapshot.
+	 */
+	public int getBeanDefinitionCount() {
+		return this.beanDefinitions.size();
+	}
+
+	/**
+	 * Return the names of the bean definitions in this snapshot, in registration order.
+	 */
+	public String[] getBeanDefinitionNames() {
+		return StringUtils.toStringArray(this.beanDefinitions.keySet());
+	}
+
+	/**
+	 * Return the profiles that were active when this snapshot was taken.
+	 */
+	public String[] getActiveProfiles() {
+		return this.activeProfiles.clone();
+	}
+
+	/**
+	 * Register the bean definitions and aliases of this snapshot with the given registry.
+	 * Bean definitions that are already present (e.g. annotation config processors
+	 * registered by the application context itself) are left as-is.
+	 * @param registry the registry to populate
+	 * @return the number of bean definitions registered
+	 */
+	public int registerBeanDefinitions(BeanDefinitionRegistry registry) {
+		int count = 0;
+		for (Map.Entry<String, BeanDefinition> entry : this.beanDefinitions.entrySet()) {
+			String beanName = entry.getKey();
+			if (!registry.containsBeanDefinition(beanName)) {
+				registry.registerBeanDefinition(beanName, entry.getValue());
+				count++;
+			}
+		}
+		for (Map.Entry<String, String[]> entry : this.aliases.entrySet()) {
+			for (String alias : entry.getValue()) {
+				if (!registry.isAlias(alias)) {
+					registry.registerAlias(entry.getKey(), alias);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Create an {@link ImportRegistry} for the import relationships in this snapshot,
+	 * introspecting importing classes on demand.
+	 */
+	ImportRegistry createImportRegistry(@Nullable ClassLoader classLoader) {
+		return new SnapshotImportRegistry(new LinkedHashMap<>(this.importingClasses), classLoader);
+	}
+
+
+	/**
+	 * Take a snapshot of the bean definitions currently registered in the given registry.
+	 * @param registry the registry, typically after configuration class processing
+	 * @param importRegistry the import relationships between configuration classes,
+	 * or {@code null} if none
+	 * @param activeProfiles the profiles that conditions have been evaluated against
+	 * @return the snapshot
+	 * @throws BeanDefinitionStoreException if a bean definition cannot be captured
+	 */
+	static BeanDefinitionSnapshot of(BeanDefinitionRegistry registry,
+			@Nullable ImportRegistry importRegistry, String[] activeProfiles) {
+
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+		Map<String, String[]> aliases = new LinkedHashMap<>();
+		Map<String, String> importingClasses = new LinkedHashMap<>();
+		for (String beanName : registry.getBeanDefinitionNames()) {
+			BeanDefinition bd = registry.getBeanDefinition(beanName);
+			beanDefinitions.put(beanName, bd);
+			String[] beanAliases = registry.getAliases(beanName);
+			if (beanAliases.length > 0) {
+				aliases.put(beanName, beanAliases);
+			}
+			if (importRegistry != null && bd.getBeanClassName() != null &&
+					bd.getAttribute(ConfigurationClassUtils.CONFIGURATION_CLASS_ATTRIBUTE) != null) {
+				AnnotationMetadata importingClass = importRegistry.getImportingClassFor(bd.getBeanClassName());
+				if (importingClass != null) {
+					importingClasses.put(bd.getBeanClassName(), importingClass.getClassName());
+				}
+			}
+		}
+		return new BeanDefinitionSnapshot(beanDefinitions, aliases, importingClasses, activeProfiles.clone());
+	}
+
+	/**
+	 * Write this snapshot to the given stream, leaving the stream open.
+	 * @param out the stream to write to
+	 * @throws IOException in case of I/O errors
+	 * @throws BeanDefinitionStoreException if a bean definition cannot be captured
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		writeStringArray(data, this.activeProfiles);
+		data.writeInt(this.importingClasses.size());
+		for (Map.Entry<String, String> entry : this.importingClasses.entrySet()) {
+			data.writeUTF(entry.getKey());
+			data.writeUTF(entry.getValue());
+		}
+		data.writeInt(this.beanDefinitions.size());
+		for (Map.Entry<String, BeanDefinition> entry : this.beanDefinitions.entrySet()) {
+			String beanName = entry.getKey();
+			data.writeUTF(beanName);
+			writeStringArray(data, this.aliases.getOrDefault(beanName, new String[0]));
+			new Writer(data, beanName).writeBeanDefinition(entry.getValue());
+		}
+		data.flush();
+	}
+
+	/**
+	 * Read a snapshot from the given stream, leaving the stream open.
+	 * @param in the stream to read from
+	 * @return the snapshot
+	 * @throws IOException in case of I/O errors or an invalid snapshot format
+	 */
+	public static BeanDefinitionSnapshot readFrom(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a bean definition snapshot");
+		}
+		int version = data.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported bean definition snapshot version " + version);
+		}
+		String[] activeProfiles = readStringArray(data);
+		int importCount = data.readInt();
+		Map<String, String> importingClasses = new LinkedHashMap<>(importCount);
+		for (int i = 0; i < importCount; i++) {
+			importingClasses.put(data.readUTF(), data.readUTF());
+		}
+		int count = data.readInt();
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>(count);
+		Map<String, String[]> aliases = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			String beanName = data.readUTF();
+			String[] beanAliases = readStringArray(data);
+			if (beanAliases.length > 0) {
+				aliases.put(beanName, beanAliases);
+			}
+			beanDefinitions.put(beanName, readBeanDefinition(data));
+		}
+		return new BeanDefinitionSnapshot(beanDefinitions, aliases, importingClasses, activeProfiles);
+	}
+
+
+	private static void writeStringArray(DataOutputStream data, @Nullable String[] values) throws IOException {
+		if (values == null) {
+			data.writeInt(-1);
+			return;
+		}
+		data.writeInt(values.length);
+		for (String value : values) {
+			data.writeUTF(value);
+		}
+	}
+
+	@Nullable
+	private static String[] readStringArray(DataInputStream data) throws IOException {
+		int length = data.readInt();
+		if (length < 0) {
+			return null;
+		}
+		String[] values = new String[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = data.readUTF();
+		}
+		return values;
+	}
+
+	private static void writeNullableString(DataOutputStream data, @Nullable String value) throws IOException {
+		data.writeBoolean(value != null);
+		if (value != null) {
+			data.writeUTF(value);
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream data) throws IOException {
+		return (data.readBoolean() ? data.readUTF() : null);
+	}
+
+	private static AbstractBeanDefinition readBeanDefinition(DataInputStream data) throws IOException {
+		boolean root = data.readBoolean();
+		AbstractBeanDefinition bd = (root ? new RootBeanDefinition() : new GenericBeanDefinition());
+		bd.setBeanClassName(readNullableString(data));
+		String parentName = readNullableString(data);
+		if (parentName != null) {
+			bd.setParentName(parentName);
+		}
+		bd.setScope(readNullableString(data));
+		bd.setFactoryBeanName(readNullableString(data));
+		bd.setFactoryMethodName(readNullableString(data));
+		bd.setInitMethodName(readNullableString(data));
+		bd.setDestroyMethodName(readNullableString(data));
+		bd.setDescription(readNullableString(data));
+		bd.setResourceDescription(readNullableString(data));
+		bd.setAbstract(data.readBoolean());
+		byte lazyInit = data.readByte();
+		if (lazyInit != NULL) {
+			bd.setLazyInit(lazyInit == 1);
+		}
+		bd.setPrimary(data.readBoolean());
+		bd.setAutowireCandidate(data.readBoolean());
+		bd.setNonPublicAccessAllowed(data.readBoolean());
+		bd.setLenientConstructorResolution(data.readBoolean());
+		bd.setEnforceInitMethod(data.readBoolean());
+		bd.setEnforceDestroyMethod(data.readBoolean());
+		bd.setSynthetic(data.readBoolean());
+		bd.setAutowireMode(data.readInt());
+		bd.setDependencyCheck(data.readInt());
+		bd.setRole(data.readInt());
+		bd.setDependsOn(readStringArray(data));
+
+		int qualifierCount = data.readInt();
+		for (int i = 0; i < qualifierCount; i++) {
+			AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(data.readUTF());
+			int attributeCount = data.readInt();
+			for (int j = 0; j < attributeCount; j++) {
+				qualifier.setAttribute(data.readUTF(), readValue(data));
+			}
+			bd.addQualifier(qualifier);
+		}
+		int lookupCount = data.readInt();
+		for (int i = 0; i < lookupCount; i++) {
+			bd.getMethodOverrides().addOverride(new LookupOverride(data.readUTF(), readNullableString(data)));
+		}
+
+		ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+		int indexedCount = data.readInt();
+		for (int i = 0; i < indexedCount; i++) {
+			int index = data.readInt();
+			cav.addIndexedArgumentValue(index, readValueHolder(data));
+		}
+		int genericCount = data.readInt();
+		for (int i = 0; i < genericCount; i++) {
+			cav.addGenericArgumentValue(readValueHolder(data));
+		}
+		MutablePropertyValues pvs = bd.getPropertyValues();
+		int propertyCount = data.readInt();
+		for (int i = 0; i < propertyCount; i++) {
+			pvs.add(data.readUTF(), readValue(data));
+		}
+		int attributeCount = data.readInt();
+		for (int i = 0; i < attributeCount; i++) {
+			bd.setAttribute(data.readUTF(), readValue(data));
+		}
+
+		if (root) {
+			RootBeanDefinition rbd = (RootBeanDefinition) bd;
+			if (data.readBoolean()) {
+				rbd.setDecoratedDefinition((BeanDefinitionHolder) readValue(data));
+			}
+		}
+		return bd;
+	}
+
+	private static ConstructorArgumentValues.ValueHolder readValueHolder(DataInputStream data) throws IOException {
+		Object value = readValue(data);
+		return new ConstructorArgumentValues.ValueHolder(value, readNullableString(data), readNullableString(data));
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	@Nullable
+	private static Object readValue(DataInputStream data) throws IOException {
+		byte tag = data.readByte();
+		switch (tag) {
+			case NULL:
+				return null;
+			case STRING:
+				return data.readUTF();
+			case TYPED_STRING:
+				TypedStringValue typedStringValue = new TypedStringValue(readNullableString(data));
+				typedStringValue.setTargetTypeName(readNullableString(data));
+				typedStringValue.setSpecifiedTypeName(readNullableString(data));
+				if (data.readBoolean()) {
+					typedStringValue.setDynamic();
+				}
+				return typedStringValue;
+			case BEAN_REFERENCE:
+				String beanName = data.readUTF();
+				return new RuntimeBeanReference(beanName, data.readBoolean());
+			case BEAN_NAME_REFERENCE:
+				return new RuntimeBeanNameReference(data.readUTF());
+			case BOOLEAN:
+				return data.readBoolean();
+			case INTEGER:
+				return data.readInt();
+			case LONG:
+				return data.readLong();
+			case CLASS:
+				return new TypedStringValue(data.readUTF(), Class.class);
+			case ENUM:
+				String enumType = data.readUTF();
+				return new TypedStringValue(data.readUTF(), enumType);
+			case LIST:
+			case ARRAY:
+			case SET: {
+				String elementTypeName = readNullableString(data);
+				boolean mergeEnabled = data.readBoolean();
+				int size = data.readInt();
+				Collection<Object> collection;
+				if (tag == LIST) {
+					ManagedList<Object> list = new ManagedList<>(size);
+					list.setElementTypeName(elementTypeName);
+					list.setMergeEnabled(mergeEnabled);
+					collection = list;
+				}
+				else if (tag == ARRAY) {
+					ManagedArray array = new ManagedArray(elementTypeName != null ? elementTypeName : "", size);
+					array.setMergeEnabled(mergeEnabled);
+					collection = array;
+				}
+				else {
+					ManagedSet<Object> set = new ManagedSet<>(size);
+					set.setElementTypeName(elementTypeName);
+					set.setMergeEnabled(mergeEnabled);
+					collection = set;
+				}
+				for (int i = 0; i < size; i++) {
+					collection.add(readValue(data));
+				}
+				return collection;
+			}
+			case MAP: {
+				ManagedMap<Object, Object> map = new ManagedMap<>();
+				map.setKeyTypeName(readNullableString(data));
+				map.setValueTypeName(readNullableString(data));
+				map.setMergeEnabled(data.readBoolean());
+				int size = data.readInt();
+				for (int i = 0; i < size; i++) {
+					map.put(readValue(data), readValue(data));
+				}
+				return map;
+			}
+			case PROPERTIES: {
+				ManagedProperties properties = new ManagedProperties();
+				properties.setMergeEnabled(data.readBoolean());
+				int size = data.readInt();
+				for (int i = 0; i < size; i++) {
+					((Map) properties).put(readValue(data), readValue(data));
+				}
+				return properties;
+			}
+			case BEAN_DEFINITION_HOLDER: {
+				String holderName = data.readUTF();
+				String[] holderAliases = readStringArray(data);
+				return new BeanDefinitionHolder(readBeanDefinition(data), holderName, holderAliases);
+			}
+			case BEAN_DEFINITION:
+				return readBeanDefinition(data);
+			default:
+				throw new IOException("Invalid value tag in bean definition snapshot: " + tag);
+		}
+	}
+
+
+	/**
+	 * Writes the state of a single top-level bean definition, including its inner beans.
+	 */
+	private static class Writer {
+
+		private final DataOutputStream data;
+
+		private final String beanName;
+
+		Writer(DataOutputStream data, String beanName) {
+			this.data = data;
+			this.beanName = beanName;
+		}
+
+		void writeBeanDefinition(BeanDefinition beanDefinition) throws IOException {
+			if (!(beanDefinition instanceof AbstractBeanDefinition)) {
+				throw unsupported("bean definition of type " + beanDefinition.getClass().getName());
+			}
+			AbstractBeanDefinition bd = (AbstractBeanDefinition) beanDefinition;
+			if (bd.getInstanceSupplier() != null) {
+				throw unsupported("instance supplier");
+			}
+			DataOutputStream data = this.data;
+			boolean root = (bd instanceof RootBeanDefinition);
+			data.writeBoolean(root);
+			writeNullableString(data, bd.getBeanClassName());
+			writeNullableString(data, bd.getParentName());
+			writeNullableString(data, bd.getScope());
+			writeNullableString(data, bd.getFactoryBeanName());
+			writeNullableString(data, bd.getFactoryMethodName());
+			writeNullableString(data, bd.getInitMethodName());
+			writeNullableString(data, bd.getDestroyMethodName());
+			writeNullableString(data, bd.getDescription());
+			writeNullableString(data, bd.getResourceDescription());
+			data.writeBoolean(bd.isAbstract());
+			Boolean lazyInit = bd.getLazyInit();
+			data.writeByte(lazyInit == null ? NULL : (lazyInit ? 1 : 2));
+			data.writeBoolean(bd.isPrimary());
+			data.writeBoolean(bd.isAutowireCandidate());
+			data.writeBoolean(bd.isNonPublicAccessAllowed());
+			data.writeBoolean(bd.isLenientConstructorResolution());
+			data.writeBoolean(bd.isEnforceInitMethod());
+			data.writeBoolean(bd.isEnforceDestroyMethod());
+			data.writeBoolean(bd.isSynthetic());
+			data.writeInt(bd.getAutowireMode());
+			data.writeInt(bd.getDependencyCheck());
+			data.writeInt(bd.getRole());
+			writeStringArray(data, bd.getDependsOn());
+
+			Set<AutowireCandidateQualifier> qualifiers = bd.getQualifiers();
+			data.writeInt(qualifiers.size());
+			for (AutowireCandidateQualifier qualifier : qualifiers) {
+				data.writeUTF(qualifier.getTypeName());
+				String[] attributeNames = qualifier.attributeNames();
+				data.writeInt(attributeNames.length);
+				for (String attributeName : attributeNames) {
+					data.writeUTF(attributeName);
+					writeValue(qualifier.getAttribute(attributeName));
+				}
+			}
+			Set<MethodOverride> overrides = bd.getMethodOverrides().getOverrides();
+			data.writeInt(overrides.size());
+			for (MethodOverride override : overrides) {
+				if (!(override instanceof LookupOverride)) {
+					throw unsupported("method override " + override);
+				}
+				data.writeUTF(override.getMethodName());
+				writeNullableString(data, ((LookupOverride) override).getBeanName());
+			}
+
+			ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+			Map<Integer, ConstructorArgumentValues.ValueHolder> indexed = cav.getIndexedArgumentValues();
+			data.writeInt(indexed.size());
+			for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry : indexed.entrySet()) {
+				data.writeInt(entry.getKey());
+				writeValueHolder(entry.getValue());
+			}
+			data.writeInt(cav.getGenericArgumentValues().size());
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getGenericArgumentValues()) {
+				writeValueHolder(valueHolder);
+			}
+			PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+			data.writeInt(pvs.length);
+			for (PropertyValue pv : pvs) {
+				data.writeUTF(pv.getName());
+				writeValue(pv.getValue());
+			}
+			String[] attributeNames = Arrays.stream(bd.attributeNames())
+					.filter(name -> isSupportedAttributeValue(bd.getAttribute(name)))
+					.toArray(String[]::new);
+			data.writeInt(attributeNames.length);
+			for (String attributeName : attributeNames) {
+				data.writeUTF(attributeName);
+				writeValue(bd.getAttribute(attributeName));
+			}
+
+			if (root) {
+				BeanDefinitionHolder decorated = ((RootBeanDefinition) bd).getDecoratedDefinition();
+				data.writeBoolean(decorated != null);
+				if (decorated != null) {
+					writeValue(decorated);
+				}
+			}
+		}
+
+		private void writeValueHolder(ConstructorArgumentValues.ValueHolder valueHolder) throws IOException {
+			writeValue(valueHolder.getValue());
+			writeNullableString(this.data, valueHolder.getType());
+			writeNullableString(this.data, valueHolder.getName());
+		}
+
+		private void writeValue(@Nullable Object value) throws IOException {
+			DataOutputStream data = this.data;
+			if (value == null) {
+				data.writeByte(NULL);
+			}
+			else if (value instanceof String) {
+				data.writeByte(STRING);
+				data.writeUTF((String) value);
+			}
+			else if (value instanceof TypedStringValue) {
+				TypedStringValue typedStringValue = (TypedStringValue) value;
+				data.writeByte(TYPED_STRING);
+				writeNullableString(data, typedStringValue.getValue());
+				writeNullableString(data, typedStringValue.getTargetTypeName());
+				writeNullableString(data, typedStringValue.getSpecifiedTypeName());
+				data.writeBoolean(typedStringValue.isDynamic());
+			}
+			else if (value instanceof RuntimeBeanReference) {
+				RuntimeBeanReference reference = (RuntimeBeanReference) value;
+				data.writeByte(BEAN_REFERENCE);
+				data.writeUTF(reference.getBeanName());
+				data.writeBoolean(reference.isToParent());
+			}
+			else if (value instanceof RuntimeBeanNameReference) {
+				data.writeByte(BEAN_NAME_REFERENCE);
+				data.writeUTF(((RuntimeBeanNameReference) value).getBeanName());
+			}
+			else if (value instanceof Boolean) {
+				data.writeByte(BOOLEAN);
+				data.writeBoolean((Boolean) value);
+			}
+			else if (value instanceof Integer) {
+				data.writeByte(INTEGER);
+				data.writeInt((Integer) value);
+			}
+			else if (value instanceof Long) {
+				data.writeByte(LONG);
+				data.writeLong((Long) value);
+			}
+			else if (value instanceof Class) {
+				data.writeByte(CLASS);
+				data.writeUTF(((Class<?>) value).getName());
+			}
+			else if (value instanceof Enum) {
+				data.writeByte(ENUM);
+				data.writeUTF(((Enum<?>) value).getDeclaringClass().getName());
+				data.writeUTF(((Enum<?>) value).name());
+			}
+			else if (value instanceof ManagedList) {
+				ManagedList<?> list = (ManagedList<?>) value;
+				data.writeByte(list instanceof ManagedArray ? ARRAY : LIST);
+				writeNullableString(data, list.getElementTypeName());
+				data.writeBoolean(list.isMergeEnabled());
+				writeElements(list);
+			}
+			else if (value instanceof ManagedSet) {
+				ManagedSet<?> set = (ManagedSet<?>) value;
+				data.writeByte(SET);
+				writeNullableString(data, set.getElementTypeName());
+				data.writeBoolean(set.isMergeEnabled());
+				writeElements(set);
+			}
+			else if (value instanceof ManagedMap) {
+				ManagedMap<?, ?> map = (ManagedMap<?, ?>) value;
+				data.writeByte(MAP);
+				writeNullableString(data, map.getKeyTypeName());
+				writeNullableString(data, map.getValueTypeName());
+				data.writeBoolean(map.isMergeEnabled());
+				writeEntries(map);
+			}
+			else if (value instanceof ManagedProperties) {
+				ManagedProperties properties = (ManagedProperties) value;
+				data.writeByte(PROPERTIES);
+				data.writeBoolean(properties.isMergeEnabled());
+				writeEntries(properties);
+			}
+			else if (value instanceof BeanDefinitionHolder) {
+				BeanDefinitionHolder holder = (BeanDefinitionHolder) value;
+				data.writeByte(BEAN_DEFINITION_HOLDER);
+				data.writeUTF(holder.getBeanName());
+				writeStringArray(data, holder.getAliases());
+				writeBeanDefinition(holder.getBeanDefinition());
+			}
+			else if (value instanceof BeanDefinition) {
+				data.writeByte(BEAN_DEFINITION);
+				writeBeanDefinition((BeanDefinition) value);
+			}
+			else {
+				throw unsupported("value of type " + ClassUtils.getQualifiedName(value.getClass()));
+			}
+		}
+
+		private void writeElements(Collection<?> elements) throws IOException {
+			this.data.writeInt(elements.size());
+			for (Object element : elements) {
+				writeValue(element);
+			}
+		}
+
+		private void writeEntries(Map<?, ?> map) throws IOException {
+			this.data.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(entry.getKey());
+				writeValue(entry.getValue());
+			}
+		}
+
+		private boolean isSupportedAttributeValue(@Nullable Object value) {
+			return (value instanceof String || value instanceof Boolean ||
+					value instanceof Integer || value instanceof Long);
+		}
+
+		private BeanDefinitionStoreException unsupported(String what) {
+			return new BeanDefinitionStoreException(null, this.beanName,
+					"Cannot capture bean definition in snapshot: unsupported " + what);
+		}
+	}
+
+
+	/**
+	 * {@link ImportRegistry} restored from a snapshot.
+	 */
+	private static class SnapshotImportRegistry implements ImportRegistry {
+
+		private final Map<String, String> importingClasses;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		SnapshotImportRegistry(Map<String, String> importingClasses, @Nullable ClassLoader classLoader) {
+			this.importingClasses = importingClasses;
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClass = this.importingClasses.get(importedClass);
+			if (importingClass == null) {
+				return null;
+			}
+			try {
+				return AnnotationMetadata.introspect(ClassUtils.forName(importingClass, this.classLoader));
+			}
+			catch (ClassNotFoundException ex) {
+				throw new IllegalStateException("Cannot load importing class: " + importingClass, ex);
+			}
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			this.importingClasses.values().removeIf(importingClass::equals);
+		}
+	}
+
+}
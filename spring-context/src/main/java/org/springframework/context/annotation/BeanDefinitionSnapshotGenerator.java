@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Generates a {@link BeanDefinitionSnapshot} by running configuration class
+ * processing against a set of component classes and base packages, without
+ * refreshing the context, i.e. without instantiating any application beans.
+ *
+ * <p>Intended to be run as part of the build after compilation, for example
+ * through a Gradle {@code JavaExec} task, writing to
+ * {@link BeanDefinitionSnapshot#DEFAULT_SNAPSHOT_LOCATION} in the resources
+ * output directory:
+ *
+ * <pre class="code">
+ * java org.springframework.context.annotation.BeanDefinitionSnapshotGenerator \
+ *     build/resources/main/META-INF/spring.snapshot com.example.AppConfig com.example.service</pre>
+ *
+ * Arguments that resolve to a class are registered as component classes;
+ * all others are scanned as base packages. Profiles can be activated through
+ * the {@code spring.profiles.active} system property as usual.
+ *
+ * @since 5.3
+ * @see BeanDefinitionSnapshotPostProcessor
+ */
+public final class BeanDefinitionSnapshotGenerator {
+
+	private BeanDefinitionSnapshotGenerator() {
+	}
+
+
+	/**
+	 * Process the configuration classes registered with the given context and
+	 * take a snapshot of the resulting bean definitions. The context must not
+	 * have been refreshed and should be discarded afterwards.
+	 * @param context a context with component classes registered and/or
+	 * base packages scanned
+	 * @return the snapshot
+	 */
+	public static BeanDefinitionSnapshot generate(AnnotationConfigApplicationContext context) {
+		Assert.state(!context.isActive(), "Context must not have been refreshed");
+		DefaultListableBeanFactory beanFactory = context.getDefaultListableBeanFactory();
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setEnvironment(context.getEnvironment());
+		postProcessor.setResourceLoader(context);
+		postProcessor.setBeanClassLoader(context.getClassLoader());
+		postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+
+		ImportRegistry importRegistry = (ImportRegistry) beanFactory.getSingleton(
+				ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME);
+		return BeanDefinitionSnapshot.of(beanFactory, importRegistry, context.getEnvironment().getActiveProfiles());
+	}
+
+	/**
+	 * Generate a snapshot for the given component classes and base packages.
+	 * @param args the output file, followed by component class names and/or base packages
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BeanDefinitionSnapshotGenerator <output file> <class or package>...");
+			System.exit(1);
+		}
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		ClassLoader classLoader = context.getClassLoader();
+		List<String> basePackages = new ArrayList<>();
+		for (int i = 1; i < args.length; i++) {
+			if (ClassUtils.isPresent(args[i], classLoader)) {
+				context.register(ClassUtils.resolveClassName(args[i], classLoader));
+			}
+			else {
+				basePackages.add(args[i]);
+			}
+		}
+		if (!basePackages.isEmpty()) {
+			context.scan(basePackages.toArray(new String[0]));
+		}
+
+		BeanDefinitionSnapshot snapshot = generate(context);
+		File output = new File(args[0]);
+		File parent = output.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			Files.createDirectories(parent.toPath());
+		}
+		try (OutputStream os = Files.newOutputStream(output.toPath())) {
+			snapshot.writeTo(os);
+		}
+		System.out.println("Wrote " + snapshot.getBeanDefinitionCount() + " bean definitions to " + output);
+	}
+
+}
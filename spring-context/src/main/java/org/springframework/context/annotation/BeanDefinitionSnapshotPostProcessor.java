@@ -0,0 +1,171 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link BeanDefinitionRegistryPostProcessor} that restores a
+ * {@link BeanDefinitionSnapshot} into the bean factory, before any
+ * {@link ConfigurationClassPostProcessor} runs.
+ *
+ * <p>The restored configuration class definitions are marked as processed
+ * already, so that {@code ConfigurationClassPostProcessor} skips parsing them
+ * while still enhancing full {@code @Configuration} classes and supporting
+ * {@link ImportAware} callbacks. Typical usage is to add this post-processor
+ * to a context instead of registering component classes or scanning packages:
+ *
+ * <pre class="code">
+ * AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+ * ctx.addBeanFactoryPostProcessor(new BeanDefinitionSnapshotPostProcessor());
+ * ctx.refresh();</pre>
+ *
+ * <p>Since conditions have been evaluated at snapshot time, the active profiles
+ * of the current environment need to match the ones recorded in the snapshot.
+ *
+ * @since 5.3
+ * @see BeanDefinitionSnapshotGenerator
+ */
+public class BeanDefinitionSnapshotPostProcessor implements BeanDefinitionRegistryPostProcessor,
+		PriorityOrdered, EnvironmentAware, BeanClassLoaderAware {
+
+	private static final Log logger = LogFactory.getLog(BeanDefinitionSnapshotPostProcessor.class);
+
+	private final Resource snapshotResource;
+
+	@Nullable
+	private Environment environment;
+
+	@Nullable
+	private ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
+
+
+	/**
+	 * Create a new post-processor for the snapshot at
+	 * {@link BeanDefinitionSnapshot#DEFAULT_SNAPSHOT_LOCATION} in the class path.
+	 */
+	public BeanDefinitionSnapshotPostProcessor() {
+		this(new ClassPathResource(BeanDefinitionSnapshot.DEFAULT_SNAPSHOT_LOCATION));
+	}
+
+	/**
+	 * Create a new post-processor for the given snapshot resource.
+	 * @param snapshotResource the resource containing the snapshot
+	 */
+	public BeanDefinitionSnapshotPostProcessor(Resource snapshotResource) {
+		Assert.notNull(snapshotResource, "Snapshot resource must not be null");
+		this.snapshotResource = snapshotResource;
+	}
+
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	/**
+	 * Set the environment to verify the active profiles against. If not set,
+	 * the context's {@code environment} bean is used, if any.
+	 */
+	@Override
+	public void setEnvironment(Environment environment) {
+		this.environment = environment;
+	}
+
+	@Override
+	public void setBeanClassLoader(ClassLoader beanClassLoader) {
+		this.beanClassLoader = beanClassLoader;
+	}
+
+
+	@Override
+	public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+		BeanDefinitionSnapshot snapshot;
+		try (InputStream is = this.snapshotResource.getInputStream()) {
+			snapshot = BeanDefinitionSnapshot.readFrom(is);
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException(
+					"Failed to read bean definition snapshot from " + this.snapshotResource, ex);
+		}
+
+		// 快照中的条件是按生成时激活的 profile 评估的
+		Environment environment = obtainEnvironment(registry);
+		if (environment != null && !new HashSet<>(Arrays.asList(environment.getActiveProfiles())).equals(
+				new HashSet<>(Arrays.asList(snapshot.getActiveProfiles())))) {
+			throw new IllegalStateException("Bean definition snapshot " + this.snapshotResource +
+					" was generated for active profiles [" +
+					StringUtils.arrayToCommaDelimitedString(snapshot.getActiveProfiles()) +
+					"] but current active profiles are [" +
+					StringUtils.arrayToCommaDelimitedString(environment.getActiveProfiles()) + "]");
+		}
+
+		int count = snapshot.registerBeanDefinitions(registry);
+		if (registry instanceof SingletonBeanRegistry) {
+			SingletonBeanRegistry sbr = (SingletonBeanRegistry) registry;
+			if (!sbr.containsSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME)) {
+				sbr.registerSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME,
+						snapshot.createImportRegistry(this.beanClassLoader));
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Registered " + count + " bean definitions from snapshot " + this.snapshotResource);
+		}
+	}
+
+	@Override
+	public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+	}
+
+	@Nullable
+	private Environment obtainEnvironment(BeanDefinitionRegistry registry) {
+		if (this.environment == null && registry instanceof ConfigurableListableBeanFactory) {
+			ConfigurableListableBeanFactory beanFactory = (ConfigurableListableBeanFactory) registry;
+			if (beanFactory.containsBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME)) {
+				this.environment = beanFactory.getBean(
+						ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME, Environment.class);
+			}
+		}
+		return this.environment;
+	}
+
+}
@@ -22,15 +22,19 @@ import java.util.Set;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionDefaults;
 import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.PatternMatchUtils;
@@ -296,10 +300,16 @@ public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateCo
 		Assert.notEmpty(basePackages, "At least one base package must be specified");
 		// bean 定义持有器列表
 		Set<BeanDefinitionHolder> beanDefinitions = new LinkedHashSet<>();
+		// 有扫描执行器时并行读取所有包的 class 文件, 仍按包的顺序注册
+		preloadCandidateComponents(basePackages);
+		ApplicationStartup applicationStartup = getApplicationStartup();
 		// 循环包路径进行扫描
 		for (String basePackage : basePackages) {
+			StartupStep componentScan = applicationStartup.start("spring.context.component-scan")
+					.tag("basePackage", basePackage);
 			// 搜索可能的组件. 得到 组件的BeanDefinition
 			Set<BeanDefinition> candidates = findCandidateComponents(basePackage);
+			componentScan.tag("candidateCount", () -> String.valueOf(candidates.size())).end();
 			// 循环候选bean定义
 			for (BeanDefinition candidate : candidates) {
 				// 获取 作用域元数据
@@ -333,6 +343,20 @@ public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateCo
 		return beanDefinitions;
 	}
 
+	/**
+	 * Return the {@link ApplicationStartup} of the underlying registry, if it
+	 * exposes one, for recording a startup step per scanned package.
+	 */
+	private ApplicationStartup getApplicationStartup() {
+		if (this.registry instanceof ConfigurableBeanFactory) {
+			return ((ConfigurableBeanFactory) this.registry).getApplicationStartup();
+		}
+		if (this.registry instanceof ConfigurableApplicationContext) {
+			return ((ConfigurableApplicationContext) this.registry).getApplicationStartup();
+		}
+		return ApplicationStartup.DEFAULT;
+	}
+
 	/**
 	 * Apply further settings to the given bean definition,
 	 * beyond the contents retrieved from scanning the component class.
@@ -18,11 +18,19 @@ package org.springframework.context.annotation;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,6 +44,7 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.index.CandidateComponentsIndex;
 import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -73,6 +82,7 @@ import org.springframework.util.ClassUtils;
  * <p>This implementation is based on Spring's
  * {@link org.springframework.core.type.classreading.MetadataReader MetadataReader}
  * facility, backed by an ASM {@link org.springframework.asm.ClassReader ClassReader}.
+ * Class files can be read in parallel through a {@link #setScanExecutor scan executor}.
  *
  * @author Mark Fisher
  * @author Juergen Hoeller
@@ -89,6 +99,22 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	static final String DEFAULT_RESOURCE_PATTERN = "**/*.class";
 
+	/**
+	 * System property that instructs Spring to scan the classpath in parallel,
+	 * using the common {@link ForkJoinPool} as {@link #setScanExecutor scan executor}
+	 * unless a specific executor is set.
+	 * <p>The default is "false", scanning in the calling thread.
+	 * @since 5.3
+	 */
+	public static final String PARALLEL_SCAN_PROPERTY_NAME = "spring.scan.parallel";
+
+	/**
+	 * Number of class files read per task on the scan executor.
+	 */
+	private static final int METADATA_READING_BATCH_SIZE = 32;
+
+	private static final boolean shouldScanInParallel = SpringProperties.getFlag(PARALLEL_SCAN_PROPERTY_NAME);
+
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -141,6 +167,17 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	/**
+	 * 并行扫描使用的执行器
+	 */
+	@Nullable
+	private Executor scanExecutor = (shouldScanInParallel ? ForkJoinPool.commonPool() : null);
+
+	/**
+	 * 已提前开始的包扫描: 基础包 -> 扫描结果
+	 */
+	private final Map<String, CompletableFuture<ScannedPackage>> pendingScans = new ConcurrentHashMap<>(16);
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -336,6 +373,52 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	}
 
 
+	/**
+	 * Set the {@link Executor} to scan the classpath with, or {@code null}
+	 * to scan in the calling thread.
+	 * <p>With a scan executor, the class files of each base package are resolved
+	 * and their metadata is read on the executor's threads, in batches. Type filters
+	 * and {@link Conditional @Conditional} annotations are still evaluated in the
+	 * calling thread, in class file order, so that the resulting candidate components
+	 * are the same, and in the same order, as when scanning in the calling thread.
+	 * The {@link #setMetadataReaderFactory MetadataReaderFactory} needs to be
+	 * thread-safe, as the default {@link CachingMetadataReaderFactory} is.
+	 * <p>Default is {@code null}, or the common {@link ForkJoinPool} if the
+	 * {@link #PARALLEL_SCAN_PROPERTY_NAME "spring.scan.parallel"} property is set.
+	 * @since 5.3
+	 * @see #preloadCandidateComponents
+	 */
+	public void setScanExecutor(@Nullable Executor scanExecutor) {
+		this.scanExecutor = scanExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} to scan the classpath with, if any.
+	 * @since 5.3
+	 */
+	@Nullable
+	public Executor getScanExecutor() {
+		return this.scanExecutor;
+	}
+
+
+	/**
+	 * Start scanning the given base packages on the {@link #setScanExecutor scan executor},
+	 * to be picked up by subsequent {@link #findCandidateComponents} calls for the same
+	 * base packages. This allows for reading the class files of all base packages in
+	 * parallel, while still processing the candidate components package by package.
+	 * <p>A no-op without a scan executor or when the components index is used.
+	 * @param basePackages the packages to check for annotated classes
+	 * @since 5.3
+	 */
+	public void preloadCandidateComponents(String... basePackages) {
+		if (this.scanExecutor != null && (this.componentsIndex == null || !indexSupportsIncludeFilters())) {
+			for (String basePackage : basePackages) {
+				this.pendingScans.computeIfAbsent(basePackage, this::startScan);
+			}
+		}
+	}
+
 	/**
 	 * Scan the class path for candidate components.
 	 * @param basePackage the package to check for annotated classes
@@ -460,70 +543,182 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	 * @return
 	 */
 	private Set<BeanDefinition> scanCandidateComponents(String basePackage) {
+		if (this.scanExecutor != null) {
+			// 并行模式: 使用提前开始的扫描结果, 或立即开始扫描
+			CompletableFuture<ScannedPackage> scan = this.pendingScans.remove(basePackage);
+			return selectCandidateComponents(awaitScan(scan != null ? scan : startScan(basePackage)));
+		}
 		// 候选组件列表 BeanDefinition 列表
 		Set<BeanDefinition> candidates = new LinkedHashSet<>();
 		try {
+			long startTime = System.nanoTime();
 			// classpath*: + replace(basePackage,'.','/') + / + **/*.class
-			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
-					resolveBasePackage(basePackage) + '/' + this.resourcePattern;
+			String packageSearchPath = getPackageSearchPath(basePackage);
 			// 转换成资源对象
 			// 这里会转换成 FileSystemResource
 			Resource[] resources = getResourcePatternResolver().getResources(packageSearchPath);
-			// 日志级别
-			boolean traceEnabled = logger.isTraceEnabled();
-			boolean debugEnabled = logger.isDebugEnabled();
 			// 资源处理
 			for (Resource resource : resources) {
-				if (traceEnabled) {
-					logger.trace("Scanning " + resource);
+				// 元数据读取器
+				MetadataReader metadataReader = readMetadata(resource, getMetadataReaderFactory());
+				if (metadataReader != null) {
+					addCandidateComponent(candidates, resource, metadataReader);
 				}
-				if (resource.isReadable()) {
-					try {
-						// 元数据读取器
-						MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
-						if (isCandidateComponent(metadataReader)) {
-							// bean定义扫描
-							ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
-							// 设置资源对象
-							sbd.setResource(resource);
-							// 设置源对象
-							sbd.setSource(resource);
-							// 判断是否是候选值
-							if (isCandidateComponent(sbd)) {
-								if (debugEnabled) {
-									logger.debug("Identified candidate component class: " + resource);
-								}
-								// 加入容器
-								candidates.add(sbd);
-							}
-							else {
-								if (debugEnabled) {
-									logger.debug("Ignored because not a concrete top-level class: " + resource);
-								}
-							}
-						}
-						else {
-							if (traceEnabled) {
-								logger.trace("Ignored because not matching any filter: " + resource);
-							}
-						}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Scanned " + resources.length + " class files in base package '" + basePackage +
+						"' in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+			}
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Start resolving the class files of the given base package and reading
+	 * their metadata on the scan executor.
+	 */
+	private CompletableFuture<ScannedPackage> startScan(String basePackage) {
+		Executor executor = this.scanExecutor;
+		Assert.state(executor != null, "No scan executor");
+		// 在调用线程中解析占位符并初始化共享组件
+		String packageSearchPath = getPackageSearchPath(basePackage);
+		ResourcePatternResolver resourcePatternResolver = getResourcePatternResolver();
+		MetadataReaderFactory metadataReaderFactory = getMetadataReaderFactory();
+		long startTime = System.nanoTime();
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return resourcePatternResolver.getResources(packageSearchPath);
+			}
+			catch (IOException ex) {
+				throw new CompletionException(ex);
+			}
+		}, executor).thenCompose(resources -> {
+			long resolvedTime = System.nanoTime();
+			MetadataReader[] metadataReaders = new MetadataReader[resources.length];
+			List<CompletableFuture<Void>> batches = new ArrayList<>(resources.length / METADATA_READING_BATCH_SIZE + 1);
+			for (int start = 0; start < resources.length; start += METADATA_READING_BATCH_SIZE) {
+				int from = start;
+				int to = Math.min(start + METADATA_READING_BATCH_SIZE, resources.length);
+				batches.add(CompletableFuture.runAsync(() -> {
+					for (int i = from; i < to; i++) {
+						metadataReaders[i] = readMetadata(resources[i], metadataReaderFactory);
 					}
-					catch (Throwable ex) {
-						throw new BeanDefinitionStoreException(
-								"Failed to read candidate component class: " + resource, ex);
+				}, executor));
+			}
+			return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).thenApply(done ->
+					new ScannedPackage(basePackage, resources, metadataReaders, startTime, resolvedTime));
+		});
+	}
+
+	private ScannedPackage awaitScan(CompletableFuture<ScannedPackage> scan) {
+		try {
+			return scan.join();
+		}
+		catch (CompletionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw new BeanDefinitionStoreException("I/O failure during classpath scanning", cause);
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Select the candidate components of a package scanned on the scan executor,
+	 * in class file order.
+	 */
+	private Set<BeanDefinition> selectCandidateComponents(ScannedPackage scannedPackage) {
+		Set<BeanDefinition> candidates = new LinkedHashSet<>();
+		Resource[] resources = scannedPackage.resources;
+		for (int i = 0; i < resources.length; i++) {
+			MetadataReader metadataReader = scannedPackage.metadataReaders[i];
+			if (metadataReader != null) {
+				addCandidateComponent(candidates, resources[i], metadataReader);
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			long endTime = System.nanoTime();
+			logger.debug("Scanned " + resources.length + " class files in base package '" +
+					scannedPackage.basePackage + "' in " +
+					TimeUnit.NANOSECONDS.toMillis(endTime - scannedPackage.startTime) + " ms (resolution: " +
+					TimeUnit.NANOSECONDS.toMillis(scannedPackage.resolvedTime - scannedPackage.startTime) + " ms)");
+		}
+		return candidates;
+	}
+
+	/**
+	 * Read the metadata of the given class file.
+	 * @return the MetadataReader, or {@code null} if the class file is not readable
+	 */
+	@Nullable
+	private MetadataReader readMetadata(Resource resource, MetadataReaderFactory metadataReaderFactory) {
+		boolean traceEnabled = logger.isTraceEnabled();
+		if (traceEnabled) {
+			logger.trace("Scanning " + resource);
+		}
+		if (!resource.isReadable()) {
+			if (traceEnabled) {
+				logger.trace("Ignored because not readable: " + resource);
+			}
+			return null;
+		}
+		try {
+			return metadataReaderFactory.getMetadataReader(resource);
+		}
+		catch (Throwable ex) {
+			throw new BeanDefinitionStoreException(
+					"Failed to read candidate component class: " + resource, ex);
+		}
+	}
+
+	private void addCandidateComponent(Set<BeanDefinition> candidates, Resource resource, MetadataReader metadataReader) {
+		boolean debugEnabled = logger.isDebugEnabled();
+		try {
+			if (isCandidateComponent(metadataReader)) {
+				// bean定义扫描
+				ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+				// 设置资源对象
+				sbd.setResource(resource);
+				// 设置源对象
+				sbd.setSource(resource);
+				// 判断是否是候选值
+				if (isCandidateComponent(sbd)) {
+					if (debugEnabled) {
+						logger.debug("Identified candidate component class: " + resource);
 					}
+					// 加入容器
+					candidates.add(sbd);
 				}
 				else {
-					if (traceEnabled) {
-						logger.trace("Ignored because not readable: " + resource);
+					if (debugEnabled) {
+						logger.debug("Ignored because not a concrete top-level class: " + resource);
 					}
 				}
 			}
+			else {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Ignored because not matching any filter: " + resource);
+				}
+			}
 		}
-		catch (IOException ex) {
-			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		catch (Throwable ex) {
+			throw new BeanDefinitionStoreException(
+					"Failed to read candidate component class: " + resource, ex);
 		}
-		return candidates;
+	}
+
+	private String getPackageSearchPath(String basePackage) {
+		return ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
+				resolveBasePackage(basePackage) + '/' + this.resourcePattern;
 	}
 
 
@@ -604,6 +799,37 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 			// for a shared cache since it'll be cleared by the ApplicationContext.
 			((CachingMetadataReaderFactory) this.metadataReaderFactory).clearCache();
 		}
+		this.pendingScans.clear();
+	}
+
+
+	/**
+	 * Class files and metadata of a base package scanned on the scan executor.
+	 */
+	private static final class ScannedPackage {
+
+		final String basePackage;
+
+		final Resource[] resources;
+
+		/**
+		 * 与 resources 一一对应, 不可读的资源为 null
+		 */
+		final MetadataReader[] metadataReaders;
+
+		final long startTime;
+
+		final long resolvedTime;
+
+		ScannedPackage(String basePackage, Resource[] resources, MetadataReader[] metadataReaders,
+				long startTime, long resolvedTime) {
+
+			this.basePackage = basePackage;
+			this.resources = resources;
+			this.metadataReaders = metadataReaders;
+			this.startTime = startTime;
+			this.resolvedTime = resolvedTime;
+		}
 	}
 
 }
@@ -69,6 +69,8 @@ import org.springframework.core.io.support.DefaultPropertySourceFactory;
 import org.springframework.core.io.support.EncodedResource;
 import org.springframework.core.io.support.PropertySourceFactory;
 import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.MethodMetadata;
 import org.springframework.core.type.StandardAnnotationMetadata;
@@ -149,6 +151,8 @@ class ConfigurationClassParser {
 
 	private final SourceClass objectSourceClass = new SourceClass(Object.class);
 
+	private final ApplicationStartup applicationStartup;
+
 
 	/**
 	 * Create a new {@link ConfigurationClassParser} instance that will be used
@@ -158,6 +162,21 @@ class ConfigurationClassParser {
 			ProblemReporter problemReporter, Environment environment, ResourceLoader resourceLoader,
 			BeanNameGenerator componentScanBeanNameGenerator, BeanDefinitionRegistry registry) {
 
+		this(metadataReaderFactory, problemReporter, environment, resourceLoader,
+				componentScanBeanNameGenerator, registry, ApplicationStartup.DEFAULT);
+	}
+
+	/**
+	 * Create a new {@link ConfigurationClassParser} instance that will be used
+	 * to populate the set of configuration classes, recording a startup step
+	 * for each configuration class candidate.
+	 * @since 5.3
+	 */
+	public ConfigurationClassParser(MetadataReaderFactory metadataReaderFactory,
+			ProblemReporter problemReporter, Environment environment, ResourceLoader resourceLoader,
+			BeanNameGenerator componentScanBeanNameGenerator, BeanDefinitionRegistry registry,
+			ApplicationStartup applicationStartup) {
+
 		this.metadataReaderFactory = metadataReaderFactory;
 		this.problemReporter = problemReporter;
 		this.environment = environment;
@@ -166,12 +185,15 @@ class ConfigurationClassParser {
 		this.componentScanParser = new ComponentScanAnnotationParser(
 				environment, resourceLoader, componentScanBeanNameGenerator, registry);
 		this.conditionEvaluator = new ConditionEvaluator(registry, environment, resourceLoader);
+		this.applicationStartup = applicationStartup;
 	}
 
 
 	public void parse(Set<BeanDefinitionHolder> configCandidates) {
 		for (BeanDefinitionHolder holder : configCandidates) {
 			BeanDefinition bd = holder.getBeanDefinition();
+			StartupStep parseStep = this.applicationStartup.start("spring.context.config-class.parse")
+					.tag("beanName", holder.getBeanName());
 			try {
 				if (bd instanceof AnnotatedBeanDefinition) {
 					parse(((AnnotatedBeanDefinition) bd).getMetadata(), holder.getBeanName());
@@ -190,6 +212,9 @@ class ConfigurationClassParser {
 				throw new BeanDefinitionStoreException(
 						"Failed to parse configuration class [" + bd.getBeanClassName() + "]", ex);
 			}
+			finally {
+				parseStep.end();
+			}
 		}
 
 		this.deferredImportSelectorHandler.process();
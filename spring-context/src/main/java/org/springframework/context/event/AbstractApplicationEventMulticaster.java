@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@ package org.springframework.context.event;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +56,14 @@ import org.springframework.util.ObjectUtils;
  * all events to all registered listeners, invoking them in the calling thread.
  * Alternative implementations could be more sophisticated in those respects.
  *
+ * <p>Listeners matching a given event type and source type are cached as a
+ * pre-sorted, immutable list. Registering or removing a listener instance
+ * updates the cached lists in place rather than discarding them, so that
+ * listeners added at runtime do not force every event type to be
+ * re-evaluated against all listeners. Listener beans are obtained from the
+ * bean factory without holding its singleton mutex, so an event published
+ * while a listener bean is being created on another thread waits for that bean.
+ *
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @since 1.2.3
@@ -80,7 +90,7 @@ public abstract class AbstractApplicationEventMulticaster
 	private ConfigurableBeanFactory beanFactory;
 
 	/**
-	 * lock
+	 * lock, 仅保护监听器注册信息; 持有时不获取监听器 bean
 	 */
 	private Object retrievalMutex = this.defaultRetriever;
 
@@ -125,7 +135,8 @@ public abstract class AbstractApplicationEventMulticaster
 			}
 			// 加入
 			this.defaultRetriever.applicationListeners.add(listener);
-			this.retrieverCache.clear();
+			updateCachedRetrievers(listener,
+					(singletonTarget instanceof ApplicationListener ? singletonTarget : null), true);
 		}
 	}
 
@@ -141,7 +152,7 @@ public abstract class AbstractApplicationEventMulticaster
 	public void removeApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.retrievalMutex) {
 			this.defaultRetriever.applicationListeners.remove(listener);
-			this.retrieverCache.clear();
+			updateCachedRetrievers(listener, null, false);
 		}
 	}
 
@@ -162,6 +173,112 @@ public abstract class AbstractApplicationEventMulticaster
 		}
 	}
 
+	/**
+	 * Apply the registration or removal of the given listener instance to the
+	 * cached retrievers, instead of clearing the entire cache.
+	 * <p>Retrievers that cannot be updated reliably get evicted and will be
+	 * rebuilt on the next matching event: this applies to retrievers holding
+	 * non-singleton listener beans, and to retrievers matching a listener that
+	 * is (or is about to become) a listener bean, since the bean definition may
+	 * rule out the listener on its own.
+	 * <p>Must be called while holding the retrieval mutex.
+	 * @param listener the listener being added or removed
+	 * @param replaced a listener being replaced by the added listener, if any
+	 * @param added whether the listener has been added or removed
+	 */
+	private void updateCachedRetrievers(
+			ApplicationListener<?> listener, @Nullable Object replaced, boolean added) {
+
+		if (this.retrieverCache.isEmpty()) {
+			return;
+		}
+		try {
+			boolean listenerBean = isPotentialListenerBean(listener, replaced);
+			Iterator<Map.Entry<ListenerCacheKey, ListenerRetriever>> it = this.retrieverCache.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<ListenerCacheKey, ListenerRetriever> entry = it.next();
+				ListenerCacheKey cacheKey = entry.getKey();
+				ListenerRetriever retriever = entry.getValue();
+				List<ApplicationListener<?>> current = retriever.listenerSnapshot;
+				boolean matches = (added ? supportsEvent(listener, cacheKey.eventType, cacheKey.sourceType) :
+						(current != null && current.contains(listener)));
+				if (current == null || (matches && listenerBean)) {
+					it.remove();
+				}
+				else if (matches || (replaced != null && current.contains(replaced))) {
+					List<ApplicationListener<?>> updated = new ArrayList<>(current);
+					updated.remove(replaced);
+					if (!added) {
+						updated.remove(listener);
+					}
+					else if (matches && !updated.contains(listener)) {
+						updated = insertListener(updated, listener);
+					}
+					retriever.setListenerSnapshot(updated);
+				}
+			}
+		}
+		catch (RuntimeException ex) {
+			// 无法判断监听器是否匹配: 回退到清空缓存, 下次使用时重建
+			this.retrieverCache.clear();
+		}
+	}
+
+	/**
+	 * Insert the given newly registered listener instance into the given sorted
+	 * listeners at the position that a full retrieval would assign to it.
+	 * <p>A full retrieval lists listener instances in registration order, followed
+	 * by listener beans, and then sorts them stably. The new listener therefore
+	 * goes after all other listener instances and before all listener beans of
+	 * the same order.
+	 * @param listeners the currently retrieved listeners, in sorted order
+	 * @param listener the listener instance just added to the default retriever
+	 * @return the updated list of listeners, in sorted order
+	 */
+	private List<ApplicationListener<?>> insertListener(
+			List<ApplicationListener<?>> listeners, ApplicationListener<?> listener) {
+
+		Set<ApplicationListener<?>> instances = this.defaultRetriever.applicationListeners;
+		List<ApplicationListener<?>> result = new ArrayList<>(listeners.size() + 1);
+		for (ApplicationListener<?> candidate : listeners) {
+			if (instances.contains(candidate)) {
+				result.add(candidate);
+			}
+		}
+		result.add(listener);
+		for (ApplicationListener<?> candidate : listeners) {
+			if (!instances.contains(candidate)) {
+				result.add(candidate);
+			}
+		}
+		AnnotationAwareOrderComparator.sort(result);
+		return result;
+	}
+
+	/**
+	 * Determine whether the given listener instance may correspond to one of the
+	 * registered listener bean names, either as a registered singleton or as a
+	 * singleton currently in creation (as registered by the
+	 * {@code ApplicationListenerDetector}).
+	 */
+	private boolean isPotentialListenerBean(ApplicationListener<?> listener, @Nullable Object replaced) {
+		if (this.beanFactory == null || this.defaultRetriever.applicationListenerBeans.isEmpty()) {
+			return false;
+		}
+		for (String listenerBeanName : this.defaultRetriever.applicationListenerBeans) {
+			if (this.beanFactory.isCurrentlyInCreation(listenerBeanName)) {
+				return true;
+			}
+			if (this.beanFactory.containsSingleton(listenerBeanName)) {
+				Object singleton = this.beanFactory.getSingleton(listenerBeanName);
+				if (singleton == listener || (singleton != null && singleton == replaced)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 
 	/**
 	 * Return a Collection containing all ApplicationListeners.
@@ -169,9 +286,13 @@ public abstract class AbstractApplicationEventMulticaster
 	 * @see org.springframework.context.ApplicationListener
 	 */
 	protected Collection<ApplicationListener<?>> getApplicationListeners() {
+		ListenerRetriever retriever = new ListenerRetriever(false);
 		synchronized (this.retrievalMutex) {
-			return this.defaultRetriever.getApplicationListeners();
+			retriever.applicationListeners.addAll(this.defaultRetriever.applicationListeners);
+			retriever.applicationListenerBeans.addAll(this.defaultRetriever.applicationListenerBeans);
 		}
+		// 在锁外获取监听器 bean
+		return retriever.getApplicationListeners();
 	}
 
 	/**
@@ -195,35 +316,43 @@ public abstract class AbstractApplicationEventMulticaster
 		// 缓存对象key的创建
 		ListenerCacheKey cacheKey = new ListenerCacheKey(eventType, sourceType);
 
+		// Potential new retriever to populate
+		ListenerRetriever newRetriever = null;
+
 		// 从容器中获取
 		// Quick check for existing entry on ConcurrentHashMap...
-		ListenerRetriever retriever = this.retrieverCache.get(cacheKey);
-		// 不为空直接从缓存值中获取
-		if (retriever != null) {
-			// 从缓存值中获取 应用监听器列表
-			return retriever.getApplicationListeners();
-		}
-
-		if (this.beanClassLoader == null ||
-				(ClassUtils.isCacheSafe(event.getClass(), this.beanClassLoader) &&
-						(sourceType == null || ClassUtils.isCacheSafe(sourceType, this.beanClassLoader)))) {
-			// Fully synchronized building and caching of a ListenerRetriever
-			synchronized (this.retrievalMutex) {
-				retriever = this.retrieverCache.get(cacheKey);
-				if (retriever != null) {
-					return retriever.getApplicationListeners();
+		ListenerRetriever existingRetriever = this.retrieverCache.get(cacheKey);
+		if (existingRetriever == null) {
+			// Caching a new ListenerRetriever if possible
+			if (this.beanClassLoader == null ||
+					(ClassUtils.isCacheSafe(event.getClass(), this.beanClassLoader) &&
+							(sourceType == null || ClassUtils.isCacheSafe(sourceType, this.beanClassLoader)))) {
+				newRetriever = new ListenerRetriever(true);
+				existingRetriever = this.retrieverCache.putIfAbsent(cacheKey, newRetriever);
+				if (existingRetriever != null) {
+					// 其他线程已放入缓存, 无需再填充
+					newRetriever = null;
 				}
-				retriever = new ListenerRetriever(true);
-				// 从 defaultRetriever 推算 ApplicationListener 对象
-				Collection<ApplicationListener<?>> listeners =
-						retrieveApplicationListeners(eventType, sourceType, retriever);
-				this.retrieverCache.put(cacheKey, retriever);
-				return listeners;
 			}
 		}
-		else {
-			// No ListenerRetriever caching -> no synchronization necessary
-			return retrieveApplicationListeners(eventType, sourceType, null);
+
+		// 已填充完成的缓存值直接使用
+		if (existingRetriever != null && existingRetriever.populated) {
+			return existingRetriever.getApplicationListeners();
+		}
+
+		// 缓存值尚未由其他线程填充完成时, 与无法缓存的情况一样直接检索.
+		// 检索过程中不持有 retrievalMutex (即单例锁), 监听器 bean 的获取可以等待
+		// 其他线程中正在创建的 bean.
+		try {
+			return retrieveApplicationListeners(eventType, sourceType, newRetriever);
+		}
+		catch (RuntimeException | Error ex) {
+			if (newRetriever != null) {
+				// 不保留无法填充的缓存值
+				this.retrieverCache.remove(cacheKey, newRetriever);
+			}
+			throw ex;
 		}
 	}
 
@@ -241,6 +370,9 @@ public abstract class AbstractApplicationEventMulticaster
 
 		// 返回值列表
 		List<ApplicationListener<?>> allListeners = new ArrayList<>();
+		// 缓存值在检索完成后一次性填充, 检索期间可能已被其他线程看到
+		Set<ApplicationListener<?>> filteredListeners = (retriever != null ? new LinkedHashSet<>() : null);
+		Set<String> filteredListenerBeans = (retriever != null ? new LinkedHashSet<>() : null);
 		Set<ApplicationListener<?>> listeners;
 		Set<String> listenerBeans;
 		synchronized (this.retrievalMutex) {
@@ -255,9 +387,9 @@ public abstract class AbstractApplicationEventMulticaster
 		for (ApplicationListener<?> listener : listeners) {
 			// 判断当前监听器是否支持传入的事件
 			if (supportsEvent(listener, eventType, sourceType)) {
-				if (retriever != null) {
+				if (filteredListeners != null) {
 					// 帮助容器中添加数据
-					retriever.applicationListeners.add(listener);
+					filteredListeners.add(listener);
 				}
 				// 放入返回对象中
 				allListeners.add(listener);
@@ -280,12 +412,12 @@ public abstract class AbstractApplicationEventMulticaster
 								beanFactory.getBean(listenerBeanName, ApplicationListener.class);
 						if (!allListeners.contains(listener) && supportsEvent(listener, eventType, sourceType)) {
 							// 帮助容器中添加数据
-							if (retriever != null) {
+							if (filteredListeners != null) {
 								if (beanFactory.isSingleton(listenerBeanName)) {
-									retriever.applicationListeners.add(listener);
+									filteredListeners.add(listener);
 								}
 								else {
-									retriever.applicationListenerBeans.add(listenerBeanName);
+									filteredListenerBeans.add(listenerBeanName);
 								}
 							}
 							// 放入返回对象中
@@ -299,8 +431,8 @@ public abstract class AbstractApplicationEventMulticaster
 						// BeanDefinition metadata (e.g. factory method generics) above.
 						Object listener = beanFactory.getSingleton(listenerBeanName);
 					// 将 ApplicationListener 移除容器
-						if (retriever != null) {
-							retriever.applicationListeners.remove(listener);
+						if (filteredListeners != null) {
+							filteredListeners.remove(listener);
 						}
 						allListeners.remove(listener);
 					}
@@ -314,9 +446,17 @@ public abstract class AbstractApplicationEventMulticaster
 
 		// 排序后放入容器
 		AnnotationAwareOrderComparator.sort(allListeners);
-		if (retriever != null && retriever.applicationListenerBeans.isEmpty()) {
-			retriever.applicationListeners.clear();
-			retriever.applicationListeners.addAll(allListeners);
+		if (retriever != null) {
+			if (filteredListenerBeans.isEmpty()) {
+				retriever.applicationListeners.addAll(allListeners);
+				// 仅包含监听器实例: 预先计算不可变的分发列表
+				retriever.setListenerSnapshot(allListeners);
+			}
+			else {
+				retriever.applicationListeners.addAll(filteredListeners);
+				retriever.applicationListenerBeans.addAll(filteredListenerBeans);
+			}
+			retriever.populated = true;
 		}
 		return allListeners;
 	}
@@ -491,11 +631,30 @@ public abstract class AbstractApplicationEventMulticaster
 
 		private final boolean preFiltered;
 
+		/**
+		 * 缓存值是否已填充完成, 在此之前其他线程不得读取上面的集合
+		 */
+		volatile boolean populated;
+
+		/**
+		 * 预先排序的不可变监听器列表, 仅用于不包含非单例监听器 bean 的缓存项
+		 */
+		@Nullable
+		volatile List<ApplicationListener<?>> listenerSnapshot;
+
 		public ListenerRetriever(boolean preFiltered) {
 			this.preFiltered = preFiltered;
 		}
 
+		void setListenerSnapshot(List<ApplicationListener<?>> listeners) {
+			this.listenerSnapshot = Collections.unmodifiableList(new ArrayList<>(listeners));
+		}
+
 		public Collection<ApplicationListener<?>> getApplicationListeners() {
+			List<ApplicationListener<?>> listenerSnapshot = this.listenerSnapshot;
+			if (listenerSnapshot != null) {
+				return listenerSnapshot;
+			}
 
 			// 返回结果定义 成员变量的合集
 			// 1. applicationListeners 存放的实例直接放入容器
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of the dispatch metrics of a {@link PartitionedApplicationEventMulticaster}.
+ *
+ * <p>Queue depths reflect the time of the snapshot; all other values are
+ * cumulative since the creation of the multicaster. Latency is measured from
+ * the publication of an event until its delivery to listeners begins.
+ *
+ * @since 5.3
+ * @see PartitionedApplicationEventMulticaster#getMetrics()
+ */
+public final class EventDispatchMetrics {
+
+	private final int[] queueDepths;
+
+	private final long dispatchedEventCount;
+
+	private final long batchDeliveryCount;
+
+	private final long callerRunsEventCount;
+
+	private final long discardedEventCount;
+
+	private final long rejectedEventCount;
+
+	private final long totalLatencyNanos;
+
+	private final long maxLatencyNanos;
+
+
+	EventDispatchMetrics(int[] queueDepths, long dispatchedEventCount, long batchDeliveryCount,
+			long callerRunsEventCount, long discardedEventCount, long rejectedEventCount,
+			long totalLatencyNanos, long maxLatencyNanos) {
+
+		this.queueDepths = queueDepths;
+		this.dispatchedEventCount = dispatchedEventCount;
+		this.batchDeliveryCount = batchDeliveryCount;
+		this.callerRunsEventCount = callerRunsEventCount;
+		this.discardedEventCount = discardedEventCount;
+		this.rejectedEventCount = rejectedEventCount;
+		this.totalLatencyNanos = totalLatencyNanos;
+		this.maxLatencyNanos = maxLatencyNanos;
+	}
+
+
+	/**
+	 * Return the number of events currently queued across all partitions.
+	 */
+	public int getQueueDepth() {
+		int depth = 0;
+		for (int partitionDepth : this.queueDepths) {
+			depth += partitionDepth;
+		}
+		return depth;
+	}
+
+	/**
+	 * Return the number of events currently queued for each partition,
+	 * indexed by partition.
+	 */
+	public int[] getQueueDepths() {
+		return this.queueDepths.clone();
+	}
+
+	/**
+	 * Return the number of queued events dispatched to their listeners.
+	 */
+	public long getDispatchedEventCount() {
+		return this.dispatchedEventCount;
+	}
+
+	/**
+	 * Return the number of {@link BatchApplicationListener#onApplicationEvents}
+	 * invocations.
+	 */
+	public long getBatchDeliveryCount() {
+		return this.batchDeliveryCount;
+	}
+
+	/**
+	 * Return the number of events delivered in the publishing thread
+	 * since their partition queue was full.
+	 */
+	public long getCallerRunsEventCount() {
+		return this.callerRunsEventCount;
+	}
+
+	/**
+	 * Return the number of events discarded since their partition queue was full.
+	 */
+	public long getDiscardedEventCount() {
+		return this.discardedEventCount;
+	}
+
+	/**
+	 * Return the number of events rejected with an exception
+	 * since their partition queue was full.
+	 */
+	public long getRejectedEventCount() {
+		return this.rejectedEventCount;
+	}
+
+	/**
+	 * Return the average time dispatched events spent queued.
+	 */
+	public Duration getAverageLatency() {
+		return (this.dispatchedEventCount > 0 ?
+				Duration.ofNanos(this.totalLatencyNanos / this.dispatchedEventCount) : Duration.ZERO);
+	}
+
+	/**
+	 * Return the longest time a single dispatched event spent queued.
+	 */
+	public Duration getMaxLatency() {
+		return Duration.ofNanos(this.maxLatencyNanos);
+	}
+
+
+	@Override
+	public String toString() {
+		return "EventDispatchMetrics: queued=" + getQueueDepth() +
+				", dispatched=" + this.dispatchedEventCount +
+				", batches=" + this.batchDeliveryCount +
+				", callerRuns=" + this.callerRunsEventCount +
+				", discarded=" + this.discardedEventCount +
+				", rejected=" + this.rejectedEventCount +
+				", averageLatency=" + getAverageLatency().toMillis() + "ms" +
+				", maxLatency=" + getMaxLatency().toMillis() + "ms";
+	}
+
+}
@@ -43,6 +43,7 @@ import org.springframework.core.MethodIntrospector;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
@@ -102,44 +103,51 @@ public class EventListenerMethodProcessor
 		ConfigurableListableBeanFactory beanFactory = this.beanFactory;
 		Assert.state(this.beanFactory != null, "No ConfigurableListableBeanFactory set");
 		String[] beanNames = beanFactory.getBeanNamesForType(Object.class);
-		for (String beanName : beanNames) {
-			if (!ScopedProxyUtils.isScopedTarget(beanName)) {
-				Class<?> type = null;
-				try {
-					type = AutoProxyUtils.determineTargetClass(beanFactory, beanName);
-				}
-				catch (Throwable ex) {
-					// An unresolvable bean type, probably from a lazy bean - let's ignore it.
-					if (logger.isDebugEnabled()) {
-						logger.debug("Could not resolve target class for bean with name '" + beanName + "'", ex);
+		StartupStep processListeners = beanFactory.getApplicationStartup().start("spring.context.event-listeners.process")
+				.tag("beanCount", String.valueOf(beanNames.length));
+		try {
+			for (String beanName : beanNames) {
+				if (!ScopedProxyUtils.isScopedTarget(beanName)) {
+					Class<?> type = null;
+					try {
+						type = AutoProxyUtils.determineTargetClass(beanFactory, beanName);
 					}
-				}
-				if (type != null) {
-					if (ScopedObject.class.isAssignableFrom(type)) {
-						try {
-							Class<?> targetClass = AutoProxyUtils.determineTargetClass(
-									beanFactory, ScopedProxyUtils.getTargetBeanName(beanName));
-							if (targetClass != null) {
-								type = targetClass;
+					catch (Throwable ex) {
+						// An unresolvable bean type, probably from a lazy bean - let's ignore it.
+						if (logger.isDebugEnabled()) {
+							logger.debug("Could not resolve target class for bean with name '" + beanName + "'", ex);
+						}
+					}
+					if (type != null) {
+						if (ScopedObject.class.isAssignableFrom(type)) {
+							try {
+								Class<?> targetClass = AutoProxyUtils.determineTargetClass(
+										beanFactory, ScopedProxyUtils.getTargetBeanName(beanName));
+								if (targetClass != null) {
+									type = targetClass;
+								}
+							}
+							catch (Throwable ex) {
+								// An invalid scoped proxy arrangement - let's ignore it.
+								if (logger.isDebugEnabled()) {
+									logger.debug("Could not resolve target bean for scoped proxy '" + beanName + "'", ex);
+								}
 							}
 						}
+						try {
+							processBean(beanName, type);
+						}
 						catch (Throwable ex) {
-							// An invalid scoped proxy arrangement - let's ignore it.
-							if (logger.isDebugEnabled()) {
-								logger.debug("Could not resolve target bean for scoped proxy '" + beanName + "'", ex);
-							}
+							throw new BeanInitializationException("Failed to process @EventListener " +
+									"annotation on bean with name '" + beanName + "'", ex);
 						}
 					}
-					try {
-						processBean(beanName, type);
-					}
-					catch (Throwable ex) {
-						throw new BeanInitializationException("Failed to process @EventListener " +
-								"annotation on bean with name '" + beanName + "'", ex);
-					}
 				}
 			}
 		}
+		finally {
+			processListeners.end();
+		}
 	}
 
 	private void processBean(final String beanName, final Class<?> targetType) {
@@ -0,0 +1,497 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * Asynchronous {@link ApplicationEventMulticaster} that dispatches events
+ * through a fixed number of bounded partition queues.
+ *
+ * <p>Each event is assigned to a partition according to the key returned by
+ * the {@linkplain #setPartitionKeyResolver partition key resolver}, by default
+ * the event source. Events of the same partition are delivered one after the
+ * other, in publication order; different partitions are processed concurrently.
+ * A partition is only scheduled on the {@linkplain #setTaskExecutor task executor}
+ * while it has queued events, so idle partitions do not occupy a thread.
+ *
+ * <p>Listeners implementing {@link BatchApplicationListener} receive all events
+ * of a partition that were queued for them, up to the
+ * {@linkplain #setMaxBatchSize maximum batch size}, in a single call. Such a
+ * batch is delivered after the other listeners of the contained events have
+ * been invoked.
+ *
+ * <p>When the queue of a partition is full, the configured {@link OverflowPolicy}
+ * applies. Listener exceptions are passed to the {@linkplain #setErrorHandler
+ * error handler}, if any, and logged otherwise: they are never propagated to
+ * the publisher. Once this multicaster has been {@linkplain #destroy() destroyed},
+ * events are delivered synchronously in the publishing thread.
+ *
+ * @since 5.3
+ * @see #getMetrics()
+ */
+public class PartitionedApplicationEventMulticaster extends SimpleApplicationEventMulticaster
+		implements DisposableBean {
+
+	/**
+	 * Policy applied when an event is published for a partition whose queue is full.
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * Block the publishing thread until the partition has room for the event.
+		 * <p>A thread publishing while it is itself dispatching events delivers
+		 * the event directly instead, avoiding a deadlock on its own partition.
+		 */
+		BLOCK,
+
+		/**
+		 * Deliver the event in the publishing thread. Note that the event may then
+		 * be delivered before earlier events of the same partition.
+		 */
+		CALLER_RUNS,
+
+		/**
+		 * Silently discard the event.
+		 */
+		DISCARD,
+
+		/**
+		 * Reject the event with a {@link TaskRejectedException}.
+		 */
+		ABORT
+	}
+
+
+	private static final ThreadLocal<Boolean> dispatching = new ThreadLocal<>();
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private int partitionCount = Runtime.getRuntime().availableProcessors();
+
+	private int queueCapacity = 1024;
+
+	private int maxBatchSize = 64;
+
+	private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+	private Function<? super ApplicationEvent, ?> partitionKeyResolver = ApplicationEvent::getSource;
+
+	private long awaitTerminationMillis = 0;
+
+	@Nullable
+	private volatile Partition[] partitions;
+
+	@Nullable
+	private ExecutorService internalExecutor;
+
+	private volatile boolean active = true;
+
+	private final LongAdder dispatchedEventCount = new LongAdder();
+
+	private final LongAdder batchDeliveryCount = new LongAdder();
+
+	private final LongAdder callerRunsEventCount = new LongAdder();
+
+	private final LongAdder discardedEventCount = new LongAdder();
+
+	private final LongAdder rejectedEventCount = new LongAdder();
+
+	private final LongAdder totalLatencyNanos = new LongAdder();
+
+	private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+
+	/**
+	 * Create a new PartitionedApplicationEventMulticaster.
+	 */
+	public PartitionedApplicationEventMulticaster() {
+	}
+
+	/**
+	 * Create a new PartitionedApplicationEventMulticaster for the given BeanFactory.
+	 */
+	public PartitionedApplicationEventMulticaster(BeanFactory beanFactory) {
+		setBeanFactory(beanFactory);
+	}
+
+
+	/**
+	 * Set the number of partitions, i.e. the maximum number of events delivered
+	 * concurrently. Default is the number of available processors.
+	 */
+	public void setPartitionCount(int partitionCount) {
+		Assert.isTrue(partitionCount > 0, "Partition count must be positive");
+		assertNotStarted();
+		this.partitionCount = partitionCount;
+	}
+
+	/**
+	 * Set the maximum number of events queued per partition. Default is 1024.
+	 * @see #setOverflowPolicy
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		Assert.isTrue(queueCapacity > 0, "Queue capacity must be positive");
+		assertNotStarted();
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Set the maximum number of queued events a partition processes at once,
+	 * and therefore the maximum number of events handed to a
+	 * {@link BatchApplicationListener} in a single call. Default is 64.
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0, "Max batch size must be positive");
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Set the policy to apply when the queue of a partition is full.
+	 * Default is {@link OverflowPolicy#BLOCK}.
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		Assert.notNull(overflowPolicy, "OverflowPolicy must not be null");
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Set the function determining the partition key of an event: events with
+	 * equal keys are delivered in publication order. Default is the
+	 * {@linkplain ApplicationEvent#getSource() event source}.
+	 */
+	public void setPartitionKeyResolver(Function<? super ApplicationEvent, ?> partitionKeyResolver) {
+		Assert.notNull(partitionKeyResolver, "Partition key resolver must not be null");
+		this.partitionKeyResolver = partitionKeyResolver;
+	}
+
+	/**
+	 * Set the executor to process partitions with. Each partition occupies at
+	 * most one thread at a time, while it has queued events.
+	 * <p>Default is an internal fixed thread pool with one thread per partition,
+	 * shut down along with this multicaster.
+	 */
+	@Override
+	public void setTaskExecutor(@Nullable Executor taskExecutor) {
+		assertNotStarted();
+		super.setTaskExecutor(taskExecutor);
+	}
+
+	/**
+	 * Set the maximum number of milliseconds that {@link #destroy()} waits for
+	 * queued events to be dispatched. Default is 0, not waiting at all: queued
+	 * events are still dispatched, but possibly after the application context
+	 * has been closed.
+	 */
+	public void setAwaitTerminationMillis(long awaitTerminationMillis) {
+		this.awaitTerminationMillis = awaitTerminationMillis;
+	}
+
+	private void assertNotStarted() {
+		Assert.state(this.partitions == null, "Partitions already started");
+	}
+
+
+	@Override
+	public void multicastEvent(ApplicationEvent event, @Nullable ResolvableType eventType) {
+		ResolvableType type = (eventType != null ? eventType : ResolvableType.forInstance(event));
+		if (!this.active) {
+			for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
+				invokeListenerSafely(listener, event);
+			}
+			return;
+		}
+		Partition partition = getPartition(this.partitionKeyResolver.apply(event));
+		partition.enqueue(new QueuedEvent(event, type, System.nanoTime()));
+	}
+
+	private Partition getPartition(@Nullable Object partitionKey) {
+		Partition[] partitions = this.partitions;
+		if (partitions == null) {
+			synchronized (this) {
+				partitions = this.partitions;
+				if (partitions == null) {
+					partitions = new Partition[this.partitionCount];
+					for (int i = 0; i < partitions.length; i++) {
+						partitions[i] = new Partition(this.queueCapacity);
+					}
+					if (getTaskExecutor() == null) {
+						this.internalExecutor = Executors.newFixedThreadPool(partitions.length,
+								new CustomizableThreadFactory("event-partition-"));
+						super.setTaskExecutor(this.internalExecutor);
+					}
+					this.partitions = partitions;
+				}
+			}
+		}
+		int hash = (partitionKey != null ? partitionKey.hashCode() : 0);
+		return partitions[Math.floorMod(hash ^ (hash >>> 16), partitions.length)];
+	}
+
+	/**
+	 * Return a snapshot of the dispatch metrics of this multicaster.
+	 */
+	public EventDispatchMetrics getMetrics() {
+		Partition[] partitions = this.partitions;
+		int[] queueDepths = new int[partitions != null ? partitions.length : this.partitionCount];
+		if (partitions != null) {
+			for (int i = 0; i < partitions.length; i++) {
+				queueDepths[i] = partitions[i].queue.size();
+			}
+		}
+		return new EventDispatchMetrics(queueDepths, this.dispatchedEventCount.sum(),
+				this.batchDeliveryCount.sum(), this.callerRunsEventCount.sum(), this.discardedEventCount.sum(),
+				this.rejectedEventCount.sum(), this.totalLatencyNanos.sum(), this.maxLatencyNanos.get());
+	}
+
+	/**
+	 * Stop queueing events, wait for queued events to be dispatched according to
+	 * the {@linkplain #setAwaitTerminationMillis await termination} setting, and
+	 * shut down the internal executor, if any.
+	 */
+	@Override
+	public void destroy() throws InterruptedException {
+		this.active = false;
+		Partition[] partitions = this.partitions;
+		if (partitions != null && this.awaitTerminationMillis > 0) {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.awaitTerminationMillis);
+			for (Partition partition : partitions) {
+				if (!partition.awaitIdle(deadline)) {
+					break;
+				}
+			}
+		}
+		ExecutorService internalExecutor = this.internalExecutor;
+		if (internalExecutor != null) {
+			internalExecutor.shutdown();
+		}
+	}
+
+
+	private void dispatch(List<QueuedEvent> queuedEvents) {
+		Map<BatchApplicationListener<?>, List<ApplicationEvent>> batches = null;
+		for (QueuedEvent queuedEvent : queuedEvents) {
+			long latency = System.nanoTime() - queuedEvent.timestamp;
+			this.totalLatencyNanos.add(latency);
+			this.maxLatencyNanos.accumulate(latency);
+			this.dispatchedEventCount.increment();
+			try {
+				for (ApplicationListener<?> listener : getApplicationListeners(queuedEvent.event, queuedEvent.type)) {
+					if (listener instanceof BatchApplicationListener) {
+						if (batches == null) {
+							batches = new LinkedHashMap<>();
+						}
+						batches.computeIfAbsent((BatchApplicationListener<?>) listener, key -> new ArrayList<>())
+								.add(queuedEvent.event);
+					}
+					else {
+						invokeListenerSafely(listener, queuedEvent.event);
+					}
+				}
+			}
+			catch (Throwable ex) {
+				logger.error("Failed to dispatch " + queuedEvent.event, ex);
+			}
+		}
+		if (batches != null) {
+			batches.forEach(this::invokeBatchListener);
+		}
+	}
+
+	private void invokeListenerSafely(ApplicationListener<?> listener, ApplicationEvent event) {
+		try {
+			invokeListener(listener, event);
+		}
+		catch (Throwable ex) {
+			logger.error("Unexpected error in listener " + listener + " for " + event, ex);
+		}
+	}
+
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private void invokeBatchListener(BatchApplicationListener listener, List<ApplicationEvent> events) {
+		this.batchDeliveryCount.increment();
+		try {
+			listener.onApplicationEvents(events);
+		}
+		catch (Throwable ex) {
+			ErrorHandler errorHandler = getErrorHandler();
+			if (errorHandler != null) {
+				errorHandler.handleError(ex);
+			}
+			else {
+				logger.error("Unexpected error in listener " + listener + " for " + events.size() + " events", ex);
+			}
+		}
+	}
+
+	private void deliverInCallerThread(QueuedEvent queuedEvent) {
+		this.callerRunsEventCount.increment();
+		for (ApplicationListener<?> listener : getApplicationListeners(queuedEvent.event, queuedEvent.type)) {
+			invokeListenerSafely(listener, queuedEvent.event);
+		}
+	}
+
+
+	/**
+	 * A bounded queue of events, processed by at most one thread at a time.
+	 */
+	private final class Partition implements Runnable {
+
+		final BlockingQueue<QueuedEvent> queue;
+
+		final AtomicBoolean scheduled = new AtomicBoolean();
+
+		Partition(int capacity) {
+			this.queue = new ArrayBlockingQueue<>(capacity);
+		}
+
+		void enqueue(QueuedEvent queuedEvent) {
+			if (!this.queue.offer(queuedEvent)) {
+				switch (overflowPolicy) {
+					case BLOCK:
+						if (dispatching.get() != null) {
+							deliverInCallerThread(queuedEvent);
+							return;
+						}
+						try {
+							this.queue.put(queuedEvent);
+						}
+						catch (InterruptedException ex) {
+							Thread.currentThread().interrupt();
+							rejectedEventCount.increment();
+							throw new TaskRejectedException("Interrupted while queueing " + queuedEvent.event, ex);
+						}
+						break;
+					case CALLER_RUNS:
+						deliverInCallerThread(queuedEvent);
+						return;
+					case DISCARD:
+						discardedEventCount.increment();
+						return;
+					default:
+						rejectedEventCount.increment();
+						throw new TaskRejectedException("Event queue full: cannot accept " + queuedEvent.event);
+				}
+			}
+			schedule();
+		}
+
+		void schedule() {
+			if (this.scheduled.compareAndSet(false, true)) {
+				Executor executor = getTaskExecutor();
+				Assert.state(executor != null, "No executor");
+				try {
+					executor.execute(this);
+				}
+				catch (RejectedExecutionException ex) {
+					// 执行器不再接受任务 (例如已关闭): 由当前线程处理剩余事件
+					run();
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			List<QueuedEvent> queuedEvents = new ArrayList<>(Math.min(maxBatchSize, this.queue.size()));
+			dispatching.set(Boolean.TRUE);
+			try {
+				this.queue.drainTo(queuedEvents, maxBatchSize);
+				dispatch(queuedEvents);
+			}
+			finally {
+				dispatching.remove();
+				this.scheduled.set(false);
+			}
+			// 每批处理后让出线程, 其余事件重新调度以保证各分区之间的公平
+			if (!this.queue.isEmpty()) {
+				schedule();
+			}
+			else if (!active) {
+				// 关闭期间唤醒在 awaitIdle 中等待的线程
+				synchronized (this) {
+					notifyAll();
+				}
+			}
+		}
+
+		boolean isIdle() {
+			return (!this.scheduled.get() && this.queue.isEmpty());
+		}
+
+		/**
+		 * Wait until this partition has dispatched all queued events, or until
+		 * the given deadline has passed.
+		 * @param deadline the deadline, in terms of {@link System#nanoTime()}
+		 * @return whether the partition is idle
+		 */
+		synchronized boolean awaitIdle(long deadline) throws InterruptedException {
+			while (!isIdle()) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+			return true;
+		}
+	}
+
+
+	private static final class QueuedEvent {
+
+		final ApplicationEvent event;
+
+		final ResolvableType type;
+
+		final long timestamp;
+
+		QueuedEvent(ApplicationEvent event, ResolvableType type, long timestamp) {
+			this.event = event;
+			this.type = type;
+			this.timestamp = timestamp;
+		}
+	}
+
+}
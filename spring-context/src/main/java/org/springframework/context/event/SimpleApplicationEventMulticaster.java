@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.context.event;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
 import java.util.concurrent.Executor;
 
 import org.apache.commons.logging.Log;
@@ -131,7 +134,16 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	public void multicastEvent(final ApplicationEvent event, @Nullable ResolvableType eventType) {
 		ResolvableType type = (eventType != null ? eventType : resolveDefaultEventType(event));
 		Executor executor = getTaskExecutor();
-		for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
+		Collection<ApplicationListener<?>> listeners = getApplicationListeners(event, type);
+		if (executor == null && listeners instanceof RandomAccess) {
+			// 预先计算的监听器列表: 按索引遍历, 不创建迭代器
+			List<ApplicationListener<?>> listenerList = (List<ApplicationListener<?>>) listeners;
+			for (int i = 0; i < listenerList.size(); i++) {
+				invokeListener(listenerList.get(i), event);
+			}
+			return;
+		}
+		for (ApplicationListener<?> listener : listeners) {
 			if (executor != null) {
 				executor.execute(() -> invokeListener(listener, event));
 			}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.Map;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionCache;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -38,6 +39,9 @@ public abstract class CachedExpressionEvaluator {
 
 	private final SpelExpressionParser parser;
 
+	@Nullable
+	private final SpelExpressionCache expressionCache;
+
 	private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
 
@@ -47,6 +51,21 @@ public abstract class CachedExpressionEvaluator {
 	protected CachedExpressionEvaluator(SpelExpressionParser parser) {
 		Assert.notNull(parser, "SpelExpressionParser must not be null");
 		this.parser = parser;
+		this.expressionCache = null;
+	}
+
+	/**
+	 * Create a new instance backed by the specified shared {@link SpelExpressionCache}:
+	 * the expression for a given element is shared with other evaluators backed by
+	 * the same cache, including its compiled form, if any. Expressions are not
+	 * shared between elements, since a compiled expression is specialized for
+	 * the variable and target types it has been compiled against.
+	 * @since 5.3
+	 */
+	protected CachedExpressionEvaluator(SpelExpressionCache expressionCache) {
+		Assert.notNull(expressionCache, "SpelExpressionCache must not be null");
+		this.parser = expressionCache.getParser();
+		this.expressionCache = expressionCache;
 	}
 
 	/**
@@ -86,7 +105,9 @@ public abstract class CachedExpressionEvaluator {
 		ExpressionKey expressionKey = createKey(elementKey, expression);
 		Expression expr = cache.get(expressionKey);
 		if (expr == null) {
-			expr = getParser().parseExpression(expression);
+			expr = (this.expressionCache != null ?
+					this.expressionCache.getExpression(expression, null, elementKey) :
+					getParser().parseExpression(expression));
 			cache.put(expressionKey, expr);
 		}
 		return expr;
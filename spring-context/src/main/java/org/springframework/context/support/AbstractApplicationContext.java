@@ -46,6 +46,7 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.context.ApplicationListener;
+import org.springframework.context.ApplicationStartupAware;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.EmbeddedValueResolverAware;
 import org.springframework.context.EnvironmentAware;
@@ -77,6 +78,8 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -281,6 +284,12 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
     @Nullable
     private Set<ApplicationEvent> earlyApplicationEvents;
 
+    /**
+	 * Application startup metrics.
+	 * 启动步骤记录器
+	 * */
+    private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 
     /**
      * Create a new AbstractApplicationContext with no parent.
@@ -410,6 +419,23 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
         return new StandardEnvironment();
     }
 
+    /**
+     * Set the {@link ApplicationStartup} for this application context.
+     * <p>Should be called <em>before</em> {@link #refresh()} so that the steps of the
+     * refresh phase, including the ones recorded by the internal bean factory, are
+     * captured. Defaults to {@link ApplicationStartup#DEFAULT}, a no-op variant.
+     */
+    @Override
+    public void setApplicationStartup(ApplicationStartup applicationStartup) {
+        Assert.notNull(applicationStartup, "applicationStartup should not be null");
+        this.applicationStartup = applicationStartup;
+    }
+
+    @Override
+    public ApplicationStartup getApplicationStartup() {
+        return this.applicationStartup;
+    }
+
     /**
      * Return this context's internal bean factory as AutowireCapableBeanFactory,
      * if already available.
@@ -587,6 +613,8 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
     @Override
     public void refresh() throws BeansException, IllegalStateException {
         synchronized (this.startupShutdownMonitor) {
+            StartupStep contextRefresh = this.applicationStartup.start("spring.context.refresh");
+
             // Prepare this context for refreshing.
             // 准备刷新此上下文。
             prepareRefresh();
@@ -602,6 +630,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
             try {
 				// beanFactory 在子类中进行后置处理
                 // Allows post-processing of the bean factory in context subclasses.
+                StartupStep beanPostProcess = this.applicationStartup.start("spring.context.beans.post-process");
                 postProcessBeanFactory(beanFactory);
 
                 // BeanFactoryPostProcessor 方法调用
@@ -611,6 +640,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
                 // 注册 beanPostProcessor
                 // Register bean processors that intercept bean creation.
                 registerBeanPostProcessors(beanFactory);
+                beanPostProcess.end();
 
                 // 实例化 message source 相关信息
                 // Initialize message source for this context.
@@ -629,7 +659,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 
                 // Instantiate all remaining (non-lazy-init) singletons.
 				// 完成 beanFactory 的实例化
+                StartupStep singletons = this.applicationStartup.start("spring.context.singletons.instantiate");
                 finishBeanFactoryInitialization(beanFactory);
+                singletons.end();
 
                 // Last step: publish corresponding event.
 				// 完成刷新
@@ -659,6 +691,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
                 // might not ever need metadata for singleton beans anymore...
 				// 重置通用缓存
                 resetCommonCaches();
+                contextRefresh.end();
             }
         }
     }
@@ -744,6 +777,8 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
         // Tell the internal bean factory to use the context's class loader etc.
         // 设置 classLaoder
         beanFactory.setBeanClassLoader(getClassLoader());
+        // 与上下文共享启动步骤记录器
+        beanFactory.setApplicationStartup(getApplicationStartup());
         // 设置 el 表达式解析器
         beanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver(beanFactory.getBeanClassLoader()));
         // 添加属性编辑器注册工具
@@ -759,6 +794,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
         beanFactory.ignoreDependencyInterface(ApplicationEventPublisherAware.class);
         beanFactory.ignoreDependencyInterface(MessageSourceAware.class);
         beanFactory.ignoreDependencyInterface(ApplicationContextAware.class);
+        beanFactory.ignoreDependencyInterface(ApplicationStartupAware.class);
 
         // 注册依赖
         // BeanFactory interface not registered as resolvable type in a plain factory.
@@ -795,6 +831,10 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
         if (!beanFactory.containsLocalBean(SYSTEM_ENVIRONMENT_BEAN_NAME)) {
             beanFactory.registerSingleton(SYSTEM_ENVIRONMENT_BEAN_NAME, getEnvironment().getSystemEnvironment());
         }
+        // applicationStartup bean 注册
+        if (!beanFactory.containsLocalBean(APPLICATION_STARTUP_BEAN_NAME)) {
+            beanFactory.registerSingleton(APPLICATION_STARTUP_BEAN_NAME, getApplicationStartup());
+        }
     }
 
     /**
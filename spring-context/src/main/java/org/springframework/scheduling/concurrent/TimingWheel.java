@@ -0,0 +1,250 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.function.Consumer;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Hierarchical timing wheel, holding entries by their deadline tick.
+ *
+ * <p>Level 0 has one bucket per tick; each further level has buckets spanning
+ * a full revolution of the level below. Entries are placed on the lowest level
+ * whose current revolution contains their deadline, and get cascaded down one
+ * level at a time as the wheel advances. Adding and removing an entry is O(1),
+ * independent of the number of entries held.
+ *
+ * <p>Not thread-safe: all access is expected to happen from a single thread,
+ * typically the ticker thread of a {@link TimingWheelTaskScheduler}.
+ *
+ * @since 5.3
+ * @see TimingWheelTaskScheduler
+ */
+final class TimingWheel {
+
+	private final int wheelBits;
+
+	private final int mask;
+
+	/**
+	 * 每层的槽位链表头, 按需创建
+	 */
+	private final Entry[][] buckets;
+
+	private long currentTick;
+
+	private volatile int size;
+
+
+	/**
+	 * Create a new timing wheel starting at tick 0.
+	 * @param ticksPerWheel the number of buckets per level (a power of two)
+	 */
+	TimingWheel(int ticksPerWheel) {
+		Assert.isTrue(ticksPerWheel > 1 && (ticksPerWheel & (ticksPerWheel - 1)) == 0,
+				"'ticksPerWheel' must be a power of two");
+		this.wheelBits = Integer.numberOfTrailingZeros(ticksPerWheel);
+		this.mask = ticksPerWheel - 1;
+		// 足够覆盖全部 63 位正数 tick
+		this.buckets = new Entry[(62 + this.wheelBits) / this.wheelBits][];
+	}
+
+
+	/**
+	 * Return the tick that the wheel has been advanced to.
+	 */
+	long getCurrentTick() {
+		return this.currentTick;
+	}
+
+	/**
+	 * Return the number of entries currently held.
+	 * <p>May be called from any thread.
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Add the given entry according to its {@link Entry#deadlineTick}.
+	 * @return {@code true} if the entry has been added, or {@code false}
+	 * if its deadline has already been reached
+	 */
+	boolean add(Entry entry) {
+		long deadlineTick = entry.deadlineTick;
+		if (deadlineTick <= this.currentTick) {
+			return false;
+		}
+		int topLevel = this.buckets.length - 1;
+		int level = 0;
+		while (level < topLevel && !isSameRevolution(deadlineTick, this.currentTick, level)) {
+			level++;
+		}
+		Entry[] levelBuckets = this.buckets[level];
+		if (levelBuckets == null) {
+			levelBuckets = new Entry[this.mask + 1];
+			this.buckets[level] = levelBuckets;
+		}
+		int slot = (int) (deadlineTick >>> (this.wheelBits * level)) & this.mask;
+		Entry head = levelBuckets[slot];
+		entry.prev = null;
+		entry.next = head;
+		if (head != null) {
+			head.prev = entry;
+		}
+		levelBuckets[slot] = entry;
+		entry.level = level;
+		entry.slot = slot;
+		this.size++;
+		return true;
+	}
+
+	/**
+	 * Remove the given entry, if currently held.
+	 * @return {@code true} if the entry has been removed
+	 */
+	boolean remove(Entry entry) {
+		if (entry.level < 0) {
+			return false;
+		}
+		if (entry.prev != null) {
+			entry.prev.next = entry.next;
+		}
+		else {
+			this.buckets[entry.level][entry.slot] = entry.next;
+		}
+		if (entry.next != null) {
+			entry.next.prev = entry.prev;
+		}
+		entry.prev = null;
+		entry.next = null;
+		entry.level = -1;
+		this.size--;
+		return true;
+	}
+
+	/**
+	 * Advance the wheel by one tick, cascading entries from higher levels
+	 * where a lower level completed its revolution.
+	 * @param expiredEntryConsumer the callback for all entries whose deadline
+	 * has been reached with the new tick
+	 */
+	void advance(Consumer<Entry> expiredEntryConsumer) {
+		long tick = ++this.currentTick;
+		int topLevel = this.buckets.length - 1;
+		int level = 0;
+		long remaining = tick;
+		while (level < topLevel && (remaining & this.mask) == 0) {
+			remaining >>>= this.wheelBits;
+			level++;
+		}
+		// 由高到低逐层下放, 上层条目可能落入下层当前需要下放的槽位
+		for (; level > 0; level--) {
+			int slot = (int) (tick >>> (this.wheelBits * level)) & this.mask;
+			Entry entry = detachBucket(level, slot);
+			while (entry != null) {
+				Entry next = entry.next;
+				entry.prev = null;
+				entry.next = null;
+				if (!add(entry)) {
+					expiredEntryConsumer.accept(entry);
+				}
+				entry = next;
+			}
+		}
+		Entry entry = detachBucket(0, (int) tick & this.mask);
+		while (entry != null) {
+			Entry next = entry.next;
+			entry.prev = null;
+			entry.next = null;
+			expiredEntryConsumer.accept(entry);
+			entry = next;
+		}
+	}
+
+	/**
+	 * Remove all entries from the wheel, passing them to the given callback.
+	 */
+	void clear(Consumer<Entry> entryConsumer) {
+		for (int level = 0; level < this.buckets.length; level++) {
+			Entry[] levelBuckets = this.buckets[level];
+			if (levelBuckets != null) {
+				for (int slot = 0; slot < levelBuckets.length; slot++) {
+					Entry entry = detachBucket(level, slot);
+					while (entry != null) {
+						Entry next = entry.next;
+						entry.prev = null;
+						entry.next = null;
+						entryConsumer.accept(entry);
+						entry = next;
+					}
+				}
+			}
+		}
+	}
+
+	private boolean isSameRevolution(long deadlineTick, long tick, int level) {
+		int shift = this.wheelBits * (level + 1);
+		return (shift >= 63 || (deadlineTick >>> shift) == (tick >>> shift));
+	}
+
+	@Nullable
+	private Entry detachBucket(int level, int slot) {
+		Entry[] levelBuckets = this.buckets[level];
+		if (levelBuckets == null) {
+			return null;
+		}
+		Entry head = levelBuckets[slot];
+		levelBuckets[slot] = null;
+		int count = 0;
+		for (Entry entry = head; entry != null; entry = entry.next) {
+			entry.level = -1;
+			count++;
+		}
+		this.size -= count;
+		return head;
+	}
+
+
+	/**
+	 * Base class for entries held by a {@link TimingWheel}, linked into
+	 * their bucket for constant-time removal.
+	 */
+	abstract static class Entry {
+
+		/**
+		 * 到期 tick, 由调用方在加入时间轮前设置
+		 */
+		long deadlineTick;
+
+		@Nullable
+		Entry prev;
+
+		@Nullable
+		Entry next;
+
+		/**
+		 * 所在层级, 不在时间轮中时为 -1
+		 */
+		int level = -1;
+
+		int slot;
+	}
+
+}
@@ -0,0 +1,545 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.DelegatingErrorHandlingRunnable;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * Implementation of Spring's {@link TaskScheduler} interface, keeping track
+ * of scheduled tasks in a hierarchical timing wheel and running them on a
+ * fixed-size pool of worker threads.
+ *
+ * <p>In contrast to {@link ThreadPoolTaskScheduler}, scheduling and cancelling
+ * a task does not involve a priority queue: both are constant-time operations
+ * handed over to a single ticker thread, which advances the wheel once per
+ * {@link #setTickDuration tick}. This makes it suitable for very large numbers
+ * of triggers, at the expense of executions being delayed by up to one tick.
+ * Repeated executions of the same task never overlap; the next execution gets
+ * scheduled once the previous one has completed.
+ *
+ * @since 5.3
+ * @see #setPoolSize
+ * @see #setTickDuration
+ * @see #setTicksPerWheel
+ * @see #setErrorHandler
+ */
+@SuppressWarnings("serial")
+public class TimingWheelTaskScheduler extends ExecutorConfigurationSupport implements TaskScheduler {
+
+	private int poolSize = 1;
+
+	private long tickDuration = 10;
+
+	private int ticksPerWheel = 512;
+
+	@Nullable
+	private volatile ErrorHandler errorHandler;
+
+	@Nullable
+	private ThreadPoolExecutor workerExecutor;
+
+	@Nullable
+	private TimingWheel timingWheel;
+
+	@Nullable
+	private Thread tickerThread;
+
+	private volatile boolean running;
+
+	private long startNanos;
+
+	private long tickNanos;
+
+	/**
+	 * 等待加入时间轮的任务, 由 ticker 线程统一处理
+	 */
+	private final Queue<WheelTask> pendingTasks = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * 等待从时间轮中移除的已取消任务
+	 */
+	private final Queue<WheelTask> cancelledTasks = new ConcurrentLinkedQueue<>();
+
+
+	/**
+	 * Set the number of worker threads executing the scheduled tasks.
+	 * Default is 1.
+	 */
+	public void setPoolSize(int poolSize) {
+		Assert.isTrue(poolSize > 0, "'poolSize' must be 1 or higher");
+		this.poolSize = poolSize;
+	}
+
+	/**
+	 * Set the duration of a single tick of the timing wheel, in milliseconds.
+	 * This is the granularity of execution times: tasks get executed at the
+	 * first tick after their scheduled time. Default is 10.
+	 */
+	public void setTickDuration(long tickDuration) {
+		Assert.isTrue(tickDuration > 0, "'tickDuration' must be 1 or higher");
+		this.tickDuration = tickDuration;
+	}
+
+	/**
+	 * Set the number of buckets per level of the timing wheel, which has to
+	 * be a power of two. Default is 512.
+	 * <p>With the default tick duration, the first level covers about five
+	 * seconds and the second level about 45 minutes; tasks scheduled further
+	 * ahead are held on higher levels and cascaded down as time passes.
+	 */
+	public void setTicksPerWheel(int ticksPerWheel) {
+		Assert.isTrue(ticksPerWheel > 1 && (ticksPerWheel & (ticksPerWheel - 1)) == 0,
+				"'ticksPerWheel' must be a power of two");
+		this.ticksPerWheel = ticksPerWheel;
+	}
+
+	/**
+	 * Set a custom {@link ErrorHandler} strategy.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+
+	@Override
+	protected ExecutorService initializeExecutor(
+			ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+
+		this.workerExecutor = new ThreadPoolExecutor(this.poolSize, this.poolSize, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), threadFactory, rejectedExecutionHandler);
+		this.timingWheel = new TimingWheel(this.ticksPerWheel);
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(this.tickDuration);
+		this.startNanos = System.nanoTime();
+		this.running = true;
+		this.tickerThread = threadFactory.newThread(this::runTicker);
+		this.tickerThread.start();
+		return this.workerExecutor;
+	}
+
+	/**
+	 * Stop the ticker thread, cancel all tasks waiting for their next
+	 * execution, and shut down the worker threads.
+	 */
+	@Override
+	public void shutdown() {
+		Thread tickerThread = this.tickerThread;
+		if (tickerThread != null) {
+			this.running = false;
+			LockSupport.unpark(tickerThread);
+			try {
+				tickerThread.join();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			this.tickerThread = null;
+			TimingWheel timingWheel = this.timingWheel;
+			if (timingWheel != null) {
+				timingWheel.clear(entry -> ((WheelTask) entry).cancel(false));
+			}
+			WheelTask task;
+			while ((task = this.pendingTasks.poll()) != null) {
+				task.cancel(false);
+			}
+			this.cancelledTasks.clear();
+		}
+		super.shutdown();
+	}
+
+	/**
+	 * Return the number of tasks currently held in the timing wheel,
+	 * waiting for their next execution.
+	 */
+	public int getScheduledTaskCount() {
+		return (this.timingWheel != null ? this.timingWheel.size() : 0);
+	}
+
+	private ThreadPoolExecutor getWorkerExecutor() {
+		Assert.state(this.workerExecutor != null && this.running, "TimingWheelTaskScheduler not initialized");
+		return this.workerExecutor;
+	}
+
+
+	// TaskScheduler implementation
+
+	@Override
+	@Nullable
+	public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+		WheelTask wheelTask = new WheelTask(errorHandlingTask(task, true), trigger, 0);
+		if (!wheelTask.nextTriggerExecution()) {
+			return null;
+		}
+		return submit(wheelTask);
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+		WheelTask wheelTask = new WheelTask(errorHandlingTask(task, false), null, 0);
+		wheelTask.deadlineNanos = deadlineFor(startTime);
+		return submit(wheelTask);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+		Assert.isTrue(period > 0, "'period' must be positive");
+		WheelTask wheelTask = new WheelTask(errorHandlingTask(task, true), null, period);
+		wheelTask.deadlineNanos = deadlineFor(startTime);
+		return submit(wheelTask);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+		return scheduleAtFixedRate(task, new Date(), period);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+		Assert.isTrue(delay > 0, "'delay' must be positive");
+		WheelTask wheelTask = new WheelTask(errorHandlingTask(task, true), null, -delay);
+		wheelTask.deadlineNanos = deadlineFor(startTime);
+		return submit(wheelTask);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+		return scheduleWithFixedDelay(task, new Date(), delay);
+	}
+
+
+	private DelegatingErrorHandlingRunnable errorHandlingTask(Runnable task, boolean isRepeatingTask) {
+		return TaskUtils.decorateTaskWithErrorHandler(task, this.errorHandler, isRepeatingTask);
+	}
+
+	private static long deadlineFor(Date time) {
+		return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(time.getTime() - System.currentTimeMillis());
+	}
+
+	private WheelTask submit(WheelTask task) {
+		ThreadPoolExecutor executor = getWorkerExecutor();
+		try {
+			enqueue(task);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Executor [" + executor + "] did not accept task: " + task, ex);
+		}
+		return task;
+	}
+
+	/**
+	 * Hand the given task over to the ticker thread, or to the worker
+	 * threads right away if it is already due.
+	 */
+	private void enqueue(WheelTask task) {
+		ThreadPoolExecutor executor = getWorkerExecutor();
+		if (task.deadlineNanos - System.nanoTime() <= 0) {
+			executor.execute(task);
+		}
+		else {
+			this.pendingTasks.add(task);
+			if (!this.running && this.pendingTasks.remove(task)) {
+				// 与 shutdown 并发: ticker 线程已停止, 不会再处理该任务
+				task.cancel(false);
+			}
+		}
+	}
+
+
+	// Ticker thread
+
+	private void runTicker() {
+		TimingWheel timingWheel = this.timingWheel;
+		Assert.state(timingWheel != null, "No TimingWheel");
+		while (this.running) {
+			long nextTickNanos = this.startNanos + (timingWheel.getCurrentTick() + 1) * this.tickNanos;
+			long sleepNanos = nextTickNanos - System.nanoTime();
+			if (sleepNanos > 0) {
+				LockSupport.parkNanos(this, sleepNanos);
+				continue;
+			}
+			WheelTask task;
+			while ((task = this.cancelledTasks.poll()) != null) {
+				timingWheel.remove(task);
+			}
+			while ((task = this.pendingTasks.poll()) != null) {
+				if (!task.isDone()) {
+					task.deadlineTick = toTick(task.deadlineNanos);
+					if (!timingWheel.add(task)) {
+						dispatch(task);
+					}
+				}
+			}
+			long elapsedTicks = (System.nanoTime() - this.startNanos) / this.tickNanos;
+			while (timingWheel.getCurrentTick() < elapsedTicks && this.running) {
+				timingWheel.advance(entry -> dispatch((WheelTask) entry));
+			}
+		}
+	}
+
+	private long toTick(long deadlineNanos) {
+		long elapsed = deadlineNanos - this.startNanos;
+		// 向上取整, 保证不会提前执行
+		return (elapsed <= 0 ? 0 : (elapsed + this.tickNanos - 1) / this.tickNanos);
+	}
+
+	private void dispatch(WheelTask task) {
+		try {
+			getWorkerExecutor().execute(task);
+		}
+		catch (RuntimeException ex) {
+			task.setFailure(ex);
+		}
+	}
+
+
+	/**
+	 * A task held by the timing wheel, serving as the {@link ScheduledFuture}
+	 * handle across all of its executions.
+	 */
+	private class WheelTask extends TimingWheel.Entry implements ScheduledFuture<Object>, Runnable {
+
+		private static final int WAITING = 0;
+
+		private static final int RUNNING = 1;
+
+		private static final int COMPLETED = 2;
+
+		private static final int CANCELLED = 3;
+
+		private final DelegatingErrorHandlingRunnable runnable;
+
+		@Nullable
+		private final Trigger trigger;
+
+		@Nullable
+		private final SimpleTriggerContext triggerContext;
+
+		/**
+		 * 正数为固定频率, 负数为固定延迟, 0 表示单次执行或由 trigger 决定
+		 */
+		private final long period;
+
+		private volatile long deadlineNanos;
+
+		@Nullable
+		private Date scheduledExecutionTime;
+
+		private volatile int state = WAITING;
+
+		@Nullable
+		private Thread runner;
+
+		@Nullable
+		private Throwable failure;
+
+		WheelTask(DelegatingErrorHandlingRunnable runnable, @Nullable Trigger trigger, long period) {
+			this.runnable = runnable;
+			this.trigger = trigger;
+			this.triggerContext = (trigger != null ? new SimpleTriggerContext() : null);
+			this.period = period;
+		}
+
+		/**
+		 * Determine the next execution time according to the trigger.
+		 * @return {@code false} if the trigger does not fire anymore
+		 */
+		private boolean nextTriggerExecution() {
+			Assert.state(this.trigger != null && this.triggerContext != null, "No Trigger");
+			this.scheduledExecutionTime = this.trigger.nextExecutionTime(this.triggerContext);
+			if (this.scheduledExecutionTime == null) {
+				return false;
+			}
+			this.deadlineNanos = deadlineFor(this.scheduledExecutionTime);
+			return true;
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (this.state != WAITING) {
+					return;
+				}
+				this.state = RUNNING;
+				this.runner = Thread.currentThread();
+			}
+			Date actualExecutionTime = (this.trigger != null ? new Date() : null);
+			Throwable failure = null;
+			try {
+				this.runnable.run();
+			}
+			catch (Throwable ex) {
+				failure = ex;
+			}
+			synchronized (this) {
+				this.runner = null;
+				if (this.state == CANCELLED) {
+					return;
+				}
+				if (failure != null || !prepareNextExecution(actualExecutionTime)) {
+					this.failure = failure;
+					this.state = COMPLETED;
+					notifyAll();
+					return;
+				}
+				this.state = WAITING;
+			}
+			try {
+				enqueue(this);
+			}
+			catch (RuntimeException ex) {
+				setFailure(ex);
+			}
+		}
+
+		private boolean prepareNextExecution(@Nullable Date actualExecutionTime) {
+			if (this.triggerContext != null) {
+				Assert.state(this.scheduledExecutionTime != null && actualExecutionTime != null,
+						"No scheduled execution");
+				this.triggerContext.update(this.scheduledExecutionTime, actualExecutionTime, new Date());
+				return nextTriggerExecution();
+			}
+			else if (this.period > 0) {
+				this.deadlineNanos += TimeUnit.MILLISECONDS.toNanos(this.period);
+				return true;
+			}
+			else if (this.period < 0) {
+				this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(-this.period);
+				return true;
+			}
+			return false;
+		}
+
+		synchronized void setFailure(Throwable failure) {
+			if (this.state == WAITING) {
+				this.failure = failure;
+				this.state = COMPLETED;
+				notifyAll();
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			synchronized (this) {
+				if (this.state == COMPLETED || this.state == CANCELLED) {
+					return false;
+				}
+				if (this.state == RUNNING && mayInterruptIfRunning && this.runner != null) {
+					this.runner.interrupt();
+				}
+				this.state = CANCELLED;
+				notifyAll();
+			}
+			cancelledTasks.add(this);
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return (this.state == CANCELLED);
+		}
+
+		@Override
+		public boolean isDone() {
+			int state = this.state;
+			return (state == COMPLETED || state == CANCELLED);
+		}
+
+		@Override
+		@Nullable
+		public Object get() throws InterruptedException, ExecutionException {
+			synchronized (this) {
+				while (!isDone()) {
+					wait();
+				}
+				return report();
+			}
+		}
+
+		@Override
+		@Nullable
+		public Object get(long timeout, TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			synchronized (this) {
+				while (!isDone()) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						throw new TimeoutException();
+					}
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+				return report();
+			}
+		}
+
+		@Nullable
+		private Object report() throws ExecutionException {
+			if (this.state == CANCELLED) {
+				throw new CancellationException();
+			}
+			if (this.failure != null) {
+				throw new ExecutionException(this.failure);
+			}
+			return null;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(this.deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			if (this == other) {
+				return 0;
+			}
+			long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+			return (diff == 0 ? 0 : ((diff < 0) ? -1 : 1));
+		}
+
+		@Override
+		public String toString() {
+			return this.runnable.toString();
+		}
+	}
+
+}
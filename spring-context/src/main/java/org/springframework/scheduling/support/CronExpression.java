@@ -0,0 +1,304 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.support;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneRules;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@code java.time} based evaluator for a
+ * <a href="https://www.manpagez.com/man/5/crontab/">Crontab pattern</a>,
+ * accepting the same six-field syntax as {@link CronSequenceGenerator}.
+ *
+ * <p>All fields are precomputed into bit masks when parsing, so that
+ * determining the next fire time neither needs a {@link java.util.Calendar}
+ * nor any intermediate collections. Instances are immutable and thread-safe,
+ * and can be shared between any number of triggers.
+ *
+ * @since 5.3
+ * @see #parse(String)
+ * @see CronTrigger
+ */
+public final class CronExpression {
+
+	private static final int SECONDS_PER_DAY = 86400;
+
+	/**
+	 * 对无法匹配的表达式 (例如 2 月 30 日) 最多向后搜索的年数
+	 */
+	private static final int MAX_YEARS_TO_SEARCH = 4;
+
+
+	private final String expression;
+
+	private final long seconds;
+
+	private final long minutes;
+
+	private final long hours;
+
+	/**
+	 * 1-31
+	 */
+	private final long daysOfMonth;
+
+	/**
+	 * 1-12
+	 */
+	private final long months;
+
+	/**
+	 * 0 (Sunday) - 6 (Saturday)
+	 */
+	private final long daysOfWeek;
+
+
+	CronExpression(String expression, long seconds, long minutes, long hours,
+			long daysOfMonth, long months, long daysOfWeek) {
+
+		this.expression = expression;
+		this.seconds = seconds;
+		this.minutes = minutes;
+		this.hours = hours;
+		this.daysOfMonth = daysOfMonth;
+		this.months = months;
+		this.daysOfWeek = daysOfWeek;
+	}
+
+
+	/**
+	 * Parse the given cron pattern.
+	 * @param expression a space-separated list of six time fields: second,
+	 * minute, hour, day of month, month and day of week
+	 * @return the parsed expression
+	 * @throws IllegalArgumentException if the pattern cannot be parsed
+	 */
+	public static CronExpression parse(String expression) {
+		Assert.hasLength(expression, "Expression must not be empty");
+		return CronSequenceGenerator.parseExpression(expression);
+	}
+
+
+	/**
+	 * Return the cron pattern that this expression has been parsed from.
+	 */
+	public String getExpression() {
+		return this.expression;
+	}
+
+	/**
+	 * Determine the next time matching this expression after the given time.
+	 * @param dateTime the time to start searching from (exclusive)
+	 * @return the next matching time in the same time zone, with a whole
+	 * number of seconds
+	 * @throws IllegalArgumentException if no matching time can be found
+	 */
+	public ZonedDateTime next(ZonedDateTime dateTime) {
+		ZoneId zone = dateTime.getZone();
+		long next = next(dateTime.toInstant().toEpochMilli(), zone);
+		return ZonedDateTime.ofInstant(Instant.ofEpochMilli(next), zone);
+	}
+
+	/**
+	 * Determine the next time matching this expression after the given time,
+	 * evaluating the fields in the given time zone.
+	 * <p>The result is after the whole second of the given time, consistent with
+	 * {@link CronSequenceGenerator#next(java.util.Date)}.
+	 * @param epochMilli the time to start searching from (exclusive), in
+	 * milliseconds since the epoch
+	 * @param zone the time zone to evaluate the fields in
+	 * @return the next matching time in milliseconds since the epoch
+	 * @throws IllegalArgumentException if no matching time can be found
+	 */
+	public long next(long epochMilli, ZoneId zone) {
+		return next(epochMilli, zone, false);
+	}
+
+	/**
+	 * Determine the next time matching this expression after the given time.
+	 * @param epochMilli the time to start searching from (exclusive)
+	 * @param zone the time zone to evaluate the fields in
+	 * @param skipGaps whether a local time that does not exist in the given
+	 * time zone (e.g. during the daylight saving start) should be skipped,
+	 * continuing with the next matching time after the gap, rather than being
+	 * shifted forward by the length of the gap
+	 * @see CronTrigger
+	 */
+	long next(long epochMilli, ZoneId zone, boolean skipGaps) {
+		long searchFrom = Math.floorDiv(epochMilli, 1000) + 1;
+		ZoneRules rules = zone.getRules();
+		if (rules.isFixedOffset()) {
+			// 固定偏移量时区 (例如 UTC) 无需处理夏令时
+			int offset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+			return (nextLocalSecond(searchFrom + offset) - offset) * 1000;
+		}
+
+		int offset = rules.getOffset(Instant.ofEpochSecond(searchFrom)).getTotalSeconds();
+		long localSecond = nextLocalSecond(searchFrom + offset);
+		LocalDateTime localDateTime = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+		List<ZoneOffset> validOffsets = rules.getValidOffsets(localDateTime);
+		while (validOffsets.isEmpty()) {
+			if (!skipGaps) {
+				// Local time falls into a gap (e.g. daylight saving start): shift forward by the gap length
+				return ZonedDateTime.ofLocal(localDateTime, zone, null).toEpochSecond() * 1000;
+			}
+			// 跳过不存在的本地时间, 从间隙结束处继续搜索
+			LocalDateTime gapEnd = rules.getTransition(localDateTime).getDateTimeAfter();
+			localSecond = nextLocalSecond(gapEnd.toEpochSecond(ZoneOffset.UTC));
+			localDateTime = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+			validOffsets = rules.getValidOffsets(localDateTime);
+		}
+		// Local time may be ambiguous (e.g. daylight saving end): use the earliest instant not before searchFrom
+		long result = Long.MAX_VALUE;
+		for (ZoneOffset validOffset : validOffsets) {
+			long candidate = localSecond - validOffset.getTotalSeconds();
+			if (candidate >= searchFrom && candidate < result) {
+				result = candidate;
+			}
+		}
+		if (result == Long.MAX_VALUE) {
+			result = localSecond - validOffsets.get(validOffsets.size() - 1).getTotalSeconds();
+		}
+		return result * 1000;
+	}
+
+	/**
+	 * Find the first local time matching all fields, at or after the given
+	 * local time in seconds since the (local) epoch.
+	 */
+	private long nextLocalSecond(long localSecond) {
+		LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(localSecond, SECONDS_PER_DAY));
+		int secondOfDay = (int) Math.floorMod(localSecond, SECONDS_PER_DAY);
+		int hour = secondOfDay / 3600;
+		int minute = (secondOfDay / 60) % 60;
+		int second = secondOfDay % 60;
+		int maxYear = date.getYear() + MAX_YEARS_TO_SEARCH;
+
+		while (true) {
+			if (date.getYear() > maxYear) {
+				throw new IllegalArgumentException("Invalid cron expression \"" + this.expression +
+						"\" led to runaway search for next trigger");
+			}
+			int month = date.getMonthValue();
+			if (!isSet(this.months, month)) {
+				int nextMonth = nextSetBit(this.months, month + 1);
+				date = (nextMonth != -1 ? LocalDate.of(date.getYear(), nextMonth, 1) :
+						LocalDate.of(date.getYear() + 1, nextSetBit(this.months, 1), 1));
+				hour = minute = second = 0;
+				continue;
+			}
+			if (!isSet(this.daysOfMonth, date.getDayOfMonth()) ||
+					!isSet(this.daysOfWeek, date.getDayOfWeek().getValue() % 7)) {
+				date = date.plusDays(1);
+				hour = minute = second = 0;
+				continue;
+			}
+
+			int nextHour = nextSetBit(this.hours, hour);
+			if (nextHour == -1) {
+				date = date.plusDays(1);
+				hour = minute = second = 0;
+				continue;
+			}
+			if (nextHour != hour) {
+				hour = nextHour;
+				minute = second = 0;
+			}
+
+			int nextMinute = nextSetBit(this.minutes, minute);
+			if (nextMinute == -1) {
+				minute = second = 0;
+				if (++hour == 24) {
+					date = date.plusDays(1);
+					hour = 0;
+				}
+				continue;
+			}
+			if (nextMinute != minute) {
+				minute = nextMinute;
+				second = 0;
+			}
+
+			int nextSecond = nextSetBit(this.seconds, second);
+			if (nextSecond == -1) {
+				second = 0;
+				if (++minute == 60) {
+					minute = 0;
+					if (++hour == 24) {
+						date = date.plusDays(1);
+						hour = 0;
+					}
+				}
+				continue;
+			}
+			return date.toEpochDay() * SECONDS_PER_DAY + hour * 3600 + minute * 60 + nextSecond;
+		}
+	}
+
+	private static boolean isSet(long bits, int index) {
+		return (bits & (1L << index)) != 0;
+	}
+
+	/**
+	 * Return the index of the first bit set at or after the given index,
+	 * or -1 if there is none.
+	 */
+	private static int nextSetBit(long bits, int fromIndex) {
+		if (fromIndex > 63) {
+			return -1;
+		}
+		long remaining = bits & (-1L << fromIndex);
+		return (remaining != 0 ? Long.numberOfTrailingZeros(remaining) : -1);
+	}
+
+
+	@Override
+	public boolean equals(@Nullable Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof CronExpression)) {
+			return false;
+		}
+		CronExpression otherCron = (CronExpression) other;
+		return (this.months == otherCron.months && this.daysOfMonth == otherCron.daysOfMonth &&
+				this.daysOfWeek == otherCron.daysOfWeek && this.hours == otherCron.hours &&
+				this.minutes == otherCron.minutes && this.seconds == otherCron.seconds);
+	}
+
+	@Override
+	public int hashCode() {
+		return (17 * Long.hashCode(this.months) + 29 * Long.hashCode(this.daysOfMonth) +
+				37 * Long.hashCode(this.daysOfWeek) + 41 * Long.hashCode(this.hours) +
+				53 * Long.hashCode(this.minutes) + 61 * Long.hashCode(this.seconds));
+	}
+
+	@Override
+	public String toString() {
+		return this.expression;
+	}
+
+}
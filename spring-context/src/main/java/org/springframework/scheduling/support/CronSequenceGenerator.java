@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -95,7 +95,7 @@ public class CronSequenceGenerator {
 	public CronSequenceGenerator(String expression, TimeZone timeZone) {
 		this.expression = expression;
 		this.timeZone = timeZone;
-		parse(expression);
+		doParse(parseFields(expression));
 	}
 
 	private CronSequenceGenerator(String expression, String[] fields) {
@@ -265,15 +265,15 @@ public class CronSequenceGenerator {
 	// Parsing logic invoked by the constructor
 
 	/**
-	 * Parse the given pattern expression.
+	 * Split the given pattern expression into its fields.
 	 */
-	private void parse(String expression) throws IllegalArgumentException {
+	private static String[] parseFields(String expression) throws IllegalArgumentException {
 		String[] fields = StringUtils.tokenizeToStringArray(expression, " ");
 		if (!areValidCronFields(fields)) {
 			throw new IllegalArgumentException(String.format(
 					"Cron expression must consist of 6 fields (found %d in \"%s\")", fields.length, expression));
 		}
-		doParse(fields);
+		return fields;
 	}
 
 	private void doParse(String[] fields) {
@@ -426,6 +426,26 @@ public class CronSequenceGenerator {
 		return (fields != null && fields.length == 6);
 	}
 
+	/**
+	 * Parse the given pattern into a {@link CronExpression}, applying the
+	 * same syntax rules as the {@code CronSequenceGenerator} constructors.
+	 * @param expression a space-separated list of time fields
+	 * @throws IllegalArgumentException if the pattern cannot be parsed
+	 * @since 5.3
+	 */
+	static CronExpression parseExpression(String expression) {
+		CronSequenceGenerator generator = new CronSequenceGenerator(expression, parseFields(expression));
+		// Calendar 月份从 0 开始, CronExpression 使用 java.time 的 1-12
+		return new CronExpression(expression, toBits(generator.seconds), toBits(generator.minutes),
+				toBits(generator.hours), toBits(generator.daysOfMonth), toBits(generator.months) << 1,
+				toBits(generator.daysOfWeek));
+	}
+
+	private static long toBits(BitSet bits) {
+		long[] words = bits.toLongArray();
+		return (words.length > 0 ? words[0] : 0L);
+	}
+
 
 	@Override
 	public boolean equals(@Nullable Object other) {
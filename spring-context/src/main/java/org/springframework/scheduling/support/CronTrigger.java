@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,24 +16,30 @@
 
 package org.springframework.scheduling.support;
 
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.TimeZone;
 
 import org.springframework.lang.Nullable;
 import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.TriggerContext;
+import org.springframework.util.Assert;
 
 /**
  * {@link Trigger} implementation for cron expressions.
- * Wraps a {@link CronSequenceGenerator}.
+ * Wraps a {@link CronExpression}, following the syntax of
+ * {@link CronSequenceGenerator}.
  *
  * @author Juergen Hoeller
  * @since 3.0
+ * @see CronExpression
  * @see CronSequenceGenerator
  */
 public class CronTrigger implements Trigger {
 
-	private final CronSequenceGenerator sequenceGenerator;
+	private final CronExpression expression;
+
+	private final ZoneId zoneId;
 
 
 	/**
@@ -42,7 +48,7 @@ public class CronTrigger implements Trigger {
 	 * expression conventions
 	 */
 	public CronTrigger(String expression) {
-		this.sequenceGenerator = new CronSequenceGenerator(expression);
+		this(expression, TimeZone.getDefault());
 	}
 
 	/**
@@ -52,7 +58,21 @@ public class CronTrigger implements Trigger {
 	 * @param timeZone a time zone in which the trigger times will be generated
 	 */
 	public CronTrigger(String expression, TimeZone timeZone) {
-		this.sequenceGenerator = new CronSequenceGenerator(expression, timeZone);
+		this(CronExpression.parse(expression), timeZone.toZoneId());
+	}
+
+	/**
+	 * Build a {@link CronTrigger} from the given, possibly shared expression
+	 * in the given time zone.
+	 * @param expression the parsed cron expression
+	 * @param zoneId a time zone in which the trigger times will be generated
+	 * @since 5.3
+	 */
+	public CronTrigger(CronExpression expression, ZoneId zoneId) {
+		Assert.notNull(expression, "Expression must not be null");
+		Assert.notNull(zoneId, "ZoneId must not be null");
+		this.expression = expression;
+		this.zoneId = zoneId;
 	}
 
 
@@ -60,7 +80,7 @@ public class CronTrigger implements Trigger {
 	 * Return the cron pattern that this trigger has been built with.
 	 */
 	public String getExpression() {
-		return this.sequenceGenerator.getExpression();
+		return this.expression.getExpression();
 	}
 
 
@@ -69,6 +89,9 @@ public class CronTrigger implements Trigger {
 	 * <p>Next execution times are calculated based on the
 	 * {@linkplain TriggerContext#lastCompletionTime completion time} of the
 	 * previous execution; therefore, overlapping executions won't occur.
+	 * <p>Consistent with {@link CronSequenceGenerator}, a local time that does
+	 * not exist in the trigger's time zone (e.g. 2:30 AM on the day clocks go
+	 * forward) is skipped rather than shifted forward.
 	 */
 	@Override
 	public Date nextExecutionTime(TriggerContext triggerContext) {
@@ -83,26 +106,26 @@ public class CronTrigger implements Trigger {
 			}
 		}
 		else {
-			date = new Date();
+			return new Date(this.expression.next(System.currentTimeMillis(), this.zoneId, true));
 		}
-		return this.sequenceGenerator.next(date);
+		return new Date(this.expression.next(date.getTime(), this.zoneId, true));
 	}
 
 
 	@Override
 	public boolean equals(@Nullable Object other) {
 		return (this == other || (other instanceof CronTrigger &&
-				this.sequenceGenerator.equals(((CronTrigger) other).sequenceGenerator)));
+				this.expression.equals(((CronTrigger) other).expression)));
 	}
 
 	@Override
 	public int hashCode() {
-		return this.sequenceGenerator.hashCode();
+		return this.expression.hashCode();
 	}
 
 	@Override
 	public String toString() {
-		return this.sequenceGenerator.toString();
+		return this.expression.toString();
 	}
 
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for parallel pre-instantiation of singletons within an
+ * application context.
+ *
+ * @since 5.3
+ */
+class ParallelSingletonInstantiatorContextTests {
+
+	@Test
+	void eventPublishedWhileListenerBeanIsCreatedConcurrently() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		DefaultListableBeanFactory beanFactory = context.getDefaultListableBeanFactory();
+		beanFactory.setPreInstantiationParallelism(2);
+		CountDownLatch publishing = new CountDownLatch(1);
+		RootBeanDefinition listener = new RootBeanDefinition(SlowListener.class);
+		listener.getConstructorArgumentValues().addGenericArgumentValue(beanFactory);
+		listener.getConstructorArgumentValues().addGenericArgumentValue(publishing);
+		context.registerBeanDefinition("listener", listener);
+		RootBeanDefinition publisher = new RootBeanDefinition(PublishingBean.class);
+		publisher.getConstructorArgumentValues().addGenericArgumentValue(publishing);
+		context.registerBeanDefinition("publisher", publisher);
+		context.refresh();
+
+		SlowListener listenerBean = context.getBean(SlowListener.class);
+		assertThat(listenerBean.events).hasSize(1);
+		assertThat(listenerBean.events.get(0).getSource()).isSameAs(context.getBean("publisher"));
+		assertThat(beanFactory.getSingletonCreationMetrics().getContendedCreationCount()).isEqualTo(1);
+		context.close();
+	}
+
+
+	@SuppressWarnings("serial")
+	static class TestEvent extends ApplicationEvent {
+
+		TestEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	static class SlowListener implements ApplicationListener<TestEvent> {
+
+		final List<TestEvent> events = new CopyOnWriteArrayList<>();
+
+		SlowListener(DefaultListableBeanFactory beanFactory, CountDownLatch publishing) throws InterruptedException {
+			// Stay in creation until the publisher waits for this bean
+			assertThat(publishing.await(10, TimeUnit.SECONDS)).isTrue();
+			long deadline = System.currentTimeMillis() + 10000;
+			while (beanFactory.getSingletonCreationMetrics().getContendedCreationCount() == 0 &&
+					System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+		}
+
+		@Override
+		public void onApplicationEvent(TestEvent event) {
+			this.events.add(event);
+		}
+	}
+
+
+	static class PublishingBean implements ApplicationEventPublisherAware, InitializingBean {
+
+		private final CountDownLatch publishing;
+
+		private ApplicationEventPublisher publisher;
+
+		PublishingBean(CountDownLatch publishing) {
+			this.publishing = publishing;
+		}
+
+		@Override
+		public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+			this.publisher = publisher;
+		}
+
+		@Override
+		public void afterPropertiesSet() {
+			this.publishing.countDown();
+			this.publisher.publishEvent(new TestEvent(this));
+		}
+	}
+
+}
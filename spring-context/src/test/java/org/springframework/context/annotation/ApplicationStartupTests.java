@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.context.ApplicationStartupAware;
+import org.springframework.context.annotation.componentscan.simple.SimpleComponent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.BufferingApplicationStartup;
+import org.springframework.core.metrics.BufferingApplicationStartup.TimelineEvent;
+import org.springframework.core.metrics.StartupStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ApplicationStartup} steps recorded during the refresh of an
+ * annotation-based application context.
+ *
+ * @since 5.3
+ */
+class ApplicationStartupTests {
+
+	@Test
+	void refreshStepsRecorded() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(applicationStartup);
+		context.register(StartupConfig.class);
+		context.refresh();
+
+		List<TimelineEvent> events = applicationStartup.getBufferedTimeline().getEvents();
+		assertThat(names(events)).contains("spring.context.refresh", "spring.context.beans.post-process",
+				"spring.context.beandef-registry.post-process", "spring.context.bean-factory.post-process",
+				"spring.context.config-classes.parse", "spring.context.config-class.parse",
+				"spring.context.config-classes.enhance", "spring.context.component-scan",
+				"spring.context.event-listeners.process", "spring.context.singletons.instantiate",
+				"spring.beans.instantiate", "spring.beans.post-process");
+		assertThat(events.get(events.size() - 1).getStartupStep().getName()).isEqualTo("spring.context.refresh");
+
+		StartupStep scan = find(events, "spring.context.component-scan");
+		assertThat(tag(scan, "basePackage")).isEqualTo("org.springframework.context.annotation.componentscan.simple");
+		assertThat(tag(scan, "candidateCount")).isEqualTo("3");
+		StartupStep instantiate = find(events, "spring.beans.instantiate", "simpleComponent");
+		assertThat(tag(instantiate, "beanType")).isEqualTo(SimpleComponent.class.getName());
+		assertThat(find(events, "spring.beans.post-process", "simpleComponent").getParentId())
+				.isEqualTo(instantiate.getId());
+
+		assertThat(context.getBean(StartupAwareBean.class).applicationStartup).isSameAs(applicationStartup);
+		assertThat(context.getBean(ApplicationStartup.class)).isSameAs(applicationStartup);
+		assertThat(context.getBeanFactory().getApplicationStartup()).isSameAs(applicationStartup);
+		context.close();
+	}
+
+	@Test
+	void defaultStartupRecordsNothing() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(StartupConfig.class);
+		assertThat(context.getApplicationStartup()).isSameAs(ApplicationStartup.DEFAULT);
+		assertThat(context.getBean(StartupAwareBean.class).applicationStartup).isSameAs(ApplicationStartup.DEFAULT);
+		context.close();
+	}
+
+
+	private static List<String> names(List<TimelineEvent> events) {
+		List<String> names = new ArrayList<>();
+		for (TimelineEvent event : events) {
+			names.add(event.getStartupStep().getName());
+		}
+		return names;
+	}
+
+	private static StartupStep find(List<TimelineEvent> events, String name, String... beanName) {
+		for (TimelineEvent event : events) {
+			StartupStep step = event.getStartupStep();
+			if (step.getName().equals(name) && (beanName.length == 0 || beanName[0].equals(tag(step, "beanName")))) {
+				return step;
+			}
+		}
+		throw new AssertionError("No step named '" + name + "'");
+	}
+
+	private static String tag(StartupStep step, String key) {
+		for (StartupStep.Tag tag : step.getTags()) {
+			if (tag.getKey().equals(key)) {
+				return tag.getValue();
+			}
+		}
+		return null;
+	}
+
+
+	@Configuration
+	@ComponentScan("org.springframework.context.annotation.componentscan.simple")
+	static class StartupConfig {
+
+		@Bean
+		public StartupAwareBean startupAwareBean() {
+			return new StartupAwareBean();
+		}
+	}
+
+
+	static class StartupAwareBean implements ApplicationStartupAware {
+
+		ApplicationStartup applicationStartup;
+
+		@Override
+		public void setApplicationStartup(ApplicationStartup applicationStartup) {
+			this.applicationStartup = applicationStartup;
+		}
+
+		@EventListener
+		public void onRefresh(ContextRefreshedEvent event) {
+		}
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link BeanDefinitionSnapshot} and its generator and post-processor.
+ *
+ * @since 5.3
+ */
+class BeanDefinitionSnapshotTests {
+
+	@Test
+	void snapshotRoundTrip() throws IOException {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setLazyInit(true);
+		bd.setDependsOn("other");
+		bd.getConstructorArgumentValues().addIndexedArgumentValue(0, "name");
+		ManagedList<Object> friends = new ManagedList<>();
+		friends.add(new RuntimeBeanReference("other"));
+		bd.getPropertyValues().add("friends", friends);
+		bd.getPropertyValues().add("age", 42);
+		bd.setAttribute("custom", "value");
+		bd.setAttribute("ignored", new Object());
+		beanFactory.registerBeanDefinition("bean", bd);
+		beanFactory.registerBeanDefinition("other", new RootBeanDefinition(TestBean.class));
+		beanFactory.registerAlias("bean", "alias");
+
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.of(beanFactory, null, new String[] {"p1"});
+		BeanDefinitionSnapshot restored = BeanDefinitionSnapshot.readFrom(new ByteArrayInputStream(toBytes(snapshot)));
+		assertThat(restored.getBeanDefinitionNames()).containsExactly("bean", "other");
+		assertThat(restored.getActiveProfiles()).containsExactly("p1");
+
+		DefaultListableBeanFactory target = new DefaultListableBeanFactory();
+		assertThat(restored.registerBeanDefinitions(target)).isEqualTo(2);
+		assertThat(target.getAliases("bean")).containsExactly("alias");
+		assertThat(target.getBeanDefinition("bean").isLazyInit()).isTrue();
+		assertThat(target.getBeanDefinition("bean").getDependsOn()).containsExactly("other");
+		assertThat(target.getBeanDefinition("bean").getAttribute("custom")).isEqualTo("value");
+		assertThat(target.getBeanDefinition("bean").hasAttribute("ignored")).isFalse();
+
+		TestBean bean = target.getBean("alias", TestBean.class);
+		assertThat(bean.getName()).isEqualTo("name");
+		assertThat(bean.getAge()).isEqualTo(42);
+		assertThat(bean.getFriends()).containsExactly(target.getBean("other"));
+	}
+
+	@Test
+	void unsupportedValueIsRejected() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("touchy", new Object());
+		beanFactory.registerBeanDefinition("bean", bd);
+
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.of(beanFactory, null, new String[0]);
+		assertThatExceptionOfType(BeanDefinitionStoreException.class)
+				.isThrownBy(() -> toBytes(snapshot))
+				.satisfies(ex -> assertThat(ex.getBeanName()).isEqualTo("bean"));
+	}
+
+	@Test
+	void configurationClassesFromSnapshot() throws IOException {
+		AnnotationConfigApplicationContext generatorContext = new AnnotationConfigApplicationContext();
+		generatorContext.register(SnapshotConfig.class);
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshotGenerator.generate(generatorContext);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.addBeanFactoryPostProcessor(new BeanDefinitionSnapshotPostProcessor(new ByteArrayResource(toBytes(snapshot))));
+		context.refresh();
+
+		SnapshotConfig config = context.getBean(SnapshotConfig.class);
+		assertThat(config.getClass().getName()).contains(ClassUtils.CGLIB_CLASS_SEPARATOR);
+		assertThat(context.getBean("spouse", TestBean.class).getSpouse()).isSameAs(context.getBean("testBean"));
+		assertThat(context.getBean(ImportedConfig.class).importingClass).isEqualTo(SnapshotConfig.class.getName());
+		assertThat(context.getBean("importedBean")).isEqualTo("imported");
+		assertThat(context.containsBean("devBean")).isFalse();
+
+		Object scoped = context.getBean("scopedBean");
+		assertThat(AopUtils.isCglibProxy(scoped)).isTrue();
+		assertThat(((TestBean) scoped).getName()).isEqualTo("scoped");
+		context.close();
+	}
+
+	@Test
+	void activeProfilesMustMatch() throws IOException {
+		AnnotationConfigApplicationContext generatorContext = new AnnotationConfigApplicationContext();
+		generatorContext.getEnvironment().setActiveProfiles("dev");
+		generatorContext.register(SnapshotConfig.class);
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshotGenerator.generate(generatorContext);
+		assertThat(snapshot.getBeanDefinitionNames()).contains("devBean");
+		ByteArrayResource resource = new ByteArrayResource(toBytes(snapshot));
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.addBeanFactoryPostProcessor(new BeanDefinitionSnapshotPostProcessor(resource));
+		assertThatIllegalStateException().isThrownBy(context::refresh).withMessageContaining("[dev]");
+
+		context = new AnnotationConfigApplicationContext();
+		context.getEnvironment().setActiveProfiles("dev");
+		context.addBeanFactoryPostProcessor(new BeanDefinitionSnapshotPostProcessor(resource));
+		context.refresh();
+		assertThat(context.getBean("devBean")).isEqualTo("dev");
+		context.close();
+	}
+
+
+	private static byte[] toBytes(BeanDefinitionSnapshot snapshot) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.writeTo(out);
+		return out.toByteArray();
+	}
+
+
+	@Configuration
+	@Import(ImportedConfig.class)
+	static class SnapshotConfig {
+
+		@Bean
+		public TestBean testBean() {
+			return new TestBean("test");
+		}
+
+		@Bean
+		public TestBean spouse() {
+			TestBean spouse = new TestBean("spouse");
+			spouse.setSpouse(testBean());
+			return spouse;
+		}
+
+		@Bean
+		@Scope(scopeName = ConfigurableBeanFactory.SCOPE_PROTOTYPE, proxyMode = ScopedProxyMode.TARGET_CLASS)
+		public TestBean scopedBean() {
+			return new TestBean("scoped");
+		}
+
+		@Bean
+		@Profile("dev")
+		public String devBean() {
+			return "dev";
+		}
+	}
+
+
+	@Configuration
+	static class ImportedConfig implements ImportAware {
+
+		String importingClass;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importingClass = importMetadata.getClassName();
+		}
+
+		@Bean
+		public String importedBean() {
+			return "imported";
+		}
+	}
+
+}
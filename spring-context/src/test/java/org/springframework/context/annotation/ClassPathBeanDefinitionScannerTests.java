@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.context.annotation;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import example.scannable.CustomComponent;
 import example.scannable.FooService;
 import example.scannable.FooServiceImpl;
@@ -79,6 +82,24 @@ public class ClassPathBeanDefinitionScannerTests {
 		assertThat(context.isPrototype("thoreau")).isTrue();
 	}
 
+	@Test
+	public void testParallelScanWithDefaultFilters() {
+		GenericApplicationContext serialContext = new GenericApplicationContext();
+		new ClassPathBeanDefinitionScanner(serialContext).scan(BASE_PACKAGE, "org.springframework.context.annotation5");
+		GenericApplicationContext context = new GenericApplicationContext();
+		ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(context);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			scanner.setScanExecutor(executor);
+			scanner.scan(BASE_PACKAGE, "org.springframework.context.annotation5");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(context.getBeanDefinitionNames()).containsExactly(serialContext.getBeanDefinitionNames());
+		assertThat(context.containsBean("otherFooDao")).isTrue();
+	}
+
 	@Test
 	public void testSimpleScanWithDefaultFiltersAndPrimaryLazyBean() {
 		GenericApplicationContext context = new GenericApplicationContext();
@@ -20,7 +20,12 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.junit.jupiter.api.Test;
@@ -30,6 +35,7 @@ import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.testfixture.beans.TestBean;
 import org.springframework.context.ApplicationContext;
@@ -195,6 +201,68 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertThat(listener1.seenEvents.size()).isEqualTo(2);
 	}
 
+	@Test
+	public void orderedListenersAddedAfterCachingUpdateCachedRetrievers() {
+		MyOrderedListener1 listener1 = new MyOrderedListener1();
+		MyOrderedListener2 listener2 = new MyOrderedListener2(listener1);
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(listener2);
+		smc.multicastEvent(new MyOtherEvent(this));
+		assertThat(smc.retrieverCache.size()).isEqualTo(1);
+
+		smc.addApplicationListener(listener1);
+		assertThat(smc.retrieverCache.size()).isEqualTo(1);
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new MyOtherEvent(this));
+		assertThat(listener1.seenEvents.size()).isEqualTo(2);
+		assertThat(smc.retrieverCache.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void listenersWithSameOrderAddedAfterCachingKeepRetrievalOrder() {
+		MyOrderedListener1 listener1 = new MyOrderedListener1();
+		MyOrderedListener1 listenerBean = new MyOrderedListener1();
+		MyOrderedListener1 listener2 = new MyOrderedListener1();
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("listenerBean", listenerBean);
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster(beanFactory);
+		smc.addApplicationListener(listener1);
+		smc.addApplicationListenerBean("listenerBean");
+		MyEvent event = new MyEvent(this);
+		assertThat(smc.getApplicationListeners(event, ResolvableType.forClass(MyEvent.class)))
+				.containsExactly(listener1, listenerBean);
+
+		// Listener instances come before listener beans of the same order, as on full retrieval
+		smc.addApplicationListener(listener2);
+		assertThat(smc.retrieverCache.size()).isEqualTo(1);
+		assertThat(smc.getApplicationListeners(event, ResolvableType.forClass(MyEvent.class)))
+				.containsExactly(listener1, listener2, listenerBean);
+		smc.retrieverCache.clear();
+		assertThat(smc.getApplicationListeners(event, ResolvableType.forClass(MyEvent.class)))
+				.containsExactly(listener1, listener2, listenerBean);
+	}
+
+	@Test
+	public void listenersRemovedAfterCachingUpdateCachedRetrievers() {
+		MyOrderedListener1 listener1 = new MyOrderedListener1();
+		MyOrderedListener3 listener3 = new MyOrderedListener3();
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(listener1);
+		smc.addApplicationListener(listener3);
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new MyOtherEvent(this));
+		assertThat(smc.retrieverCache.size()).isEqualTo(2);
+
+		smc.removeApplicationListener(listener1);
+		assertThat(smc.retrieverCache.size()).isEqualTo(2);
+		smc.multicastEvent(new MyEvent(this));
+		assertThat(listener1.seenEvents.size()).isEqualTo(2);
+		assertThat(listener3.seenEvents.size()).isEqualTo(3);
+	}
+
 	@Test
 	public void orderedListenersWithAnnotation() {
 		MyOrderedListener3 listener1 = new MyOrderedListener3();
@@ -298,8 +366,9 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertThat(listener1.seenEvents.contains(event3)).isTrue();
 		assertThat(listener1.seenEvents.contains(event4)).isTrue();
 
+		// ContextRefreshedEvent retriever retained: lazy listener2 only evicts matching entries
 		AbstractApplicationEventMulticaster multicaster = context.getBean(AbstractApplicationEventMulticaster.class);
-		assertThat(multicaster.retrieverCache.size()).isEqualTo(2);
+		assertThat(multicaster.retrieverCache.size()).isEqualTo(3);
 
 		context.close();
 	}
@@ -516,6 +585,49 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		context.close();
 	}
 
+	@Test
+	public void listenerBeanInCreationOnAnotherThread() throws Exception {
+		MyOrderedListener1 listener = new MyOrderedListener1();
+		CountDownLatch inCreation = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.setSingletonCreationLocking(true);
+		bf.registerBeanDefinition("listener", new RootBeanDefinition(MyOrderedListener1.class, () -> {
+			inCreation.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+			return listener;
+		}));
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster(bf);
+		smc.addApplicationListenerBean("listener");
+		MyEvent event = new MyEvent(this);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> creation = executor.submit(() -> bf.getBean("listener"));
+			assertThat(inCreation.await(10, TimeUnit.SECONDS)).isTrue();
+			Future<?> publication = executor.submit(() -> smc.multicastEvent(event));
+			long deadline = System.currentTimeMillis() + 10000;
+			while (bf.getSingletonCreationMetrics().getContendedCreationCount() == 0 &&
+					!publication.isDone() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			release.countDown();
+			assertThat(creation.get(10, TimeUnit.SECONDS)).isSameAs(listener);
+			publication.get(10, TimeUnit.SECONDS);
+		}
+		finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+		assertThat(listener.seenEvents).containsExactly(event);
+		assertThat(bf.getSingletonCreationMetrics().getContendedCreationCount()).isEqualTo(1);
+	}
+
 
 	@SuppressWarnings("serial")
 	public static class MyEvent extends ApplicationEvent {
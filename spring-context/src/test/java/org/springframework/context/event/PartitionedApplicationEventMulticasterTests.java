@@ -0,0 +1,255 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.PartitionedApplicationEventMulticaster.OverflowPolicy;
+import org.springframework.core.task.TaskRejectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link PartitionedApplicationEventMulticaster}.
+ *
+ * @since 5.3
+ */
+class PartitionedApplicationEventMulticasterTests {
+
+	private final PartitionedApplicationEventMulticaster multicaster = new PartitionedApplicationEventMulticaster();
+
+
+	@AfterEach
+	void destroy() throws Exception {
+		this.multicaster.destroy();
+	}
+
+
+	@Test
+	void eventsWithSameKeyAreDeliveredInOrder() throws Exception {
+		int count = 500;
+		CountDownLatch latch = new CountDownLatch(count * 2);
+		List<Integer> first = Collections.synchronizedList(new ArrayList<>());
+		List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+		this.multicaster.setPartitionCount(4);
+		this.multicaster.addApplicationListener((ApplicationListener<TestEvent>) event -> {
+			(event.getSource().equals("first") ? first : second).add(event.sequence);
+			latch.countDown();
+		});
+
+		for (int i = 0; i < count; i++) {
+			this.multicaster.multicastEvent(new TestEvent("first", i));
+			this.multicaster.multicastEvent(new TestEvent("second", i));
+		}
+
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(first).isSorted().hasSize(count);
+		assertThat(second).isSorted().hasSize(count);
+		assertThat(this.multicaster.getMetrics().getDispatchedEventCount()).isEqualTo(count * 2);
+	}
+
+	@Test
+	void batchListenerReceivesQueuedEventsAtOnce() throws Exception {
+		BlockingExecutor executor = new BlockingExecutor();
+		List<List<TestEvent>> batches = new CopyOnWriteArrayList<>();
+		List<TestEvent> singles = new CopyOnWriteArrayList<>();
+		this.multicaster.setPartitionCount(1);
+		this.multicaster.setMaxBatchSize(3);
+		this.multicaster.setTaskExecutor(executor);
+		this.multicaster.addApplicationListener((BatchApplicationListener<TestEvent>) events ->
+				batches.add(new ArrayList<>(events)));
+		this.multicaster.addApplicationListener((ApplicationListener<TestEvent>) singles::add);
+
+		for (int i = 0; i < 5; i++) {
+			this.multicaster.multicastEvent(new TestEvent("key", i));
+		}
+		assertThat(this.multicaster.getMetrics().getQueueDepth()).isEqualTo(5);
+		executor.runAll();
+
+		assertThat(batches).hasSize(2);
+		assertThat(batches.get(0)).extracting(event -> event.sequence).containsExactly(0, 1, 2);
+		assertThat(batches.get(1)).extracting(event -> event.sequence).containsExactly(3, 4);
+		assertThat(singles).hasSize(5);
+		EventDispatchMetrics metrics = this.multicaster.getMetrics();
+		assertThat(metrics.getQueueDepth()).isEqualTo(0);
+		assertThat(metrics.getBatchDeliveryCount()).isEqualTo(2);
+		assertThat(metrics.getDispatchedEventCount()).isEqualTo(5);
+	}
+
+	@Test
+	void discardPolicyDropsEventsWhenQueueIsFull() {
+		BlockingExecutor executor = new BlockingExecutor();
+		List<TestEvent> received = new CopyOnWriteArrayList<>();
+		this.multicaster.setPartitionCount(1);
+		this.multicaster.setQueueCapacity(2);
+		this.multicaster.setOverflowPolicy(OverflowPolicy.DISCARD);
+		this.multicaster.setTaskExecutor(executor);
+		this.multicaster.addApplicationListener((ApplicationListener<TestEvent>) received::add);
+
+		for (int i = 0; i < 4; i++) {
+			this.multicaster.multicastEvent(new TestEvent("key", i));
+		}
+		executor.runAll();
+
+		assertThat(received).extracting(event -> event.sequence).containsExactly(0, 1);
+		assertThat(this.multicaster.getMetrics().getDiscardedEventCount()).isEqualTo(2);
+	}
+
+	@Test
+	void abortPolicyRejectsEventsWhenQueueIsFull() {
+		this.multicaster.setPartitionCount(1);
+		this.multicaster.setQueueCapacity(1);
+		this.multicaster.setOverflowPolicy(OverflowPolicy.ABORT);
+		this.multicaster.setTaskExecutor(new BlockingExecutor());
+		this.multicaster.addApplicationListener((ApplicationListener<TestEvent>) event -> {});
+
+		this.multicaster.multicastEvent(new TestEvent("key", 0));
+		assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() ->
+				this.multicaster.multicastEvent(new TestEvent("key", 1)));
+		assertThat(this.multicaster.getMetrics().getRejectedEventCount()).isEqualTo(1);
+	}
+
+	@Test
+	void callerRunsPolicyDeliversInPublishingThread() {
+		List<Thread> threads = new CopyOnWriteArrayList<>();
+		this.multicaster.setPartitionCount(1);
+		this.multicaster.setQueueCapacity(1);
+		this.multicaster.setOverflowPolicy(OverflowPolicy.CALLER_RUNS);
+		this.multicaster.setTaskExecutor(new BlockingExecutor());
+		this.multicaster.addApplicationListener((ApplicationListener<TestEvent>) event ->
+				threads.add(Thread.currentThread()));
+
+		this.multicaster.multicastEvent(new TestEvent("key", 0));
+		this.multicaster.multicastEvent(new TestEvent("key", 1));
+
+		assertThat(threads).containsExactly(Thread.currentThread());
+		assertThat(this.multicaster.getMetrics().getCallerRunsEventCount()).isEqualTo(1);
+	}
+
+	@Test
+	void listenerExceptionDoesNotStopPartition() throws Exception {
+		CountDownLatch latch = new CountDownLatch(2);
+		this.multicaster.setPartitionCount(1);
+		this.multicaster.addApplicationListener((ApplicationListener<TestEvent>) event -> {
+			latch.countDown();
+			throw new IllegalStateException("Test exception");
+		});
+
+		this.multicaster.multicastEvent(new TestEvent("key", 0));
+		this.multicaster.multicastEvent(new TestEvent("key", 1));
+
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void destroyAwaitsQueuedEventsAndDeliversSynchronouslyAfterwards() throws Exception {
+		int count = 100;
+		List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+		this.multicaster.setPartitionCount(2);
+		this.multicaster.setAwaitTerminationMillis(10000);
+		this.multicaster.addApplicationListener((ApplicationListener<TestEvent>) event -> {
+			received.add(event.sequence);
+		});
+
+		for (int i = 0; i < count; i++) {
+			this.multicaster.multicastEvent(new TestEvent("key", i));
+		}
+		this.multicaster.destroy();
+		assertThat(received).hasSize(count);
+
+		this.multicaster.multicastEvent(new TestEvent("key", count));
+		assertThat(received).hasSize(count + 1).isSorted();
+	}
+
+	@Test
+	void destroyStopsWaitingAfterAwaitTerminationMillis() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		this.multicaster.setPartitionCount(1);
+		this.multicaster.setAwaitTerminationMillis(100);
+		this.multicaster.addApplicationListener((ApplicationListener<TestEvent>) event -> {
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		this.multicaster.multicastEvent(new TestEvent("key", 0));
+		long start = System.nanoTime();
+		this.multicaster.destroy();
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(100L, 5000L);
+		assertThat(this.multicaster.getMetrics().getDispatchedEventCount()).isEqualTo(1);
+		release.countDown();
+	}
+
+	@Test
+	void settingsCannotChangeOnceStarted() {
+		this.multicaster.multicastEvent(new TestEvent("key", 0));
+		assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() ->
+				this.multicaster.setPartitionCount(2));
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class TestEvent extends ApplicationEvent {
+
+		final int sequence;
+
+		TestEvent(Object source, int sequence) {
+			super(source);
+			this.sequence = sequence;
+		}
+	}
+
+
+	private static class BlockingExecutor implements Executor {
+
+		private final List<Runnable> tasks = new ArrayList<>();
+
+		@Override
+		public synchronized void execute(Runnable task) {
+			this.tasks.add(task);
+		}
+
+		void runAll() {
+			while (true) {
+				Runnable task;
+				synchronized (this) {
+					if (this.tasks.isEmpty()) {
+						return;
+					}
+					task = this.tasks.remove(0);
+				}
+				task.run();
+			}
+		}
+	}
+
+}
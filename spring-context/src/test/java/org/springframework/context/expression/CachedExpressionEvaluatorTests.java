@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,7 +23,11 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionCache;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.util.ReflectionUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -66,6 +70,37 @@ public class CachedExpressionEvaluatorTests {
 		assertThat(expressionEvaluator.testCache.size()).as("Cached expression should be based on type").isEqualTo(2);
 	}
 
+	@Test
+	public void sharedExpressionCache() {
+		SpelExpressionCache expressionCache = new SpelExpressionCache(spy(new SpelExpressionParser()));
+		TestExpressionEvaluator first = new TestExpressionEvaluator(expressionCache);
+		TestExpressionEvaluator second = new TestExpressionEvaluator(expressionCache);
+		Method method = ReflectionUtils.findMethod(getClass(), "toString");
+
+		Expression expression = first.getTestExpression("true", method, getClass());
+		assertThat(second.getTestExpression("true", method, getClass())).isSameAs(expression);
+		assertThat(first.getTestExpression("true", method, Object.class)).isNotSameAs(expression);
+		assertThat(first.testCache.size()).isEqualTo(2);
+		verify(expressionCache.getParser(), times(2)).parseExpression("true");
+	}
+
+	@Test
+	public void sharedExpressionCacheKeepsCompiledExpressionsPerElement() {
+		SpelExpressionCache expressionCache = new SpelExpressionCache(
+				new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, null)));
+		TestExpressionEvaluator evaluator = new TestExpressionEvaluator(expressionCache);
+		Method toString = ReflectionUtils.findMethod(getClass(), "toString");
+		Method hashCode = ReflectionUtils.findMethod(getClass(), "hashCode");
+		StandardEvaluationContext context = new StandardEvaluationContext();
+
+		context.setVariable("id", 42);
+		assertThat(evaluator.getTestExpression("#id", toString, getClass()).getValue(context)).isEqualTo(42);
+		assertThat(evaluator.getTestExpression("#id", toString, getClass()).getValue(context)).isEqualTo(42);
+		context.setVariable("id", "42");
+		assertThat(evaluator.getTestExpression("#id", hashCode, getClass()).getValue(context)).isEqualTo("42");
+		assertThat(evaluator.getTestExpression("#id", hashCode, getClass()).getValue(context)).isEqualTo("42");
+	}
+
 	private void hasParsedExpression(String expression) {
 		verify(expressionEvaluator.getParser(), times(1)).parseExpression(expression);
 	}
@@ -78,6 +113,10 @@ public class CachedExpressionEvaluatorTests {
 			super(mockSpelExpressionParser());
 		}
 
+		public TestExpressionEvaluator(SpelExpressionCache expressionCache) {
+			super(expressionCache);
+		}
+
 		public Expression getTestExpression(String expression, Method method, Class<?> type) {
 			return getExpression(this.testCache, new AnnotatedElementKey(method, type), expression);
 		}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link TimingWheelTaskScheduler}.
+ */
+public class TimingWheelTaskSchedulerTests {
+
+	private static final String THREAD_NAME_PREFIX = "wheel-test-";
+
+	private final TimingWheelTaskScheduler scheduler = new TimingWheelTaskScheduler();
+
+
+	@BeforeEach
+	public void setUp() {
+		this.scheduler.setThreadNamePrefix(THREAD_NAME_PREFIX);
+		this.scheduler.setTickDuration(5);
+		this.scheduler.setTicksPerWheel(16);
+		this.scheduler.afterPropertiesSet();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.scheduler.shutdown();
+	}
+
+
+	@Test
+	public void scheduleOneTimeTask() throws Exception {
+		TestTask task = new TestTask(1);
+		Future<?> future = this.scheduler.schedule(task, new Date(System.currentTimeMillis() + 50));
+		Object result = future.get(1000, TimeUnit.MILLISECONDS);
+		assertThat(result).isNull();
+		assertThat(future.isDone()).isTrue();
+		assertThat(task.lastThread.getName()).startsWith(THREAD_NAME_PREFIX);
+	}
+
+	@Test
+	public void scheduleOneTimeTaskNotBeforeStartTime() throws Exception {
+		long startTime = System.currentTimeMillis() + 200;
+		TestTask task = new TestTask(1);
+		this.scheduler.schedule(task, new Date(startTime)).get(1000, TimeUnit.MILLISECONDS);
+		assertThat(task.lastExecutionTime).isGreaterThanOrEqualTo(startTime);
+	}
+
+	@Test
+	public void scheduleOneTimeFailingTaskWithoutErrorHandler() throws Exception {
+		TestTask task = new TestTask(0);
+		Future<?> future = this.scheduler.schedule(task, new Date(System.currentTimeMillis() + 20));
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(() ->
+				future.get(1000, TimeUnit.MILLISECONDS));
+		assertThat(future.isDone()).isTrue();
+	}
+
+	@Test
+	public void scheduleOneTimeFailingTaskWithErrorHandler() throws Exception {
+		TestTask task = new TestTask(0);
+		List<Throwable> errors = new ArrayList<>();
+		this.scheduler.setErrorHandler(errors::add);
+		Future<?> future = this.scheduler.schedule(task, new Date(System.currentTimeMillis() + 20));
+		assertThat(future.get(1000, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(errors).hasSize(1);
+	}
+
+	@Test
+	public void scheduleTriggerTask() throws Exception {
+		TestTask task = new TestTask(3);
+		Future<?> future = this.scheduler.schedule(task, new TestTrigger(3));
+		Object result = future.get(1000, TimeUnit.MILLISECONDS);
+		assertThat(result).isNull();
+		assertThat(task.actualRunCount.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void scheduleTriggerTaskThatNeverFires() {
+		ScheduledFuture<?> future = this.scheduler.schedule(new TestTask(0), new TestTrigger(0));
+		assertThat((Object) future).isNull();
+	}
+
+	@Test
+	public void scheduleAtFixedRate() throws Exception {
+		TestTask task = new TestTask(5);
+		ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(task, 20);
+		assertThat(task.latch.await(1000, TimeUnit.MILLISECONDS)).isTrue();
+		assertThat(future.cancel(false)).isTrue();
+		assertThat(future.isCancelled()).isTrue();
+		assertThatExceptionOfType(CancellationException.class).isThrownBy(future::get);
+	}
+
+	@Test
+	public void scheduleWithFixedDelay() throws Exception {
+		TestTask task = new TestTask(3);
+		ScheduledFuture<?> future = this.scheduler.scheduleWithFixedDelay(task, 20);
+		assertThat(task.latch.await(1000, TimeUnit.MILLISECONDS)).isTrue();
+		future.cancel(false);
+	}
+
+	@Test
+	public void cancelledTasksAreRemovedFromTimingWheel() throws Exception {
+		List<ScheduledFuture<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+			futures.add(this.scheduler.schedule(new TestTask(0), new Date(System.currentTimeMillis() + 60000 + i)));
+		}
+		awaitScheduledTaskCount(10000);
+		for (ScheduledFuture<?> future : futures) {
+			assertThat(future.cancel(false)).isTrue();
+			assertThat(future.isDone()).isTrue();
+		}
+		awaitScheduledTaskCount(0);
+	}
+
+	@Test
+	public void shutdownCancelsScheduledTasks() {
+		ScheduledFuture<?> future = this.scheduler.schedule(new TestTask(0), new Date(System.currentTimeMillis() + 60000));
+		this.scheduler.shutdown();
+		assertThat(future.isCancelled()).isTrue();
+	}
+
+
+	private void awaitScheduledTaskCount(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 2000;
+		while (this.scheduler.getScheduledTaskCount() != count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(this.scheduler.getScheduledTaskCount()).isEqualTo(count);
+	}
+
+
+	private static class TestTask implements Runnable {
+
+		private final int expectedRunCount;
+
+		private final AtomicInteger actualRunCount = new AtomicInteger();
+
+		private final CountDownLatch latch;
+
+		private volatile Thread lastThread;
+
+		private volatile long lastExecutionTime;
+
+		TestTask(int expectedRunCount) {
+			this.expectedRunCount = expectedRunCount;
+			this.latch = new CountDownLatch(expectedRunCount);
+		}
+
+		@Override
+		public void run() {
+			this.lastThread = Thread.currentThread();
+			this.lastExecutionTime = System.currentTimeMillis();
+			if (this.actualRunCount.incrementAndGet() > this.expectedRunCount) {
+				throw new RuntimeException("intentional test failure");
+			}
+			this.latch.countDown();
+		}
+	}
+
+
+	private static class TestTrigger implements Trigger {
+
+		private final int maxRunCount;
+
+		private final AtomicInteger actualRunCount = new AtomicInteger();
+
+		TestTrigger(int maxRunCount) {
+			this.maxRunCount = maxRunCount;
+		}
+
+		@Override
+		public Date nextExecutionTime(TriggerContext triggerContext) {
+			if (this.actualRunCount.incrementAndGet() > this.maxRunCount) {
+				return null;
+			}
+			return new Date(System.currentTimeMillis() + 10);
+		}
+	}
+
+}
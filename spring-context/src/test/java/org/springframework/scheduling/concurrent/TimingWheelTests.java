@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Unit tests for {@link TimingWheel}.
+ */
+public class TimingWheelTests {
+
+	private final TimingWheel timingWheel = new TimingWheel(8);
+
+	private final List<TestEntry> expired = new ArrayList<>();
+
+
+	@Test
+	public void ticksPerWheelMustBePowerOfTwo() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new TimingWheel(12));
+	}
+
+	@Test
+	public void entryWithReachedDeadlineIsNotAdded() {
+		assertThat(this.timingWheel.add(new TestEntry(0))).isFalse();
+		assertThat(this.timingWheel.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void entriesExpireAtTheirDeadlineTick() {
+		Random random = new Random(42);
+		List<TestEntry> entries = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			TestEntry entry = new TestEntry(1 + random.nextInt(5000));
+			assertThat(this.timingWheel.add(entry)).isTrue();
+			entries.add(entry);
+		}
+		assertThat(this.timingWheel.size()).isEqualTo(2000);
+
+		advanceTo(5000);
+		assertThat(this.expired).hasSize(2000);
+		assertThat(this.timingWheel.size()).isEqualTo(0);
+		for (TestEntry entry : entries) {
+			assertThat(entry.expiredAt).isEqualTo(entry.deadlineTick);
+		}
+	}
+
+	@Test
+	public void entriesAddedWhileAdvancingExpireAtTheirDeadlineTick() {
+		Random random = new Random(7);
+		List<TestEntry> entries = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			advanceTo(this.timingWheel.getCurrentTick() + random.nextInt(20));
+			TestEntry entry = new TestEntry(this.timingWheel.getCurrentTick() + 1 + random.nextInt(1000));
+			this.timingWheel.add(entry);
+			entries.add(entry);
+		}
+		advanceTo(this.timingWheel.getCurrentTick() + 1000);
+		assertThat(this.expired).hasSize(500);
+		for (TestEntry entry : entries) {
+			assertThat(entry.expiredAt).isEqualTo(entry.deadlineTick);
+		}
+	}
+
+	@Test
+	public void removedEntriesDoNotExpire() {
+		TestEntry first = new TestEntry(3);
+		TestEntry second = new TestEntry(3);
+		TestEntry distant = new TestEntry(700);
+		this.timingWheel.add(first);
+		this.timingWheel.add(second);
+		this.timingWheel.add(distant);
+
+		assertThat(this.timingWheel.remove(first)).isTrue();
+		assertThat(this.timingWheel.remove(first)).isFalse();
+		assertThat(this.timingWheel.remove(distant)).isTrue();
+		assertThat(this.timingWheel.size()).isEqualTo(1);
+
+		advanceTo(1000);
+		assertThat(this.expired).containsExactly(second);
+	}
+
+	@Test
+	public void clearRemovesAllEntries() {
+		this.timingWheel.add(new TestEntry(5));
+		this.timingWheel.add(new TestEntry(50));
+		this.timingWheel.add(new TestEntry(5000));
+		List<TimingWheel.Entry> cleared = new ArrayList<>();
+		this.timingWheel.clear(cleared::add);
+		assertThat(cleared).hasSize(3);
+		assertThat(this.timingWheel.size()).isEqualTo(0);
+
+		advanceTo(6000);
+		assertThat(this.expired).isEmpty();
+	}
+
+
+	private void advanceTo(long tick) {
+		while (this.timingWheel.getCurrentTick() < tick) {
+			this.timingWheel.advance(entry -> {
+				TestEntry testEntry = (TestEntry) entry;
+				testEntry.expiredAt = this.timingWheel.getCurrentTick();
+				this.expired.add(testEntry);
+			});
+		}
+	}
+
+
+	private static class TestEntry extends TimingWheel.Entry {
+
+		long expiredAt = -1;
+
+		TestEntry(long deadlineTick) {
+			this.deadlineTick = deadlineTick;
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.support;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Unit tests for {@link CronExpression}.
+ */
+public class CronExpressionTests {
+
+	private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+
+	@Test
+	public void nextSecond() {
+		assertThat(next("* * * * * *", "2020-03-04T10:15:30.500")).isEqualTo("2020-03-04T10:15:31");
+		assertThat(next("* * * * * *", "2020-03-04T10:15:30")).isEqualTo("2020-03-04T10:15:31");
+	}
+
+	@Test
+	public void nextWithRollover() {
+		assertThat(next("0 0 * * * *", "2020-12-31T23:15:30")).isEqualTo("2021-01-01T00:00");
+		assertThat(next("0 0 0 29 2 *", "2020-03-01T00:00")).isEqualTo("2024-02-29T00:00");
+		assertThat(next("0 0 9-17 * * MON-FRI", "2020-03-06T17:00")).isEqualTo("2020-03-09T09:00");
+		assertThat(next("0 0 0 25 12 ?", "2020-03-06T17:00")).isEqualTo("2020-12-25T00:00");
+	}
+
+	@Test
+	public void nextResetsLowerFieldsAfterRollover() {
+		assertThat(next("*/15 * 1-4 * * *", "2012-07-01T09:53:50")).isEqualTo("2012-07-02T01:00");
+		assertThat(next("0 */2 1-4 * * *", "2012-07-01T09:00")).isEqualTo("2012-07-02T01:00");
+	}
+
+	@Test
+	public void nextWithSundayAsSeven() {
+		assertThat(next("0 0 12 * * 7", "2020-03-04T10:00")).isEqualTo("2020-03-08T12:00");
+		assertThat(CronExpression.parse("0 0 12 * * 7")).isEqualTo(CronExpression.parse("0 0 12 * * SUN"));
+	}
+
+	@Test
+	public void nextInDaylightSavingGap() {
+		// Europe/Berlin skips from 02:00 to 03:00 on 2020-03-29
+		ZonedDateTime next = CronExpression.parse("0 30 2 * * *").next(
+				ZonedDateTime.of(2020, 3, 28, 12, 0, 0, 0, BERLIN));
+		assertThat(next.toLocalDateTime()).isEqualTo(LocalDateTime.of(2020, 3, 29, 3, 30));
+	}
+
+	@Test
+	public void nextSkippingDaylightSavingGap() {
+		CronExpression expression = CronExpression.parse("0 30 2 * * *");
+		long start = ZonedDateTime.of(2020, 3, 28, 12, 0, 0, 0, BERLIN).toInstant().toEpochMilli();
+		long next = expression.next(start, BERLIN, true);
+		assertThat(next).isEqualTo(ZonedDateTime.of(2020, 3, 30, 2, 30, 0, 0, BERLIN).toInstant().toEpochMilli());
+	}
+
+	@Test
+	public void nextInDaylightSavingOverlap() {
+		// Europe/Berlin repeats 02:00 to 03:00 on 2020-10-25
+		CronExpression expression = CronExpression.parse("0 30 2 * * *");
+		ZonedDateTime next = expression.next(ZonedDateTime.of(2020, 10, 24, 12, 0, 0, 0, BERLIN));
+		assertThat(next.toLocalDateTime()).isEqualTo(LocalDateTime.of(2020, 10, 25, 2, 30));
+		assertThat(next.getOffset()).isEqualTo(ZoneOffset.ofHours(2));
+		assertThat(expression.next(next).toLocalDateTime()).isEqualTo(LocalDateTime.of(2020, 10, 26, 2, 30));
+	}
+
+	@Test
+	public void nextMatchesCronSequenceGeneratorOutsideOfTransitions() {
+		String[] expressions = {"*/10 * * * * *", "0 0/30 8-10 * * *", "0 0 6,19 * * *",
+				"7 11 3 1,15 */2 1-5", "0 0 0 31 * *", "59 59 23 31 12 *"};
+		Random random = new Random(42);
+		for (String expression : expressions) {
+			CronExpression cronExpression = CronExpression.parse(expression);
+			CronSequenceGenerator generator = new CronSequenceGenerator(expression, TimeZone.getTimeZone("UTC"));
+			for (int i = 0; i < 200; i++) {
+				long time = 1577836800000L + (long) (random.nextDouble() * 3 * 365 * 86400000L);
+				assertThat(cronExpression.next(time, ZoneOffset.UTC))
+						.as(expression).isEqualTo(generator.next(new Date(time)).getTime());
+			}
+		}
+	}
+
+	@Test
+	public void parseInvalidExpression() {
+		assertThatIllegalArgumentException().isThrownBy(() -> CronExpression.parse("* * * * *"));
+		assertThatIllegalArgumentException().isThrownBy(() -> CronExpression.parse("*/0 * * * * *"));
+		assertThatIllegalArgumentException().isThrownBy(() -> CronExpression.parse("* 6-5 * * * *"));
+		assertThatIllegalArgumentException().isThrownBy(() -> CronExpression.parse("* * * * 13 *"));
+	}
+
+	@Test
+	public void nextWithImpossibleDate() {
+		assertThatIllegalArgumentException().isThrownBy(() ->
+				next("0 0 0 30 2 *", "2020-03-04T10:00"));
+	}
+
+	@Test
+	public void cronTriggerWithSharedExpression() {
+		CronExpression expression = CronExpression.parse("0 0 12 * * *");
+		CronTrigger trigger = new CronTrigger(expression, ZoneOffset.UTC);
+		assertThat(trigger.getExpression()).isEqualTo("0 0 12 * * *");
+		assertThat(trigger).isEqualTo(new CronTrigger("0 0 12 * * *", TimeZone.getTimeZone("UTC")));
+		Date last = Date.from(ZonedDateTime.of(2020, 3, 4, 12, 0, 0, 0, ZoneOffset.UTC).toInstant());
+		Date next = trigger.nextExecutionTime(new SimpleTriggerContext(last, last, last));
+		assertThat(next.toInstant()).isEqualTo(ZonedDateTime.of(2020, 3, 5, 12, 0, 0, 0, ZoneOffset.UTC).toInstant());
+	}
+
+
+	private static String next(String expression, String dateTime) {
+		ZonedDateTime start = LocalDateTime.parse(dateTime).atZone(ZoneOffset.UTC);
+		return CronExpression.parse(expression).next(start).toLocalDateTime().toString();
+	}
+
+}
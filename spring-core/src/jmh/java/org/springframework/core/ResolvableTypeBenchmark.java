@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link ResolvableType} creation and generics resolution,
+ * as performed for every injection point and type-based bean lookup.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public Object forClass(BenchmarkState state) {
+		return ResolvableType.forClass(state.type);
+	}
+
+	@Benchmark
+	public Object forFieldResolveGeneric(BenchmarkState state) {
+		return ResolvableType.forField(state.field).resolveGeneric(1, 0);
+	}
+
+	@Benchmark
+	public Object forMethodReturnType(BenchmarkState state) {
+		return ResolvableType.forMethodReturnType(state.method, StringRepository.class).resolve();
+	}
+
+	@Benchmark
+	public void asMapResolveGenerics(BenchmarkState state, Blackhole bh) {
+		ResolvableType type = ResolvableType.forClass(state.type).asMap();
+		bh.consume(type.resolveGenerics());
+	}
+
+	@Benchmark
+	public boolean isAssignableFrom(BenchmarkState state) {
+		return state.genericRepository.isAssignableFrom(state.stringRepository);
+	}
+
+	@Benchmark
+	public boolean isAssignableFromClass(BenchmarkState state) {
+		return state.genericRepository.isAssignableFrom(StringRepository.class);
+	}
+
+	@Benchmark
+	public Object forTypeResolveGenerics(BenchmarkState state) {
+		return ResolvableType.forType(state.fieldType).resolveGenerics();
+	}
+
+	@Benchmark
+	public Object forClassWithGenerics() {
+		return ResolvableType.forClassWithGenerics(Repository.class, String.class);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		Class<?> type = StringListMap.class;
+
+		Field field;
+
+		Method method;
+
+		Type fieldType;
+
+		ResolvableType genericRepository;
+
+		ResolvableType stringRepository;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.field = Fields.class.getDeclaredField("listMap");
+			this.method = Repository.class.getMethod("find");
+			this.fieldType = this.field.getGenericType();
+			this.genericRepository = ResolvableType.forClassWithGenerics(Repository.class, CharSequence.class);
+			this.stringRepository = ResolvableType.forClass(StringRepository.class);
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static class StringListMap extends HashMap<String, List<String>> {
+	}
+
+
+	interface Repository<T> {
+
+		T find();
+	}
+
+
+	interface StringRepository extends Repository<String> {
+	}
+
+
+	static class Fields {
+
+		Map<String, List<Integer>> listMap;
+	}
+
+}
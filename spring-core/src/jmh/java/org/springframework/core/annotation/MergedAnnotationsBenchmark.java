@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+
+/**
+ * Benchmarks for {@link MergedAnnotations} lookups on types and methods,
+ * with meta-annotations, attribute aliases and hierarchy traversal.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MergedAnnotationsBenchmark {
+
+	@Benchmark
+	public boolean isPresentDirect(BenchmarkState state) {
+		return MergedAnnotations.from(state.type).isPresent(Component.class);
+	}
+
+	@Benchmark
+	public boolean isPresentTypeHierarchy(BenchmarkState state) {
+		return MergedAnnotations.from(state.type, SearchStrategy.TYPE_HIERARCHY).isPresent(Component.class);
+	}
+
+	@Benchmark
+	public Object getAliasedAttribute(BenchmarkState state) {
+		return MergedAnnotations.from(state.type, SearchStrategy.TYPE_HIERARCHY)
+				.get(Component.class).getString("value");
+	}
+
+	@Benchmark
+	public boolean isPresentAbsent(BenchmarkState state) {
+		return MergedAnnotations.from(state.type, SearchStrategy.TYPE_HIERARCHY).isPresent(Transactional.class);
+	}
+
+	@Benchmark
+	public Object findMergedAnnotationOnMethod(BenchmarkState state) {
+		return AnnotatedElementUtils.findMergedAnnotation(state.method, Transactional.class);
+	}
+
+	@Benchmark
+	public boolean hasAnnotationOnPlainMethod(BenchmarkState state) {
+		return AnnotatedElementUtils.hasAnnotation(state.plainMethod, Transactional.class);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		Class<?> type = ServiceImpl.class;
+
+		Method method;
+
+		Method plainMethod;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.method = ServiceImpl.class.getMethod("save", String.class);
+			this.plainMethod = ServiceImpl.class.getMethod("toString");
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+	@interface Component {
+
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Component
+	@interface Service {
+
+		@AliasFor(annotation = Component.class)
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@interface Transactional {
+
+		boolean readOnly() default false;
+	}
+
+
+	@Service("service")
+	interface ServiceInterface {
+
+		@Transactional(readOnly = true)
+		void save(String value);
+	}
+
+
+	public static class ServiceImpl implements ServiceInterface {
+
+		@Override
+		public void save(String value) {
+		}
+	}
+
+}
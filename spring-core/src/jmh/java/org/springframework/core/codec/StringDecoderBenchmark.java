@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+/**
+ * Benchmarks for splitting a stream of newline-delimited JSON into lines,
+ * with the input arriving in fixed-size chunks.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class StringDecoderBenchmark {
+
+	@Benchmark
+	public long decodeLines(BenchmarkState state) {
+		Flux<DataBuffer> input = Flux.fromIterable(state.chunks).map(state.bufferFactory::wrap);
+		return state.decoder.decode(input, state.elementType, null, Collections.emptyMap()).count().block();
+	}
+
+	@Benchmark
+	public int matchDelimiters(BenchmarkState state) {
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(state.delimiters);
+		int matches = 0;
+		for (byte[] chunk : state.chunks) {
+			DataBuffer buffer = state.bufferFactory.wrap(chunk);
+			int endIdx;
+			while ((endIdx = matcher.match(buffer)) != -1) {
+				buffer.readPosition(endIdx + 1);
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"8192"})
+		public int chunkSize;
+
+		@Param({"1000"})
+		public int lineCount;
+
+		StringDecoder decoder = StringDecoder.allMimeTypes();
+
+		ResolvableType elementType = ResolvableType.forClass(String.class);
+
+		DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		byte[][] delimiters = {"\r\n".getBytes(StandardCharsets.UTF_8), "\n".getBytes(StandardCharsets.UTF_8)};
+
+		List<byte[]> chunks;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < this.lineCount; i++) {
+				builder.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i)
+						.append("\",\"tags\":[\"alpha\",\"beta\"],\"price\":").append(i * 3 % 100).append("}\n");
+			}
+			byte[] content = builder.toString().getBytes(StandardCharsets.UTF_8);
+			this.chunks = new ArrayList<>();
+			for (int offset = 0; offset < content.length; offset += this.chunkSize) {
+				this.chunks.add(Arrays.copyOfRange(content, offset, Math.min(offset + this.chunkSize, content.length)));
+			}
+		}
+	}
+
+}
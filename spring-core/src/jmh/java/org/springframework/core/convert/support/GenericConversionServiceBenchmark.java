@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.core.convert.ConversionPlan;
+import org.springframework.core.convert.TypeDescriptor;
+
+/**
+ * Benchmarks for collection conversions through {@link GenericConversionService},
+ * per call and through a {@link ConversionPlan} obtained once.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class GenericConversionServiceBenchmark {
+
+	@Benchmark
+	public Object convertCollection(BenchmarkState state) {
+		return state.conversionService.convert(state.source, state.sourceType, state.targetType);
+	}
+
+	@Benchmark
+	public Object convertCollectionWithPlan(BenchmarkState state) {
+		return state.conversionPlan.convert(state.source);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param("100")
+		public int size;
+
+		GenericConversionService conversionService = new DefaultConversionService();
+
+		List<String> source;
+
+		TypeDescriptor sourceType;
+
+		TypeDescriptor targetType;
+
+		ConversionPlan conversionPlan;
+
+		public List<Integer> integers;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.source = new ArrayList<>(this.size);
+			for (int i = 0; i < this.size; i++) {
+				this.source.add(String.valueOf(i));
+			}
+			this.sourceType = TypeDescriptor.forObject(this.source);
+			this.targetType = new TypeDescriptor(getClass().getField("integers"));
+			this.conversionPlan = this.conversionService.getConversionPlan(this.sourceType, this.targetType);
+		}
+	}
+
+}
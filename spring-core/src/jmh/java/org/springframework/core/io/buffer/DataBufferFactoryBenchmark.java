@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for the allocation, use and release of data buffers,
+ * as performed for every request and response chunk.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DataBufferFactoryBenchmark {
+
+	@Benchmark
+	public int allocateWriteRelease(BenchmarkState state) {
+		DataBuffer buffer = state.bufferFactory.allocateBuffer(state.capacity);
+		buffer.write(state.content);
+		int count = buffer.readableByteCount();
+		DataBufferUtils.release(buffer);
+		return count;
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"default", "pooled"})
+		public String factory;
+
+		@Param({"1024", "8192"})
+		public int capacity;
+
+		DataBufferFactory bufferFactory;
+
+		byte[] content;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.bufferFactory = ("pooled".equals(this.factory) ?
+					new PooledDataBufferFactory() : new DefaultDataBufferFactory());
+			this.content = new byte[this.capacity];
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Contention benchmarks for {@link ConcurrentReferenceHashMap} and
+ * {@link ReadMostlyConcurrentReferenceHashMap} used as shared caches,
+ * with all available processors reading and with a concurrent writer
+ * replacing entries.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ConcurrentReferenceHashMapBenchmark {
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Object get(BenchmarkState state) {
+		return state.map.get(state.randomKey());
+	}
+
+	@Benchmark
+	@Group("churn")
+	@GroupThreads(7)
+	public Object getWithChurn(BenchmarkState state) {
+		return state.map.get(state.randomKey());
+	}
+
+	@Benchmark
+	@Group("churn")
+	@GroupThreads(1)
+	public Object replaceWithChurn(BenchmarkState state) {
+		Integer key = state.randomKey();
+		state.map.remove(key);
+		return state.map.put(key, key.toString());
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"standard", "readMostly"})
+		public String mapType;
+
+		@Param("1024")
+		public int size;
+
+		Map<Integer, String> map;
+
+		Integer[] keys;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.map = ("readMostly".equals(this.mapType) ?
+					new ReadMostlyConcurrentReferenceHashMap<>(this.size) :
+					new ConcurrentReferenceHashMap<>(this.size));
+			this.keys = new Integer[this.size];
+			for (int i = 0; i < this.size; i++) {
+				this.keys[i] = i;
+				this.map.put(this.keys[i], Integer.toString(i));
+			}
+		}
+
+		Integer randomKey() {
+			return this.keys[ThreadLocalRandom.current().nextInt(this.keys.length)];
+		}
+	}
+
+}
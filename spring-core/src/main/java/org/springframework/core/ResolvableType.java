@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.SerializableTypeWrapper.FieldTypeProvider;
 import org.springframework.core.SerializableTypeWrapper.MethodParameterTypeProvider;
@@ -38,8 +39,8 @@ import org.springframework.core.SerializableTypeWrapper.TypeProvider;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
-import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReadMostlyConcurrentReferenceHashMap;
 import org.springframework.util.StringUtils;
 
 /**
@@ -91,8 +92,19 @@ public class ResolvableType implements Serializable {
 
 	private static final ResolvableType[] EMPTY_TYPES_ARRAY = new ResolvableType[0];
 
-	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
-			new ConcurrentReferenceHashMap<>(256);
+	/**
+	 * Maximum number of classes per type for which {@link #isAssignableFrom(Class)}
+	 * results are cached.
+	 */
+	private static final int ASSIGNABLE_FROM_CLASSES_CACHE_LIMIT = 64;
+
+	/**
+	 * Cache of resolved types: keyed by {@link Type} or {@link TypeCacheKey} for
+	 * shared instances without a {@link TypeProvider}, and by {@code ResolvableType}
+	 * otherwise.
+	 */
+	private static final ReadMostlyConcurrentReferenceHashMap<Object, ResolvableType> cache =
+			new ReadMostlyConcurrentReferenceHashMap<>(256);
 
 
 	/**
@@ -135,6 +147,18 @@ public class ResolvableType implements Serializable {
 	@Nullable
 	private volatile ResolvableType[] generics;
 
+	@Nullable
+	private transient volatile ResolvableType singleLevelType;
+
+	@Nullable
+	private transient volatile Class<?>[] resolvedGenerics;
+
+	@Nullable
+	private transient volatile AsTypeResult asTypeResult;
+
+	@Nullable
+	private transient volatile Map<Class<?>, Boolean> assignableFromClasses;
+
 
 	/**
 	 * Private constructor used to create a new {@link ResolvableType} for cache key purposes,
@@ -163,7 +187,7 @@ public class ResolvableType implements Serializable {
 		this.typeProvider = typeProvider;
 		this.variableResolver = variableResolver;
 		this.componentType = null;
-		this.hash = hash;
+		this.hash = (hash != null ? hash : calculateHashCode());
 		this.resolved = resolveClass();
 	}
 
@@ -262,7 +286,25 @@ public class ResolvableType implements Serializable {
 	 * @see #isAssignableFrom(ResolvableType)
 	 */
 	public boolean isAssignableFrom(Class<?> other) {
-		return isAssignableFrom(forClass(other), null);
+		if (this == NONE) {
+			return false;
+		}
+		Map<Class<?>, Boolean> assignableFromClasses = this.assignableFromClasses;
+		if (assignableFromClasses == null) {
+			assignableFromClasses = new ConcurrentHashMap<>(4);
+			this.assignableFromClasses = assignableFromClasses;
+		}
+		Boolean assignable = assignableFromClasses.get(other);
+		if (assignable == null) {
+			assignable = isAssignableFrom(forClass(other), null);
+			// 仅缓存不会导致类加载器泄漏的类, 且限制缓存数量
+			Class<?> resolved = resolve();
+			if (resolved != null && ClassUtils.isCacheSafe(other, resolved.getClassLoader()) &&
+					assignableFromClasses.size() < ASSIGNABLE_FROM_CLASSES_CACHE_LIMIT) {
+				assignableFromClasses.put(other, assignable);
+			}
+		}
+		return assignable;
 	}
 
 	/**
@@ -277,6 +319,12 @@ public class ResolvableType implements Serializable {
 	 * {@code ResolvableType}; {@code false} otherwise
 	 */
 	public boolean isAssignableFrom(ResolvableType other) {
+		Assert.notNull(other, "ResolvableType must not be null");
+		// 纯 Class 类型 (无变量解析器) 的判断结果只取决于该 Class, 可复用缓存结果
+		if (other.getClass() == ResolvableType.class && other.type instanceof Class &&
+				other.variableResolver == null && other.componentType == null) {
+			return isAssignableFrom((Class<?>) other.type);
+		}
 		return isAssignableFrom(other, null);
 	}
 
@@ -353,11 +401,14 @@ public class ResolvableType implements Serializable {
 
 		if (checkGenerics) {
 			// Recursively check each generic
-			ResolvableType[] ourGenerics = getGenerics();
-			ResolvableType[] typeGenerics = other.as(ourResolved).getGenerics();
+			ResolvableType[] ourGenerics = obtainGenerics();
+			ResolvableType[] typeGenerics = other.as(ourResolved).obtainGenerics();
 			if (ourGenerics.length != typeGenerics.length) {
 				return false;
 			}
+			if (ourGenerics.length == 0) {
+				return true;
+			}
 			if (matchedBefore == null) {
 				matchedBefore = new IdentityHashMap<>(1);
 			}
@@ -449,6 +500,16 @@ public class ResolvableType implements Serializable {
 		if (resolved == null || resolved == type) {
 			return this;
 		}
+		AsTypeResult asTypeResult = this.asTypeResult;
+		if (asTypeResult != null && asTypeResult.type == type) {
+			return asTypeResult.result;
+		}
+		ResolvableType result = searchAs(type);
+		this.asTypeResult = new AsTypeResult(type, result);
+		return result;
+	}
+
+	private ResolvableType searchAs(Class<?> type) {
 		for (ResolvableType interfaceType : getInterfaces()) {
 			ResolvableType interfaceAsType = interfaceType.as(type);
 			if (interfaceAsType != NONE) {
@@ -507,7 +568,7 @@ public class ResolvableType implements Serializable {
 	 * @see #getGenerics()
 	 */
 	public boolean hasGenerics() {
-		return (getGenerics().length > 0);
+		return (obtainGenerics().length > 0);
 	}
 
 	/**
@@ -518,7 +579,7 @@ public class ResolvableType implements Serializable {
 		if (this == NONE) {
 			return false;
 		}
-		ResolvableType[] generics = getGenerics();
+		ResolvableType[] generics = obtainGenerics();
 		for (ResolvableType generic : generics) {
 			if (!generic.isUnresolvableTypeVariable() && !generic.isWildcardWithoutBounds()) {
 				return false;
@@ -538,7 +599,7 @@ public class ResolvableType implements Serializable {
 		if (this == NONE) {
 			return false;
 		}
-		ResolvableType[] generics = getGenerics();
+		ResolvableType[] generics = obtainGenerics();
 		for (ResolvableType generic : generics) {
 			if (generic.isUnresolvableTypeVariable() || generic.isWildcardWithoutBounds()) {
 				return true;
@@ -635,7 +696,7 @@ public class ResolvableType implements Serializable {
 					result = result.getSuperType();
 				}
 				Integer index = (typeIndexesPerLevel != null ? typeIndexesPerLevel.get(i) : null);
-				index = (index == null ? result.getGenerics().length - 1 : index);
+				index = (index == null ? result.obtainGenerics().length - 1 : index);
 				result = result.getGeneric(index);
 			}
 		}
@@ -660,13 +721,13 @@ public class ResolvableType implements Serializable {
 	 * @see #resolveGenerics()
 	 */
 	public ResolvableType getGeneric(@Nullable int... indexes) {
-		ResolvableType[] generics = getGenerics();
+		ResolvableType[] generics = obtainGenerics();
 		if (indexes == null || indexes.length == 0) {
 			return (generics.length == 0 ? NONE : generics[0]);
 		}
 		ResolvableType generic = this;
 		for (int index : indexes) {
-			generics = generic.getGenerics();
+			generics = generic.obtainGenerics();
 			if (index < 0 || index >= generics.length) {
 				return NONE;
 			}
@@ -689,6 +750,16 @@ public class ResolvableType implements Serializable {
 	 * @see #resolveGenerics()
 	 */
 	public ResolvableType[] getGenerics() {
+		ResolvableType[] generics = obtainGenerics();
+		// 共享实例的泛型数组会被缓存, 返回副本以防止调用方修改
+		return (generics.length > 0 ? generics.clone() : generics);
+	}
+
+	/**
+	 * Return the cached generic parameters of this type, to be used internally
+	 * without a defensive copy.
+	 */
+	ResolvableType[] obtainGenerics() {
 		if (this == NONE) {
 			return EMPTY_TYPES_ARRAY;
 		}
@@ -709,7 +780,7 @@ public class ResolvableType implements Serializable {
 				}
 			}
 			else {
-				generics = resolveType().getGenerics();
+				generics = resolveType().obtainGenerics();
 			}
 			this.generics = generics;
 		}
@@ -725,10 +796,19 @@ public class ResolvableType implements Serializable {
 	 * @see #resolve()
 	 */
 	public Class<?>[] resolveGenerics() {
-		ResolvableType[] generics = getGenerics();
-		Class<?>[] resolvedGenerics = new Class<?>[generics.length];
-		for (int i = 0; i < generics.length; i++) {
-			resolvedGenerics[i] = generics[i].resolve();
+		Class<?>[] resolvedGenerics = obtainResolvedGenerics();
+		return (resolvedGenerics.length > 0 ? resolvedGenerics.clone() : resolvedGenerics);
+	}
+
+	private Class<?>[] obtainResolvedGenerics() {
+		Class<?>[] resolvedGenerics = this.resolvedGenerics;
+		if (resolvedGenerics == null) {
+			ResolvableType[] generics = obtainGenerics();
+			resolvedGenerics = new Class<?>[generics.length];
+			for (int i = 0; i < generics.length; i++) {
+				resolvedGenerics[i] = generics[i].resolve();
+			}
+			this.resolvedGenerics = resolvedGenerics;
 		}
 		return resolvedGenerics;
 	}
@@ -743,12 +823,15 @@ public class ResolvableType implements Serializable {
 	 * @see #resolve()
 	 */
 	public Class<?>[] resolveGenerics(Class<?> fallback) {
-		ResolvableType[] generics = getGenerics();
-		Class<?>[] resolvedGenerics = new Class<?>[generics.length];
-		for (int i = 0; i < generics.length; i++) {
-			resolvedGenerics[i] = generics[i].resolve(fallback);
+		Class<?>[] resolvedGenerics = obtainResolvedGenerics();
+		if (!ObjectUtils.containsElement(resolvedGenerics, null)) {
+			return (resolvedGenerics.length > 0 ? resolvedGenerics.clone() : resolvedGenerics);
 		}
-		return resolvedGenerics;
+		Class<?>[] withFallback = new Class<?>[resolvedGenerics.length];
+		for (int i = 0; i < resolvedGenerics.length; i++) {
+			withFallback[i] = (resolvedGenerics[i] != null ? resolvedGenerics[i] : fallback);
+		}
+		return withFallback;
 	}
 
 	/**
@@ -819,6 +902,15 @@ public class ResolvableType implements Serializable {
 	 * as it cannot be serialized.
 	 */
 	ResolvableType resolveType() {
+		ResolvableType singleLevelType = this.singleLevelType;
+		if (singleLevelType == null) {
+			singleLevelType = doResolveType();
+			this.singleLevelType = singleLevelType;
+		}
+		return singleLevelType;
+	}
+
+	private ResolvableType doResolveType() {
 		if (this.type instanceof ParameterizedType) {
 			return forType(((ParameterizedType) this.type).getRawType(), this.variableResolver);
 		}
@@ -975,7 +1067,7 @@ public class ResolvableType implements Serializable {
 			}
 		}
 		if (hasGenerics()) {
-			return this.resolved.getName() + '<' + StringUtils.arrayToDelimitedString(getGenerics(), ", ") + '>';
+			return this.resolved.getName() + '<' + StringUtils.arrayToDelimitedString(obtainGenerics(), ", ") + '>';
 		}
 		return this.resolved.getName();
 	}
@@ -1012,7 +1104,7 @@ public class ResolvableType implements Serializable {
 	public static ResolvableType forRawClass(@Nullable Class<?> clazz) {
 		return new ResolvableType(clazz) {
 			@Override
-			public ResolvableType[] getGenerics() {
+			ResolvableType[] obtainGenerics() {
 				return EMPTY_TYPES_ARRAY;
 			}
 			@Override
@@ -1419,11 +1511,29 @@ public class ResolvableType implements Serializable {
 			return new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
 		}
 
+		// 第二部分
+		// Without a type provider, equal instances are interchangeable: share the cached
+		// instance itself, including its lazily resolved supertypes and generics...
+		if (typeProvider == null) {
+			Object key = (variableResolver != null ? new TypeCacheKey(type, variableResolver.getSource()) : type);
+			ResolvableType cachedType = cache.get(key);
+			if (cachedType == null) {
+				// Purge empty entries on miss since we don't have a clean-up thread or the like.
+				cache.purgeUnreferencedEntries();
+				cachedType = new ResolvableType(type, null, variableResolver, (Integer) null);
+				ResolvableType existing = cache.putIfAbsent(key, cachedType);
+				if (existing != null) {
+					cachedType = existing;
+				}
+			}
+			return cachedType;
+		}
+
 		// Purge empty entries on access since we don't have a clean-up thread or the like.
 		cache.purgeUnreferencedEntries();
 
-		// 第二部分
 		// Check the cache - we may have a ResolvableType which has been resolved before...
+		// A fresh instance is returned since its type provider determines its source.
 		ResolvableType resultType = new ResolvableType(type, typeProvider, variableResolver);
 		ResolvableType cachedType = cache.get(resultType);
 		if (cachedType == null) {
@@ -1522,6 +1632,60 @@ public class ResolvableType implements Serializable {
 	}
 
 
+	/**
+	 * Cache key for a {@link Type} resolved against a {@link VariableResolver},
+	 * avoiding the creation of a {@code ResolvableType} for lookups.
+	 */
+	private static final class TypeCacheKey {
+
+		private final Type type;
+
+		private final Object resolverSource;
+
+		private final int hash;
+
+		TypeCacheKey(Type type, Object resolverSource) {
+			this.type = type;
+			this.resolverSource = resolverSource;
+			this.hash = 31 * type.hashCode() + ObjectUtils.nullSafeHashCode(resolverSource);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof TypeCacheKey)) {
+				return false;
+			}
+			TypeCacheKey otherKey = (TypeCacheKey) other;
+			return (this.type.equals(otherKey.type) &&
+					ObjectUtils.nullSafeEquals(this.resolverSource, otherKey.resolverSource));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+
+
+	/**
+	 * The most recent result of {@link ResolvableType#as(Class)}.
+	 */
+	private static final class AsTypeResult {
+
+		final Class<?> type;
+
+		final ResolvableType result;
+
+		AsTypeResult(Class<?> type, ResolvableType result) {
+			this.type = type;
+			this.result = result;
+		}
+	}
+
+
 	private static final class SyntheticParameterizedType implements ParameterizedType, Serializable {
 
 		private final Type rawType;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -1289,6 +1289,38 @@ public abstract class AnnotationUtils {
 	public static void clearCache() {
 		AnnotationTypeMappings.clearCache();
 		AnnotationsScanner.clearCache();
+		TypeMappedAnnotations.clearCache();
+	}
+
+	/**
+	 * Eagerly populate the internal annotation metadata cache for the given
+	 * classes and their user-declared methods, for the
+	 * {@link SearchStrategy#INHERITED_ANNOTATIONS INHERITED_ANNOTATIONS} and
+	 * {@link SearchStrategy#TYPE_HIERARCHY TYPE_HIERARCHY} search strategies.
+	 * <p>Subsequent hierarchy searches on these elements do not walk the class
+	 * and method hierarchies again. This is intended for a set of classes known
+	 * ahead of time, e.g. the component classes recorded at build time, so that
+	 * the hierarchy walks can happen once and off the critical path.
+	 * @param classes the classes to preload
+	 * @since 5.3
+	 * @see #clearCache()
+	 */
+	public static void preloadCache(Class<?>... classes) {
+		SearchStrategy[] searchStrategies = {SearchStrategy.INHERITED_ANNOTATIONS, SearchStrategy.TYPE_HIERARCHY};
+		for (Class<?> clazz : classes) {
+			try {
+				Method[] methods = ReflectionUtils.getUniqueDeclaredMethods(clazz, ReflectionUtils.USER_DECLARED_METHODS);
+				for (SearchStrategy searchStrategy : searchStrategies) {
+					AnnotationsScanner.preload(clazz, searchStrategy);
+					for (Method method : methods) {
+						AnnotationsScanner.preload(method, searchStrategy);
+					}
+				}
+			}
+			catch (Throwable ex) {
+				handleIntrospectionFailure(clazz, ex);
+			}
+		}
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,7 +21,10 @@ import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiPredicate;
 
@@ -30,8 +33,8 @@ import org.springframework.core.Ordered;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
 import org.springframework.lang.Nullable;
-import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReadMostlyConcurrentReferenceHashMap;
 import org.springframework.util.ReflectionUtils;
 
 /**
@@ -51,10 +54,20 @@ abstract class AnnotationsScanner {
 
 
 	private static final Map<AnnotatedElement, Annotation[]> declaredAnnotationCache =
-			new ConcurrentReferenceHashMap<>(256);
+			new ReadMostlyConcurrentReferenceHashMap<>(256);
 
 	private static final Map<Class<?>, Method[]> baseTypeMethodsCache =
-			new ConcurrentReferenceHashMap<>(256);
+			new ReadMostlyConcurrentReferenceHashMap<>(256);
+
+	private static final Map<SearchStrategy, Map<AnnotatedElement, ScannedAnnotations>> scannedAnnotationsCache;
+
+	static {
+		Map<SearchStrategy, Map<AnnotatedElement, ScannedAnnotations>> cache = new EnumMap<>(SearchStrategy.class);
+		for (SearchStrategy searchStrategy : SearchStrategy.values()) {
+			cache.put(searchStrategy, new ReadMostlyConcurrentReferenceHashMap<>(256));
+		}
+		scannedAnnotationsCache = cache;
+	}
 
 
 	private AnnotationsScanner() {
@@ -75,7 +88,19 @@ abstract class AnnotationsScanner {
 	static <C, R> R scan(C context, AnnotatedElement source, SearchStrategy searchStrategy,
 			AnnotationsProcessor<C, R> processor) {
 
-		return scan(context, source, searchStrategy, processor, null);
+		if (!isCacheable(source, searchStrategy)) {
+			return scan(context, source, searchStrategy, processor, null);
+		}
+		ScannedAnnotations scanned = getScannedAnnotations(source, searchStrategy);
+		R result;
+		try {
+			result = scanned.replay(context, processor);
+		}
+		catch (Throwable ex) {
+			AnnotationUtils.handleIntrospectionFailure(source, ex);
+			result = null;
+		}
+		return processor.finish(result);
 	}
 
 	/**
@@ -465,6 +490,42 @@ abstract class AnnotationsScanner {
 		return null;
 	}
 
+	/**
+	 * Determine whether the scan of the given element is worth caching: only
+	 * searches that walk a class or method hierarchy are recorded.
+	 */
+	private static boolean isCacheable(AnnotatedElement source, SearchStrategy searchStrategy) {
+		return (searchStrategy != SearchStrategy.DIRECT && (source instanceof Class || source instanceof Method));
+	}
+
+	/**
+	 * Return the recorded annotations of a full scan of the given element,
+	 * performing and caching the scan if necessary.
+	 */
+	private static ScannedAnnotations getScannedAnnotations(AnnotatedElement source, SearchStrategy searchStrategy) {
+		Map<AnnotatedElement, ScannedAnnotations> cache = scannedAnnotationsCache.get(searchStrategy);
+		ScannedAnnotations scanned = cache.get(source);
+		if (scanned == null) {
+			ScanRecorder recorder = new ScanRecorder();
+			process(recorder, source, searchStrategy, recorder, null);
+			scanned = recorder.toScannedAnnotations();
+			cache.put(source, scanned);
+		}
+		return scanned;
+	}
+
+	/**
+	 * Eagerly scan the hierarchy of the given element for the given search
+	 * strategy, so that subsequent scans are served from the cache.
+	 * @param source the source element to scan
+	 * @param searchStrategy the search strategy to use
+	 */
+	static void preload(AnnotatedElement source, SearchStrategy searchStrategy) {
+		if (isCacheable(source, searchStrategy) && !isKnownEmpty(source, searchStrategy)) {
+			getScannedAnnotations(source, searchStrategy);
+		}
+	}
+
 	private static <C, R> Annotation[] getDeclaredAnnotations(C context,
 			AnnotatedElement source, @Nullable BiPredicate<C, Class<?>> classFilter, boolean copy) {
 
@@ -583,6 +644,95 @@ abstract class AnnotationsScanner {
 	static void clearCache() {
 		declaredAnnotationCache.clear();
 		baseTypeMethodsCache.clear();
+		scannedAnnotationsCache.values().forEach(Map::clear);
+	}
+
+
+	/**
+	 * The annotations presented to an {@link AnnotationsProcessor} by a full
+	 * scan of an element's hierarchy, in order. Replaying them yields the same
+	 * processor callbacks as the original scan, without walking the class or
+	 * method hierarchy again.
+	 */
+	private static final class ScannedAnnotations {
+
+		private final int[] aggregateIndexes;
+
+		private final Object[] sources;
+
+		/** The annotations per callback, {@code null} for {@code doWithAggregate}. */
+		private final Annotation[][] annotations;
+
+		ScannedAnnotations(int[] aggregateIndexes, Object[] sources, Annotation[][] annotations) {
+			this.aggregateIndexes = aggregateIndexes;
+			this.sources = sources;
+			this.annotations = annotations;
+		}
+
+		@Nullable
+		<C, R> R replay(C context, AnnotationsProcessor<C, R> processor) {
+			for (int i = 0; i < this.aggregateIndexes.length; i++) {
+				Annotation[] annotations = this.annotations[i];
+				R result = (annotations != null ?
+						processor.doWithAnnotations(context, this.aggregateIndexes[i], this.sources[i], annotations) :
+						processor.doWithAggregate(context, this.aggregateIndexes[i]));
+				if (result != null) {
+					return result;
+				}
+			}
+			return null;
+		}
+	}
+
+
+	/**
+	 * {@link AnnotationsProcessor} that records every callback of a full scan.
+	 */
+	private static final class ScanRecorder implements AnnotationsProcessor<Object, Object> {
+
+		private final List<Integer> aggregateIndexes = new ArrayList<>();
+
+		private final List<Object> sources = new ArrayList<>();
+
+		private final List<Annotation[]> annotations = new ArrayList<>();
+
+		@Override
+		@Nullable
+		public Object doWithAggregate(Object context, int aggregateIndex) {
+			record(aggregateIndex, null, null);
+			return null;
+		}
+
+		@Override
+		@Nullable
+		public Object doWithAnnotations(Object context, int aggregateIndex,
+				@Nullable Object source, Annotation[] annotations) {
+
+			// 仅记录包含有效注解的回调, 全部为 null 的数组不会产生任何处理结果
+			for (Annotation annotation : annotations) {
+				if (annotation != null) {
+					record(aggregateIndex, source, annotations);
+					break;
+				}
+			}
+			return null;
+		}
+
+		private void record(int aggregateIndex, @Nullable Object source, @Nullable Annotation[] annotations) {
+			this.aggregateIndexes.add(aggregateIndex);
+			this.sources.add(source);
+			this.annotations.add(annotations);
+		}
+
+		ScannedAnnotations toScannedAnnotations() {
+			int size = this.aggregateIndexes.size();
+			int[] aggregateIndexes = new int[size];
+			for (int i = 0; i < size; i++) {
+				aggregateIndexes[i] = this.aggregateIndexes.get(i);
+			}
+			return new ScannedAnnotations(aggregateIndexes, this.sources.toArray(),
+					this.annotations.toArray(new Annotation[size][]));
+		}
 	}
 
 }
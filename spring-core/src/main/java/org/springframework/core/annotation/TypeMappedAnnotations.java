@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,18 +18,23 @@ package org.springframework.core.annotation;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.springframework.lang.Nullable;
+import org.springframework.util.ReadMostlyConcurrentReferenceHashMap;
 
 /**
  * {@link MergedAnnotations} implementation that searches for and adapts
@@ -46,6 +51,13 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 	static final MergedAnnotations NONE = new TypeMappedAnnotations(
 			null, new Annotation[0], RepeatableContainers.none(), AnnotationFilter.ALL);
 
+	/**
+	 * Cache of shared instances for hierarchy searches, which also retain the
+	 * results of their lookups. Soft references keep it memory bounded.
+	 */
+	private static final Map<CacheKey, TypeMappedAnnotations> sharedCache =
+			new ReadMostlyConcurrentReferenceHashMap<>(256);
+
 
 	@Nullable
 	private final Object source;
@@ -66,9 +78,21 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 	@Nullable
 	private volatile List<Aggregate> aggregates;
 
+	/** Results of {@code isPresent} lookups, only retained by shared instances. */
+	@Nullable
+	private final Map<Object, Boolean> presentCache;
+
+	/** Results of {@code isDirectlyPresent} lookups, only retained by shared instances. */
+	@Nullable
+	private final Map<Object, Boolean> directlyPresentCache;
+
+	/** Results of unconditional {@code get} lookups, only retained by shared instances. */
+	@Nullable
+	private final Map<Object, MergedAnnotation<?>> mergedAnnotationCache;
+
 
 	private TypeMappedAnnotations(AnnotatedElement element, SearchStrategy searchStrategy,
-			RepeatableContainers repeatableContainers, AnnotationFilter annotationFilter) {
+			RepeatableContainers repeatableContainers, AnnotationFilter annotationFilter, boolean shared) {
 
 		this.source = element;
 		this.element = element;
@@ -76,6 +100,9 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		this.annotations = null;
 		this.repeatableContainers = repeatableContainers;
 		this.annotationFilter = annotationFilter;
+		this.presentCache = (shared ? new ConcurrentHashMap<>(8) : null);
+		this.directlyPresentCache = (shared ? new ConcurrentHashMap<>(8) : null);
+		this.mergedAnnotationCache = (shared ? new ConcurrentHashMap<>(8) : null);
 	}
 
 	private TypeMappedAnnotations(@Nullable Object source, Annotation[] annotations,
@@ -87,6 +114,9 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		this.annotations = annotations;
 		this.repeatableContainers = repeatableContainers;
 		this.annotationFilter = annotationFilter;
+		this.presentCache = null;
+		this.directlyPresentCache = null;
+		this.mergedAnnotationCache = null;
 	}
 
 
@@ -95,8 +125,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		if (this.annotationFilter.matches(annotationType)) {
 			return false;
 		}
-		return Boolean.TRUE.equals(scan(annotationType,
-				IsPresent.get(this.repeatableContainers, this.annotationFilter, false)));
+		return isPresent(annotationType, false);
 	}
 
 	@Override
@@ -104,8 +133,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		if (this.annotationFilter.matches(annotationType)) {
 			return false;
 		}
-		return Boolean.TRUE.equals(scan(annotationType,
-				IsPresent.get(this.repeatableContainers, this.annotationFilter, false)));
+		return isPresent(annotationType, false);
 	}
 
 	@Override
@@ -113,8 +141,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		if (this.annotationFilter.matches(annotationType)) {
 			return false;
 		}
-		return Boolean.TRUE.equals(scan(annotationType,
-				IsPresent.get(this.repeatableContainers, this.annotationFilter, true)));
+		return isPresent(annotationType, true);
 	}
 
 	@Override
@@ -122,8 +149,20 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		if (this.annotationFilter.matches(annotationType)) {
 			return false;
 		}
-		return Boolean.TRUE.equals(scan(annotationType,
-				IsPresent.get(this.repeatableContainers, this.annotationFilter, true)));
+		return isPresent(annotationType, true);
+	}
+
+	private boolean isPresent(Object annotationType, boolean directOnly) {
+		Map<Object, Boolean> cache = (directOnly ? this.directlyPresentCache : this.presentCache);
+		Boolean present = (cache != null ? cache.get(annotationType) : null);
+		if (present == null) {
+			present = Boolean.TRUE.equals(scan(annotationType,
+					IsPresent.get(this.repeatableContainers, this.annotationFilter, directOnly)));
+			if (cache != null) {
+				cache.put(annotationType, present);
+			}
+		}
+		return present;
 	}
 
 	@Override
@@ -146,9 +185,7 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		if (this.annotationFilter.matches(annotationType)) {
 			return MergedAnnotation.missing();
 		}
-		MergedAnnotation<A> result = scan(annotationType,
-				new MergedAnnotationFinder<>(annotationType, predicate, selector));
-		return (result != null ? result : MergedAnnotation.missing());
+		return find(annotationType, predicate, selector);
 	}
 
 	@Override
@@ -171,9 +208,28 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		if (this.annotationFilter.matches(annotationType)) {
 			return MergedAnnotation.missing();
 		}
-		MergedAnnotation<A> result = scan(annotationType,
-				new MergedAnnotationFinder<>(annotationType, predicate, selector));
-		return (result != null ? result : MergedAnnotation.missing());
+		return find(annotationType, predicate, selector);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <A extends Annotation> MergedAnnotation<A> find(Object annotationType,
+			@Nullable Predicate<? super MergedAnnotation<A>> predicate,
+			@Nullable MergedAnnotationSelector<A> selector) {
+
+		// 只有无条件的查找结果可以缓存
+		Map<Object, MergedAnnotation<?>> cache =
+				(predicate == null && selector == null ? this.mergedAnnotationCache : null);
+		MergedAnnotation<A> result = (cache != null ? (MergedAnnotation<A>) cache.get(annotationType) : null);
+		if (result == null) {
+			result = scan(annotationType, new MergedAnnotationFinder<>(annotationType, predicate, selector));
+			if (result == null) {
+				result = MergedAnnotation.missing();
+			}
+			if (cache != null) {
+				cache.put(annotationType, result);
+			}
+		}
+		return result;
 	}
 
 	@Override
@@ -251,7 +307,32 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		if (AnnotationsScanner.isKnownEmpty(element, searchStrategy)) {
 			return NONE;
 		}
-		return new TypeMappedAnnotations(element, searchStrategy, repeatableContainers, annotationFilter);
+		if (!isShareable(element, searchStrategy, annotationFilter)) {
+			return new TypeMappedAnnotations(element, searchStrategy, repeatableContainers, annotationFilter, false);
+		}
+		CacheKey key = new CacheKey(element, searchStrategy, repeatableContainers, annotationFilter);
+		TypeMappedAnnotations annotations = sharedCache.get(key);
+		if (annotations == null) {
+			annotations = new TypeMappedAnnotations(element, searchStrategy, repeatableContainers, annotationFilter, true);
+			sharedCache.put(key, annotations);
+		}
+		return annotations;
+	}
+
+	/**
+	 * Determine whether instances for the given arguments may be shared: the
+	 * search must walk a class or method hierarchy, and the filter must have
+	 * value-based equality (arbitrary lambdas would never produce a cache hit).
+	 */
+	private static boolean isShareable(AnnotatedElement element, SearchStrategy searchStrategy,
+			AnnotationFilter annotationFilter) {
+
+		return (searchStrategy != SearchStrategy.DIRECT && (element instanceof Class || element instanceof Method) &&
+				(annotationFilter instanceof PackagesAnnotationFilter || annotationFilter == AnnotationFilter.NONE));
+	}
+
+	static void clearCache() {
+		sharedCache.clear();
 	}
 
 	static MergedAnnotations from(@Nullable Object source, Annotation[] annotations,
@@ -491,6 +572,46 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 	}
 
 
+	private static final class CacheKey {
+
+		private final AnnotatedElement element;
+
+		private final SearchStrategy searchStrategy;
+
+		private final RepeatableContainers repeatableContainers;
+
+		private final AnnotationFilter annotationFilter;
+
+		CacheKey(AnnotatedElement element, SearchStrategy searchStrategy,
+				RepeatableContainers repeatableContainers, AnnotationFilter annotationFilter) {
+
+			this.element = element;
+			this.searchStrategy = searchStrategy;
+			this.repeatableContainers = repeatableContainers;
+			this.annotationFilter = annotationFilter;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey otherKey = (CacheKey) other;
+			return (this.element.equals(otherKey.element) && this.searchStrategy == otherKey.searchStrategy &&
+					this.repeatableContainers.equals(otherKey.repeatableContainers) &&
+					this.annotationFilter.equals(otherKey.annotationFilter));
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.element, this.searchStrategy, this.repeatableContainers, this.annotationFilter);
+		}
+	}
+
+
 	private static class Aggregate {
 
 		private final int aggregateIndex;
@@ -16,7 +16,7 @@
 
 package org.springframework.core.codec;
 
-import java.nio.CharBuffer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -50,6 +50,9 @@ import org.springframework.util.MimeTypeUtils;
  * This is to make sure that multibyte characters are decoded properly, and do not cross buffer
  * boundaries. The default delimiters ({@code \n}, {@code \r\n})can be customized.
  *
+ * <p>Each line is decoded directly from the buffer slices it spans, without
+ * joining them into an intermediate buffer first.
+ *
  * <p>Partially inspired by Netty's {@code DelimiterBasedFrameDecoder}.
  *
  * @author Sebastien Deleuze
@@ -93,8 +96,9 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
 		byte[][] delimiterBytes = getDelimiterBytes(mimeType);
+		Charset charset = getCharset(mimeType);
 
-		Flux<DataBuffer> inputFlux = Flux.defer(() -> {
+		return Flux.defer(() -> {
 			DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(delimiterBytes);
 			if (getMaxInMemorySize() != -1) {
 
@@ -111,7 +115,7 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 				return Flux.from(input)
 						.concatMapIterable(buffer -> endFrameAfterDelimiter(buffer, matcher, limiter))
 						.bufferUntil(buffer -> buffer instanceof EndFrameBuffer)
-						.map(buffers -> joinAndStrip(buffers, this.stripDelimiter))
+						.map(buffers -> decodeFrame(buffers, this.stripDelimiter, charset, hints))
 						.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 			}
 			else {
@@ -129,12 +133,10 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 						.doOnNext(cache)
 						.doOnCancel(cache)
 						.bufferUntil(buffer -> buffer instanceof EndFrameBuffer)
-						.map(buffers -> joinAndStrip(buffers, this.stripDelimiter))
+						.map(buffers -> decodeFrame(buffers, this.stripDelimiter, charset, hints))
 						.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 			}
 		});
-
-		return super.decode(inputFlux, elementType, mimeType, hints);
 	}
 
 	private byte[][] getDelimiterBytes(@Nullable MimeType mimeType) {
@@ -152,14 +154,22 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
 		Charset charset = getCharset(mimeType);
-		CharBuffer charBuffer = charset.decode(dataBuffer.asByteBuffer());
-		DataBufferUtils.release(dataBuffer);
-		String value = charBuffer.toString();
+		String value;
+		try {
+			value = decodeString(dataBuffer, dataBuffer.readableByteCount(), charset);
+		}
+		finally {
+			DataBufferUtils.release(dataBuffer);
+		}
+		logValue(value, hints);
+		return value;
+	}
+
+	private void logValue(String value, @Nullable Map<String, Object> hints) {
 		LogFormatUtils.traceDebug(logger, traceOn -> {
 			String formatted = LogFormatUtils.formatValue(value, !traceOn);
 			return Hints.getLogPrefix(hints) + "Decoded " + formatted;
 		});
-		return value;
 	}
 
 	private static Charset getCharset(@Nullable MimeType mimeType) {
@@ -223,33 +233,75 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 	}
 
 	/**
-	 * Joins the given list of buffers. If the list ends with a {@link EndFrameBuffer}, it is
-	 * removed. If {@code stripDelimiter} is {@code true} and the resulting buffer ends with
-	 * a delimiter, it is removed.
-	 * @param dataBuffers the data buffers to join
+	 * Decode the given list of buffers into a single {@code String}, copying the
+	 * bytes at most once. If the list ends with a {@link EndFrameBuffer}, it is
+	 * removed, and if {@code stripDelimiter} is {@code true} the delimiter that
+	 * ends the frame is left out. All buffers are released.
+	 * @param dataBuffers the data buffers of the frame
 	 * @param stripDelimiter whether to strip the delimiter
-	 * @return the joined buffer
+	 * @param charset the charset to decode with
+	 * @param hints the hints for logging
+	 * @return the decoded frame
 	 */
-	private static DataBuffer joinAndStrip(List<DataBuffer> dataBuffers,
-			boolean stripDelimiter) {
+	private String decodeFrame(List<DataBuffer> dataBuffers, boolean stripDelimiter,
+			Charset charset, @Nullable Map<String, Object> hints) {
 
 		Assert.state(!dataBuffers.isEmpty(), "DataBuffers should not be empty");
 
-		byte[] matchingDelimiter = null;
-
+		int delimiterLength = 0;
 		int lastIdx = dataBuffers.size() - 1;
 		DataBuffer lastBuffer = dataBuffers.get(lastIdx);
 		if (lastBuffer instanceof EndFrameBuffer) {
-			matchingDelimiter = ((EndFrameBuffer) lastBuffer).delimiter();
+			if (stripDelimiter) {
+				delimiterLength = ((EndFrameBuffer) lastBuffer).delimiter().length;
+			}
 			dataBuffers.remove(lastIdx);
 		}
 
-		DataBuffer result = dataBuffers.get(0).factory().join(dataBuffers);
+		String value;
+		try {
+			int length = -delimiterLength;
+			for (DataBuffer dataBuffer : dataBuffers) {
+				length += dataBuffer.readableByteCount();
+			}
+			if (dataBuffers.size() == 1) {
+				// 常见情况: 整行位于同一个缓冲区中, 直接从切片解码
+				value = decodeString(dataBuffers.get(0), length, charset);
+			}
+			else {
+				// 分隔符可能跨越缓冲区, 因此按总长度截取
+				byte[] bytes = new byte[length];
+				int offset = 0;
+				for (DataBuffer dataBuffer : dataBuffers) {
+					int count = Math.min(dataBuffer.readableByteCount(), length - offset);
+					dataBuffer.read(bytes, offset, count);
+					offset += count;
+				}
+				value = new String(bytes, charset);
+			}
+		}
+		finally {
+			dataBuffers.forEach(DataBufferUtils::release);
+		}
+		logValue(value, hints);
+		return value;
+	}
 
-		if (stripDelimiter && matchingDelimiter != null) {
-			result.writePosition(result.writePosition() - matchingDelimiter.length);
+	/**
+	 * Decode the first {@code length} readable bytes of the given buffer,
+	 * reading straight from the backing array if there is one.
+	 */
+	private static String decodeString(DataBuffer dataBuffer, int length, Charset charset) {
+		if (length == 0) {
+			return "";
 		}
-		return result;
+		ByteBuffer byteBuffer = dataBuffer.asByteBuffer(dataBuffer.readPosition(), length);
+		if (byteBuffer.hasArray()) {
+			return new String(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), length, charset);
+		}
+		byte[] bytes = new byte[length];
+		byteBuffer.get(bytes);
+		return new String(bytes, charset);
 	}
 
 
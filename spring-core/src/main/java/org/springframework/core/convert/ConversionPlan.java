@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * A conversion from a fixed source type to a fixed target type, resolved once by
+ * a {@link ConversionService} and reusable for any number of source objects.
+ *
+ * <p>Plans are thread-safe. They reflect the converters registered at the time
+ * they were obtained; callers should therefore not hold on to a plan across
+ * changes to the converter registry.
+ *
+ * @since 5.3
+ * @see ConversionService#getConversionPlan(TypeDescriptor, TypeDescriptor)
+ */
+@FunctionalInterface
+public interface ConversionPlan {
+
+	/**
+	 * Convert the given {@code source}, an instance of the source type this plan
+	 * was obtained for, to the target type.
+	 * @param source the source object to convert (may be {@code null})
+	 * @return the converted object, an instance of the target type
+	 * @throws ConversionException if a conversion exception occurred
+	 * @throws IllegalArgumentException if the source object is not an instance
+	 * of the source type
+	 */
+	@Nullable
+	Object convert(@Nullable Object source);
+
+}
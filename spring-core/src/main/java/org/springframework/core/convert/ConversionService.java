@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.core.convert;
 
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * A service interface for type conversion. This is the entry point into the convert system.
@@ -97,4 +98,29 @@ public interface ConversionService {
 	@Nullable
 	Object convert(@Nullable Object source, @Nullable TypeDescriptor sourceType, TypeDescriptor targetType);
 
+	/**
+	 * Return a reusable plan for converting objects of {@code sourceType} to the
+	 * specified {@code targetType}.
+	 * <p>Callers converting many values between the same pair of types, such as
+	 * data binders, may obtain the plan once and apply it to each value.
+	 * The default implementation simply delegates each conversion to
+	 * {@link #convert(Object, TypeDescriptor, TypeDescriptor)}; implementations
+	 * may resolve their converters, including element converters for collection,
+	 * array and map types, ahead of time.
+	 * @param sourceType context about the source type to convert from (required)
+	 * @param targetType context about the target type to convert to (required)
+	 * @return the conversion plan, or {@code null} if no conversion can be performed
+	 * (i.e. if {@link #canConvert(TypeDescriptor, TypeDescriptor)} returns {@code false})
+	 * @throws IllegalArgumentException if {@code sourceType} or {@code targetType} is {@code null}
+	 * @since 5.3
+	 */
+	@Nullable
+	default ConversionPlan getConversionPlan(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		Assert.notNull(sourceType, "Source type to convert from cannot be null");
+		if (!canConvert(sourceType, targetType)) {
+			return null;
+		}
+		return source -> convert(source, sourceType, targetType);
+	}
+
 }
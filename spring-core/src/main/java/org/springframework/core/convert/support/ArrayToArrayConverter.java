@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,9 @@ package org.springframework.core.convert.support;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 import java.util.Set;
 
+import org.springframework.core.convert.ConversionPlan;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.converter.ConditionalGenericConverter;
@@ -36,7 +36,7 @@ import org.springframework.util.ObjectUtils;
  * @author Phillip Webb
  * @since 3.0
  */
-final class ArrayToArrayConverter implements ConditionalGenericConverter {
+final class ArrayToArrayConverter implements ConditionalGenericConverter, CompilableConverter {
 
 	private final CollectionToArrayConverter helperConverter;
 
@@ -62,16 +62,21 @@ final class ArrayToArrayConverter implements ConditionalGenericConverter {
 	@Override
 	@Nullable
 	public Object convert(@Nullable Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+		return compile(sourceType, targetType).convert(source);
+	}
+
+	@Override
+	public ConversionPlan compile(TypeDescriptor sourceType, TypeDescriptor targetType) {
 		if (this.conversionService instanceof GenericConversionService) {
 			TypeDescriptor targetElement = targetType.getElementTypeDescriptor();
 			if (targetElement != null &&
 					((GenericConversionService) this.conversionService).canBypassConvert(
 							sourceType.getElementTypeDescriptor(), targetElement)) {
-				return source;
+				return source -> source;
 			}
 		}
-		List<Object> sourceList = Arrays.asList(ObjectUtils.toObjectArray(source));
-		return this.helperConverter.convert(sourceList, sourceType, targetType);
+		ConversionPlan helperPlan = this.helperConverter.compile(sourceType, targetType);
+		return source -> helperPlan.convert(Arrays.asList(ObjectUtils.toObjectArray(source)));
 	}
 
 }
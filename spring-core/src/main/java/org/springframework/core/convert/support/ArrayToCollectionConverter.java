@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.Set;
 
 import org.springframework.core.CollectionFactory;
+import org.springframework.core.convert.ConversionPlan;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.converter.ConditionalGenericConverter;
@@ -39,7 +40,7 @@ import org.springframework.lang.Nullable;
  * @author Juergen Hoeller
  * @since 3.0
  */
-final class ArrayToCollectionConverter implements ConditionalGenericConverter {
+final class ArrayToCollectionConverter implements ConditionalGenericConverter, CompilableConverter {
 
 	private final ConversionService conversionService;
 
@@ -63,16 +64,30 @@ final class ArrayToCollectionConverter implements ConditionalGenericConverter {
 	@Override
 	@Nullable
 	public Object convert(@Nullable Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+		return compile(sourceType, targetType).convert(source);
+	}
+
+	@Override
+	public ConversionPlan compile(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		TypeDescriptor elementDesc = targetType.getElementTypeDescriptor();
+		ElementConverter elementConverter = (elementDesc != null ? new ElementConverter(this.conversionService,
+				sourceType.getElementTypeDescriptor(), sourceType::elementTypeDescriptor, elementDesc) : null);
+		return source -> convert(source, targetType, elementDesc, elementConverter);
+	}
+
+	@Nullable
+	private Object convert(@Nullable Object source, TypeDescriptor targetType,
+			@Nullable TypeDescriptor elementDesc, @Nullable ElementConverter elementConverter) {
+
 		if (source == null) {
 			return null;
 		}
 
 		int length = Array.getLength(source);
-		TypeDescriptor elementDesc = targetType.getElementTypeDescriptor();
 		Collection<Object> target = CollectionFactory.createCollection(targetType.getType(),
 				(elementDesc != null ? elementDesc.getType() : null), length);
 
-		if (elementDesc == null) {
+		if (elementConverter == null) {
 			for (int i = 0; i < length; i++) {
 				Object sourceElement = Array.get(source, i);
 				target.add(sourceElement);
@@ -81,8 +96,7 @@ final class ArrayToCollectionConverter implements ConditionalGenericConverter {
 		else {
 			for (int i = 0; i < length; i++) {
 				Object sourceElement = Array.get(source, i);
-				Object targetElement = this.conversionService.convert(sourceElement,
-						sourceType.elementTypeDescriptor(sourceElement), elementDesc);
+				Object targetElement = elementConverter.convert(sourceElement);
 				target.add(targetElement);
 			}
 		}
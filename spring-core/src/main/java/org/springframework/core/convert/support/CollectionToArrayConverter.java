@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 
+import org.springframework.core.convert.ConversionPlan;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.converter.ConditionalGenericConverter;
@@ -39,7 +40,7 @@ import org.springframework.util.Assert;
  * @author Juergen Hoeller
  * @since 3.0
  */
-final class CollectionToArrayConverter implements ConditionalGenericConverter {
+final class CollectionToArrayConverter implements ConditionalGenericConverter, CompilableConverter {
 
 	private final ConversionService conversionService;
 
@@ -63,17 +64,30 @@ final class CollectionToArrayConverter implements ConditionalGenericConverter {
 	@Override
 	@Nullable
 	public Object convert(@Nullable Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+		return compile(sourceType, targetType).convert(source);
+	}
+
+	@Override
+	public ConversionPlan compile(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		TypeDescriptor targetElementType = targetType.getElementTypeDescriptor();
+		ElementConverter elementConverter = (targetElementType != null ? new ElementConverter(this.conversionService,
+				sourceType.getElementTypeDescriptor(), sourceType::elementTypeDescriptor, targetElementType) : null);
+		return source -> convert(source, targetElementType, elementConverter);
+	}
+
+	@Nullable
+	private Object convert(@Nullable Object source,
+			@Nullable TypeDescriptor targetElementType, @Nullable ElementConverter elementConverter) {
+
 		if (source == null) {
 			return null;
 		}
 		Collection<?> sourceCollection = (Collection<?>) source;
-		TypeDescriptor targetElementType = targetType.getElementTypeDescriptor();
-		Assert.state(targetElementType != null, "No target element type");
+		Assert.state(targetElementType != null && elementConverter != null, "No target element type");
 		Object array = Array.newInstance(targetElementType.getType(), sourceCollection.size());
 		int i = 0;
 		for (Object sourceElement : sourceCollection) {
-			Object targetElement = this.conversionService.convert(sourceElement,
-					sourceType.elementTypeDescriptor(sourceElement), targetElementType);
+			Object targetElement = elementConverter.convert(sourceElement);
 			Array.set(array, i++, targetElement);
 		}
 		return array;
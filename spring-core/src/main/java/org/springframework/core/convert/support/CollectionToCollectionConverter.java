@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.Set;
 
 import org.springframework.core.CollectionFactory;
+import org.springframework.core.convert.ConversionPlan;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.converter.ConditionalGenericConverter;
@@ -38,7 +39,7 @@ import org.springframework.lang.Nullable;
  * @author Juergen Hoeller
  * @since 3.0
  */
-final class CollectionToCollectionConverter implements ConditionalGenericConverter {
+final class CollectionToCollectionConverter implements ConditionalGenericConverter, CompilableConverter {
 
 	private final ConversionService conversionService;
 
@@ -62,6 +63,21 @@ final class CollectionToCollectionConverter implements ConditionalGenericConvert
 	@Override
 	@Nullable
 	public Object convert(@Nullable Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+		return compile(sourceType, targetType).convert(source);
+	}
+
+	@Override
+	public ConversionPlan compile(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		TypeDescriptor elementDesc = targetType.getElementTypeDescriptor();
+		ElementConverter elementConverter = (elementDesc != null ? new ElementConverter(this.conversionService,
+				sourceType.getElementTypeDescriptor(), sourceType::elementTypeDescriptor, elementDesc) : null);
+		return source -> convert(source, targetType, elementDesc, elementConverter);
+	}
+
+	@Nullable
+	private Object convert(@Nullable Object source, TypeDescriptor targetType,
+			@Nullable TypeDescriptor elementDesc, @Nullable ElementConverter elementConverter) {
+
 		if (source == null) {
 			return null;
 		}
@@ -72,7 +88,6 @@ final class CollectionToCollectionConverter implements ConditionalGenericConvert
 		if (!copyRequired && sourceCollection.isEmpty()) {
 			return source;
 		}
-		TypeDescriptor elementDesc = targetType.getElementTypeDescriptor();
 		if (elementDesc == null && !copyRequired) {
 			return source;
 		}
@@ -81,13 +96,12 @@ final class CollectionToCollectionConverter implements ConditionalGenericConvert
 		Collection<Object> target = CollectionFactory.createCollection(targetType.getType(),
 				(elementDesc != null ? elementDesc.getType() : null), sourceCollection.size());
 
-		if (elementDesc == null) {
+		if (elementConverter == null) {
 			target.addAll(sourceCollection);
 		}
 		else {
 			for (Object sourceElement : sourceCollection) {
-				Object targetElement = this.conversionService.convert(sourceElement,
-						sourceType.elementTypeDescriptor(sourceElement), elementDesc);
+				Object targetElement = elementConverter.convert(sourceElement);
 				target.add(targetElement);
 				if (sourceElement != targetElement) {
 					copyRequired = true;
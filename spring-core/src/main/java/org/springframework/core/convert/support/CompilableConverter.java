@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.core.convert.support;
+
+import org.springframework.core.convert.ConversionPlan;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.GenericConverter;
+
+/**
+ * Internal extension of {@link GenericConverter} for converters that can be
+ * specialized for a given pair of types, typically by resolving the conversion
+ * of collection, array or map elements once per element type.
+ *
+ * @since 5.3
+ * @see GenericConversionService#getConversionPlan
+ */
+interface CompilableConverter extends GenericConverter {
+
+	/**
+	 * Compile this converter for the given source and target type.
+	 * <p>The returned plan performs the same conversion as
+	 * {@link #convert(Object, TypeDescriptor, TypeDescriptor)} with these types.
+	 * @param sourceType the type descriptor of the source objects
+	 * @param targetType the type descriptor of the target objects
+	 * @return the compiled conversion
+	 */
+	ConversionPlan compile(TypeDescriptor sourceType, TypeDescriptor targetType);
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.core.convert.support;
+
+import java.util.function.Function;
+
+import org.springframework.core.convert.ConversionPlan;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.lang.Nullable;
+
+/**
+ * Converts the elements of a collection, array or map to a given target type.
+ *
+ * <p>The {@link ConversionPlan} for an element is resolved once per element type
+ * rather than once per element, so converting a homogeneous collection resolves
+ * a single plan.
+ *
+ * @since 5.3
+ * @see ConversionService#getConversionPlan
+ */
+final class ElementConverter {
+
+	private final ConversionService conversionService;
+
+	@Nullable
+	private final TypeDescriptor sourceType;
+
+	private final Function<Object, TypeDescriptor> sourceTypeResolver;
+
+	private final TypeDescriptor targetType;
+
+	@Nullable
+	private volatile ElementPlan lastPlan;
+
+
+	/**
+	 * Create a new element converter.
+	 * @param conversionService the conversion service to resolve element plans with
+	 * @param sourceType the declared element type of the source, if any
+	 * @param sourceTypeResolver the function narrowing the declared element type
+	 * to the runtime type of a given element
+	 * @param targetType the element type to convert to
+	 */
+	ElementConverter(ConversionService conversionService, @Nullable TypeDescriptor sourceType,
+			Function<Object, TypeDescriptor> sourceTypeResolver, TypeDescriptor targetType) {
+
+		this.conversionService = conversionService;
+		this.sourceType = sourceType;
+		this.sourceTypeResolver = sourceTypeResolver;
+		this.targetType = targetType;
+	}
+
+
+	/**
+	 * Convert the given element to the target element type.
+	 * @param element the source element (may be {@code null})
+	 * @return the converted element
+	 */
+	@Nullable
+	public Object convert(@Nullable Object element) {
+		if (element == null) {
+			return this.conversionService.convert(null, this.sourceType, this.targetType);
+		}
+		ElementPlan plan = this.lastPlan;
+		if (plan == null || plan.elementClass != element.getClass()) {
+			// 元素类型变化: 按运行时类型重新获取转换计划
+			plan = new ElementPlan(element.getClass(), this.sourceTypeResolver.apply(element));
+			this.lastPlan = plan;
+		}
+		return plan.convert(element);
+	}
+
+
+	/**
+	 * Conversion plan for elements of a specific runtime type.
+	 */
+	private final class ElementPlan {
+
+		final Class<?> elementClass;
+
+		private final TypeDescriptor sourceType;
+
+		@Nullable
+		private final ConversionPlan plan;
+
+		ElementPlan(Class<?> elementClass, TypeDescriptor sourceType) {
+			this.elementClass = elementClass;
+			this.sourceType = sourceType;
+			this.plan = conversionService.getConversionPlan(sourceType, targetType);
+		}
+
+		@Nullable
+		Object convert(Object element) {
+			if (this.plan != null) {
+				return this.plan.convert(element);
+			}
+			// 没有转换器: 由转换服务决定直接返回元素或抛出 ConverterNotFoundException
+			return conversionService.convert(element, this.sourceType, targetType);
+		}
+	}
+
+}
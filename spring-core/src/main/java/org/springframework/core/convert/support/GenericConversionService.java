@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ import org.springframework.core.DecoratingProxy;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.convert.ConversionException;
 import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.core.convert.ConversionPlan;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.ConverterNotFoundException;
 import org.springframework.core.convert.TypeDescriptor;
@@ -45,7 +46,7 @@ import org.springframework.core.convert.converter.GenericConverter.ConvertiblePa
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
-import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReadMostlyConcurrentReferenceHashMap;
 import org.springframework.util.StringUtils;
 
 /**
@@ -75,6 +76,12 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 */
 	private static final GenericConverter NO_MATCH = new NoOpConverter("NO_MATCH");
 
+	/**
+	 * Used as a cache entry when no conversion plan is available.
+	 * This plan is never returned.
+	 */
+	private static final ConversionPlan NO_PLAN = source -> source;
+
 
 	/**
 	 * 转换器集合
@@ -86,7 +93,20 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 * key: 转换器缓存key
 	 * value: 转换器
 	 */
-	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
+	private final Map<ConverterCacheKey, GenericConverter> converterCache =
+			new ReadMostlyConcurrentReferenceHashMap<>(64);
+
+	/**
+	 * 转换计划缓存, 与转换器缓存同时失效
+	 */
+	private final Map<ConverterCacheKey, ConversionPlan> conversionPlanCache =
+			new ReadMostlyConcurrentReferenceHashMap<>(64);
+
+	/**
+	 * 子类是否覆盖了 convert 方法, 此时转换计划委托给该方法
+	 */
+	private final boolean customConvert = ClassUtils.getMethod(getClass(), "convert",
+			Object.class, TypeDescriptor.class, TypeDescriptor.class).getDeclaringClass() != GenericConversionService.class;
 
 
 	// ConverterRegistry implementation
@@ -220,6 +240,46 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return handleConverterNotFound(source, sourceType, targetType);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>This implementation resolves the converter for the given types once, and
+	 * caches the resulting plan until the converter registry changes. For the
+	 * default collection, array and map converters, the plan additionally resolves
+	 * the conversion of the elements once per element type rather than per element.
+	 * <p>Plans rely on {@link #getConverter(TypeDescriptor, TypeDescriptor)}. If a
+	 * subclass overrides {@link #convert(Object, TypeDescriptor, TypeDescriptor)}
+	 * itself, the returned plan delegates each conversion to that method instead.
+	 * @since 5.3
+	 */
+	@Override
+	@Nullable
+	public ConversionPlan getConversionPlan(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		Assert.notNull(sourceType, "Source type to convert from cannot be null");
+		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (this.customConvert) {
+			if (!canConvert(sourceType, targetType)) {
+				return null;
+			}
+			return source -> convert(source, sourceType, targetType);
+		}
+		ConverterCacheKey key = new ConverterCacheKey(sourceType, targetType);
+		ConversionPlan plan = this.conversionPlanCache.get(key);
+		if (plan == null) {
+			GenericConverter converter = getConverter(sourceType, targetType);
+			if (converter != null) {
+				// 可编译的转换器 (集合/数组/Map) 预先准备元素转换
+				ConversionPlan compiled = (converter instanceof CompilableConverter ?
+						((CompilableConverter) converter).compile(sourceType, targetType) : null);
+				plan = new ConverterConversionPlan(converter, compiled, sourceType, targetType);
+			}
+			else {
+				plan = NO_PLAN;
+			}
+			this.conversionPlanCache.put(key, plan);
+		}
+		return (plan != NO_PLAN ? plan : null);
+	}
+
 	/**
 	 * Convenience operation for converting a source object to the specified targetType,
 	 * where the target type is a descriptor that provides additional conversion context.
@@ -337,6 +397,7 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private void invalidateCache() {
 		this.converterCache.clear();
+		this.conversionPlanCache.clear();
 	}
 
 	@Nullable
@@ -426,6 +487,62 @@ public class GenericConversionService implements ConfigurableConversionService {
 		}
 	}
 
+	/**
+	 * Conversion plan for a converter resolved ahead of time.
+	 */
+	private final class ConverterConversionPlan implements ConversionPlan {
+
+		private final GenericConverter converter;
+
+		@Nullable
+		private final ConversionPlan compiledConverter;
+
+		private final TypeDescriptor sourceType;
+
+		private final TypeDescriptor targetType;
+
+		public ConverterConversionPlan(GenericConverter converter, @Nullable ConversionPlan compiledConverter,
+				TypeDescriptor sourceType, TypeDescriptor targetType) {
+
+			this.converter = converter;
+			this.compiledConverter = compiledConverter;
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+		}
+
+		@Override
+		@Nullable
+		public Object convert(@Nullable Object source) {
+			if (source != null && !this.sourceType.getObjectType().isInstance(source)) {
+				throw new IllegalArgumentException("Source to convert from must be an instance of [" +
+						this.sourceType + "]; instead it was a [" + source.getClass().getName() + "]");
+			}
+			Object result;
+			if (this.compiledConverter != null) {
+				// 与 ConversionUtils.invokeConverter 一致的异常包装
+				try {
+					result = this.compiledConverter.convert(source);
+				}
+				catch (ConversionFailedException ex) {
+					throw ex;
+				}
+				catch (Throwable ex) {
+					throw new ConversionFailedException(this.sourceType, this.targetType, source, ex);
+				}
+			}
+			else {
+				result = ConversionUtils.invokeConverter(this.converter, source, this.sourceType, this.targetType);
+			}
+			return handleResult(this.sourceType, this.targetType, result);
+		}
+
+		@Override
+		public String toString() {
+			return ("ConversionPlan [sourceType = " + this.sourceType +
+					", targetType = " + this.targetType + ", converter = " + this.converter + "]");
+		}
+	}
+
 	/**
 	 * Manages all converters registered with the service.
 	 * 转换器集合
@@ -774,7 +891,7 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 * Adapts a {@link ConverterFactory} to a {@link GenericConverter}.
 	 */
 	@SuppressWarnings("unchecked")
-	private final class ConverterFactoryAdapter implements ConditionalGenericConverter {
+	private final class ConverterFactoryAdapter implements ConditionalGenericConverter, CompilableConverter {
 
 		/**
 		 * convert 工厂
@@ -825,6 +942,14 @@ public class GenericConversionService implements ConfigurableConversionService {
 			return this.converterFactory.getConverter(targetType.getObjectType()).convert(source);
 		}
 
+		@Override
+		public ConversionPlan compile(TypeDescriptor sourceType, TypeDescriptor targetType) {
+			// 目标类型固定: 工厂只需创建一次转换器
+			Converter<Object, Object> converter =
+					this.converterFactory.getConverter((Class<Object>) targetType.getObjectType());
+			return source -> (source != null ? converter.convert(source) : convertNullSource(sourceType, targetType));
+		}
+
 		@Override
 		public String toString() {
 			return (this.typeInfo + " : " + this.converterFactory);
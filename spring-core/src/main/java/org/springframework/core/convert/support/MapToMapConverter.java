@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.springframework.core.CollectionFactory;
+import org.springframework.core.convert.ConversionPlan;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.converter.ConditionalGenericConverter;
@@ -40,7 +41,7 @@ import org.springframework.lang.Nullable;
  * @author Juergen Hoeller
  * @since 3.0
  */
-final class MapToMapConverter implements ConditionalGenericConverter {
+final class MapToMapConverter implements ConditionalGenericConverter, CompilableConverter {
 
 	private final ConversionService conversionService;
 
@@ -61,9 +62,27 @@ final class MapToMapConverter implements ConditionalGenericConverter {
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
 	@Nullable
 	public Object convert(@Nullable Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+		return compile(sourceType, targetType).convert(source);
+	}
+
+	@Override
+	public ConversionPlan compile(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		TypeDescriptor keyDesc = targetType.getMapKeyTypeDescriptor();
+		TypeDescriptor valueDesc = targetType.getMapValueTypeDescriptor();
+		ElementConverter keyConverter = (keyDesc != null ? new ElementConverter(this.conversionService,
+				sourceType.getMapKeyTypeDescriptor(), sourceType::getMapKeyTypeDescriptor, keyDesc) : null);
+		ElementConverter valueConverter = (valueDesc != null ? new ElementConverter(this.conversionService,
+				sourceType.getMapValueTypeDescriptor(), sourceType::getMapValueTypeDescriptor, valueDesc) : null);
+		return source -> convert(source, targetType, keyDesc, keyConverter, valueConverter);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Nullable
+	private Object convert(@Nullable Object source, TypeDescriptor targetType, @Nullable TypeDescriptor keyDesc,
+			@Nullable ElementConverter keyConverter, @Nullable ElementConverter valueConverter) {
+
 		if (source == null) {
 			return null;
 		}
@@ -74,15 +93,13 @@ final class MapToMapConverter implements ConditionalGenericConverter {
 		if (!copyRequired && sourceMap.isEmpty()) {
 			return sourceMap;
 		}
-		TypeDescriptor keyDesc = targetType.getMapKeyTypeDescriptor();
-		TypeDescriptor valueDesc = targetType.getMapValueTypeDescriptor();
 
 		List<MapEntry> targetEntries = new ArrayList<>(sourceMap.size());
 		for (Map.Entry<Object, Object> entry : sourceMap.entrySet()) {
 			Object sourceKey = entry.getKey();
 			Object sourceValue = entry.getValue();
-			Object targetKey = convertKey(sourceKey, sourceType, keyDesc);
-			Object targetValue = convertValue(sourceValue, sourceType, valueDesc);
+			Object targetKey = (keyConverter != null ? keyConverter.convert(sourceKey) : sourceKey);
+			Object targetValue = (valueConverter != null ? valueConverter.convert(sourceValue) : sourceValue);
 			targetEntries.add(new MapEntry(targetKey, targetValue));
 			if (sourceKey != targetKey || sourceValue != targetValue) {
 				copyRequired = true;
@@ -114,22 +131,6 @@ final class MapToMapConverter implements ConditionalGenericConverter {
 				targetType.getMapValueTypeDescriptor(), this.conversionService);
 	}
 
-	@Nullable
-	private Object convertKey(Object sourceKey, TypeDescriptor sourceType, @Nullable TypeDescriptor targetType) {
-		if (targetType == null) {
-			return sourceKey;
-		}
-		return this.conversionService.convert(sourceKey, sourceType.getMapKeyTypeDescriptor(sourceKey), targetType);
-	}
-
-	@Nullable
-	private Object convertValue(Object sourceValue, TypeDescriptor sourceType, @Nullable TypeDescriptor targetType) {
-		if (targetType == null) {
-			return sourceValue;
-		}
-		return this.conversionService.convert(sourceValue, sourceType.getMapValueTypeDescriptor(sourceValue), targetType);
-	}
-
 
 	private static class MapEntry {
 
@@ -18,7 +18,9 @@ package org.springframework.core.env;
 
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -41,6 +43,13 @@ import org.springframework.util.SystemPropertyUtils;
  */
 public abstract class AbstractPropertyResolver implements ConfigurablePropertyResolver {
 
+	/**
+	 * Maximum number of fully resolved placeholder strings cached per helper
+	 * when {@link #isCacheResolvedPlaceholders()} is enabled.
+	 */
+	private static final int RESOLVED_PLACEHOLDER_CACHE_LIMIT = 1024;
+
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final Set<String> requiredProperties = new LinkedHashSet<>();
@@ -63,6 +72,12 @@ public abstract class AbstractPropertyResolver implements ConfigurablePropertyRe
 	@Nullable
 	private PropertyPlaceholderHelper strictHelper;
 
+	/**
+	 * 已完全解析的占位符缓存, 仅在 {@link #isCacheResolvedPlaceholders()} 为 true 时使用
+	 */
+	@Nullable
+	private volatile ResolvedPlaceholders resolvedPlaceholders;
+
 	/**
 	 * 遇到无法解析的占位符是否需要抛出异常
 	 */
@@ -222,7 +237,7 @@ public abstract class AbstractPropertyResolver implements ConfigurablePropertyRe
 		if (this.nonStrictHelper == null) {
 			this.nonStrictHelper = createPlaceholderHelper(true);
 		}
-		return doResolvePlaceholders(text, this.nonStrictHelper);
+		return doResolvePlaceholders(text, this.nonStrictHelper, false);
 	}
 
 	@Override
@@ -230,7 +245,7 @@ public abstract class AbstractPropertyResolver implements ConfigurablePropertyRe
 		if (this.strictHelper == null) {
 			this.strictHelper = createPlaceholderHelper(false);
 		}
-		return doResolvePlaceholders(text, this.strictHelper);
+		return doResolvePlaceholders(text, this.strictHelper, true);
 	}
 
 	/**
@@ -255,10 +270,70 @@ public abstract class AbstractPropertyResolver implements ConfigurablePropertyRe
 				this.valueSeparator, ignoreUnresolvablePlaceholders);
 	}
 
-	private String doResolvePlaceholders(String text, PropertyPlaceholderHelper helper) {
+	private String doResolvePlaceholders(String text, PropertyPlaceholderHelper helper, boolean strict) {
+		if (isCacheResolvedPlaceholders()) {
+			ResolvedPlaceholders resolved = this.resolvedPlaceholders;
+			if (resolved == null) {
+				resolved = new ResolvedPlaceholders();
+				this.resolvedPlaceholders = resolved;
+			}
+			Map<String, String> cache = (strict ? resolved.strict : resolved.nonStrict);
+			String cached = cache.get(text);
+			if (cached != null) {
+				return cached;
+			}
+			// 只有所有占位符都可缓存时才缓存解析结果
+			boolean[] cacheable = {true};
+			String result = helper.replacePlaceholders(text, placeholderName -> {
+				if (cacheable[0] && !isCacheResolvedPlaceholder(placeholderName)) {
+					cacheable[0] = false;
+				}
+				return getPropertyAsRawString(placeholderName);
+			});
+			if (cacheable[0] && !result.equals(text)) {
+				if (cache.size() >= RESOLVED_PLACEHOLDER_CACHE_LIMIT) {
+					cache.clear();
+				}
+				cache.put(text, result);
+			}
+			return result;
+		}
 		return helper.replacePlaceholders(text, this::getPropertyAsRawString);
 	}
 
+	/**
+	 * Return whether fully resolved placeholder strings may be cached, i.e. whether
+	 * {@link #getPropertyAsRawString} is known to return the same values until
+	 * {@link #clearResolvedPlaceholderCache()} is called.
+	 * <p>The default implementation returns {@code false}.
+	 * @since 5.3
+	 */
+	protected boolean isCacheResolvedPlaceholders() {
+		return false;
+	}
+
+	/**
+	 * Return whether a fully resolved placeholder string that refers to the given
+	 * property may be cached, i.e. whether {@link #getPropertyAsRawString} is known
+	 * to return the same value for it until {@link #clearResolvedPlaceholderCache()}
+	 * is called. Only consulted if {@link #isCacheResolvedPlaceholders()} is enabled.
+	 * <p>The default implementation returns {@code true}.
+	 * @param key the property name referenced by a placeholder
+	 * @since 5.3
+	 */
+	protected boolean isCacheResolvedPlaceholder(String key) {
+		return true;
+	}
+
+	/**
+	 * Clear the cache of fully resolved placeholder strings.
+	 * @since 5.3
+	 * @see #isCacheResolvedPlaceholders()
+	 */
+	protected void clearResolvedPlaceholderCache() {
+		this.resolvedPlaceholders = null;
+	}
+
 	/**
 	 * Convert the given value to the specified target type, if necessary.
 	 * @param value the original property value
@@ -300,4 +375,17 @@ public abstract class AbstractPropertyResolver implements ConfigurablePropertyRe
 	@Nullable
 	protected abstract String getPropertyAsRawString(String key);
 
+
+
+	/**
+	 * Fully resolved placeholder strings, separately for the strict and the
+	 * non-strict helper since unresolvable placeholders are handled differently.
+	 */
+	private static class ResolvedPlaceholders {
+
+		final Map<String, String> nonStrict = new ConcurrentHashMap<>(64);
+
+		final Map<String, String> strict = new ConcurrentHashMap<>(64);
+	}
+
 }
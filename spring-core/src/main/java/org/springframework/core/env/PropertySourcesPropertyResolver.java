@@ -16,12 +16,24 @@
 
 package org.springframework.core.env;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.SpringProperties;
 import org.springframework.lang.Nullable;
 
 /**
  * {@link PropertyResolver} implementation that resolves property values against
  * an underlying set of {@link PropertySources}.
  *
+ * <p>Against {@link MutablePropertySources}, an optional index mode (see
+ * {@link #setUsePropertyIndex}) replaces the search through all property sources
+ * with a lookup in a precedence-respecting snapshot of their property names.
+ *
  * @author Chris Beams
  * @author Juergen Hoeller
  * @since 3.1
@@ -31,12 +43,33 @@ import org.springframework.lang.Nullable;
  */
 public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
+	/**
+	 * System property that instructs Spring to resolve properties against an index
+	 * of the property names of all {@link EnumerablePropertySource enumerable property
+	 * sources}, i.e. to enable {@link #setUsePropertyIndex} by default.
+	 * <p>The default is "false".
+	 * @since 5.3
+	 */
+	public static final String PROPERTY_INDEX_PROPERTY_NAME = "spring.env.property-index";
+
+
 	/**
 	 * {@link PropertySource} 的 集合对象
 	 */
 	@Nullable
 	private final PropertySources propertySources;
 
+	/**
+	 * 是否使用属性名称索引
+	 */
+	private volatile boolean usePropertyIndex = SpringProperties.getFlag(PROPERTY_INDEX_PROPERTY_NAME);
+
+	/**
+	 * 属性名称索引, 在 {@link MutablePropertySources} 结构变化后重建
+	 */
+	@Nullable
+	private volatile PropertyIndex propertyIndex;
+
 
 	/**
 	 * Create a new resolver against the given property sources.
@@ -47,8 +80,58 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 	}
 
 
+	/**
+	 * Specify whether to resolve properties against an index of the property names
+	 * of all enumerable property sources instead of searching through the property
+	 * sources one by one. Only applies to {@link MutablePropertySources}.
+	 * <p>The index is a snapshot: it is rebuilt whenever property sources are added,
+	 * removed or replaced, and values are always read from the property source
+	 * holding the key, but property names added to an existing property source in
+	 * place are only visible after {@link #clearPropertyIndex()}. Fully resolved
+	 * placeholder strings are cached for the lifetime of the index as well, but
+	 * only if every property they refer to is determined by the index alone:
+	 * placeholders for properties that may come from a property source that
+	 * cannot be indexed (e.g. random values or system environment variables)
+	 * are resolved again on every call.
+	 * <p>Property sources that cannot be indexed (non-enumerable ones and
+	 * {@link CompositePropertySource}) are still queried in order of precedence;
+	 * {@link SystemEnvironmentPropertySource} names are indexed in their relaxed
+	 * form, upper-cased and with dots and hyphens replaced by underscores.
+	 * <p>Default is "false", unless the "spring.env.property-index" system
+	 * property has been set to "true".
+	 * @since 5.3
+	 * @see #PROPERTY_INDEX_PROPERTY_NAME
+	 */
+	public void setUsePropertyIndex(boolean usePropertyIndex) {
+		this.usePropertyIndex = usePropertyIndex;
+		clearPropertyIndex();
+	}
+
+	/**
+	 * Return whether to resolve properties against an index of property names.
+	 * @since 5.3
+	 */
+	public boolean isUsePropertyIndex() {
+		return this.usePropertyIndex;
+	}
+
+	/**
+	 * Discard the current property index as well as cached placeholder resolutions,
+	 * e.g. after modifying the content of a property source in place.
+	 * @since 5.3
+	 * @see #setUsePropertyIndex
+	 */
+	public void clearPropertyIndex() {
+		this.propertyIndex = null;
+		clearResolvedPlaceholderCache();
+	}
+
 	@Override
 	public boolean containsProperty(String key) {
+		PropertyIndex index = getPropertyIndex();
+		if (index != null) {
+			return (index.findPosition(key) != -1);
+		}
 		if (this.propertySources != null) {
 			for (PropertySource<?> propertySource : this.propertySources) {
 				if (propertySource.containsProperty(key)) {
@@ -79,6 +162,37 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
 	@Nullable
 	protected <T> T getProperty(String key, Class<T> targetValueType, boolean resolveNestedPlaceholders) {
+		PropertyIndex index = getPropertyIndex();
+		if (index != null) {
+			Integer indexed = index.positions.get(key);
+			int position = (indexed != null ? indexed : index.propertySources.length);
+			// 只需查询优先级高于索引位置且可能包含该属性的属性源
+			for (int probe : index.probePositions) {
+				if (probe >= position) {
+					break;
+				}
+				if (index.mayContain(probe, key)) {
+					PropertySource<?> propertySource = index.propertySources[probe];
+					Object value = propertySource.getProperty(key);
+					if (value != null) {
+						return resolveValue(key, propertySource, value, targetValueType, resolveNestedPlaceholders);
+					}
+				}
+			}
+			if (indexed == null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Could not find key '" + key + "' in any property source");
+				}
+				return null;
+			}
+			PropertySource<?> propertySource = index.propertySources[position];
+			Object value = propertySource.getProperty(key);
+			if (value != null) {
+				return resolveValue(key, propertySource, value, targetValueType, resolveNestedPlaceholders);
+			}
+			// 属性已从属性源中移除: 丢弃索引并退回逐个查找
+			clearPropertyIndex();
+		}
 		if (this.propertySources != null) {
 			// 循环
 			for (PropertySource<?> propertySource : this.propertySources) {
@@ -89,16 +203,7 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 				// 获取对象结果
 				Object value = propertySource.getProperty(key);
 				if (value != null) {
-					// 是否需要处理嵌套
-					// 是否是 string 类型
-					if (resolveNestedPlaceholders && value instanceof String) {
-						// 嵌套获取数据
-						value = resolveNestedPlaceholders((String) value);
-					}
-					// 日志
-					logKeyFound(key, propertySource, value);
-					// 类型转换
-					return convertValueIfNecessary(value, targetValueType);
+					return resolveValue(key, propertySource, value, targetValueType, resolveNestedPlaceholders);
 				}
 			}
 		}
@@ -108,6 +213,22 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		return null;
 	}
 
+	@Nullable
+	private <T> T resolveValue(String key, PropertySource<?> propertySource, Object value,
+			Class<T> targetValueType, boolean resolveNestedPlaceholders) {
+
+		// 是否需要处理嵌套
+		// 是否是 string 类型
+		if (resolveNestedPlaceholders && value instanceof String) {
+			// 嵌套获取数据
+			value = resolveNestedPlaceholders((String) value);
+		}
+		// 日志
+		logKeyFound(key, propertySource, value);
+		// 类型转换
+		return convertValueIfNecessary(value, targetValueType);
+	}
+
 	/**
 	 * Log the given key as found in the given {@link PropertySource}, resulting in
 	 * the given value.
@@ -127,4 +248,169 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		}
 	}
 
+	@Override
+	protected boolean isCacheResolvedPlaceholders() {
+		return (getPropertyIndex() != null);
+	}
+
+	@Override
+	protected boolean isCacheResolvedPlaceholder(String key) {
+		PropertyIndex index = getPropertyIndex();
+		return (index != null && !index.mayProbe(key));
+	}
+
+	/**
+	 * Return the current property index, rebuilding it if the property sources
+	 * have been modified, or {@code null} if the index mode does not apply.
+	 */
+	@Nullable
+	private PropertyIndex getPropertyIndex() {
+		if (!this.usePropertyIndex || !(this.propertySources instanceof MutablePropertySources)) {
+			return null;
+		}
+		MutablePropertySources propertySources = (MutablePropertySources) this.propertySources;
+		// 先读取修改次数再构建, 构建期间的修改会在下一次查找时触发重建
+		int modificationCount = propertySources.getModificationCount();
+		PropertyIndex index = this.propertyIndex;
+		if (index == null || index.modificationCount != modificationCount) {
+			clearResolvedPlaceholderCache();
+			index = new PropertyIndex(propertySources, modificationCount);
+			this.propertyIndex = index;
+		}
+		return index;
+	}
+
+
+	/**
+	 * Immutable snapshot of the property names of a {@link MutablePropertySources}
+	 * instance, mapping each name to the position of the property source with the
+	 * highest precedence that contains it.
+	 */
+	private static final class PropertyIndex {
+
+		final int modificationCount;
+
+		final PropertySource<?>[] propertySources;
+
+		/**
+		 * 属性名称 -> 可枚举属性源位置 (按优先级取第一个)
+		 */
+		final Map<String, Integer> positions = new HashMap<>(256);
+
+		/**
+		 * 需要逐个查询的属性源位置 (不可枚举的属性源及系统环境变量属性源), 按优先级排列
+		 */
+		final int[] probePositions;
+
+		/**
+		 * 系统环境变量属性源的宽松名称, 其他属性源为 {@code null}
+		 */
+		private final List<Set<String>> relaxedNames;
+
+		PropertyIndex(MutablePropertySources propertySources, int modificationCount) {
+			this.modificationCount = modificationCount;
+			List<PropertySource<?>> sources = new ArrayList<>(propertySources.size());
+			for (PropertySource<?> propertySource : propertySources) {
+				sources.add(propertySource);
+			}
+			this.propertySources = sources.toArray(new PropertySource<?>[0]);
+			this.relaxedNames = new ArrayList<>(this.propertySources.length);
+			List<Integer> probes = new ArrayList<>();
+			for (int i = 0; i < this.propertySources.length; i++) {
+				PropertySource<?> propertySource = this.propertySources[i];
+				String[] names = getPropertyNames(propertySource);
+				Set<String> relaxed = null;
+				if (names == null) {
+					probes.add(i);
+				}
+				else if (propertySource instanceof SystemEnvironmentPropertySource) {
+					relaxed = new HashSet<>(names.length * 2);
+					for (String name : names) {
+						relaxed.add(relaxedName(name));
+					}
+					probes.add(i);
+				}
+				else {
+					for (String name : names) {
+						this.positions.putIfAbsent(name, i);
+					}
+				}
+				this.relaxedNames.add(relaxed);
+			}
+			this.probePositions = new int[probes.size()];
+			for (int i = 0; i < this.probePositions.length; i++) {
+				this.probePositions[i] = probes.get(i);
+			}
+		}
+
+		/**
+		 * Return the position of the property source with the highest precedence
+		 * that contains the given key, or {@code -1} if none.
+		 */
+		int findPosition(String key) {
+			Integer indexed = this.positions.get(key);
+			int position = (indexed != null ? indexed : this.propertySources.length);
+			for (int probe : this.probePositions) {
+				if (probe >= position) {
+					break;
+				}
+				if (mayContain(probe, key) && this.propertySources[probe].containsProperty(key)) {
+					return probe;
+				}
+			}
+			return (indexed != null ? position : -1);
+		}
+
+		/**
+		 * Determine whether looking up the given key may query a property source
+		 * that cannot be indexed, i.e. whether its value is not determined by the
+		 * index alone.
+		 */
+		boolean mayProbe(String key) {
+			Integer indexed = this.positions.get(key);
+			int position = (indexed != null ? indexed : this.propertySources.length);
+			for (int probe : this.probePositions) {
+				if (probe >= position) {
+					break;
+				}
+				if (mayContain(probe, key)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Determine whether the non-indexed property source at the given position
+		 * may contain the given key, i.e. whether it needs to be queried.
+		 */
+		boolean mayContain(int position, String key) {
+			Set<String> relaxed = this.relaxedNames.get(position);
+			return (relaxed == null || relaxed.contains(relaxedName(key)));
+		}
+
+		@Nullable
+		private static String[] getPropertyNames(PropertySource<?> propertySource) {
+			// CompositePropertySource 可能包含宽松匹配的属性源, 不能按名称精确索引
+			if (!(propertySource instanceof EnumerablePropertySource) ||
+					propertySource instanceof CompositePropertySource) {
+				return null;
+			}
+			try {
+				return ((EnumerablePropertySource<?>) propertySource).getPropertyNames();
+			}
+			catch (RuntimeException ex) {
+				return null;
+			}
+		}
+
+		/**
+		 * Every name variant that {@link SystemEnvironmentPropertySource} resolves
+		 * for a given key shares this form with the key.
+		 */
+		private static String relaxedName(String name) {
+			return name.toUpperCase().replace('.', '_').replace('-', '_');
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -566,27 +566,24 @@ public abstract class DataBufferUtils {
 	 */
 	public static Matcher matcher(byte[] delimiter) {
 		Assert.isTrue(delimiter.length > 0, "Delimiter must not be empty");
-		return new KnuthMorrisPrattMatcher(delimiter);
+		return new AhoCorasickMatcher(new byte[][] {delimiter});
 	}
 
 	/** Return a {@link Matcher} for the given delimiters.
 	 * The matcher can be used to find the delimiters in data buffers.
+	 * <p>All delimiters are searched for in a single pass over the buffer. At the
+	 * first position where one or more delimiters end, the longest of those is
+	 * matched, see {@link Matcher#delimiter()}.
 	 * @param delimiters the delimiters bytes to find
 	 * @return the matcher
 	 * @since 5.2
 	 */
 	public static Matcher matcher(byte[]... delimiters) {
 		Assert.isTrue(delimiters.length > 0, "Delimiters must not be empty");
-		if (delimiters.length == 1) {
-			return matcher(delimiters[0]);
-		}
-		else {
-			Matcher[] matchers = new Matcher[delimiters.length];
-			for (int i = 0; i < delimiters.length; i++) {
-				matchers[i] = matcher(delimiters[i]);
-			}
-			return new CompositeMatcher(matchers);
+		for (byte[] delimiter : delimiters) {
+			Assert.isTrue(delimiter.length > 0, "Delimiter must not be empty");
 		}
+		return new AhoCorasickMatcher(delimiters);
 	}
 
 
@@ -888,121 +885,162 @@ public abstract class DataBufferUtils {
 
 
 	/**
-	 * Implementation of {@link Matcher} that uses the Knuth-Morris-Pratt algorithm.
-	 * @see <a href="https://www.nayuki.io/page/knuth-morris-pratt-string-matching">Knuth-Morris-Pratt string matching</a>
+	 * Implementation of {@link Matcher} that finds any of the given delimiters in
+	 * a single pass, using a deterministic Aho-Corasick automaton. For a single
+	 * delimiter this is equivalent to Knuth-Morris-Pratt matching, with the failure
+	 * function folded into the transition table so that each byte costs exactly
+	 * one table lookup.
+	 * <p>Bytes that do not occur in any delimiter share a single input class,
+	 * which keeps the transition table small even for long delimiters.
+	 * @see <a href="https://en.wikipedia.org/wiki/Aho%E2%80%93Corasick_algorithm">Aho-Corasick algorithm</a>
 	 */
-	private static class KnuthMorrisPrattMatcher implements Matcher {
+	private static class AhoCorasickMatcher implements Matcher {
 
-		private final byte[] delimiter;
+		private static final byte[] NO_DELIMITER = new byte[0];
 
-		private final int[] table;
+		private final byte[][] delimiters;
 
-		private int matches = 0;
+		/** Input class per (unsigned) byte value, 0 for bytes not in any delimiter. */
+		private final int[] byteClasses = new int[256];
 
-		public KnuthMorrisPrattMatcher(byte[] delimiter) {
-			this.delimiter = Arrays.copyOf(delimiter, delimiter.length);
-			this.table = longestSuffixPrefixTable(delimiter);
-		}
+		private final int classCount;
+
+		/** Next state, indexed by {@code state * classCount + byteClass}. */
+		private final int[] transitions;
+
+		/** Index of the longest delimiter ending in each state, or -1. */
+		private final int[] outputs;
 
-		private static int[] longestSuffixPrefixTable(byte[] delimiter) {
-			int[] result = new int[delimiter.length];
-			result[0] = 0;
-			for (int i = 1; i < delimiter.length; i++) {
-				int j = result[i - 1];
-				while (j > 0 && delimiter[i] != delimiter[j]) {
-					j = result[j - 1];
+		private int state = 0;
+
+		private byte[] matchedDelimiter = NO_DELIMITER;
+
+		public AhoCorasickMatcher(byte[][] delimiters) {
+			this.delimiters = new byte[delimiters.length][];
+			int classCount = 1;
+			int maxStates = 1;
+			for (int i = 0; i < delimiters.length; i++) {
+				this.delimiters[i] = Arrays.copyOf(delimiters[i], delimiters[i].length);
+				for (byte b : delimiters[i]) {
+					if (this.byteClasses[b & 0xFF] == 0) {
+						this.byteClasses[b & 0xFF] = classCount++;
+					}
+				}
+				maxStates += delimiters[i].length;
+			}
+			this.classCount = classCount;
+
+			// 构建 trie, 缺失的转移以 -1 表示
+			int[] transitions = new int[maxStates * classCount];
+			Arrays.fill(transitions, -1);
+			int[] outputs = new int[maxStates];
+			Arrays.fill(outputs, -1);
+			int stateCount = 1;
+			for (int i = 0; i < this.delimiters.length; i++) {
+				int current = 0;
+				for (byte b : this.delimiters[i]) {
+					int idx = current * classCount + this.byteClasses[b & 0xFF];
+					if (transitions[idx] == -1) {
+						transitions[idx] = stateCount++;
+					}
+					current = transitions[idx];
 				}
-				if (delimiter[i] == delimiter[j]) {
-					j++;
+				if (outputs[current] == -1) {
+					outputs[current] = i;
 				}
-				result[i] = j;
 			}
-			return result;
-		}
-
-		@Override
-		public int match(DataBuffer dataBuffer) {
-			for (int i = dataBuffer.readPosition(); i < dataBuffer.writePosition(); i++) {
-				byte b = dataBuffer.getByte(i);
 
-				while (this.matches > 0 && b != this.delimiter[this.matches]) {
-					this.matches = this.table[this.matches - 1];
+			// 按广度优先顺序计算失败链接, 并将其折叠为完整的状态转移表
+			int[] failures = new int[stateCount];
+			int[] queue = new int[stateCount];
+			int head = 0;
+			int tail = 0;
+			for (int c = 0; c < classCount; c++) {
+				int next = transitions[c];
+				if (next == -1) {
+					transitions[c] = 0;
 				}
-
-				if (b == this.delimiter[this.matches]) {
-					this.matches++;
-					if (this.matches == this.delimiter.length) {
-						reset();
-						return i;
+				else {
+					failures[next] = 0;
+					queue[tail++] = next;
+				}
+			}
+			while (head < tail) {
+				int current = queue[head++];
+				if (outputs[current] == -1) {
+					// 自身不是分隔符的结尾时, 取后缀状态上最长的分隔符
+					outputs[current] = outputs[failures[current]];
+				}
+				for (int c = 0; c < classCount; c++) {
+					int idx = current * classCount + c;
+					int fallback = transitions[failures[current] * classCount + c];
+					if (transitions[idx] == -1) {
+						transitions[idx] = fallback;
+					}
+					else {
+						failures[transitions[idx]] = fallback;
+						queue[tail++] = transitions[idx];
 					}
 				}
 			}
-			return -1;
-		}
-
-		@Override
-		public byte[] delimiter() {
-			return Arrays.copyOf(this.delimiter, this.delimiter.length);
-		}
-
-		@Override
-		public void reset() {
-			this.matches = 0;
-		}
-	}
-
-
-	/**
-	 * Implementation of {@link Matcher} that wraps several other matchers.
-	 */
-	private static class CompositeMatcher implements Matcher {
-
-		private static final byte[] NO_DELIMITER = new byte[0];
-
-		private final Matcher[] matchers;
-
-		byte[] longestDelimiter = NO_DELIMITER;
-
-		public CompositeMatcher(Matcher[] matchers) {
-			this.matchers = matchers;
+			this.transitions = Arrays.copyOf(transitions, stateCount * classCount);
+			this.outputs = Arrays.copyOf(outputs, stateCount);
 		}
 
 		@Override
 		public int match(DataBuffer dataBuffer) {
-			this.longestDelimiter = NO_DELIMITER;
-			int bestEndIdx = Integer.MAX_VALUE;
-
-
-			for (Matcher matcher : this.matchers) {
-				int endIdx = matcher.match(dataBuffer);
-				if (endIdx != -1 &&
-						endIdx <= bestEndIdx &&
-						matcher.delimiter().length > this.longestDelimiter.length) {
-					bestEndIdx = endIdx;
-					this.longestDelimiter = matcher.delimiter();
-				}
-			}
-			if (bestEndIdx == Integer.MAX_VALUE) {
-				this.longestDelimiter = NO_DELIMITER;
+			int readPosition = dataBuffer.readPosition();
+			int length = dataBuffer.writePosition() - readPosition;
+			if (length == 0) {
 				return -1;
 			}
+			ByteBuffer byteBuffer = dataBuffer.asByteBuffer(readPosition, length);
+			int[] byteClasses = this.byteClasses;
+			int[] transitions = this.transitions;
+			int classCount = this.classCount;
+			int current = this.state;
+			if (byteBuffer.hasArray()) {
+				// 堆内存缓冲区: 直接扫描底层数组
+				byte[] array = byteBuffer.array();
+				int offset = byteBuffer.arrayOffset() + byteBuffer.position();
+				for (int i = 0; i < length; i++) {
+					current = transitions[current * classCount + byteClasses[array[offset + i] & 0xFF]];
+					if (this.outputs[current] != -1) {
+						return matched(current, readPosition + i);
+					}
+				}
+			}
 			else {
-				reset();
-				return bestEndIdx;
+				int position = byteBuffer.position();
+				for (int i = 0; i < length; i++) {
+					current = transitions[current * classCount + byteClasses[byteBuffer.get(position + i) & 0xFF]];
+					if (this.outputs[current] != -1) {
+						return matched(current, readPosition + i);
+					}
+				}
 			}
+			this.state = current;
+			return -1;
+		}
+
+		private int matched(int current, int index) {
+			this.matchedDelimiter = this.delimiters[this.outputs[current]];
+			this.state = 0;
+			return index;
 		}
 
 		@Override
 		public byte[] delimiter() {
-			Assert.state(this.longestDelimiter != NO_DELIMITER, "Illegal state!");
-			return this.longestDelimiter;
+			if (this.delimiters.length == 1) {
+				return this.delimiters[0];
+			}
+			Assert.state(this.matchedDelimiter != NO_DELIMITER, "Illegal state!");
+			return this.matchedDelimiter;
 		}
 
 		@Override
 		public void reset() {
-			for (Matcher matcher : this.matchers) {
-				matcher.reset();
-			}
+			this.state = 0;
 		}
 	}
 
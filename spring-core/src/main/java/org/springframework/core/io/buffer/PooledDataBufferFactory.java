@@ -0,0 +1,535 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DataBufferFactory} that recycles the memory of released buffers, for
+ * runtimes that do not provide a pooled allocator of their own (i.e. Servlet
+ * containers and Undertow, as opposed to Reactor Netty).
+ *
+ * <p>Buffers allocated by this factory are {@link PooledDataBuffer}s and need to
+ * be released through {@link DataBufferUtils#release(DataBuffer)}, at which point
+ * their memory is returned to the pool. Capacities are rounded up to a power of
+ * two size class between 256 bytes and the {@linkplain #getMaxPooledCapacity()
+ * maximum pooled capacity}; larger buffers are allocated on demand and left to
+ * the garbage collector. Memory is carved out of 64 KB slabs, cached per thread
+ * (up to 32 KB per size class) and otherwise in a bounded pool shared by all
+ * threads (up to 1 MB per size class). Recycled memory is not cleared.
+ *
+ * <p>{@linkplain #setLeakDetection Leak detection} can be enabled during
+ * development: buffers garbage collected without having been released are then
+ * logged at error level, along with the stack trace of their allocation.
+ * Note that capturing the allocation site slows down allocation considerably.
+ *
+ * <p>{@link #wrap(byte[])} and {@link #wrap(ByteBuffer)} do not involve the pool
+ * and return regular {@link DefaultDataBuffer}s.
+ *
+ * @since 5.3
+ * @see NettyDataBufferFactory
+ */
+public class PooledDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The default maximum capacity of pooled buffers.
+	 * @see #PooledDataBufferFactory(boolean, int, int)
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	private static final int MIN_CHUNK_SHIFT = 8;
+
+	private static final int MAX_CHUNK_SHIFT = 30;
+
+	private static final int SLAB_SIZE = 64 * 1024;
+
+	private static final int THREAD_CACHE_SIZE = 32 * 1024;
+
+	private static final int SHARED_POOL_SIZE = 1024 * 1024;
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+	private static final Log logger = LogFactory.getLog(PooledDataBufferFactory.class);
+
+
+	private final boolean preferDirect;
+
+	private final SizeClass[] sizeClasses;
+
+	private final LongAdder activeBufferCount = new LongAdder();
+
+	@Nullable
+	private volatile LeakDetector leakDetector;
+
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory} with default settings,
+	 * pooling heap buffers.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_POOLED_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled, the capacity to be used for {@link #allocateBuffer()},
+	 * and the maximum capacity of pooled buffers.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity for {@link #allocateBuffer()}
+	 * @param maxPooledCapacity the capacity above which buffers are not pooled,
+	 * rounded up to the next power of two
+	 */
+	public PooledDataBufferFactory(boolean preferDirect, int defaultInitialCapacity, int maxPooledCapacity) {
+		super(preferDirect, defaultInitialCapacity);
+		Assert.isTrue(maxPooledCapacity > 0 && maxPooledCapacity <= (1 << MAX_CHUNK_SHIFT),
+				"'maxPooledCapacity' should be larger than 0 and at most 1 GB");
+		this.preferDirect = preferDirect;
+		int maxChunkShift = Math.max(MIN_CHUNK_SHIFT, chunkShift(maxPooledCapacity));
+		this.sizeClasses = new SizeClass[maxChunkShift - MIN_CHUNK_SHIFT + 1];
+		for (int i = 0; i < this.sizeClasses.length; i++) {
+			this.sizeClasses[i] = new SizeClass(1 << (MIN_CHUNK_SHIFT + i), preferDirect);
+		}
+	}
+
+
+	/**
+	 * Enable or disable the detection of buffers that are garbage collected
+	 * without having been released.
+	 * <p>Only buffers allocated while detection is enabled are tracked.
+	 * Default is {@code false}.
+	 */
+	public void setLeakDetection(boolean leakDetection) {
+		this.leakDetector = (leakDetection ? new LeakDetector() : null);
+	}
+
+	/**
+	 * Return whether leak detection is enabled.
+	 */
+	public boolean isLeakDetection() {
+		return (this.leakDetector != null);
+	}
+
+	/**
+	 * Return the capacity above which buffers are not pooled.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.sizeClasses[this.sizeClasses.length - 1].chunkSize;
+	}
+
+	/**
+	 * Return the number of buffers allocated by this factory that have not
+	 * been released yet.
+	 */
+	public long getActiveBufferCount() {
+		return this.activeBufferCount.sum();
+	}
+
+
+	/**
+	 * Report the leaks detected since the last allocation, and return the
+	 * number of leaks detected so far.
+	 */
+	long reportLeaks() {
+		LeakDetector leakDetector = this.leakDetector;
+		if (leakDetector == null) {
+			return 0;
+		}
+		leakDetector.reportLeaks();
+		return leakDetector.leakCount.sum();
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' should not be negative");
+		PooledBuffer buffer = new PooledBuffer(this, allocateChunk(initialCapacity), initialCapacity);
+		this.activeBufferCount.increment();
+		LeakDetector leakDetector = this.leakDetector;
+		if (leakDetector != null) {
+			buffer.leakRecord = leakDetector.track(buffer);
+		}
+		return buffer;
+	}
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + getMaxPooledCapacity() + ")";
+	}
+
+
+	/**
+	 * Return a chunk with at least the given capacity.
+	 */
+	private ByteBuffer allocateChunk(int capacity) {
+		SizeClass sizeClass = getSizeClass(capacity);
+		if (sizeClass != null) {
+			return sizeClass.allocate();
+		}
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	/**
+	 * Return the given chunk to the pool, unless it was allocated on demand.
+	 */
+	private void recycleChunk(ByteBuffer chunk) {
+		SizeClass sizeClass = getSizeClass(chunk.capacity());
+		if (sizeClass != null && sizeClass.chunkSize == chunk.capacity()) {
+			sizeClass.recycle(chunk);
+		}
+	}
+
+	@Nullable
+	private SizeClass getSizeClass(int capacity) {
+		int index = Math.max(MIN_CHUNK_SHIFT, chunkShift(capacity)) - MIN_CHUNK_SHIFT;
+		return (index < this.sizeClasses.length ? this.sizeClasses[index] : null);
+	}
+
+	/**
+	 * Return the exponent of the smallest power of two not less than the given capacity.
+	 */
+	private static int chunkShift(int capacity) {
+		return (capacity <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(capacity - 1));
+	}
+
+	/**
+	 * Return a view of the given chunk, limited to the given capacity.
+	 */
+	private static ByteBuffer view(ByteBuffer chunk, int capacity) {
+		ByteBuffer view = chunk.duplicate();
+		((Buffer) view).clear().limit(capacity);
+		return view;
+	}
+
+
+	/**
+	 * Pool of chunks of a given size.
+	 */
+	private static final class SizeClass {
+
+		final int chunkSize;
+
+		private final boolean direct;
+
+		private final int threadCacheLimit;
+
+		private final ThreadLocal<ArrayDeque<ByteBuffer>> threadCache = ThreadLocal.withInitial(ArrayDeque::new);
+
+		private final BlockingQueue<ByteBuffer> sharedPool;
+
+		SizeClass(int chunkSize, boolean direct) {
+			this.chunkSize = chunkSize;
+			this.direct = direct;
+			this.threadCacheLimit = Math.max(1, THREAD_CACHE_SIZE / chunkSize);
+			this.sharedPool = new ArrayBlockingQueue<>(Math.max(4, SHARED_POOL_SIZE / chunkSize));
+		}
+
+		ByteBuffer allocate() {
+			ArrayDeque<ByteBuffer> cache = this.threadCache.get();
+			ByteBuffer chunk = cache.pollLast();
+			if (chunk == null) {
+				chunk = this.sharedPool.poll();
+				if (chunk == null) {
+					chunk = allocateSlab(cache);
+				}
+			}
+			return chunk;
+		}
+
+		void recycle(ByteBuffer chunk) {
+			ArrayDeque<ByteBuffer> cache = this.threadCache.get();
+			if (cache.size() < this.threadCacheLimit) {
+				cache.addLast(chunk);
+			}
+			else {
+				// 共享池已满时丢弃, 由垃圾回收器回收
+				this.sharedPool.offer(chunk);
+			}
+		}
+
+		/**
+		 * Allocate a new slab, returning its first chunk and pooling the others.
+		 */
+		private ByteBuffer allocateSlab(ArrayDeque<ByteBuffer> cache) {
+			int slabSize = Math.max(SLAB_SIZE, this.chunkSize);
+			ByteBuffer slab = (this.direct ? ByteBuffer.allocateDirect(slabSize) : ByteBuffer.allocate(slabSize));
+			ByteBuffer first = null;
+			for (int offset = 0; offset < slabSize; offset += this.chunkSize) {
+				((Buffer) slab).limit(offset + this.chunkSize).position(offset);
+				ByteBuffer chunk = slab.slice();
+				if (first == null) {
+					first = chunk;
+				}
+				else if (cache.size() < this.threadCacheLimit) {
+					cache.addLast(chunk);
+				}
+				else if (!this.sharedPool.offer(chunk)) {
+					break;
+				}
+			}
+			return first;
+		}
+	}
+
+
+	/**
+	 * {@link PooledDataBuffer} backed by a chunk of the pool.
+	 */
+	private static final class PooledBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private static final AtomicIntegerFieldUpdater<PooledBuffer> REF_COUNT_UPDATER =
+				AtomicIntegerFieldUpdater.newUpdater(PooledBuffer.class, "refCount");
+
+		private final PooledDataBufferFactory factory;
+
+		private ByteBuffer chunk;
+
+		@Nullable
+		private ByteBuffer nextChunk;
+
+		/**
+		 * Whether the current chunk is shared with slices or byte buffers
+		 * handed out, in which case it must not be recycled while growing.
+		 */
+		private boolean chunkShared;
+
+		private volatile int refCount = 1;
+
+		@Nullable
+		LeakRecord leakRecord;
+
+		PooledBuffer(PooledDataBufferFactory factory, ByteBuffer chunk, int capacity) {
+			super(factory, view(chunk, capacity));
+			this.factory = factory;
+			this.chunk = chunk;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return (this.refCount > 0);
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			while (true) {
+				int refCount = this.refCount;
+				Assert.state(refCount > 0, "DataBuffer has already been released");
+				if (REF_COUNT_UPDATER.compareAndSet(this, refCount, refCount + 1)) {
+					return this;
+				}
+			}
+		}
+
+		@Override
+		public boolean release() {
+			while (true) {
+				int refCount = this.refCount;
+				Assert.state(refCount > 0, "DataBuffer has already been released");
+				if (REF_COUNT_UPDATER.compareAndSet(this, refCount, refCount - 1)) {
+					if (refCount == 1) {
+						deallocate();
+						return true;
+					}
+					return false;
+				}
+			}
+		}
+
+		private void deallocate() {
+			ByteBuffer chunk = this.chunk;
+			// 清空状态, 避免释放后继续访问已回收的内存
+			readPosition(0);
+			writePosition(0);
+			setNativeBuffer(EMPTY_BUFFER);
+			this.chunk = EMPTY_BUFFER;
+			this.factory.recycleChunk(chunk);
+			this.factory.activeBufferCount.decrement();
+			LeakRecord leakRecord = this.leakRecord;
+			if (leakRecord != null) {
+				leakRecord.close();
+				this.leakRecord = null;
+			}
+		}
+
+		@Override
+		ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
+			ByteBuffer nextChunk = this.factory.allocateChunk(capacity);
+			this.nextChunk = nextChunk;
+			return view(nextChunk, capacity).slice();
+		}
+
+		@Override
+		void releaseNativeBuffer(ByteBuffer byteBuffer) {
+			ByteBuffer nextChunk = this.nextChunk;
+			if (nextChunk != null) {
+				// 已被切片引用的块留给垃圾回收器, 只有在整个缓冲区释放后才能回收
+				if (!this.chunkShared) {
+					this.factory.recycleChunk(this.chunk);
+				}
+				this.chunk = nextChunk;
+				this.nextChunk = null;
+				this.chunkShared = false;
+			}
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			this.chunkShared = true;
+			return new PooledSlice(slice, this, length);
+		}
+
+		@Override
+		public ByteBuffer asByteBuffer(int index, int length) {
+			ByteBuffer byteBuffer = super.asByteBuffer(index, length);
+			this.chunkShared = true;
+			return byteBuffer;
+		}
+
+		@Override
+		public InputStream asInputStream(boolean releaseOnClose) {
+			InputStream inputStream = super.asInputStream(releaseOnClose);
+			if (!releaseOnClose) {
+				return inputStream;
+			}
+			return new FilterInputStream(inputStream) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					}
+					finally {
+						DataBufferUtils.release(PooledBuffer.this);
+					}
+				}
+			};
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledBuffer}, sharing the reference count of its parent.
+	 */
+	private static final class PooledSlice extends DefaultDataBuffer.SlicedDefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledBuffer parent;
+
+		PooledSlice(ByteBuffer byteBuffer, PooledBuffer parent, int length) {
+			super(byteBuffer, parent.factory, length);
+			this.parent = parent;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+	}
+
+
+	/**
+	 * Tracks allocated buffers through phantom references, reporting those
+	 * that are garbage collected before having been released.
+	 */
+	private static final class LeakDetector {
+
+		private final ReferenceQueue<PooledBuffer> referenceQueue = new ReferenceQueue<>();
+
+		private final Set<LeakRecord> records = ConcurrentHashMap.newKeySet();
+
+		private final LongAdder leakCount = new LongAdder();
+
+		LeakRecord track(PooledBuffer buffer) {
+			reportLeaks();
+			LeakRecord record = new LeakRecord(buffer, this);
+			this.records.add(record);
+			return record;
+		}
+
+		void reportLeaks() {
+			LeakRecord record;
+			while ((record = (LeakRecord) this.referenceQueue.poll()) != null) {
+				if (this.records.remove(record)) {
+					this.leakCount.increment();
+					logger.error("DataBuffer was garbage collected without having been released " +
+							"(see DataBufferUtils.release); allocated at:", record.allocationSite);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Allocation record of a tracked buffer.
+	 */
+	private static final class LeakRecord extends PhantomReference<PooledBuffer> {
+
+		private final LeakDetector leakDetector;
+
+		final Throwable allocationSite = new Throwable("DataBuffer allocation site");
+
+		LeakRecord(PooledBuffer buffer, LeakDetector leakDetector) {
+			super(buffer, leakDetector.referenceQueue);
+			this.leakDetector = leakDetector;
+		}
+
+		void close() {
+			this.leakDetector.records.remove(this);
+			clear();
+		}
+	}
+
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationStartup} implementation that buffers {@link StartupStep steps}
+ * and records their timestamp as well as their processing time.
+ *
+ * <p>Once recording has been started, steps are buffered up until the configured
+ * {@code capacity}; after that, new steps are not recorded.
+ *
+ * <p>Steps can be filtered by name before they are recorded, see
+ * {@link #addFilter(Predicate)}; rejected steps are replaced by a no-op step so
+ * that instrumented code paths stay unchanged.
+ *
+ * <p>The recorded {@link StartupTimeline} can be retrieved at any time with
+ * {@link #getBufferedTimeline()}, or consumed with {@link #drainBufferedTimeline()}
+ * for export to a monitoring system.
+ *
+ * @since 5.3
+ */
+public class BufferingApplicationStartup implements ApplicationStartup {
+
+	private final int capacity;
+
+	private final Clock clock;
+
+	private final Instant startTime;
+
+	private final AtomicLong idSeq = new AtomicLong();
+
+	private final ThreadLocal<BufferedStartupStep> currentSteps = new ThreadLocal<>();
+
+	private final BlockingQueue<TimelineEvent> events;
+
+	private Predicate<StartupStep> filter = step -> true;
+
+
+	/**
+	 * Create a new buffered {@link ApplicationStartup} with a limited capacity.
+	 * @param capacity the configured capacity; once reached, new steps are not recorded.
+	 */
+	public BufferingApplicationStartup(int capacity) {
+		this(capacity, Clock.systemDefaultZone());
+	}
+
+	BufferingApplicationStartup(int capacity, Clock clock) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+		this.clock = clock;
+		this.startTime = clock.instant();
+		this.events = new LinkedBlockingQueue<>(capacity);
+	}
+
+
+	/**
+	 * Return the configured capacity of the buffer.
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Add a predicate filter to the list of existing ones.
+	 * <p>A {@link StartupStep step} that doesn't match all filters will not be recorded.
+	 * Note that the predicate is evaluated once the step has been named, before any
+	 * tag has been added.
+	 * @param filter the predicate filter to add
+	 */
+	public void addFilter(Predicate<StartupStep> filter) {
+		Assert.notNull(filter, "Filter must not be null");
+		this.filter = this.filter.and(filter);
+	}
+
+	@Override
+	public StartupStep start(String name) {
+		Assert.notNull(name, "Name must not be null");
+		BufferedStartupStep parent = this.currentSteps.get();
+		BufferedStartupStep step = new BufferedStartupStep(
+				parent, name, this.idSeq.getAndIncrement(), this.clock.instant(), this::record);
+		if (!this.filter.test(step)) {
+			return ApplicationStartup.DEFAULT.start(name);
+		}
+		this.currentSteps.set(step);
+		return step;
+	}
+
+	private void record(BufferedStartupStep step) {
+		// 缓冲区已满时直接丢弃, 不阻塞调用线程
+		this.events.offer(new TimelineEvent(step, this.clock.instant()));
+		BufferedStartupStep current = this.currentSteps.get();
+		if (current == step) {
+			// 恢复当前线程的父步骤, 跳过已经结束的步骤
+			BufferedStartupStep parent = step.parent;
+			while (parent != null && parent.isEnded()) {
+				parent = parent.parent;
+			}
+			if (parent != null) {
+				this.currentSteps.set(parent);
+			}
+			else {
+				this.currentSteps.remove();
+			}
+		}
+	}
+
+	/**
+	 * Return the {@link StartupTimeline timeline} as a snapshot of currently buffered steps.
+	 * <p>This will not remove steps from the buffer, see {@link #drainBufferedTimeline()}
+	 * for its counterpart.
+	 */
+	public StartupTimeline getBufferedTimeline() {
+		return new StartupTimeline(this.startTime, new ArrayList<>(this.events));
+	}
+
+	/**
+	 * Return the {@link StartupTimeline timeline} by pulling steps from the buffer.
+	 * <p>This removes steps from the buffer, see {@link #getBufferedTimeline()}
+	 * for its read-only counterpart.
+	 */
+	public StartupTimeline drainBufferedTimeline() {
+		List<TimelineEvent> steps = new ArrayList<>(this.events.size());
+		this.events.drainTo(steps);
+		return new StartupTimeline(this.startTime, steps);
+	}
+
+
+	/**
+	 * Represent the timeline of {@link StartupStep steps} recorded by
+	 * {@link BufferingApplicationStartup}, in the order they ended.
+	 */
+	public static class StartupTimeline {
+
+		private final Instant startTime;
+
+		private final List<TimelineEvent> events;
+
+		StartupTimeline(Instant startTime, List<TimelineEvent> events) {
+			this.startTime = startTime;
+			this.events = Collections.unmodifiableList(events);
+		}
+
+		/**
+		 * Return the start time of this timeline.
+		 */
+		public Instant getStartTime() {
+			return this.startTime;
+		}
+
+		/**
+		 * Return the recorded events.
+		 */
+		public List<TimelineEvent> getEvents() {
+			return this.events;
+		}
+	}
+
+
+	/**
+	 * Event on the current {@link StartupTimeline}.
+	 * <p>This wraps a {@link StartupStep} and records the start and end time.
+	 */
+	public static class TimelineEvent {
+
+		private final BufferedStartupStep step;
+
+		private final Instant endTime;
+
+		TimelineEvent(BufferedStartupStep step, Instant endTime) {
+			this.step = step;
+			this.endTime = endTime;
+		}
+
+		/**
+		 * Return the start time of this event.
+		 */
+		public Instant getStartTime() {
+			return this.step.startTime;
+		}
+
+		/**
+		 * Return the end time of this event.
+		 */
+		public Instant getEndTime() {
+			return this.endTime;
+		}
+
+		/**
+		 * Return the duration of this event, i.e. the processing time of the
+		 * associated {@link StartupStep}.
+		 */
+		public Duration getDuration() {
+			return Duration.between(this.step.startTime, this.endTime);
+		}
+
+		/**
+		 * Return the {@link StartupStep} information for this event.
+		 */
+		public StartupStep getStartupStep() {
+			return this.step;
+		}
+	}
+
+
+	/**
+	 * {@link StartupStep} implementation buffered by {@link BufferingApplicationStartup}.
+	 */
+	private static class BufferedStartupStep implements StartupStep {
+
+		@Nullable
+		private final BufferedStartupStep parent;
+
+		private final String name;
+
+		private final long id;
+
+		private final Instant startTime;
+
+		private final Consumer<BufferedStartupStep> recorder;
+
+		private final List<Tag> tags = new ArrayList<>();
+
+		private volatile boolean ended;
+
+		BufferedStartupStep(@Nullable BufferedStartupStep parent, String name, long id, Instant startTime,
+				Consumer<BufferedStartupStep> recorder) {
+
+			this.parent = parent;
+			this.name = name;
+			this.id = id;
+			this.startTime = startTime;
+			this.recorder = recorder;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return (this.parent != null ? this.parent.id : null);
+		}
+
+		@Override
+		public Tags getTags() {
+			List<Tag> snapshot;
+			synchronized (this.tags) {
+				snapshot = new ArrayList<>(this.tags);
+			}
+			return new BufferedTags(snapshot);
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.notNull(key, "Key must not be null");
+			Assert.notNull(value, "Value must not be null");
+			if (this.ended) {
+				throw new IllegalStateException("StartupStep has already ended.");
+			}
+			synchronized (this.tags) {
+				this.tags.add(new DefaultTag(key, value));
+			}
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public void end() {
+			if (this.ended) {
+				throw new IllegalStateException("StartupStep has already ended.");
+			}
+			this.ended = true;
+			this.recorder.accept(this);
+		}
+
+		boolean isEnded() {
+			return this.ended;
+		}
+
+		@Override
+		public String toString() {
+			return "StartupStep '" + this.name + "' [id=" + this.id + ", parentId=" + getParentId() + "]";
+		}
+	}
+
+
+	private static class BufferedTags implements StartupStep.Tags {
+
+		private final List<StartupStep.Tag> tags;
+
+		BufferedTags(List<StartupStep.Tag> tags) {
+			this.tags = Collections.unmodifiableList(tags);
+		}
+
+		@Override
+		public Iterator<StartupStep.Tag> iterator() {
+			return this.tags.iterator();
+		}
+	}
+
+
+	private static class DefaultTag implements StartupStep.Tag {
+
+		private final String key;
+
+		private final String value;
+
+		DefaultTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+
+		@Override
+		public String toString() {
+			return this.key + '=' + this.value;
+		}
+	}
+
+}
@@ -0,0 +1,607 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * ASM class visitor that records the class file events relevant for
+ * {@link SimpleAnnotationMetadataReadingVisitor} in a compact binary form,
+ * to be replayed later without parsing the class file again.
+ *
+ * <p>Only the class header, outer and inner class entries, runtime-visible
+ * annotations and the runtime-visible annotations of non-bridge methods are
+ * recorded; code, fields and debug information are dropped. Annotation types,
+ * enums and classes are recorded by name and only resolved on replay, so a
+ * replayed visitor produces exactly the same metadata as a visitor driven by
+ * a {@link org.springframework.asm.ClassReader}.
+ *
+ * @since 5.3
+ * @see PersistentCachingMetadataReaderFactory
+ */
+final class ClassMetadataRecorder extends ClassVisitor {
+
+	/**
+	 * Version of the recording format, to be increased on every change.
+	 */
+	static final int FORMAT_VERSION = 1;
+
+	private static final int END = 0;
+
+	private static final int OUTER_CLASS = 1;
+
+	private static final int INNER_CLASS = 2;
+
+	private static final int ANNOTATION = 3;
+
+	private static final int METHOD = 4;
+
+	private static final int VALUE = 1;
+
+	private static final int ENUM = 2;
+
+	private static final int ARRAY = 4;
+
+
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+	private final Output output = new Output(this.bytes);
+
+
+	ClassMetadataRecorder() {
+		super(SpringAsmInfo.ASM_VERSION);
+	}
+
+
+	@Override
+	public void visit(int version, int access, String name, @Nullable String signature,
+			@Nullable String superName, @Nullable String[] interfaces) {
+
+		this.output.writeInt(version);
+		this.output.writeInt(access);
+		this.output.writeString(name);
+		this.output.writeNullableString(superName);
+		this.output.writeInt(interfaces != null ? interfaces.length : 0);
+		if (interfaces != null) {
+			for (String ifc : interfaces) {
+				this.output.writeString(ifc);
+			}
+		}
+	}
+
+	@Override
+	public void visitOuterClass(String owner, @Nullable String name, @Nullable String descriptor) {
+		this.output.writeByte(OUTER_CLASS);
+		this.output.writeString(owner);
+		this.output.writeNullableString(name);
+		this.output.writeNullableString(descriptor);
+	}
+
+	@Override
+	public void visitInnerClass(String name, @Nullable String outerName, @Nullable String innerName, int access) {
+		this.output.writeByte(INNER_CLASS);
+		this.output.writeString(name);
+		this.output.writeNullableString(outerName);
+		this.output.writeNullableString(innerName);
+		this.output.writeInt(access);
+	}
+
+	@Override
+	@Nullable
+	public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+		if (!visible) {
+			return null;
+		}
+		this.output.writeByte(ANNOTATION);
+		this.output.writeString(descriptor);
+		return new AnnotationRecorder(this.output);
+	}
+
+	@Override
+	@Nullable
+	public MethodVisitor visitMethod(int access, String name, String descriptor,
+			@Nullable String signature, @Nullable String[] exceptions) {
+
+		if ((access & Opcodes.ACC_BRIDGE) != 0) {
+			return null;
+		}
+		return new MethodRecorder(access, name, descriptor);
+	}
+
+	@Override
+	public void visitEnd() {
+		this.output.writeByte(END);
+	}
+
+	/**
+	 * Return the recorded events.
+	 */
+	byte[] toByteArray() {
+		return this.bytes.toByteArray();
+	}
+
+
+	/**
+	 * Replay the given recorded events to the given visitor.
+	 * @param recording the events recorded by a {@code ClassMetadataRecorder}
+	 * @param visitor the visitor to drive
+	 * @throws IOException if the recording is corrupt
+	 */
+	static void replay(byte[] recording, ClassVisitor visitor) throws IOException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(recording));
+		int version = input.readInt();
+		int access = input.readInt();
+		String name = input.readUTF();
+		String superName = readNullableString(input);
+		String[] interfaces = new String[input.readInt()];
+		for (int i = 0; i < interfaces.length; i++) {
+			interfaces[i] = input.readUTF();
+		}
+		visitor.visit(version, access, name, null, superName, interfaces);
+		int tag;
+		while ((tag = input.readUnsignedByte()) != END) {
+			switch (tag) {
+				case OUTER_CLASS:
+					visitor.visitOuterClass(input.readUTF(), readNullableString(input), readNullableString(input));
+					break;
+				case INNER_CLASS:
+					visitor.visitInnerClass(input.readUTF(), readNullableString(input),
+							readNullableString(input), input.readInt());
+					break;
+				case ANNOTATION:
+					replayAnnotation(input, visitor.visitAnnotation(input.readUTF(), true));
+					break;
+				case METHOD:
+					replayMethod(input, visitor);
+					break;
+				default:
+					throw new IOException("Unexpected class metadata record: " + tag);
+			}
+		}
+		visitor.visitEnd();
+	}
+
+	private static void replayMethod(DataInputStream input, ClassVisitor visitor) throws IOException {
+		int access = input.readInt();
+		String name = input.readUTF();
+		String descriptor = input.readUTF();
+		MethodVisitor methodVisitor = visitor.visitMethod(access, name, descriptor, null, null);
+		while (input.readUnsignedByte() != END) {
+			String annotationDescriptor = input.readUTF();
+			replayAnnotation(input, (methodVisitor != null ?
+					methodVisitor.visitAnnotation(annotationDescriptor, true) : null));
+		}
+		if (methodVisitor != null) {
+			methodVisitor.visitEnd();
+		}
+	}
+
+	/**
+	 * Replay the attributes of an annotation or array; a {@code null}
+	 * visitor consumes the recorded attributes without visiting them.
+	 */
+	private static void replayAnnotation(DataInputStream input, @Nullable AnnotationVisitor visitor)
+			throws IOException {
+
+		int tag;
+		while ((tag = input.readUnsignedByte()) != END) {
+			String name = readNullableString(input);
+			switch (tag) {
+				case VALUE:
+					Object value = readValue(input);
+					if (visitor != null) {
+						visitor.visit(name, value);
+					}
+					break;
+				case ENUM:
+					String descriptor = input.readUTF();
+					String enumValue = input.readUTF();
+					if (visitor != null) {
+						visitor.visitEnum(name, descriptor, enumValue);
+					}
+					break;
+				case ANNOTATION:
+					String annotationDescriptor = input.readUTF();
+					replayAnnotation(input, (visitor != null ? visitor.visitAnnotation(name, annotationDescriptor) : null));
+					break;
+				case ARRAY:
+					replayAnnotation(input, (visitor != null ? visitor.visitArray(name) : null));
+					break;
+				default:
+					throw new IOException("Unexpected annotation metadata record: " + tag);
+			}
+		}
+		if (visitor != null) {
+			visitor.visitEnd();
+		}
+	}
+
+	private static Object readValue(DataInputStream input) throws IOException {
+		char type = input.readChar();
+		switch (type) {
+			case 's': return input.readUTF();
+			case 'T': return Type.getType(input.readUTF());
+			case 'Z': return input.readBoolean();
+			case 'B': return input.readByte();
+			case 'C': return input.readChar();
+			case 'S': return input.readShort();
+			case 'I': return input.readInt();
+			case 'J': return input.readLong();
+			case 'F': return input.readFloat();
+			case 'D': return input.readDouble();
+			case '[': return readPrimitiveArray(input);
+			default: throw new IOException("Unexpected annotation value type: " + type);
+		}
+	}
+
+	private static Object readPrimitiveArray(DataInputStream input) throws IOException {
+		char componentType = input.readChar();
+		int length = input.readInt();
+		switch (componentType) {
+			case 'Z':
+				boolean[] booleans = new boolean[length];
+				for (int i = 0; i < length; i++) {
+					booleans[i] = input.readBoolean();
+				}
+				return booleans;
+			case 'B':
+				byte[] bytes = new byte[length];
+				input.readFully(bytes);
+				return bytes;
+			case 'C':
+				char[] chars = new char[length];
+				for (int i = 0; i < length; i++) {
+					chars[i] = input.readChar();
+				}
+				return chars;
+			case 'S':
+				short[] shorts = new short[length];
+				for (int i = 0; i < length; i++) {
+					shorts[i] = input.readShort();
+				}
+				return shorts;
+			case 'I':
+				int[] ints = new int[length];
+				for (int i = 0; i < length; i++) {
+					ints[i] = input.readInt();
+				}
+				return ints;
+			case 'J':
+				long[] longs = new long[length];
+				for (int i = 0; i < length; i++) {
+					longs[i] = input.readLong();
+				}
+				return longs;
+			case 'F':
+				float[] floats = new float[length];
+				for (int i = 0; i < length; i++) {
+					floats[i] = input.readFloat();
+				}
+				return floats;
+			case 'D':
+				double[] doubles = new double[length];
+				for (int i = 0; i < length; i++) {
+					doubles[i] = input.readDouble();
+				}
+				return doubles;
+			default:
+				throw new IOException("Unexpected annotation array type: " + componentType);
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream input) throws IOException {
+		return (input.readBoolean() ? input.readUTF() : null);
+	}
+
+
+	/**
+	 * Records the annotations of a single method, only written to the
+	 * class recording if the method has runtime-visible annotations.
+	 */
+	private final class MethodRecorder extends MethodVisitor {
+
+		private final int access;
+
+		private final String name;
+
+		private final String descriptor;
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+		private final Output output = new Output(this.bytes);
+
+		MethodRecorder(int access, String name, String descriptor) {
+			super(SpringAsmInfo.ASM_VERSION);
+			this.access = access;
+			this.name = name;
+			this.descriptor = descriptor;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			if (!visible) {
+				return null;
+			}
+			this.output.writeByte(ANNOTATION);
+			this.output.writeString(descriptor);
+			return new AnnotationRecorder(this.output);
+		}
+
+		@Override
+		public void visitEnd() {
+			// 无注解的方法不会产生 MethodMetadata, 无需记录
+			if (this.bytes.size() > 0) {
+				Output classOutput = ClassMetadataRecorder.this.output;
+				classOutput.writeByte(METHOD);
+				classOutput.writeInt(this.access);
+				classOutput.writeString(this.name);
+				classOutput.writeString(this.descriptor);
+				classOutput.writeBytes(this.bytes.toByteArray());
+				classOutput.writeByte(END);
+			}
+		}
+	}
+
+
+	/**
+	 * Records the attributes of an annotation or array attribute.
+	 */
+	private static final class AnnotationRecorder extends AnnotationVisitor {
+
+		private final Output output;
+
+		AnnotationRecorder(Output output) {
+			super(SpringAsmInfo.ASM_VERSION);
+			this.output = output;
+		}
+
+		@Override
+		public void visit(@Nullable String name, Object value) {
+			this.output.writeByte(VALUE);
+			this.output.writeNullableString(name);
+			this.output.writeValue(value);
+		}
+
+		@Override
+		public void visitEnum(@Nullable String name, String descriptor, String value) {
+			this.output.writeByte(ENUM);
+			this.output.writeNullableString(name);
+			this.output.writeString(descriptor);
+			this.output.writeString(value);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(@Nullable String name, String descriptor) {
+			this.output.writeByte(ANNOTATION);
+			this.output.writeNullableString(name);
+			this.output.writeString(descriptor);
+			return new AnnotationRecorder(this.output);
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(@Nullable String name) {
+			this.output.writeByte(ARRAY);
+			this.output.writeNullableString(name);
+			return new AnnotationRecorder(this.output);
+		}
+
+		@Override
+		public void visitEnd() {
+			this.output.writeByte(END);
+		}
+	}
+
+
+	/**
+	 * {@link DataOutputStream} facade for in-memory recordings.
+	 */
+	private static final class Output {
+
+		private final DataOutputStream stream;
+
+		Output(ByteArrayOutputStream bytes) {
+			this.stream = new DataOutputStream(bytes);
+		}
+
+		void writeByte(int value) {
+			try {
+				this.stream.writeByte(value);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		void writeInt(int value) {
+			try {
+				this.stream.writeInt(value);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		void writeBytes(byte[] bytes) {
+			try {
+				this.stream.write(bytes);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		void writeString(String value) {
+			try {
+				this.stream.writeUTF(value);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		void writeNullableString(@Nullable String value) {
+			try {
+				this.stream.writeBoolean(value != null);
+				if (value != null) {
+					this.stream.writeUTF(value);
+				}
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		void writeValue(Object value) {
+			try {
+				DataOutputStream stream = this.stream;
+				if (value instanceof String) {
+					stream.writeChar('s');
+					stream.writeUTF((String) value);
+				}
+				else if (value instanceof Type) {
+					stream.writeChar('T');
+					stream.writeUTF(((Type) value).getDescriptor());
+				}
+				else if (value instanceof Boolean) {
+					stream.writeChar('Z');
+					stream.writeBoolean((Boolean) value);
+				}
+				else if (value instanceof Byte) {
+					stream.writeChar('B');
+					stream.writeByte((Byte) value);
+				}
+				else if (value instanceof Character) {
+					stream.writeChar('C');
+					stream.writeChar((Character) value);
+				}
+				else if (value instanceof Short) {
+					stream.writeChar('S');
+					stream.writeShort((Short) value);
+				}
+				else if (value instanceof Integer) {
+					stream.writeChar('I');
+					stream.writeInt((Integer) value);
+				}
+				else if (value instanceof Long) {
+					stream.writeChar('J');
+					stream.writeLong((Long) value);
+				}
+				else if (value instanceof Float) {
+					stream.writeChar('F');
+					stream.writeFloat((Float) value);
+				}
+				else if (value instanceof Double) {
+					stream.writeChar('D');
+					stream.writeDouble((Double) value);
+				}
+				else {
+					writePrimitiveArray(value);
+				}
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		// ClassReader 将基本类型数组属性作为单个值传入
+		private void writePrimitiveArray(Object value) throws IOException {
+			DataOutputStream stream = this.stream;
+			stream.writeChar('[');
+			if (value instanceof boolean[]) {
+				boolean[] array = (boolean[]) value;
+				stream.writeChar('Z');
+				stream.writeInt(array.length);
+				for (boolean element : array) {
+					stream.writeBoolean(element);
+				}
+			}
+			else if (value instanceof byte[]) {
+				byte[] array = (byte[]) value;
+				stream.writeChar('B');
+				stream.writeInt(array.length);
+				stream.write(array);
+			}
+			else if (value instanceof char[]) {
+				char[] array = (char[]) value;
+				stream.writeChar('C');
+				stream.writeInt(array.length);
+				for (char element : array) {
+					stream.writeChar(element);
+				}
+			}
+			else if (value instanceof short[]) {
+				short[] array = (short[]) value;
+				stream.writeChar('S');
+				stream.writeInt(array.length);
+				for (short element : array) {
+					stream.writeShort(element);
+				}
+			}
+			else if (value instanceof int[]) {
+				int[] array = (int[]) value;
+				stream.writeChar('I');
+				stream.writeInt(array.length);
+				for (int element : array) {
+					stream.writeInt(element);
+				}
+			}
+			else if (value instanceof long[]) {
+				long[] array = (long[]) value;
+				stream.writeChar('J');
+				stream.writeInt(array.length);
+				for (long element : array) {
+					stream.writeLong(element);
+				}
+			}
+			else if (value instanceof float[]) {
+				float[] array = (float[]) value;
+				stream.writeChar('F');
+				stream.writeInt(array.length);
+				for (float element : array) {
+					stream.writeFloat(element);
+				}
+			}
+			else if (value instanceof double[]) {
+				double[] array = (double[]) value;
+				stream.writeChar('D');
+				stream.writeInt(array.length);
+				for (double element : array) {
+					stream.writeDouble(element);
+				}
+			}
+			else {
+				throw new IllegalArgumentException("Unsupported annotation value: " + value);
+			}
+		}
+	}
+
+}
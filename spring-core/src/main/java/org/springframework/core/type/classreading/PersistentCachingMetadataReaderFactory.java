@@ -0,0 +1,389 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * {@link CachingMetadataReaderFactory} that additionally keeps the class
+ * metadata in a cache file, so that class files do not need to be parsed
+ * again after a restart.
+ *
+ * <p>The cache file stores a compact recording of the ASM events relevant for
+ * annotation and method metadata per class file. On startup, the file is
+ * memory-mapped and only its index is read; recordings are replayed on demand,
+ * which is considerably cheaper than parsing the full class file. Each entry is
+ * keyed by the URL of the class file and validated against the CRC-32 checksum
+ * and size of the jar entry, or the last-modified timestamp and length of a file
+ * in the file system. Changed class files are parsed again, class files in
+ * other locations are never cached persistently.
+ *
+ * <p>The cache file is only written on {@link #save()}, typically once the
+ * application context has been refreshed, and then contains the entries used
+ * since this factory was created. A missing, outdated or corrupt cache file
+ * is silently ignored.
+ *
+ * <pre class="code">
+ * PersistentCachingMetadataReaderFactory metadataReaderFactory =
+ *     new PersistentCachingMetadataReaderFactory(new File("metadata.cache"), resourceLoader);
+ * scanner.setMetadataReaderFactory(metadataReaderFactory);
+ * // ... scan
+ * metadataReaderFactory.save();</pre>
+ *
+ * @since 5.3
+ * @see #save()
+ */
+public class PersistentCachingMetadataReaderFactory extends CachingMetadataReaderFactory {
+
+	private static final int MAGIC = 0x53504d43;
+
+	private static final Log logger = LogFactory.getLog(PersistentCachingMetadataReaderFactory.class);
+
+
+	private final File cacheFile;
+
+	/**
+	 * 从缓存文件加载的条目, 记录内容仍位于内存映射缓冲区中
+	 */
+	private final Map<String, CacheEntry> storedEntries;
+
+	/**
+	 * 本次运行中使用过的条目, 由 save() 写出
+	 */
+	private final Map<String, CacheEntry> usedEntries = new ConcurrentHashMap<>(1024);
+
+	private volatile boolean modified;
+
+	private volatile int savedEntryCount;
+
+
+	/**
+	 * Create a new PersistentCachingMetadataReaderFactory for the default class loader.
+	 * @param cacheFile the cache file to read and to {@link #save()} to
+	 */
+	public PersistentCachingMetadataReaderFactory(File cacheFile) {
+		super();
+		this.cacheFile = cacheFile;
+		this.storedEntries = loadCacheFile(cacheFile);
+		this.savedEntryCount = this.storedEntries.size();
+	}
+
+	/**
+	 * Create a new PersistentCachingMetadataReaderFactory for the given {@link ClassLoader}.
+	 * @param cacheFile the cache file to read and to {@link #save()} to
+	 * @param classLoader the ClassLoader to use
+	 */
+	public PersistentCachingMetadataReaderFactory(File cacheFile, @Nullable ClassLoader classLoader) {
+		super(classLoader);
+		this.cacheFile = cacheFile;
+		this.storedEntries = loadCacheFile(cacheFile);
+		this.savedEntryCount = this.storedEntries.size();
+	}
+
+	/**
+	 * Create a new PersistentCachingMetadataReaderFactory for the given {@link ResourceLoader},
+	 * using a shared in-memory resource cache if supported.
+	 * @param cacheFile the cache file to read and to {@link #save()} to
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 * @see DefaultResourceLoader#getResourceCache
+	 */
+	public PersistentCachingMetadataReaderFactory(File cacheFile, @Nullable ResourceLoader resourceLoader) {
+		super(resourceLoader);
+		this.cacheFile = cacheFile;
+		this.storedEntries = loadCacheFile(cacheFile);
+		this.savedEntryCount = this.storedEntries.size();
+	}
+
+
+	/**
+	 * Return the cache file that this factory reads and writes.
+	 */
+	public final File getCacheFile() {
+		return this.cacheFile;
+	}
+
+	@Override
+	protected MetadataReader createMetadataReader(Resource resource) throws IOException {
+		ResourceVersion version = getResourceVersion(resource);
+		if (version == null) {
+			return super.createMetadataReader(resource);
+		}
+		ClassLoader classLoader = getResourceLoader().getClassLoader();
+		CacheEntry entry = this.usedEntries.get(version.key);
+		if (entry == null || !entry.matches(version)) {
+			entry = this.storedEntries.get(version.key);
+		}
+		if (entry != null && entry.matches(version)) {
+			try {
+				MetadataReader metadataReader = replay(resource, entry.getRecording(), classLoader);
+				this.usedEntries.put(version.key, entry);
+				return metadataReader;
+			}
+			catch (IOException | RuntimeException ex) {
+				// 记录损坏或无法回放时重新解析 class 文件
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to replay cached metadata for " + resource, ex);
+				}
+			}
+		}
+		ClassMetadataRecorder recorder = new ClassMetadataRecorder();
+		SimpleMetadataReader.getClassReader(resource).accept(recorder, SimpleMetadataReader.PARSING_OPTIONS);
+		byte[] recording = recorder.toByteArray();
+		MetadataReader metadataReader = replay(resource, recording, classLoader);
+		this.usedEntries.put(version.key, new CacheEntry(version.checksum, version.size, recording));
+		this.modified = true;
+		return metadataReader;
+	}
+
+	/**
+	 * Write the cache file with the metadata of all class files read through this
+	 * factory so far, unless the cache file already contains exactly that metadata.
+	 * <p>The cache file is replaced atomically where supported by the file system.
+	 * @throws IOException if the cache file could not be written
+	 */
+	public void save() throws IOException {
+		List<Map.Entry<String, CacheEntry>> entries = new ArrayList<>(this.usedEntries.entrySet());
+		if (!this.modified && entries.size() == this.savedEntryCount) {
+			return;
+		}
+		this.modified = false;
+		Path target = this.cacheFile.getAbsoluteFile().toPath();
+		Path directory = target.getParent();
+		Assert.state(directory != null, "Cache file must have a parent directory");
+		Files.createDirectories(directory);
+		Path tempFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(ClassMetadataRecorder.FORMAT_VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, CacheEntry> mapEntry : entries) {
+					CacheEntry entry = mapEntry.getValue();
+					byte[] key = mapEntry.getKey().getBytes(StandardCharsets.UTF_8);
+					byte[] recording = entry.getRecording();
+					out.writeInt(key.length);
+					out.write(key);
+					out.writeLong(entry.checksum);
+					out.writeLong(entry.size);
+					out.writeInt(recording.length);
+					out.write(recording);
+				}
+			}
+			try {
+				Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			this.savedEntryCount = entries.size();
+		}
+		catch (IOException | RuntimeException ex) {
+			this.modified = true;
+			throw ex;
+		}
+		finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+
+	private static MetadataReader replay(Resource resource, byte[] recording, @Nullable ClassLoader classLoader)
+			throws IOException {
+
+		SimpleAnnotationMetadataReadingVisitor visitor = new SimpleAnnotationMetadataReadingVisitor(classLoader);
+		ClassMetadataRecorder.replay(recording, visitor);
+		return new SimpleMetadataReader(resource, visitor.getMetadata());
+	}
+
+	/**
+	 * Determine the key and version of the given class file, or {@code null}
+	 * if it cannot be cached persistently.
+	 */
+	@Nullable
+	private static ResourceVersion getResourceVersion(Resource resource) {
+		try {
+			URL url = resource.getURL();
+			if (ResourceUtils.isJarURL(url)) {
+				// 使用 JVM 缓存的 JarFile, 校验值取自 jar 中央目录, 无需读取条目内容
+				URLConnection con = url.openConnection();
+				if (con instanceof JarURLConnection) {
+					JarEntry entry = ((JarURLConnection) con).getJarEntry();
+					if (entry != null && entry.getCrc() != -1) {
+						return new ResourceVersion(url.toExternalForm(), entry.getCrc(), entry.getSize());
+					}
+				}
+			}
+			else if (ResourceUtils.isFileURL(url)) {
+				File file = resource.getFile();
+				long lastModified = file.lastModified();
+				if (lastModified != 0) {
+					return new ResourceVersion(url.toExternalForm(), lastModified, file.length());
+				}
+			}
+		}
+		catch (IOException ex) {
+			// 无法确定版本的资源不做持久化缓存
+		}
+		return null;
+	}
+
+	private static Map<String, CacheEntry> loadCacheFile(File cacheFile) {
+		if (!cacheFile.isFile()) {
+			return Collections.emptyMap();
+		}
+		try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != ClassMetadataRecorder.FORMAT_VERSION) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring metadata cache file in outdated format: " + cacheFile);
+				}
+				return Collections.emptyMap();
+			}
+			int count = buffer.getInt();
+			Map<String, CacheEntry> entries = new HashMap<>(Math.max(16, (int) (count / 0.75f) + 1));
+			for (int i = 0; i < count; i++) {
+				byte[] key = new byte[buffer.getInt()];
+				buffer.get(key);
+				long checksum = buffer.getLong();
+				long size = buffer.getLong();
+				int length = buffer.getInt();
+				int offset = buffer.position();
+				buffer.position(offset + length);
+				entries.put(new String(key, StandardCharsets.UTF_8), new CacheEntry(checksum, size, buffer, offset, length));
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + count + " metadata cache entries from " + cacheFile);
+			}
+			return entries;
+		}
+		catch (IOException | RuntimeException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring unreadable metadata cache file: " + cacheFile, ex);
+			}
+			return Collections.emptyMap();
+		}
+	}
+
+
+	/**
+	 * Key and version of a class file.
+	 */
+	private static final class ResourceVersion {
+
+		final String key;
+
+		final long checksum;
+
+		final long size;
+
+		ResourceVersion(String key, long checksum, long size) {
+			this.key = key;
+			this.checksum = checksum;
+			this.size = size;
+		}
+	}
+
+
+	/**
+	 * Recorded metadata of a class file, either in memory or in the
+	 * memory-mapped cache file.
+	 */
+	private static final class CacheEntry {
+
+		final long checksum;
+
+		final long size;
+
+		@Nullable
+		private final byte[] recording;
+
+		@Nullable
+		private final ByteBuffer buffer;
+
+		private final int offset;
+
+		private final int length;
+
+		CacheEntry(long checksum, long size, byte[] recording) {
+			this.checksum = checksum;
+			this.size = size;
+			this.recording = recording;
+			this.buffer = null;
+			this.offset = 0;
+			this.length = recording.length;
+		}
+
+		CacheEntry(long checksum, long size, ByteBuffer buffer, int offset, int length) {
+			this.checksum = checksum;
+			this.size = size;
+			this.recording = null;
+			this.buffer = buffer;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		boolean matches(ResourceVersion version) {
+			return (this.checksum == version.checksum && this.size == version.size);
+		}
+
+		byte[] getRecording() {
+			if (this.recording != null) {
+				return this.recording;
+			}
+			Assert.state(this.buffer != null, "No recording");
+			// 共享缓冲区的位置不可修改, 使用副本读取
+			ByteBuffer buffer = this.buffer.duplicate();
+			buffer.position(this.offset);
+			byte[] recording = new byte[this.length];
+			buffer.get(recording);
+			return recording;
+		}
+	}
+
+}
@@ -117,7 +117,7 @@ public abstract class ClassUtils {
 	/**
 	 * Cache for equivalent methods on an interface implemented by the declaring class.
 	 */
-	private static final Map<Method, Method> interfaceMethodCache = new ConcurrentReferenceHashMap<>(256);
+	private static final Map<Method, Method> interfaceMethodCache = new ReadMostlyConcurrentReferenceHashMap<>(256);
 
 	static {
 		primitiveWrapperTypeMap.put(Boolean.class, boolean.class);
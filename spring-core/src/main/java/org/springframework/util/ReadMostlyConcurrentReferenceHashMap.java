@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * A {@link ConcurrentReferenceHashMap} variant for read-mostly caches that are
+ * accessed from many threads, such as the framework's internal metadata caches.
+ *
+ * <p>Lookups never restructure the map: they neither poll the reference queue
+ * nor acquire a segment lock, and simply skip references that have been cleared
+ * by the garbage collector. Cleared references are purged in batches instead,
+ * by the next update of the affected segment or by an explicit call to
+ * {@link #purgeUnreferencedEntries()}.
+ *
+ * <p>If not explicitly specified, the concurrency level (the number of segments)
+ * scales with the number of available processors, so that concurrent updates
+ * on large machines do not contend on the same segment lock.
+ *
+ * @since 5.3
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see ConcurrentReferenceHashMap
+ */
+public class ReadMostlyConcurrentReferenceHashMap<K, V> extends ConcurrentReferenceHashMap<K, V> {
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+	private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+	private static final int MINIMUM_DEFAULT_CONCURRENCY_LEVEL = 16;
+
+	private static final int MAXIMUM_DEFAULT_CONCURRENCY_LEVEL = 256;
+
+
+	/**
+	 * Create a new {@code ReadMostlyConcurrentReferenceHashMap} instance.
+	 */
+	public ReadMostlyConcurrentReferenceHashMap() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code ReadMostlyConcurrentReferenceHashMap} instance.
+	 * @param initialCapacity the initial capacity of the map
+	 */
+	public ReadMostlyConcurrentReferenceHashMap(int initialCapacity) {
+		this(initialCapacity, ReferenceType.SOFT);
+	}
+
+	/**
+	 * Create a new {@code ReadMostlyConcurrentReferenceHashMap} instance.
+	 * @param initialCapacity the initial capacity of the map
+	 * @param referenceType the reference type used for entries (soft or weak)
+	 */
+	public ReadMostlyConcurrentReferenceHashMap(int initialCapacity, ReferenceType referenceType) {
+		this(initialCapacity, DEFAULT_LOAD_FACTOR, getDefaultConcurrencyLevel(), referenceType);
+	}
+
+	/**
+	 * Create a new {@code ReadMostlyConcurrentReferenceHashMap} instance.
+	 * @param initialCapacity the initial capacity of the map
+	 * @param loadFactor the load factor. When the average number of references per
+	 * table exceeds this value, resize will be attempted.
+	 * @param concurrencyLevel the expected number of threads that will concurrently
+	 * write to the map
+	 * @param referenceType the reference type used for entries (soft or weak)
+	 */
+	public ReadMostlyConcurrentReferenceHashMap(
+			int initialCapacity, float loadFactor, int concurrencyLevel, ReferenceType referenceType) {
+
+		super(initialCapacity, loadFactor, concurrencyLevel, referenceType);
+	}
+
+
+	@Override
+	@Nullable
+	public V get(@Nullable Object key) {
+		Reference<K, V> ref = getReference(key, Restructure.NEVER);
+		Entry<K, V> entry = (ref != null ? ref.get() : null);
+		return (entry != null ? entry.getValue() : null);
+	}
+
+	@Override
+	@Nullable
+	public V getOrDefault(@Nullable Object key, @Nullable V defaultValue) {
+		Reference<K, V> ref = getReference(key, Restructure.NEVER);
+		Entry<K, V> entry = (ref != null ? ref.get() : null);
+		return (entry != null ? entry.getValue() : defaultValue);
+	}
+
+	@Override
+	public boolean containsKey(@Nullable Object key) {
+		Reference<K, V> ref = getReference(key, Restructure.NEVER);
+		Entry<K, V> entry = (ref != null ? ref.get() : null);
+		return (entry != null && ObjectUtils.nullSafeEquals(entry.getKey(), key));
+	}
+
+
+	/**
+	 * Return the default concurrency level: four segments per available
+	 * processor, between 16 and 256.
+	 */
+	static int getDefaultConcurrencyLevel() {
+		int concurrencyLevel = Runtime.getRuntime().availableProcessors() * 4;
+		return Math.max(MINIMUM_DEFAULT_CONCURRENCY_LEVEL, Math.min(concurrencyLevel, MAXIMUM_DEFAULT_CONCURRENCY_LEVEL));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -51,6 +51,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import org.springframework.core.ResolvableType.VariableResolver;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.ReflectionUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
@@ -1220,6 +1221,65 @@ class ResolvableTypeTests {
 		assertThat(type.resolve()).isEqualTo(List[].class);
 	}
 
+	@Test
+	void forTypeReturnsSharedInstance() throws Exception {
+		Type listType = Fields.class.getField("stringList").getGenericType();
+		ResolvableType type = ResolvableType.forType(listType);
+		assertThat(ResolvableType.forType(listType)).isSameAs(type);
+		assertThat(type.asCollection()).isSameAs(type.asCollection());
+		assertThat(type.getGeneric()).isSameAs(ResolvableType.forType(listType).getGeneric());
+
+		ResolvableType.clearCache();
+		assertThat(ResolvableType.forType(listType)).isNotSameAs(type).isEqualTo(type);
+	}
+
+	@Test
+	void resolveGenericsWithFallbackDoesNotAffectResolvedGenerics() {
+		ResolvableType type = ResolvableType.forClass(Map.class);
+		assertThat(type.resolveGenerics(Object.class)).containsExactly(Object.class, Object.class);
+		assertThat(type.resolveGenerics()).containsExactly(null, null);
+		assertThat(type.resolveGenerics(String.class)).containsExactly(String.class, String.class);
+	}
+
+	@Test
+	void genericsOfSharedInstanceCannotBeModified() throws Exception {
+		Type listType = Fields.class.getField("stringList").getGenericType();
+		ResolvableType type = ResolvableType.forType(listType);
+		type.resolveGenerics()[0] = Integer.class;
+		type.resolveGenerics(Object.class)[0] = Integer.class;
+		type.getGenerics()[0] = ResolvableType.forClass(Integer.class);
+		assertThat(ResolvableType.forType(listType).resolveGenerics()).containsExactly(String.class);
+		assertThat(ResolvableType.forType(listType).getGeneric().resolve()).isEqualTo(String.class);
+	}
+
+	@Test
+	void isAssignableFromClassMatchesResolvableType() throws Exception {
+		ResolvableType type = ResolvableType.forClass(Collection.class);
+		assertThat(type.isAssignableFrom(ArrayList.class)).isTrue();
+		assertThat(type.isAssignableFrom(ArrayList.class)).isTrue();
+		assertThat(type.isAssignableFrom(ResolvableType.forClass(ArrayList.class))).isTrue();
+		assertThat(type.isAssignableFrom(String.class)).isFalse();
+		assertThat(type.isAssignableFrom(ResolvableType.forClass(String.class))).isFalse();
+
+		ResolvableType charSequenceList = ResolvableType.forField(Fields.class.getField("charSequenceList"));
+		assertThat(charSequenceList.isAssignableFrom(ArrayList.class)).isFalse();
+		assertThat(charSequenceList.isAssignableFrom(ResolvableType.forClass(ArrayList.class))).isFalse();
+		assertThat(ResolvableType.NONE.isAssignableFrom(String.class)).isFalse();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void isAssignableFromClassCachesCacheSafeClassesOnly() {
+		ResolvableType type = ResolvableType.forClass(Object.class);
+		assertThat(type.isAssignableFrom(String.class)).isTrue();
+		assertThat(type.isAssignableFrom(ResolvableTypeTests.class)).isTrue();
+
+		Field field = ReflectionUtils.findField(ResolvableType.class, "assignableFromClasses");
+		ReflectionUtils.makeAccessible(field);
+		Map<Class<?>, Boolean> cached = (Map<Class<?>, Boolean>) ReflectionUtils.getField(field, type);
+		assertThat(cached).containsOnlyKeys(String.class);
+	}
+
 	@Test
 	void serialize() throws Exception {
 		testSerialization(ResolvableType.forClass(List.class));
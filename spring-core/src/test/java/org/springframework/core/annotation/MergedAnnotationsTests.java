@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -72,6 +72,42 @@ import static org.assertj.core.api.Assertions.entry;
  */
 class MergedAnnotationsTests {
 
+	@Test
+	void fromWithTypeHierarchyReturnsSharedInstance() {
+		MergedAnnotations annotations = MergedAnnotations.from(
+				SubInheritedAnnotationInterface.class, SearchStrategy.TYPE_HIERARCHY);
+		assertThat(MergedAnnotations.from(SubInheritedAnnotationInterface.class,
+				SearchStrategy.TYPE_HIERARCHY)).isSameAs(annotations);
+		assertThat(MergedAnnotations.from(SubInheritedAnnotationInterface.class,
+				SearchStrategy.TYPE_HIERARCHY, RepeatableContainers.none())).isNotSameAs(annotations);
+		assertThat(MergedAnnotations.from(SubInheritedAnnotationInterface.class,
+				SearchStrategy.TYPE_HIERARCHY, RepeatableContainers.standardRepeatables(),
+				type -> false)).isNotSameAs(annotations);
+		assertThat(annotations.get(Transactional.class)).isSameAs(annotations.get(Transactional.class));
+		assertThat(annotations.get(Transactional.class).getAggregateIndex()).isEqualTo(1);
+
+		AnnotationUtils.clearCache();
+		MergedAnnotations rebuilt = MergedAnnotations.from(
+				SubInheritedAnnotationInterface.class, SearchStrategy.TYPE_HIERARCHY);
+		assertThat(rebuilt).isNotSameAs(annotations);
+		assertThat(rebuilt.get(Transactional.class).getAggregateIndex()).isEqualTo(1);
+	}
+
+	@Test
+	void cachedHierarchyScanMatchesFreshScan() throws Exception {
+		Method method = ImplementsInterfaceWithAnnotatedMethod.class.getMethod("foo");
+		AnnotationUtils.clearCache();
+		AnnotationUtils.preloadCache(SubInheritedAnnotationInterface.class, ImplementsInterfaceWithAnnotatedMethod.class);
+		MergedAnnotations cached = MergedAnnotations.from(SubInheritedAnnotationInterface.class,
+				SearchStrategy.TYPE_HIERARCHY, RepeatableContainers.none(), type -> false);
+		assertThat(cached.isPresent(Transactional.class)).isTrue();
+		assertThat(cached.isDirectlyPresent(Transactional.class)).isTrue();
+		assertThat(cached.stream().map(MergedAnnotation::getType).anyMatch(Transactional.class::equals)).isTrue();
+		MergedAnnotation<Order> order = MergedAnnotations.from(method, SearchStrategy.TYPE_HIERARCHY).get(Order.class);
+		assertThat(order.isPresent()).isTrue();
+		assertThat(order.getAggregateIndex()).isEqualTo(1);
+	}
+
 	@Test
 	void streamWhenFromNonAnnotatedClass() {
 		assertThat(MergedAnnotations.from(NonAnnotatedClass.class).
@@ -129,6 +129,20 @@ class StringDecoderTests extends AbstractDecoderTests<StringDecoder> {
 				.verify());
 	}
 
+	@Test
+	void decodeDelimiterAcrossBuffers() {
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("abc\r"),
+				stringBuffer("\ndef\nghi\r"),
+				stringBuffer("\n"),
+				stringBuffer("jkl\nmno"));
+
+		testDecode(input, String.class, step -> step
+				.expectNext("abc", "def", "ghi", "jkl", "mno")
+				.expectComplete()
+				.verify());
+	}
+
 	@Test
 	void maxInMemoryLimit() {
 		Flux<DataBuffer> input = Flux.just(
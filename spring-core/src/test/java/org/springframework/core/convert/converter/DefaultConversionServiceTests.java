@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -42,16 +42,19 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 
 import org.springframework.core.MethodParameter;
 import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.core.convert.ConversionPlan;
 import org.springframework.core.convert.ConverterNotFoundException;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.core.testfixture.EnabledForTestGroups;
+import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StopWatch;
 
@@ -965,6 +968,81 @@ class DefaultConversionServiceTests {
 		assertThat((Object) conversionService.convert(Optional.empty(), Optional.class)).isSameAs(Optional.empty());
 	}
 
+	@Test
+	void conversionPlanForCollection() throws Exception {
+		TypeDescriptor targetType = new TypeDescriptor(getClass().getField("genericList"));
+		ConversionPlan plan = conversionService.getConversionPlan(TypeDescriptor.valueOf(ArrayList.class), targetType);
+		assertThat(plan).isNotNull();
+		assertThat(conversionService.getConversionPlan(TypeDescriptor.valueOf(ArrayList.class), targetType)).isSameAs(plan);
+		assertThat(plan.convert(new ArrayList<>(Arrays.asList("1", "2", "3")))).isEqualTo(Arrays.asList(1, 2, 3));
+		assertThat(plan.convert(new ArrayList<>(Arrays.asList("4", 5L, null)))).isEqualTo(Arrays.asList(4, 5, null));
+		assertThat(plan.convert(null)).isNull();
+		assertThatExceptionOfType(ConversionFailedException.class).isThrownBy(() ->
+				plan.convert(new ArrayList<>(Arrays.asList("1", "x"))));
+	}
+
+	@Test
+	void conversionPlanForArrayAndMap() throws Exception {
+		ConversionPlan arrayPlan = conversionService.getConversionPlan(TypeDescriptor.valueOf(String[].class),
+				TypeDescriptor.valueOf(Integer[].class));
+		assertThat(arrayPlan.convert(new String[] {"1", "2"})).isEqualTo(new Integer[] {1, 2});
+		ConversionPlan mapPlan = conversionService.getConversionPlan(TypeDescriptor.valueOf(HashMap.class),
+				new TypeDescriptor(getClass().getField("genericMap")));
+		Map<String, String> source = new HashMap<>();
+		source.put("1", "BAR");
+		source.put("2", "BAZ");
+		Map<Integer, Foo> expected = new HashMap<>();
+		expected.put(1, Foo.BAR);
+		expected.put(2, Foo.BAZ);
+		assertThat(mapPlan.convert(source)).isEqualTo(expected);
+	}
+
+	@Test
+	void conversionPlanResolvesElementConversionOncePerElementType() throws Exception {
+		AtomicInteger converterLookups = new AtomicInteger();
+		DefaultConversionService conversionService = new DefaultConversionService() {
+			@Override
+			protected GenericConverter getConverter(TypeDescriptor sourceType, TypeDescriptor targetType) {
+				converterLookups.incrementAndGet();
+				return super.getConverter(sourceType, targetType);
+			}
+		};
+		ConversionPlan plan = conversionService.getConversionPlan(TypeDescriptor.valueOf(String[].class),
+				new TypeDescriptor(getClass().getField("genericList")));
+		int lookups = converterLookups.get();
+		assertThat(plan.convert(new String[] {"1", "2", "3"})).isEqualTo(Arrays.asList(1, 2, 3));
+		assertThat(converterLookups.get()).isEqualTo(lookups + 1);
+		assertThat(plan.convert(new String[] {"4", "5"})).isEqualTo(Arrays.asList(4, 5));
+		assertThat(converterLookups.get()).isEqualTo(lookups + 1);
+	}
+
+	@Test
+	void conversionPlanNotAvailable() {
+		TypeDescriptor sourceType = TypeDescriptor.valueOf(String.class);
+		TypeDescriptor targetType = TypeDescriptor.valueOf(Color.class);
+		assertThat(conversionService.getConversionPlan(sourceType, targetType)).isNull();
+		conversionService.addConverter(new ColorConverter());
+		ConversionPlan plan = conversionService.getConversionPlan(sourceType, targetType);
+		assertThat(plan.convert("#000000")).isEqualTo(Color.BLACK);
+	}
+
+	@Test
+	void conversionPlanDelegatesToCustomConvert() throws Exception {
+		DefaultConversionService conversionService = new DefaultConversionService() {
+			@Override
+			public Object convert(@Nullable Object source, @Nullable TypeDescriptor sourceType, TypeDescriptor targetType) {
+				return ("custom".equals(source) ? 42 : super.convert(source, sourceType, targetType));
+			}
+		};
+		ConversionPlan plan = conversionService.getConversionPlan(TypeDescriptor.valueOf(String.class),
+				TypeDescriptor.valueOf(Integer.class));
+		assertThat(plan.convert("custom")).isEqualTo(42);
+		assertThat(plan.convert("1")).isEqualTo(1);
+		ConversionPlan listPlan = conversionService.getConversionPlan(TypeDescriptor.valueOf(String[].class),
+				new TypeDescriptor(getClass().getField("genericList")));
+		assertThat(listPlan.convert(new String[] {"custom", "2"})).isEqualTo(Arrays.asList(42, 2));
+	}
+
 	@Test
 	@EnabledForTestGroups(PERFORMANCE)
 	void testPerformance1() {
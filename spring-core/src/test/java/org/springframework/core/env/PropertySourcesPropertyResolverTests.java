@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.core.env;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -332,4 +333,138 @@ class PropertySourcesPropertyResolverTests {
 			.withMessageContaining("Could not resolve placeholder 'bogus' in value \"${p1}:${p2}:${bogus}\"");
 	}
 
+	@Test
+	void propertyIndex_respectsPrecedence() {
+		MutablePropertySources ps = new MutablePropertySources();
+		ps.addLast(new MockPropertySource("first").withProperty("a", "first-a"));
+		ps.addLast(new NonEnumerablePropertySource("second", "b", "second-b"));
+		ps.addLast(new MockPropertySource("third").withProperty("a", "third-a").withProperty("b", "third-b")
+				.withProperty("c", "third-c"));
+		PropertySourcesPropertyResolver pr = new PropertySourcesPropertyResolver(ps);
+		pr.setUsePropertyIndex(true);
+
+		assertThat(pr.getProperty("a")).isEqualTo("first-a");
+		assertThat(pr.getProperty("b")).isEqualTo("second-b");
+		assertThat(pr.getProperty("c")).isEqualTo("third-c");
+		assertThat(pr.getProperty("d")).isNull();
+		assertThat(pr.containsProperty("b")).isTrue();
+		assertThat(pr.containsProperty("d")).isFalse();
+	}
+
+	@Test
+	void propertyIndex_rebuiltOnPropertySourcesModification() {
+		MutablePropertySources ps = new MutablePropertySources();
+		ps.addLast(new MockPropertySource("base").withProperty("foo", "base"));
+		PropertySourcesPropertyResolver pr = new PropertySourcesPropertyResolver(ps);
+		pr.setUsePropertyIndex(true);
+		assertThat(pr.getProperty("foo")).isEqualTo("base");
+		assertThat(pr.resolvePlaceholders("${foo}")).isEqualTo("base");
+
+		ps.addFirst(new MockPropertySource("override").withProperty("foo", "override"));
+		assertThat(pr.getProperty("foo")).isEqualTo("override");
+		assertThat(pr.resolvePlaceholders("${foo}")).isEqualTo("override");
+
+		ps.replace("override", new MockPropertySource("override").withProperty("bar", "bar"));
+		assertThat(pr.getProperty("foo")).isEqualTo("base");
+		assertThat(pr.getProperty("bar")).isEqualTo("bar");
+
+		ps.remove("base");
+		assertThat(pr.getProperty("foo")).isNull();
+	}
+
+	@Test
+	void propertyIndex_relaxedSystemEnvironmentNames() {
+		Map<String, Object> env = new HashMap<>();
+		env.put("FOO_BAR", "env");
+		env.put("lower_case", "lower");
+		MutablePropertySources ps = new MutablePropertySources();
+		ps.addLast(new MockPropertySource("props").withProperty("other", "props"));
+		ps.addLast(new SystemEnvironmentPropertySource("env", env));
+		PropertySourcesPropertyResolver pr = new PropertySourcesPropertyResolver(ps);
+		pr.setUsePropertyIndex(true);
+
+		for (String key : new String[] {"FOO_BAR", "foo.bar", "foo-bar", "Foo.Bar", "foo_bar", "lower.case"}) {
+			PropertySourcesPropertyResolver linear = new PropertySourcesPropertyResolver(ps);
+			assertThat(pr.getProperty(key)).as(key).isEqualTo(linear.getProperty(key)).isNotNull();
+			assertThat(pr.containsProperty(key)).as(key).isTrue();
+		}
+		assertThat(pr.getProperty("foo.baz")).isNull();
+		assertThat(pr.getProperty("LOWER.CASE")).isNull();
+		assertThat(pr.getProperty("other")).isEqualTo("props");
+	}
+
+	@Test
+	void propertyIndex_inPlaceModifications() {
+		MockPropertySource source = new MockPropertySource("source").withProperty("foo", "foo");
+		MutablePropertySources ps = new MutablePropertySources();
+		ps.addLast(source);
+		PropertySourcesPropertyResolver pr = new PropertySourcesPropertyResolver(ps);
+		pr.setUsePropertyIndex(true);
+		assertThat(pr.getProperty("foo")).isEqualTo("foo");
+		assertThat(pr.resolvePlaceholders("${foo}")).isEqualTo("foo");
+
+		// 值总是从属性源读取, 但解析后的占位符与新增的属性名称需要显式清除索引
+		source.setProperty("foo", "changed");
+		source.setProperty("bar", "bar");
+		assertThat(pr.getProperty("foo")).isEqualTo("changed");
+		assertThat(pr.resolvePlaceholders("${foo}")).isEqualTo("foo");
+		assertThat(pr.getProperty("bar")).isNull();
+		pr.clearPropertyIndex();
+		assertThat(pr.resolvePlaceholders("${foo}")).isEqualTo("changed");
+		assertThat(pr.getProperty("bar")).isEqualTo("bar");
+
+		// 已索引的属性被移除时退回逐个查找
+		source.getSource().remove("foo");
+		assertThat(pr.getProperty("foo")).isNull();
+	}
+
+	@Test
+	void propertyIndex_doesNotCachePlaceholdersFromNonIndexedSources() {
+		AtomicInteger counter = new AtomicInteger();
+		MockPropertySource props = new MockPropertySource("props").withProperty("foo", "foo");
+		MutablePropertySources ps = new MutablePropertySources();
+		ps.addLast(props);
+		ps.addLast(new PropertySource<Object>("random", new Object()) {
+			@Override
+			public Object getProperty(String name) {
+				return ("random".equals(name) ? String.valueOf(counter.incrementAndGet()) : null);
+			}
+		});
+		ps.addLast(new MockPropertySource("lowest").withProperty("bar", "bar"));
+		PropertySourcesPropertyResolver pr = new PropertySourcesPropertyResolver(ps);
+		pr.setUsePropertyIndex(true);
+
+		assertThat(pr.resolvePlaceholders("${random}")).isEqualTo("1");
+		assertThat(pr.resolvePlaceholders("${random}")).isEqualTo("2");
+		assertThat(pr.resolvePlaceholders("${foo}-${random}")).isEqualTo("foo-3");
+		assertThat(pr.resolvePlaceholders("${foo}-${random}")).isEqualTo("foo-4");
+		assertThat(pr.resolvePlaceholders("${foo}")).isEqualTo("foo");
+		assertThat(pr.resolvePlaceholders("${bar}")).isEqualTo("bar");
+
+		// 只有完全由索引确定的属性才会被缓存
+		props.setProperty("foo", "changed");
+		((MockPropertySource) ps.get("lowest")).setProperty("bar", "changed");
+		assertThat(pr.resolvePlaceholders("${foo}")).isEqualTo("foo");
+		assertThat(pr.resolvePlaceholders("${bar}")).isEqualTo("changed");
+	}
+
+
+	private static class NonEnumerablePropertySource extends PropertySource<Object> {
+
+		private final String key;
+
+		private final String value;
+
+		NonEnumerablePropertySource(String name, String key, String value) {
+			super(name, new Object());
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public Object getProperty(String name) {
+			return (this.key.equals(name) ? this.value : null);
+		}
+	}
+
 }
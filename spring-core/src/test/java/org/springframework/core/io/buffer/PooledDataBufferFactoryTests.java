@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link PooledDataBufferFactory}.
+ *
+ * @since 5.3
+ */
+class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory(false, 256, 4096);
+
+
+	@Test
+	void releasedMemoryReused() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		assertThat(buffer).isInstanceOf(PooledDataBuffer.class);
+		assertThat(buffer.capacity()).isEqualTo(100);
+		byte[] memory = buffer.getNativeBuffer().array();
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(1);
+		DataBufferUtils.release(buffer);
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+
+		DefaultDataBuffer other = this.bufferFactory.allocateBuffer(200);
+		assertThat(other.getNativeBuffer().array()).isSameAs(memory);
+		assertThat(other.capacity()).isEqualTo(200);
+		DataBufferUtils.release(other);
+	}
+
+	@Test
+	void largeBuffersNotPooled() {
+		assertThat(this.bufferFactory.getMaxPooledCapacity()).isEqualTo(4096);
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(5000);
+		byte[] memory = buffer.getNativeBuffer().array();
+		assertThat(memory).hasSize(5000);
+		DataBufferUtils.release(buffer);
+
+		DefaultDataBuffer other = this.bufferFactory.allocateBuffer(5000);
+		assertThat(other.getNativeBuffer().array()).isNotSameAs(memory);
+		DataBufferUtils.release(other);
+	}
+
+	@Test
+	void capacityIncreasedWithinPool() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(4);
+		buffer.write("abcd", StandardCharsets.UTF_8);
+		buffer.write("efgh".getBytes(StandardCharsets.UTF_8));
+		buffer.ensureCapacity(1000);
+		assertThat(buffer.capacity()).isGreaterThanOrEqualTo(1008);
+		assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("abcdefgh");
+		buffer.capacity(2);
+		assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("ab");
+		assertThat(DataBufferUtils.release(buffer)).isTrue();
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void sliceSharesReferenceCount() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(8);
+		buffer.write("abcdefgh", StandardCharsets.UTF_8);
+		DataBuffer slice = buffer.slice(2, 3);
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("cde");
+		assertThat(slice).isInstanceOf(PooledDataBuffer.class);
+
+		DataBufferUtils.retain(slice);
+		assertThat(DataBufferUtils.release(buffer)).isFalse();
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+		assertThat(((PooledDataBuffer) slice).isAllocated()).isFalse();
+	}
+
+	@Test
+	void sliceNotAffectedByCapacityIncreaseOfParent() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(8);
+		buffer.write("abcdefgh", StandardCharsets.UTF_8);
+		DataBuffer slice = buffer.slice(2, 3);
+		ByteBuffer byteBuffer = buffer.asByteBuffer(5, 3);
+		buffer.ensureCapacity(1000);
+
+		List<DataBuffer> others = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			others.add(this.bufferFactory.allocateBuffer(8).write("zzzzzzzz", StandardCharsets.UTF_8));
+		}
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("cde");
+		assertThat(StandardCharsets.UTF_8.decode(byteBuffer).toString()).isEqualTo("fgh");
+		others.forEach(DataBufferUtils::release);
+		DataBufferUtils.release(buffer);
+	}
+
+	@Test
+	void releasedBufferNotUsable() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.bufferFactory.allocateBuffer(8);
+		buffer.write("abc", StandardCharsets.UTF_8);
+		buffer.release();
+		assertThat(buffer.readableByteCount()).isEqualTo(0);
+		assertThat(buffer.capacity()).isEqualTo(0);
+		assertThatIllegalStateException().isThrownBy(buffer::retain);
+	}
+
+	@Test
+	void inputStreamReleasesOnClose() throws Exception {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(8);
+		buffer.write("abc", StandardCharsets.UTF_8);
+		try (InputStream inputStream = buffer.asInputStream(true)) {
+			assertThat(inputStream.read()).isEqualTo('a');
+		}
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+	}
+
+	@Test
+	void wrappedBuffersNotPooled() {
+		DataBuffer buffer = this.bufferFactory.wrap(ByteBuffer.allocate(4));
+		assertThat(buffer).isNotInstanceOf(PooledDataBuffer.class);
+		assertThat(this.bufferFactory.getActiveBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void unreleasedBufferDetected() throws Exception {
+		this.bufferFactory.setLeakDetection(true);
+		this.bufferFactory.allocateBuffer(16);
+		DataBuffer released = this.bufferFactory.allocateBuffer(16);
+		DataBufferUtils.release(released);
+
+		for (int i = 0; i < 50 && this.bufferFactory.reportLeaks() == 0; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertThat(this.bufferFactory.reportLeaks()).isEqualTo(1);
+	}
+
+}
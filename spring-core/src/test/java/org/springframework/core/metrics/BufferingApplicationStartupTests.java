@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.metrics.BufferingApplicationStartup.StartupTimeline;
+import org.springframework.core.metrics.BufferingApplicationStartup.TimelineEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link BufferingApplicationStartup} and the default no-op {@link ApplicationStartup}.
+ *
+ * @since 5.3
+ */
+class BufferingApplicationStartupTests {
+
+	@Test
+	void defaultStartupDoesNotComputeTags() {
+		AtomicBoolean computed = new AtomicBoolean();
+		StartupStep step = ApplicationStartup.DEFAULT.start("test.step")
+				.tag("key", () -> {
+					computed.set(true);
+					return "value";
+				});
+		step.end();
+		assertThat(computed).isFalse();
+		assertThat(step.getTags()).isEmpty();
+		assertThat(ApplicationStartup.DEFAULT.start("other.step")).isSameAs(step);
+	}
+
+	@Test
+	void stepsRecordedInEndOrderWithParents() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		StartupStep outer = applicationStartup.start("test.outer");
+		StartupStep inner = applicationStartup.start("test.inner").tag("name", "value");
+		inner.end();
+		StartupStep sibling = applicationStartup.start("test.sibling");
+		sibling.end();
+		outer.end();
+		StartupStep root = applicationStartup.start("test.root");
+		root.end();
+
+		List<TimelineEvent> events = applicationStartup.getBufferedTimeline().getEvents();
+		assertThat(names(events)).containsExactly("test.inner", "test.sibling", "test.outer", "test.root");
+		assertThat(inner.getParentId()).isEqualTo(outer.getId());
+		assertThat(sibling.getParentId()).isEqualTo(outer.getId());
+		assertThat(outer.getParentId()).isNull();
+		assertThat(root.getParentId()).isNull();
+		StartupStep.Tag tag = events.get(0).getStartupStep().getTags().iterator().next();
+		assertThat(tag.getKey()).isEqualTo("name");
+		assertThat(tag.getValue()).isEqualTo("value");
+		for (TimelineEvent event : events) {
+			assertThat(event.getDuration()).isEqualTo(
+					Duration.between(event.getStartTime(), event.getEndTime()));
+			assertThat(event.getDuration().isNegative()).isFalse();
+		}
+	}
+
+	@Test
+	void stepsBeyondCapacityAreDropped() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(2);
+		applicationStartup.start("test.first").end();
+		applicationStartup.start("test.second").end();
+		applicationStartup.start("test.third").end();
+		assertThat(names(applicationStartup.getBufferedTimeline().getEvents()))
+				.containsExactly("test.first", "test.second");
+	}
+
+	@Test
+	void drainBufferedTimeline() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(2);
+		applicationStartup.start("test.first").end();
+		applicationStartup.start("test.second").end();
+		StartupTimeline timeline = applicationStartup.drainBufferedTimeline();
+		assertThat(names(timeline.getEvents())).containsExactly("test.first", "test.second");
+		assertThat(timeline.getStartTime()).isNotNull();
+
+		applicationStartup.start("test.third").end();
+		assertThat(names(applicationStartup.getBufferedTimeline().getEvents())).containsExactly("test.third");
+	}
+
+	@Test
+	void filteredStepsNotRecorded() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		applicationStartup.addFilter(step -> step.getName().startsWith("spring.context"));
+		StartupStep refresh = applicationStartup.start("spring.context.refresh");
+		applicationStartup.start("spring.beans.instantiate").tag("beanName", "test").end();
+		StartupStep scan = applicationStartup.start("spring.context.component-scan");
+		scan.end();
+		refresh.end();
+
+		assertThat(names(applicationStartup.getBufferedTimeline().getEvents()))
+				.containsExactly("spring.context.component-scan", "spring.context.refresh");
+		assertThat(scan.getParentId()).isEqualTo(refresh.getId());
+	}
+
+	@Test
+	void endedStepCannotBeChanged() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		StartupStep step = applicationStartup.start("test.step");
+		step.end();
+		assertThatIllegalStateException().isThrownBy(() -> step.tag("key", "value"));
+		assertThatIllegalStateException().isThrownBy(step::end);
+	}
+
+	@Test
+	void stepsFromOtherThreadsHaveTheirOwnParents() throws Exception {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		StartupStep outer = applicationStartup.start("test.outer");
+		List<StartupStep> steps = new ArrayList<>();
+		Thread thread = new Thread(() -> {
+			StartupStep step = applicationStartup.start("test.other");
+			step.end();
+			steps.add(step);
+		});
+		thread.start();
+		thread.join();
+		outer.end();
+		assertThat(steps).hasSize(1);
+		assertThat(steps.get(0).getParentId()).isNull();
+	}
+
+
+	private static List<String> names(List<TimelineEvent> events) {
+		List<String> names = new ArrayList<>();
+		for (TimelineEvent event : events) {
+			names.add(event.getStartupStep().getName());
+		}
+		return names;
+	}
+
+}
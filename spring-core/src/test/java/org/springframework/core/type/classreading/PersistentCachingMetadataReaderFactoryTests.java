@@ -0,0 +1,261 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PersistentCachingMetadataReaderFactory}.
+ *
+ * @since 5.3
+ */
+class PersistentCachingMetadataReaderFactoryTests {
+
+	@TempDir
+	Path tempDir;
+
+
+	@Test
+	void annotationAttributesFromCacheFile() throws Exception {
+		File cacheFile = this.tempDir.resolve("metadata.cache").toFile();
+		PersistentCachingMetadataReaderFactory factory = new PersistentCachingMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(AnnotatedClass.class.getName());
+		factory.save();
+		assertThat(cacheFile).exists();
+
+		AnnotationMetadata metadata = new PersistentCachingMetadataReaderFactory(cacheFile)
+				.getMetadataReader(AnnotatedClass.class.getName()).getAnnotationMetadata();
+		assertThat(metadata.getAnnotations().get(AllTypes.class).synthesize())
+				.isEqualTo(AnnotatedClass.class.getAnnotation(AllTypes.class));
+		MethodMetadata method = metadata.getAnnotatedMethods(AllTypes.class.getName()).iterator().next();
+		assertThat(method.getMethodName()).isEqualTo("annotatedMethod");
+		assertThat(method.getAnnotations().get(AllTypes.class).synthesize())
+				.isEqualTo(AnnotatedClass.class.getDeclaredMethod("annotatedMethod").getAnnotation(AllTypes.class));
+		assertThat(metadata.getAnnotatedMethods(Nested.class.getName())).isEmpty();
+	}
+
+	@Test
+	void classFileNotParsedIfUnchanged() throws Exception {
+		File classFile = copyClassFile(AnnotatedClass.class, "Test.class");
+		long lastModified = classFile.lastModified();
+		File cacheFile = this.tempDir.resolve("metadata.cache").toFile();
+		PersistentCachingMetadataReaderFactory factory = new PersistentCachingMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(new FileSystemResource(classFile));
+		factory.save();
+
+		// 内容被破坏但时间戳与长度不变: 仍然使用缓存的元数据
+		byte[] garbage = new byte[(int) classFile.length()];
+		FileCopyUtils.copy(garbage, classFile);
+		assertThat(classFile.setLastModified(lastModified)).isTrue();
+		MetadataReader metadataReader = new PersistentCachingMetadataReaderFactory(cacheFile)
+				.getMetadataReader(new FileSystemResource(classFile));
+		assertThat(metadataReader.getClassMetadata().getClassName()).isEqualTo(AnnotatedClass.class.getName());
+	}
+
+	@Test
+	void classFileParsedIfChanged() throws Exception {
+		File classFile = copyClassFile(AnnotatedClass.class, "Test.class");
+		File cacheFile = this.tempDir.resolve("metadata.cache").toFile();
+		PersistentCachingMetadataReaderFactory factory = new PersistentCachingMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(new FileSystemResource(classFile));
+		factory.save();
+
+		copyClassFile(Nested.class, "Test.class");
+		MetadataReader metadataReader = new PersistentCachingMetadataReaderFactory(cacheFile)
+				.getMetadataReader(new FileSystemResource(classFile));
+		assertThat(metadataReader.getClassMetadata().getClassName()).isEqualTo(Nested.class.getName());
+	}
+
+	@Test
+	void jarEntryCachedByChecksum() throws Exception {
+		File jarFile = this.tempDir.resolve("test.jar").toFile();
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+			out.putNextEntry(new JarEntry("test/Test.class"));
+			try (InputStream in = new ClassPathResource(ClassUtils.getClassFileName(AnnotatedClass.class),
+					AnnotatedClass.class).getInputStream()) {
+				StreamUtils.copy(in, out);
+			}
+			out.closeEntry();
+		}
+		Resource resource = new UrlResource("jar:" + jarFile.toURI() + "!/test/Test.class");
+		File cacheFile = this.tempDir.resolve("metadata.cache").toFile();
+		PersistentCachingMetadataReaderFactory factory = new PersistentCachingMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(resource);
+		factory.save();
+		assertThat(cacheFile.setLastModified(1000)).isTrue();
+
+		// 命中缓存时条目未变化, save() 不会重写缓存文件
+		factory = new PersistentCachingMetadataReaderFactory(cacheFile);
+		MetadataReader metadataReader = factory.getMetadataReader(resource);
+		assertThat(metadataReader.getClassMetadata().getClassName()).isEqualTo(AnnotatedClass.class.getName());
+		assertThat(metadataReader.getResource()).isSameAs(resource);
+		factory.save();
+		assertThat(cacheFile.lastModified()).isEqualTo(1000);
+	}
+
+	@Test
+	void unusedEntriesDroppedOnSave() throws Exception {
+		File cacheFile = this.tempDir.resolve("metadata.cache").toFile();
+		PersistentCachingMetadataReaderFactory factory = new PersistentCachingMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(AnnotatedClass.class.getName());
+		factory.getMetadataReader(Nested.class.getName());
+		factory.save();
+		long savedLength = cacheFile.length();
+
+		factory = new PersistentCachingMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(Nested.class.getName());
+		factory.save();
+		assertThat(cacheFile.length()).isLessThan(savedLength);
+	}
+
+	@Test
+	void corruptCacheFileIgnored() throws Exception {
+		File cacheFile = this.tempDir.resolve("metadata.cache").toFile();
+		byte[] content = new byte[64];
+		Arrays.fill(content, (byte) 0x53);
+		FileCopyUtils.copy(content, cacheFile);
+
+		PersistentCachingMetadataReaderFactory factory = new PersistentCachingMetadataReaderFactory(cacheFile);
+		assertThat(factory.getMetadataReader(AnnotatedClass.class.getName()).getAnnotationMetadata()
+				.hasAnnotation(AllTypes.class.getName())).isTrue();
+		factory.save();
+		assertThat(cacheFile.length()).isNotEqualTo(content.length);
+	}
+
+
+	private File copyClassFile(Class<?> clazz, String fileName) throws Exception {
+		File file = this.tempDir.resolve(fileName).toFile();
+		try (InputStream in = new ClassPathResource(ClassUtils.getClassFileName(clazz), clazz).getInputStream();
+				OutputStream out = Files.newOutputStream(file.toPath())) {
+			FileCopyUtils.copy(in, out);
+		}
+		return file;
+	}
+
+
+	enum Mode { ON, OFF }
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Nested {
+
+		String value() default "";
+
+		int[] numbers() default {};
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@interface AllTypes {
+
+		String string();
+
+		Class<?> type();
+
+		Class<?>[] types();
+
+		Mode mode();
+
+		Mode[] modes();
+
+		Nested nested();
+
+		Nested[] nestedArray();
+
+		boolean flag();
+
+		byte byteValue();
+
+		char charValue();
+
+		short shortValue();
+
+		int intValue();
+
+		long longValue();
+
+		float floatValue();
+
+		double doubleValue();
+
+		boolean[] flags();
+
+		byte[] bytes();
+
+		char[] chars();
+
+		short[] shorts();
+
+		int[] ints();
+
+		long[] longs();
+
+		float[] floats();
+
+		double[] doubles();
+
+		String[] strings() default {};
+	}
+
+
+	@AllTypes(string = "s", type = String.class, types = {Integer.class, int[].class}, mode = Mode.ON,
+			modes = {Mode.OFF, Mode.ON}, nested = @Nested("n"), nestedArray = {@Nested(numbers = 1), @Nested("m")},
+			flag = true, byteValue = 1, charValue = 'c', shortValue = 2, intValue = 3, longValue = 4L,
+			floatValue = 5.0f, doubleValue = 6.0d, flags = {true, false}, bytes = {1, 2}, chars = {'a', 'b'},
+			shorts = {3}, ints = {4, 5}, longs = {6L}, floats = {7.0f}, doubles = {8.0d, 9.0d})
+	static class AnnotatedClass {
+
+		@AllTypes(string = "t", type = void.class, types = {}, mode = Mode.OFF, modes = {}, nested = @Nested,
+				nestedArray = {}, flag = false, byteValue = 0, charValue = 0, shortValue = 0, intValue = 0,
+				longValue = 0, floatValue = 0, doubleValue = 0, flags = {}, bytes = {}, chars = {}, shorts = {},
+				ints = {}, longs = {}, floats = {}, doubles = {}, strings = {"x", "y"})
+		public String annotatedMethod() {
+			return "";
+		}
+
+		public void plainMethod() {
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+import org.springframework.util.ConcurrentReferenceHashMap.Restructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ReadMostlyConcurrentReferenceHashMap}.
+ *
+ * @since 5.3
+ */
+class ReadMostlyConcurrentReferenceHashMapTests {
+
+	@Test
+	void shouldCreateWithDefaults() {
+		ReadMostlyConcurrentReferenceHashMap<Integer, String> map = new ReadMostlyConcurrentReferenceHashMap<>();
+		assertThat(map.getSegmentsSize()).isBetween(16, 256);
+		assertThat(Integer.bitCount(map.getSegmentsSize())).isEqualTo(1);
+		assertThat(map.getLoadFactor()).isEqualTo(0.75f);
+	}
+
+	@Test
+	void shouldPutAndGet() {
+		ReadMostlyConcurrentReferenceHashMap<Integer, String> map = new ReadMostlyConcurrentReferenceHashMap<>();
+		map.put(123, "123");
+		map.put(null, "null");
+		map.put(456, null);
+		assertThat(map.get(123)).isEqualTo("123");
+		assertThat(map.get(null)).isEqualTo("null");
+		assertThat(map.get(456)).isNull();
+		assertThat(map.containsKey(456)).isTrue();
+		assertThat(map.containsKey(789)).isFalse();
+		assertThat(map.getOrDefault(789, "default")).isEqualTo("default");
+		assertThat(map.getOrDefault(123, "default")).isEqualTo("123");
+		assertThat(map).hasSize(3);
+	}
+
+	@Test
+	void shouldSkipClearedReferencesWithoutPurgeOnGet() {
+		ReadMostlyConcurrentReferenceHashMap<Integer, String> map =
+				new ReadMostlyConcurrentReferenceHashMap<>(16, 0.75f, 1, ReferenceType.WEAK);
+		map.put(1, "1");
+		map.put(2, "2");
+		map.getReference(1, Restructure.NEVER).release();
+
+		assertThat(map.get(1)).isNull();
+		assertThat(map.containsKey(1)).isFalse();
+		assertThat(map.getOrDefault(1, "default")).isEqualTo("default");
+		assertThat(map.get(2)).isEqualTo("2");
+		assertThat(map.getSegment(0).getCount()).isEqualTo(2);
+
+		map.put(3, "3");
+		assertThat(map.getSegment(0).getCount()).isEqualTo(2);
+		assertThat(map).containsOnlyKeys(2, 3);
+	}
+
+	@Test
+	void shouldPurgeClearedReferencesExplicitly() {
+		ReadMostlyConcurrentReferenceHashMap<Integer, String> map =
+				new ReadMostlyConcurrentReferenceHashMap<>(16, 0.75f, 1, ReferenceType.SOFT);
+		map.put(1, "1");
+		map.getReference(1, Restructure.NEVER).release();
+		assertThat(map.getSegment(0).getCount()).isEqualTo(1);
+
+		map.purgeUnreferencedEntries();
+		assertThat(map.getSegment(0).getCount()).isEqualTo(0);
+		assertThat(map).isEmpty();
+	}
+
+}
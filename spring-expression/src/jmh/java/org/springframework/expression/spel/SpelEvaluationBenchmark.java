@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Benchmarks for the evaluation of a typical routing expression, interpreted and compiled.
+ * <p>Run with {@code "-PjmhProfilers=gc"} to report the bytes allocated per
+ * evaluation ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.Throughput)
+public class SpelEvaluationBenchmark {
+
+	@Benchmark
+	public Object routingExpression(BenchmarkState state) {
+		return state.expression.getValue(state.context, state.message);
+	}
+
+	@Benchmark
+	public Object arithmeticExpression(BenchmarkState state) {
+		return state.arithmetic.getValue(state.context, state.message);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"OFF", "IMMEDIATE"})
+		public SpelCompilerMode compilerMode;
+
+		Expression expression;
+
+		Expression arithmetic;
+
+		EvaluationContext context;
+
+		Message message = new Message("orders.eu", 7);
+
+		@Setup(Level.Trial)
+		public void setup() {
+			SpelExpressionParser parser = new SpelExpressionParser(
+					new SpelParserConfiguration(this.compilerMode, getClass().getClassLoader()));
+			this.expression = parser.parseExpression("priority + 1 > 5 and getDestination().startsWith('orders')");
+			this.arithmetic = parser.parseExpression("(priority * 3 + 4) % 10 - priority");
+			this.context = new StandardEvaluationContext();
+			// 预热: 解释执行以确定类型, 编译模式下随后切换到字节码
+			for (int i = 0; i < 3; i++) {
+				this.expression.getValue(this.context, this.message);
+				this.arithmetic.getValue(this.context, this.message);
+			}
+		}
+	}
+
+
+	public static class Message {
+
+		private final String destination;
+
+		private final int priority;
+
+		public Message(String destination, int priority) {
+			this.destination = destination;
+			this.priority = priority;
+		}
+
+		public String getDestination() {
+			return this.destination;
+		}
+
+		public int getPriority() {
+			return this.priority;
+		}
+	}
+
+}
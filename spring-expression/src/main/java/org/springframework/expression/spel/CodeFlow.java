@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -89,6 +89,17 @@ public class CodeFlow implements Opcodes {
 	 */
 	private int nextFreeVariableId = 1;
 
+	/**
+	 * The local variable holding the target of the code currently being generated
+	 * (variable 1 in the main evaluation method, see {@link #generateHelperMethod}).
+	 */
+	private int targetVariable = 1;
+
+	/**
+	 * Tracks the next available helper method id (used as a name suffix).
+	 */
+	private int nextMethodId = 1;
+
 
 	/**
 	 * Construct a new {@code CodeFlow} for the given class.
@@ -109,7 +120,7 @@ public class CodeFlow implements Opcodes {
 	 * @param mv the visitor into which the load instruction should be inserted
 	 */
 	public void loadTarget(MethodVisitor mv) {
-		mv.visitVarInsn(ALOAD, 1);
+		mv.visitVarInsn(ALOAD, this.targetVariable);
 	}
 
 	/**
@@ -217,6 +228,50 @@ public class CodeFlow implements Opcodes {
 		this.clinitAdders.add(clinitAdder);
 	}
 
+	/**
+	 * Generate a private static helper method in the class being compiled and insert
+	 * the call to it, consuming the argument currently on top of the stack and leaving
+	 * the {@code Object} result of the helper method in its place. Used by ast nodes
+	 * which need to evaluate a sub-expression repeatedly (e.g. selection/projection).
+	 * <p>Within the helper method the argument is local variable 0, the root object and
+	 * the EvaluationContext are available in the same local variables as in the main
+	 * evaluation method (1 and 2), and {@link #loadTarget} loads local variable 3,
+	 * which the {@code MethodAdder} is responsible for initializing.
+	 * @param mv the visitor into which the helper method call should be inserted
+	 * @param methodAdder the generator for the helper method body
+	 * @since 5.3
+	 */
+	public void generateHelperMethod(MethodVisitor mv, MethodAdder methodAdder) {
+		String methodName = "helper$" + this.nextMethodId++;
+		String methodDescriptor = "(Ljava/lang/Object;Ljava/lang/Object;" +
+				"Lorg/springframework/expression/EvaluationContext;)Ljava/lang/Object;";
+
+		MethodVisitor helper = this.classWriter.visitMethod(
+				ACC_PRIVATE | ACC_STATIC, methodName, methodDescriptor, null, null);
+		helper.visitCode();
+		int previousTargetVariable = this.targetVariable;
+		int previousFreeVariableId = this.nextFreeVariableId;
+		this.targetVariable = 3;
+		this.nextFreeVariableId = 4;
+		enterCompilationScope();
+		try {
+			methodAdder.generateCode(helper, this);
+		}
+		finally {
+			exitCompilationScope();
+			this.targetVariable = previousTargetVariable;
+			this.nextFreeVariableId = previousFreeVariableId;
+		}
+		helper.visitInsn(ARETURN);
+		helper.visitMaxs(0, 0);  // not supplied due to COMPUTE_MAXS
+		helper.visitEnd();
+
+		// 根对象与 EvaluationContext 始终取自主方法的 1, 2 号局部变量
+		mv.visitVarInsn(ALOAD, 1);
+		loadEvaluationContext(mv);
+		mv.visitMethodInsn(INVOKESTATIC, this.className, methodName, methodDescriptor, false);
+	}
+
 	public int nextFieldId() {
 		return this.nextFieldId++;
 	}
@@ -1060,4 +1115,19 @@ public class CodeFlow implements Opcodes {
 		void generateCode(MethodVisitor mv, CodeFlow codeflow);
 	}
 
+
+	/**
+	 * Interface used to generate the body of helper methods.
+	 * @since 5.3
+	 * @see #generateHelperMethod
+	 */
+	@FunctionalInterface
+	public interface MethodAdder {
+
+		/**
+		 * Generate the helper method body, leaving the (boxed) result on the stack.
+		 */
+		void generateCode(MethodVisitor mv, CodeFlow codeflow);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -79,7 +79,7 @@ public class OpMinus extends Operator {
 				}
 				else if (operand instanceof Integer) {
 					this.exitTypeDescriptor = "I";
-					return new TypedValue(0 - ((Number) operand).intValue());
+					return typedValueOf(0 - ((Number) operand).intValue());
 				}
 				else if (operand instanceof Short) {
 					return new TypedValue(0 - ((Number) operand).shortValue());
@@ -126,7 +126,7 @@ public class OpMinus extends Operator {
 			}
 			else if (CodeFlow.isIntegerForNumericOp(leftNumber) || CodeFlow.isIntegerForNumericOp(rightNumber)) {
 				this.exitTypeDescriptor = "I";
-				return new TypedValue(leftNumber.intValue() - rightNumber.intValue());
+				return typedValueOf(leftNumber.intValue() - rightNumber.intValue());
 			}
 			else {
 				// Unknown Number subtypes -> best guess is double subtraction
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.math.BigInteger;
 import org.springframework.asm.Label;
 import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.TypedValue;
 import org.springframework.expression.spel.CodeFlow;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
@@ -40,6 +41,20 @@ import org.springframework.util.ObjectUtils;
  */
 public abstract class Operator extends SpelNodeImpl {
 
+	private static final int INT_VALUE_CACHE_LOW = -128;
+
+	private static final int INT_VALUE_CACHE_HIGH = 1023;
+
+	// int 运算结果在此范围内时复用 TypedValue, 避免解释执行时每次运算都分配
+	private static final TypedValue[] intValueCache = new TypedValue[INT_VALUE_CACHE_HIGH - INT_VALUE_CACHE_LOW + 1];
+
+	static {
+		for (int i = 0; i < intValueCache.length; i++) {
+			intValueCache[i] = new TypedValue(i + INT_VALUE_CACHE_LOW);
+		}
+	}
+
+
 	private final String operatorName;
 
 	// The descriptors of the runtime operand values are used if the discovered declared
@@ -60,6 +75,19 @@ public abstract class Operator extends SpelNodeImpl {
 	}
 
 
+	/**
+	 * Return a {@link TypedValue} for the given {@code int} result of a numeric
+	 * operation, shared for common small values.
+	 * @param value the int result
+	 * @since 5.3
+	 */
+	protected static TypedValue typedValueOf(int value) {
+		if (value >= INT_VALUE_CACHE_LOW && value <= INT_VALUE_CACHE_HIGH) {
+			return intValueCache[value - INT_VALUE_CACHE_LOW];
+		}
+		return new TypedValue(value);
+	}
+
 	public SpelNodeImpl getLeftOperand() {
 		return this.children[0];
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -60,6 +60,13 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 	@Nullable
 	private volatile PropertyAccessor cachedReadAccessor;
 
+	// 缓存的读取器由哪个已注册的 PropertyAccessor 针对哪个目标类型创建 (例如 OptimalPropertyAccessor)
+	@Nullable
+	private volatile PropertyAccessor cachedReadAccessorSource;
+
+	@Nullable
+	private volatile Class<?> cachedReadTargetType;
+
 	@Nullable
 	private volatile PropertyAccessor cachedWriteAccessor;
 
@@ -176,7 +183,13 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 
 		PropertyAccessor accessorToUse = this.cachedReadAccessor;
 		if (accessorToUse != null) {
-			if (evalContext.getPropertyAccessors().contains(accessorToUse)) {
+			// An optimized accessor is not registered itself: for the same target type,
+			// check for the accessor it was created by instead
+			PropertyAccessor accessorSource = this.cachedReadAccessorSource;
+			if (accessorSource == null || targetObject == null || getTargetType(targetObject) != this.cachedReadTargetType) {
+				accessorSource = accessorToUse;
+			}
+			if (evalContext.getPropertyAccessors().contains(accessorSource)) {
 				try {
 					return accessorToUse.read(evalContext, contextObject.getValue(), name);
 				}
@@ -196,6 +209,8 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		try {
 			for (PropertyAccessor accessor : accessorsToTry) {
 				if (accessor.canRead(evalContext, contextObject.getValue(), name)) {
+					this.cachedReadAccessorSource = accessor;
+					this.cachedReadTargetType = (targetObject != null ? getTargetType(targetObject) : null);
 					if (accessor instanceof ReflectivePropertyAccessor) {
 						accessor = ((ReflectivePropertyAccessor) accessor).createOptimalAccessor(
 								evalContext, contextObject.getValue(), name);
@@ -218,6 +233,10 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		}
 	}
 
+	private static Class<?> getTargetType(Object targetObject) {
+		return (targetObject instanceof Class ? (Class<?>) targetObject : targetObject.getClass());
+	}
+
 	private void writeProperty(
 			TypedValue contextObject, EvaluationContext evalContext, String name, @Nullable Object newValue)
 			throws EvaluationException {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,9 +23,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -88,6 +91,7 @@ public class Selection extends SpelNodeImpl {
 		SpelNodeImpl selectionCriteria = this.children[0];
 
 		if (operand instanceof Map) {
+			this.exitTypeDescriptor = null;
 			Map<?, ?> mapdata = (Map<?, ?>) operand;
 			// TODO don't lose generic info for the new map
 			Map<Object, Object> result = new HashMap<>();
@@ -137,6 +141,13 @@ public class Selection extends SpelNodeImpl {
 		if (operand instanceof Iterable || ObjectUtils.isArray(operand)) {
 			Iterable<?> data = (operand instanceof Iterable ?
 					(Iterable<?>) operand : Arrays.asList(ObjectUtils.toObjectArray(operand)));
+			// 数组的选择结果依赖运行时的元素类型, 只编译 Iterable 的情况
+			if (operand instanceof Iterable) {
+				this.exitTypeDescriptor = (this.variant == ALL ? "Ljava/util/List" : "Ljava/lang/Object");
+			}
+			else {
+				this.exitTypeDescriptor = null;
+			}
 
 			List<Object> result = new ArrayList<>();
 			int index = 0;
@@ -208,6 +219,87 @@ public class Selection extends SpelNodeImpl {
 		return prefix() + getChild(0).toStringAST() + "]";
 	}
 
+	@Override
+	public boolean isCompilable() {
+		SpelNodeImpl selectionCriteria = this.children[0];
+		return (this.exitTypeDescriptor != null && selectionCriteria.isCompilable() &&
+				("Z".equals(selectionCriteria.exitTypeDescriptor) ||
+						"Ljava/lang/Boolean".equals(selectionCriteria.exitTypeDescriptor)));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		String resultType = this.exitTypeDescriptor.substring(1);
+		if (cf.lastDescriptor() == null) {
+			cf.loadTarget(mv);
+		}
+		Label skipIfNull = null;
+		if (this.nullSafe) {
+			mv.visitInsn(DUP);
+			skipIfNull = new Label();
+			Label continueLabel = new Label();
+			mv.visitJumpInsn(IFNONNULL, continueLabel);
+			mv.visitTypeInsn(CHECKCAST, resultType);
+			mv.visitJumpInsn(GOTO, skipIfNull);
+			mv.visitLabel(continueLabel);
+		}
+		cf.generateHelperMethod(mv, (helper, codeflow) -> {
+			int iterator = codeflow.nextFreeVariableId();
+			int result = codeflow.nextFreeVariableId();
+			if (this.variant == ALL) {
+				helper.visitTypeInsn(NEW, "java/util/ArrayList");
+				helper.visitInsn(DUP);
+				helper.visitMethodInsn(INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+			}
+			else {
+				helper.visitInsn(ACONST_NULL);
+			}
+			helper.visitVarInsn(ASTORE, result);
+			helper.visitVarInsn(ALOAD, 0);
+			helper.visitTypeInsn(CHECKCAST, "java/lang/Iterable");
+			helper.visitMethodInsn(INVOKEINTERFACE, "java/lang/Iterable", "iterator", "()Ljava/util/Iterator;", true);
+			helper.visitVarInsn(ASTORE, iterator);
+
+			Label loop = new Label();
+			Label done = new Label();
+			helper.visitLabel(loop);
+			helper.visitVarInsn(ALOAD, iterator);
+			helper.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z", true);
+			helper.visitJumpInsn(IFEQ, done);
+			helper.visitVarInsn(ALOAD, iterator);
+			helper.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;", true);
+			helper.visitVarInsn(ASTORE, 3);
+			codeflow.enterCompilationScope();
+			this.children[0].generateCode(helper, codeflow);
+			codeflow.unboxBooleanIfNecessary(helper);
+			codeflow.exitCompilationScope();
+			helper.visitJumpInsn(IFEQ, loop);
+			if (this.variant == ALL) {
+				helper.visitVarInsn(ALOAD, result);
+				helper.visitVarInsn(ALOAD, 3);
+				helper.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
+				helper.visitInsn(POP);
+			}
+			else {
+				helper.visitVarInsn(ALOAD, 3);
+				helper.visitVarInsn(ASTORE, result);
+				if (this.variant == FIRST) {
+					helper.visitJumpInsn(GOTO, done);
+				}
+			}
+			helper.visitJumpInsn(GOTO, loop);
+			helper.visitLabel(done);
+			helper.visitVarInsn(ALOAD, result);
+		});
+		if (this.variant == ALL) {
+			mv.visitTypeInsn(CHECKCAST, resultType);
+		}
+		if (skipIfNull != null) {
+			mv.visitLabel(skipIfNull);
+		}
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 	private String prefix() {
 		switch (this.variant) {
 			case ALL:   return "?[";
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParseException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Bounded, thread-safe cache of {@link Expression} instances parsed by a given
+ * {@link SpelExpressionParser}, keyed by expression string, root object type
+ * and an optional context key.
+ *
+ * <p>All callers evaluating the same expression with the same root type and
+ * context key share a single expression instance. With a compiler mode other than
+ * {@link org.springframework.expression.spel.SpelCompilerMode#OFF OFF}, the
+ * interpretation count that triggers compilation is therefore accumulated across
+ * callers, and the compiled form is reused by all of them. Since a compiled
+ * expression is specialized for the types it was compiled against, distinct root
+ * types and context keys are kept apart. Expressions that refer to variables
+ * or to other objects whose type is not implied by the root type should be
+ * obtained with a context key that determines those types, e.g. the method
+ * providing the variables.
+ *
+ * <p>Cache hits are lock-free; once the given capacity is reached, the eldest
+ * entries are evicted in insertion order.
+ *
+ * @since 5.3
+ * @see SpelExpression#compileExpression()
+ */
+public class SpelExpressionCache {
+
+	/**
+	 * The default number of expressions retained by the cache.
+	 */
+	public static final int DEFAULT_CAPACITY = 256;
+
+
+	private final SpelExpressionParser parser;
+
+	private final int capacity;
+
+	private final Map<ExpressionCacheKey, Expression> cache = new ConcurrentHashMap<>();
+
+	private final Deque<ExpressionCacheKey> insertionOrder = new ArrayDeque<>();
+
+
+	/**
+	 * Create a new cache for the given parser, with the default capacity.
+	 * @param parser the parser to use for cache misses
+	 */
+	public SpelExpressionCache(SpelExpressionParser parser) {
+		this(parser, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a new cache for the given parser.
+	 * @param parser the parser to use for cache misses
+	 * @param capacity the maximum number of expressions to retain
+	 */
+	public SpelExpressionCache(SpelExpressionParser parser, int capacity) {
+		Assert.notNull(parser, "SpelExpressionParser must not be null");
+		Assert.isTrue(capacity > 0, "Capacity must be positive");
+		this.parser = parser;
+		this.capacity = capacity;
+	}
+
+
+	/**
+	 * Return the parser used for cache misses.
+	 */
+	public SpelExpressionParser getParser() {
+		return this.parser;
+	}
+
+	/**
+	 * Return the shared expression for the given expression string,
+	 * irrespective of the root object type and of any other context.
+	 * @param expressionString the raw expression string to parse
+	 * @return the cached (or freshly parsed) expression
+	 * @throws ParseException if the expression cannot be parsed
+	 */
+	public Expression getExpression(String expressionString) throws ParseException {
+		return getExpression(expressionString, null, null);
+	}
+
+	/**
+	 * Return the shared expression for the given expression string and root type.
+	 * @param expressionString the raw expression string to parse
+	 * @param rootType the type of the root object the expression is evaluated
+	 * against, or {@code null} if not known
+	 * @return the cached (or freshly parsed) expression
+	 * @throws ParseException if the expression cannot be parsed
+	 */
+	public Expression getExpression(String expressionString, @Nullable Class<?> rootType) throws ParseException {
+		return getExpression(expressionString, rootType, null);
+	}
+
+	/**
+	 * Return the shared expression for the given expression string, root type
+	 * and context key.
+	 * @param expressionString the raw expression string to parse
+	 * @param rootType the type of the root object the expression is evaluated
+	 * against, or {@code null} if not known
+	 * @param contextKey a key determining the types of the variables and other
+	 * objects the expression refers to (with {@code equals}/{@code hashCode}
+	 * semantics), or {@code null} if not relevant
+	 * @return the cached (or freshly parsed) expression
+	 * @throws ParseException if the expression cannot be parsed
+	 */
+	public Expression getExpression(String expressionString, @Nullable Class<?> rootType,
+			@Nullable Object contextKey) throws ParseException {
+
+		ExpressionCacheKey key = new ExpressionCacheKey(expressionString, rootType, contextKey);
+		Expression expression = this.cache.get(key);
+		if (expression != null) {
+			return expression;
+		}
+		// 在锁外解析, 并发解析同一表达式时以先放入缓存的为准
+		expression = this.parser.parseExpression(expressionString);
+		synchronized (this.insertionOrder) {
+			Expression existing = this.cache.putIfAbsent(key, expression);
+			if (existing != null) {
+				return existing;
+			}
+			this.insertionOrder.add(key);
+			while (this.insertionOrder.size() > this.capacity) {
+				this.cache.remove(this.insertionOrder.poll());
+			}
+		}
+		return expression;
+	}
+
+	/**
+	 * Return the number of expressions currently cached.
+	 */
+	public int size() {
+		return this.cache.size();
+	}
+
+	/**
+	 * Remove all cached expressions.
+	 */
+	public void clear() {
+		synchronized (this.insertionOrder) {
+			this.cache.clear();
+			this.insertionOrder.clear();
+		}
+	}
+
+
+	private static final class ExpressionCacheKey {
+
+		private final String expressionString;
+
+		@Nullable
+		private final Class<?> rootType;
+
+		@Nullable
+		private final Object contextKey;
+
+		ExpressionCacheKey(String expressionString, @Nullable Class<?> rootType, @Nullable Object contextKey) {
+			this.expressionString = expressionString;
+			this.rootType = rootType;
+			this.contextKey = contextKey;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ExpressionCacheKey)) {
+				return false;
+			}
+			ExpressionCacheKey otherKey = (ExpressionCacheKey) other;
+			return (this.expressionString.equals(otherKey.expressionString) &&
+					this.rootType == otherKey.rootType &&
+					ObjectUtils.nullSafeEquals(this.contextKey, otherKey.contextKey));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.expressionString.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.rootType)) * 29 +
+					ObjectUtils.nullSafeHashCode(this.contextKey);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -312,6 +312,28 @@ public abstract class ReflectionHelper {
 		return conversionOccurred;
 	}
 
+	/**
+	 * Variant of {@link #convertArguments(TypeConverter, Object[], Executable, Integer)}
+	 * for a method without varargs, taking pre-built descriptors of the parameter types
+	 * as cached by the caller.
+	 * @param converter the converter to use for type conversions
+	 * @param arguments the arguments to convert to the requested parameter types
+	 * @param parameterTypes the descriptors of the parameter types of the method
+	 * @return true if some kind of conversion occurred on an argument
+	 * @since 5.3
+	 */
+	static boolean convertArguments(TypeConverter converter, Object[] arguments, TypeDescriptor[] parameterTypes)
+			throws EvaluationException {
+
+		boolean conversionOccurred = false;
+		for (int i = 0; i < arguments.length; i++) {
+			Object argument = arguments[i];
+			arguments[i] = converter.convertValue(argument, TypeDescriptor.forObject(argument), parameterTypes[i]);
+			conversionOccurred |= (argument != arguments[i]);
+		}
+		return conversionOccurred;
+	}
+
 	/**
 	 * Check if the supplied value is the first entry in the array represented by the possibleArray value.
 	 * @param value the value to check for in the array
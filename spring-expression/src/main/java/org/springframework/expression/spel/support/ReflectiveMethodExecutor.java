@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.expression.spel.support;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Map;
 
 import org.springframework.core.MethodParameter;
 import org.springframework.core.convert.TypeDescriptor;
@@ -27,6 +28,7 @@ import org.springframework.expression.MethodExecutor;
 import org.springframework.expression.TypedValue;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ReflectionUtils;
 
 /**
@@ -52,6 +54,15 @@ public class ReflectiveMethodExecutor implements MethodExecutor {
 
 	private boolean argumentConversionOccurred = false;
 
+	@Nullable
+	private TypeDescriptor[] parameterTypeDescriptors;
+
+	@Nullable
+	private TypeDescriptor returnTypeDescriptor;
+
+	// 按返回值的运行时类型收窄的 TypeDescriptor, 避免每次调用都重新创建
+	private final Map<Class<?>, TypeDescriptor> narrowedReturnTypeDescriptors = new ConcurrentReferenceHashMap<>(4);
+
 
 	/**
 	 * Create a new executor for the given method.
@@ -83,12 +94,18 @@ public class ReflectiveMethodExecutor implements MethodExecutor {
 	 * because of visibility restrictions. For example if a non-public class overrides toString(),
 	 * this helper method will walk up the type hierarchy to find the first public type that declares
 	 * the method (if there is one!). For toString() it may walk as far as Object.
+	 * If no such class exists, a public interface declaring the method is returned instead.
 	 */
 	@Nullable
 	public Class<?> getPublicDeclaringClass() {
 		if (!this.computedPublicDeclaringClass) {
 			this.publicDeclaringClass =
 					discoverPublicDeclaringClass(this.originalMethod, this.originalMethod.getDeclaringClass());
+			if (this.publicDeclaringClass == null && this.methodToInvoke != this.originalMethod &&
+					Modifier.isPublic(this.methodToInvoke.getDeclaringClass().getModifiers())) {
+				// 例如非 public 的实现类: 通过 public 接口调用
+				this.publicDeclaringClass = this.methodToInvoke.getDeclaringClass();
+			}
 			this.computedPublicDeclaringClass = true;
 		}
 		return this.publicDeclaringClass;
@@ -119,19 +136,54 @@ public class ReflectiveMethodExecutor implements MethodExecutor {
 	@Override
 	public TypedValue execute(EvaluationContext context, Object target, Object... arguments) throws AccessException {
 		try {
-			this.argumentConversionOccurred = ReflectionHelper.convertArguments(
-					context.getTypeConverter(), arguments, this.originalMethod, this.varargsPosition);
+			if (this.varargsPosition == null) {
+				this.argumentConversionOccurred = ReflectionHelper.convertArguments(
+						context.getTypeConverter(), arguments, getParameterTypeDescriptors());
+			}
+			else {
+				this.argumentConversionOccurred = ReflectionHelper.convertArguments(
+						context.getTypeConverter(), arguments, this.originalMethod, this.varargsPosition);
+			}
 			if (this.originalMethod.isVarArgs()) {
 				arguments = ReflectionHelper.setupArgumentsForVarargsInvocation(
 						this.originalMethod.getParameterTypes(), arguments);
 			}
 			ReflectionUtils.makeAccessible(this.methodToInvoke);
 			Object value = this.methodToInvoke.invoke(target, arguments);
-			return new TypedValue(value, new TypeDescriptor(new MethodParameter(this.originalMethod, -1)).narrow(value));
+			return new TypedValue(value, getReturnTypeDescriptor(value));
 		}
 		catch (Exception ex) {
 			throw new AccessException("Problem invoking method: " + this.methodToInvoke, ex);
 		}
 	}
 
+	private TypeDescriptor[] getParameterTypeDescriptors() {
+		TypeDescriptor[] parameterTypes = this.parameterTypeDescriptors;
+		if (parameterTypes == null) {
+			parameterTypes = new TypeDescriptor[this.originalMethod.getParameterCount()];
+			for (int i = 0; i < parameterTypes.length; i++) {
+				parameterTypes[i] = new TypeDescriptor(MethodParameter.forExecutable(this.originalMethod, i));
+			}
+			this.parameterTypeDescriptors = parameterTypes;
+		}
+		return parameterTypes;
+	}
+
+	private TypeDescriptor getReturnTypeDescriptor(@Nullable Object value) {
+		TypeDescriptor returnType = this.returnTypeDescriptor;
+		if (returnType == null) {
+			returnType = new TypeDescriptor(new MethodParameter(this.originalMethod, -1));
+			this.returnTypeDescriptor = returnType;
+		}
+		if (value == null) {
+			return returnType;
+		}
+		TypeDescriptor narrowed = this.narrowedReturnTypeDescriptors.get(value.getClass());
+		if (narrowed == null) {
+			narrowed = returnType.narrow(value);
+			this.narrowedReturnTypeDescriptors.put(value.getClass(), narrowed);
+		}
+		return narrowed;
+	}
+
 }
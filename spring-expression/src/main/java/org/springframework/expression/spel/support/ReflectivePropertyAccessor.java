@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -654,6 +654,10 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 
 		private final TypeDescriptor typeDescriptor;
 
+		// 最近一次按返回值的运行时类型收窄的 TypeDescriptor, 避免每次读取都重新创建
+		@Nullable
+		private volatile TypeDescriptor narrowedTypeDescriptor;
+
 		OptimalPropertyAccessor(InvokerPair target) {
 			this.member = target.member;
 			this.typeDescriptor = target.typeDescriptor;
@@ -697,7 +701,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				try {
 					ReflectionUtils.makeAccessible(method);
 					Object value = method.invoke(target);
-					return new TypedValue(value, this.typeDescriptor.narrow(value));
+					return new TypedValue(value, narrow(value));
 				}
 				catch (Exception ex) {
 					throw new AccessException("Unable to access property '" + name + "' through getter method", ex);
@@ -708,7 +712,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				try {
 					ReflectionUtils.makeAccessible(field);
 					Object value = field.get(target);
-					return new TypedValue(value, this.typeDescriptor.narrow(value));
+					return new TypedValue(value, narrow(value));
 				}
 				catch (Exception ex) {
 					throw new AccessException("Unable to access field '" + name + "'", ex);
@@ -716,6 +720,18 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 			}
 		}
 
+		private TypeDescriptor narrow(@Nullable Object value) {
+			if (value == null) {
+				return this.typeDescriptor;
+			}
+			TypeDescriptor narrowed = this.narrowedTypeDescriptor;
+			if (narrowed == null || narrowed.getType() != value.getClass()) {
+				narrowed = this.typeDescriptor.narrow(value);
+				this.narrowedTypeDescriptor = narrowed;
+			}
+			return narrowed;
+		}
+
 		@Override
 		public boolean canWrite(EvaluationContext context, @Nullable Object target, String name) {
 			throw new UnsupportedOperationException("Should not be called on an OptimalPropertyAccessor");
@@ -765,8 +781,10 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 			}
 
 			if (this.member instanceof Method) {
-				mv.visitMethodInsn((isStatic ? INVOKESTATIC : INVOKEVIRTUAL), classDesc, this.member.getName(),
-						CodeFlow.createSignatureDescriptor((Method) this.member), false);
+				boolean isInterface = this.member.getDeclaringClass().isInterface();
+				mv.visitMethodInsn((isStatic ? INVOKESTATIC : (isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL)),
+						classDesc, this.member.getName(), CodeFlow.createSignatureDescriptor((Method) this.member),
+						isInterface);
 			}
 			else {
 				mv.visitFieldInsn((isStatic ? GETSTATIC : GETFIELD), classDesc, this.member.getName(),
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.expression.spel.support;
 
 import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionPlan;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.support.DefaultConversionService;
@@ -67,6 +68,13 @@ public class StandardTypeConverter implements TypeConverter {
 	@Nullable
 	public Object convertValue(@Nullable Object value, @Nullable TypeDescriptor sourceType, TypeDescriptor targetType) {
 		try {
+			if (sourceType != null) {
+				// 使用转换服务缓存的转换计划, 无法转换时交由 convert 抛出异常
+				ConversionPlan conversionPlan = this.conversionService.getConversionPlan(sourceType, targetType);
+				if (conversionPlan != null) {
+					return conversionPlan.convert(value);
+				}
+			}
 			return this.conversionService.convert(value, sourceType, targetType);
 		}
 		catch (ConversionException ex) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -58,6 +58,16 @@ public class CachedMethodExecutorTests {
 		assertMethodExecution(expression, new RootObject(), "int: 42");
 	}
 
+	@Test
+	public void testCachedExecutionForNullParameter() {
+		Expression expression = this.parser.parseExpression("echo(#var)");
+
+		assertMethodExecution(expression, null, "String: null");
+		assertMethodExecution(expression, 42, "int: 42");
+		assertMethodExecution(expression, null, "String: null");
+		assertMethodExecution(expression, "Deep Thought", "String: Deep Thought");
+	}
+
 	private void assertMethodExecution(Expression expression, Object var, String expected) {
 		this.context.setVariable("var", var);
 		assertThat(expression.getValue(this.context)).isEqualTo(expected);
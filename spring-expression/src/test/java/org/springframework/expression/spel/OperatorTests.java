@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -387,6 +387,17 @@ public class OperatorTests extends AbstractExpressionTests {
 		evaluate("3 MOD 2", 1, Integer.class);
 	}
 
+	@Test
+	public void testIntegerArithmeticAroundCachedValues() {
+		evaluate("1000 + 23", 1023, Integer.class);
+		evaluate("1000 + 24", 1024, Integer.class);
+		evaluate("-100 - 28", -128, Integer.class);
+		evaluate("-100 - 29", -129, Integer.class);
+		evaluate("-(128)", -128, Integer.class);
+		evaluate("-(129)", -129, Integer.class);
+		evaluate("2147483647 * 2", -2, Integer.class);
+	}
+
 	@Test
 	public void testPlus() throws Exception {
 		evaluate("7 + 2", "9", Integer.class);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
@@ -32,10 +33,12 @@ import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypedValue;
 import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
 import org.springframework.expression.spel.support.SimpleEvaluationContext;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.expression.spel.testresources.Inventor;
 import org.springframework.expression.spel.testresources.Person;
+import org.springframework.lang.Nullable;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -266,6 +269,26 @@ public class PropertyAccessTests extends AbstractExpressionTests {
 			.satisfies(ex -> assertThat(ex.getMessageCode()).isEqualTo(SpelMessage.ARRAY_INDEX_OUT_OF_BOUNDS));
 	}
 
+	@Test
+	void optimalReadAccessorReusedForSameTargetType() {
+		AtomicInteger resolutions = new AtomicInteger();
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.setPropertyAccessors(Collections.singletonList(new ReflectivePropertyAccessor() {
+			@Override
+			public boolean canRead(EvaluationContext context, @Nullable Object target, String name) throws AccessException {
+				resolutions.incrementAndGet();
+				return super.canRead(context, target, name);
+			}
+		}));
+		Expression expression = parser.parseExpression("name");
+		assertThat(expression.getValue(context, new Inventor("Nikola Tesla", null, null))).isEqualTo("Nikola Tesla");
+		assertThat(expression.getValue(context, new Inventor("Albert Einstein", null, null))).isEqualTo("Albert Einstein");
+		assertThat(resolutions.get()).isEqualTo(1);
+
+		assertThat(expression.getValue(context, new Person("Niels Bohr"))).isEqualTo("Niels Bohr");
+		assertThat(resolutions.get()).isEqualTo(2);
+	}
+
 
 	// This can resolve the property 'flibbles' on any String (very useful...)
 	private static class StringyPropertyAccessor implements PropertyAccessor {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -105,7 +105,10 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 	 * ConstructorReference
 	 * FunctionReference
 	 * InlineList
+	 * InlineMap
 	 * OpModulus
+	 * Projection (on a collection)
+	 * Selection (on a collection)
 	 *
 	 * Not yet compiled (some may never need to be):
 	 * Assign
@@ -116,9 +119,7 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 	 * OpMatches
 	 * OpPower
 	 * OpInc
-	 * Projection
 	 * QualifiedId
-	 * Selection
 	 */
 
 
@@ -445,6 +446,134 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 		assertThat(o).isEqualTo("op");
 	}
 
+	@Test
+	public void inlineMap() throws Exception {
+		expression = parser.parseExpression("{a:1,'b':{c:'x',d:{2,3}},e:null}");
+		Object o = expression.getValue();
+		assertThat(o.toString()).isEqualTo("{a=1, b={c=x, d=[2, 3]}, e=null}");
+		assertCanCompile(expression);
+		Map<?, ?> m = (Map<?, ?>) expression.getValue();
+		assertThat(m.toString()).isEqualTo("{a=1, b={c=x, d=[2, 3]}, e=null}");
+		assertThat(expression.getValue()).isSameAs(m);
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(m::clear);
+
+		expression = parser.parseExpression("{a:1,b:2}['b']");
+		assertThat(expression.getValue()).isEqualTo(2);
+		assertCanCompile(expression);
+		assertThat(expression.getValue()).isEqualTo(2);
+
+		expression = parser.parseExpression("{len:length(),'upper':toUpperCase(),3:{1,2}}");
+		assertThat(expression.getValue("abc").toString()).isEqualTo("{len=3, upper=ABC, 3=[1, 2]}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue("abc").toString()).isEqualTo("{len=3, upper=ABC, 3=[1, 2]}");
+		assertThat(expression.getValue("de")).isNotSameAs(expression.getValue("de"));
+	}
+
+	@Test
+	public void projection() throws Exception {
+		expression = parser.parseExpression("{'abc','de','f'}.![length()]");
+		assertThat(expression.getValue().toString()).isEqualTo("[3, 2, 1]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue().toString()).isEqualTo("[3, 2, 1]");
+
+		// Arguments are evaluated against the element, #root still refers to the root object
+		List<String> root = new ArrayList<>();
+		root.add("ab");
+		root.add("c");
+		expression = parser.parseExpression("![substring(length() - 1).concat(#root.get(1).toString())]");
+		assertThat(expression.getValue(root).toString()).isEqualTo("[bc, cc]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(root).toString()).isEqualTo("[bc, cc]");
+
+		expression = parser.parseExpression("{{'a','bc'},{'def'}}.![![length()]]");
+		assertThat(expression.getValue().toString()).isEqualTo("[[1, 2], [3]]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue().toString()).isEqualTo("[[1, 2], [3]]");
+
+		expression = parser.parseExpression("{'abc','de'}.![length()].size()");
+		assertThat(expression.getValue()).isEqualTo(2);
+		assertCanCompile(expression);
+		assertThat(expression.getValue()).isEqualTo(2);
+
+		// Map and array operands are not compiled
+		expression = parser.parseExpression("{a:'x'}.![value]");
+		assertThat(expression.getValue().toString()).isEqualTo("[x]");
+		assertCantCompile(expression);
+		expression = parser.parseExpression("![length()]");
+		assertThat(expression.getValue(new String[] {"ab"})).isEqualTo(new Integer[] {2});
+		assertCantCompile(expression);
+	}
+
+	@Test
+	public void projectionNullSafe() throws Exception {
+		ListHolder holder = new ListHolder();
+		holder.list = new ArrayList<>();
+		holder.list.add("ab");
+		expression = parser.parseExpression("list?.![length()]");
+		assertThat(expression.getValue(holder).toString()).isEqualTo("[2]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(holder).toString()).isEqualTo("[2]");
+		holder.list = null;
+		assertThat(expression.getValue(holder)).isNull();
+	}
+
+	@Test
+	public void selection() throws Exception {
+		expression = parser.parseExpression("{'abc','de','f','gh'}.?[length() > 1]");
+		assertThat(expression.getValue().toString()).isEqualTo("[abc, de, gh]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue().toString()).isEqualTo("[abc, de, gh]");
+
+		expression = parser.parseExpression("{'abc','de','f','gh'}.^[length() < 3]");
+		assertThat(expression.getValue()).isEqualTo("de");
+		assertCanCompile(expression);
+		assertThat(expression.getValue()).isEqualTo("de");
+
+		expression = parser.parseExpression("{'abc','de','f','gh'}.$[length() < 3]");
+		assertThat(expression.getValue()).isEqualTo("gh");
+		assertCanCompile(expression);
+		assertThat(expression.getValue()).isEqualTo("gh");
+
+		expression = parser.parseExpression("{'abc','de'}.^[length() > 5]");
+		assertThat(expression.getValue()).isNull();
+		assertCanCompile(expression);
+		assertThat(expression.getValue()).isNull();
+
+		// Boolean criteria are unboxed
+		expression = parser.parseExpression("{'abc','de'}.?[isEmpty() or endsWith('e')].![toUpperCase()]");
+		assertThat(expression.getValue().toString()).isEqualTo("[DE]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue().toString()).isEqualTo("[DE]");
+
+		ListHolder holder = new ListHolder();
+		expression = parser.parseExpression("list?.?[length() > 1]");
+		assertThat(expression.getValue(holder)).isNull();
+		holder.list = new ArrayList<>();
+		holder.list.add("ab");
+		holder.list.add("c");
+		assertThat(expression.getValue(holder).toString()).isEqualTo("[ab]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(holder).toString()).isEqualTo("[ab]");
+		holder.list = null;
+		assertThat(expression.getValue(holder)).isNull();
+	}
+
+	@Test
+	public void methodReferenceOnInterface() throws Exception {
+		// Non-public implementation class, invoked through java.util.Collection
+		List<String> list = Collections.unmodifiableList(new ArrayList<>(Collections.singletonList("a")));
+		expression = parser.parseExpression("size()");
+		assertThat(expression.getValue(list)).isEqualTo(1);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo(1);
+
+		// Default methods declared on the interface
+		expression = parser.parseExpression("greet() + name");
+		assertThat(expression.getValue(new DefaultMethodsImpl())).isEqualTo("hello greeter");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(new DefaultMethodsImpl())).isEqualTo("hello greeter");
+	}
+
 	@Test
 	public void intLiteral() throws Exception {
 		expression = parser.parseExpression("42");
@@ -1028,7 +1157,7 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 
 		expression = parser.parseExpression("#negate(#ints.?[#this<2][0])");
 		assertThat(expression.getValue(context, Integer.class).toString()).isEqualTo("-1");
-		// Selection isn't compilable.
+		// Selection on an array isn't compilable.
 		assertThat(((SpelNodeImpl)((SpelExpression) expression).getAST()).isCompilable()).isFalse();
 	}
 
@@ -5174,6 +5303,32 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 
 	// Nested types
 
+	public static class ListHolder {
+
+		public List<String> list;
+
+		public List<String> getList() {
+			return this.list;
+		}
+	}
+
+
+	public interface DefaultMethods {
+
+		default String greet() {
+			return "hello ";
+		}
+
+		default String getName() {
+			return "greeter";
+		}
+	}
+
+
+	public static class DefaultMethodsImpl implements DefaultMethods {
+	}
+
+
 	public interface Message<T> {
 
 		MessageHeaders getHeaders();
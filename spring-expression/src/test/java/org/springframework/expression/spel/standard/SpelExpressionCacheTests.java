@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SpelExpressionCache}.
+ *
+ * @since 5.3
+ */
+class SpelExpressionCacheTests {
+
+	@Test
+	void sharedPerExpressionAndRootType() {
+		SpelExpressionCache cache = new SpelExpressionCache(new SpelExpressionParser());
+		Expression expression = cache.getExpression("length()", String.class);
+		assertThat(cache.getExpression("length()", String.class)).isSameAs(expression);
+		assertThat(cache.getExpression("length()", StringBuilder.class)).isNotSameAs(expression);
+		assertThat(cache.getExpression("length()")).isNotSameAs(expression);
+		assertThat(cache.getExpression("length() + 1", String.class)).isNotSameAs(expression);
+		assertThat(cache.size()).isEqualTo(4);
+
+		cache.clear();
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.getExpression("length()", String.class)).isNotSameAs(expression);
+	}
+
+	@Test
+	void sharedPerContextKey() {
+		SpelExpressionCache cache = new SpelExpressionCache(new SpelExpressionParser());
+		Expression expression = cache.getExpression("#value", null, "first");
+		assertThat(cache.getExpression("#value", null, "first")).isSameAs(expression);
+		assertThat(cache.getExpression("#value", null, "second")).isNotSameAs(expression);
+		assertThat(cache.getExpression("#value")).isNotSameAs(expression);
+		assertThat(cache.size()).isEqualTo(3);
+	}
+
+	@Test
+	void eldestEntriesEvicted() {
+		SpelExpressionCache cache = new SpelExpressionCache(new SpelExpressionParser(), 2);
+		Expression first = cache.getExpression("1");
+		Expression second = cache.getExpression("2");
+		cache.getExpression("3");
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getExpression("2")).isSameAs(second);
+		assertThat(cache.getExpression("1")).isNotSameAs(first);
+	}
+
+	@Test
+	void compiledFormShared() {
+		SpelExpressionCache cache = new SpelExpressionCache(
+				new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, null)));
+		assertThat(cache.getExpression("length()", String.class).getValue("abc")).isEqualTo(3);
+		assertThat(cache.getExpression("length()", String.class).getValue("de")).isEqualTo(2);
+		SpelExpression expression = (SpelExpression) cache.getExpression("length()", String.class);
+		assertThat(expression.compileExpression()).isTrue();
+		assertThat(expression.getValue("f")).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.context.request;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.aop.scope.ScopedProxyFactoryBean;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+
+/**
+ * Benchmarks for method invocations on a scoped proxy for a request-scoped bean,
+ * resolving the target instance from the current request on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestScopedProxyBenchmark {
+
+	@Benchmark
+	public int scopedProxyInvocation(RequestState state) {
+		return state.proxy.next();
+	}
+
+	@Benchmark
+	public Object requestScopedLookup(RequestState state) {
+		return state.beanFactory.getBean("counter");
+	}
+
+
+	@State(Scope.Thread)
+	public static class RequestState {
+
+		DefaultListableBeanFactory beanFactory;
+
+		Counter proxy;
+
+		@Setup
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			this.beanFactory.registerScope(WebApplicationContext.SCOPE_REQUEST, new RequestScope());
+			RootBeanDefinition bd = new RootBeanDefinition(Counter.class);
+			bd.setScope(WebApplicationContext.SCOPE_REQUEST);
+			this.beanFactory.registerBeanDefinition("counter", bd);
+			ScopedProxyFactoryBean proxyFactoryBean = new ScopedProxyFactoryBean();
+			proxyFactoryBean.setTargetBeanName("counter");
+			proxyFactoryBean.setBeanFactory(this.beanFactory);
+			this.proxy = (Counter) proxyFactoryBean.getObject();
+			RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		}
+
+		@TearDown
+		public void tearDown() {
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+
+
+	public static class Counter {
+
+		private int count;
+
+		public int next() {
+			return ++this.count;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,17 @@ package org.springframework.http;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.List;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.util.StreamUtils;
+
 /**
  * Sub-interface of {@code ReactiveOutputMessage} that has support for "zero-copy"
  * file transfers.
@@ -55,4 +63,33 @@ public interface ZeroCopyHttpOutputMessage extends ReactiveHttpOutputMessage {
 	 */
 	Mono<Void> writeWith(Path file, long position, long count);
 
+	/**
+	 * Write the body of the message as a sequence of parts, each of which is
+	 * either a {@link DataBuffer} to write as is, or a {@link ResourceRegion}
+	 * of a {@linkplain Resource#isFile() file resource} to transfer, e.g. for
+	 * a {@code multipart/byteranges} response.
+	 * <p>The default implementation reads the file regions into data buffers
+	 * and delegates to {@link #writeWith(org.reactivestreams.Publisher)}.
+	 * Implementations that can chain zero-copy file transfers with in-memory
+	 * writes should override this method.
+	 * @param parts the data buffers and file regions to write, in order
+	 * @return a publisher that indicates completion or error.
+	 * @since 5.3
+	 */
+	default Mono<Void> writePartsWith(List<?> parts) {
+		Flux<DataBuffer> body = Flux.fromIterable(parts).concatMap(part -> {
+			if (part instanceof DataBuffer) {
+				return Mono.just((DataBuffer) part);
+			}
+			else if (part instanceof ResourceRegion) {
+				ResourceRegion region = (ResourceRegion) part;
+				Flux<DataBuffer> in = DataBufferUtils.read(region.getResource(), region.getPosition(),
+						bufferFactory(), StreamUtils.BUFFER_SIZE);
+				return DataBufferUtils.takeUntilByteCount(in, region.getCount());
+			}
+			return Flux.error(new IllegalArgumentException("Unsupported part: " + part));
+		});
+		return writeWith(body);
+	}
+
 }
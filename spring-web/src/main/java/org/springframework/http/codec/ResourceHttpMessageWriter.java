@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@ package org.springframework.http.codec;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -56,6 +58,10 @@ import org.springframework.util.MimeTypeUtils;
  * <p>Also an implementation of {@code HttpMessageWriter} with support for writing one
  * or more {@link ResourceRegion}'s based on the HTTP ranges specified in the request.
  *
+ * <p>File based resources, whether written whole or as one or more regions, are
+ * transferred via {@link ZeroCopyHttpOutputMessage} when the output message
+ * supports it.
+ *
  * <p>For reading to a Resource, use {@link ResourceDecoder} wrapped with
  * {@link DecoderHttpMessageReader}.
  *
@@ -226,12 +232,59 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 				String boundary = MimeTypeUtils.generateMultipartBoundaryString();
 				MediaType multipartType = MediaType.parseMediaType("multipart/byteranges;boundary=" + boundary);
 				headers.setContentType(multipartType);
-				Map<String, Object> allHints = Hints.merge(hints, ResourceRegionEncoder.BOUNDARY_STRING_HINT, boundary);
-				return encodeAndWriteRegions(Flux.fromIterable(regions), resourceMediaType, response, allHints);
+				return zeroCopyRegions(regions, boundary, resourceMediaType, response, hints)
+						.orElseGet(() -> {
+							Map<String, Object> allHints = Hints.merge(
+									hints, ResourceRegionEncoder.BOUNDARY_STRING_HINT, boundary);
+							return encodeAndWriteRegions(
+									Flux.fromIterable(regions), resourceMediaType, response, allHints);
+						});
 			}
 		});
 	}
 
+	private static Optional<Mono<Void>> zeroCopyRegions(List<ResourceRegion> regions, String boundary,
+			MediaType mediaType, ReactiveHttpOutputMessage message, Map<String, Object> hints) {
+
+		// 所有区域来自同一资源, 只需校验一次是否可解析为文件
+		Resource resource = regions.get(0).getResource();
+		if (!(message instanceof ZeroCopyHttpOutputMessage) || !resource.isFile()) {
+			return Optional.empty();
+		}
+		try {
+			resource.getFile();
+		}
+		catch (IOException ex) {
+			return Optional.empty();
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug(Hints.getLogPrefix(hints) + "Zero-copy " + regions.size() + " regions of [" + resource + "]");
+		}
+
+		// 与 ResourceRegionEncoder 输出的 multipart/byteranges 格式保持一致
+		DataBufferFactory bufferFactory = message.bufferFactory();
+		byte[] startBoundary = toAsciiBytes("\r\n--" + boundary + "\r\n");
+		byte[] contentType = toAsciiBytes("Content-Type: " + mediaType + "\r\n");
+		long contentLength = lengthOf(resource);
+		List<Object> parts = new ArrayList<>(regions.size() * 4 + 1);
+		for (ResourceRegion region : regions) {
+			long start = region.getPosition();
+			long end = start + region.getCount() - 1;
+			String contentRange = "Content-Range: bytes " + start + '-' + end +
+					(contentLength != -1 ? "/" + contentLength : "") + "\r\n\r\n";
+			parts.add(bufferFactory.wrap(startBoundary));
+			parts.add(bufferFactory.wrap(contentType));
+			parts.add(bufferFactory.wrap(toAsciiBytes(contentRange)));
+			parts.add(region);
+		}
+		parts.add(bufferFactory.wrap(toAsciiBytes("\r\n--" + boundary + "--")));
+		return Optional.of(((ZeroCopyHttpOutputMessage) message).writePartsWith(parts));
+	}
+
+	private static byte[] toAsciiBytes(String in) {
+		return in.getBytes(StandardCharsets.US_ASCII);
+	}
+
 	private Mono<Void> writeSingleRegion(ResourceRegion region, ReactiveHttpOutputMessage message,
 			Map<String, Object> hints) {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.http.server.reactive;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -23,11 +24,14 @@ import io.netty.buffer.ByteBuf;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.NettyOutbound;
 import reactor.netty.http.server.HttpServerResponse;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
@@ -104,6 +108,42 @@ class ReactorServerHttpResponse extends AbstractServerHttpResponse implements Ze
 		return doCommit(() -> this.response.sendFile(file, position, count).then());
 	}
 
+	@Override
+	public Mono<Void> writePartsWith(List<?> parts) {
+		return doCommit(() -> {
+			// 将内存数据与文件区域依次串联, 文件区域仍通过 sendFile 零拷贝传输
+			NettyOutbound outbound = this.response;
+			for (Object part : parts) {
+				if (part instanceof DataBuffer) {
+					outbound = outbound.send(Mono.just(NettyDataBufferFactory.toByteBuf((DataBuffer) part)));
+				}
+				else if (part instanceof ResourceRegion) {
+					ResourceRegion region = (ResourceRegion) part;
+					try {
+						Path file = region.getResource().getFile().toPath();
+						outbound = outbound.sendFile(file, region.getPosition(), region.getCount());
+					}
+					catch (IOException ex) {
+						return releaseParts(parts, ex);
+					}
+				}
+				else {
+					return releaseParts(parts, new IllegalArgumentException("Unsupported part: " + part));
+				}
+			}
+			return outbound.then();
+		});
+	}
+
+	private static Mono<Void> releaseParts(List<?> parts, Throwable ex) {
+		for (Object part : parts) {
+			if (part instanceof DataBuffer) {
+				DataBufferUtils.release((DataBuffer) part);
+			}
+		}
+		return Mono.error(ex);
+	}
+
 	private Publisher<ByteBuf> toByteBufs(Publisher<? extends DataBuffer> dataBuffers) {
 		return dataBuffers instanceof Mono ?
 				Mono.from(dataBuffers).map(NettyDataBufferFactory::toByteBuf) :
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,19 +17,27 @@
 package org.springframework.http.codec;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
@@ -95,13 +103,42 @@ public class ResourceHttpMessageWriterTests {
 
 		testWrite(get("/").range(of(0,5), of(7,15), of(17,20), of(22,38)).build());
 
-		HttpHeaders headers = this.response.getHeaders();
+		verifyMultipleRegions(this.response);
+	}
+
+	@Test
+	public void writeFileResourceWithZeroCopy(@TempDir Path tempDir) throws Exception {
+		ZeroCopyResponse response = new ZeroCopyResponse();
+		Mono<Resource> input = Mono.just(fileResource(tempDir));
+		Mono<Void> mono = this.writer.write(input, null, null, TEXT_PLAIN, get("/").build(), response, HINTS);
+		StepVerifier.create(mono).expectComplete().verify();
+
+		assertThat(response.getHeaders().getContentLength()).isEqualTo(39L);
+		assertThat(response.transfers).containsExactly("0-39");
+		StepVerifier.create(response.getBodyAsString())
+				.expectNext("Spring Framework test resource content.").expectComplete().verify();
+	}
+
+	@Test
+	public void writeMultipleRegionsWithZeroCopy(@TempDir Path tempDir) throws Exception {
+		ZeroCopyResponse response = new ZeroCopyResponse();
+		Mono<Resource> input = Mono.just(fileResource(tempDir));
+		MockServerHttpRequest request = get("/").range(of(0,5), of(7,15), of(17,20), of(22,38)).build();
+		Mono<Void> mono = this.writer.write(input, null, null, TEXT_PLAIN, request, response, HINTS);
+		StepVerifier.create(mono).expectComplete().verify();
+
+		assertThat(response.transfers).containsExactly("0-6", "7-9", "17-4", "22-17");
+		verifyMultipleRegions(response);
+	}
+
+	private void verifyMultipleRegions(MockServerHttpResponse response) {
+		HttpHeaders headers = response.getHeaders();
 		String contentType = headers.getContentType().toString();
 		String boundary = contentType.substring(30);
 
 		assertThat(contentType).startsWith("multipart/byteranges;boundary=");
 
-		StepVerifier.create(this.response.getBodyAsString())
+		StepVerifier.create(response.getBodyAsString())
 				.consumeNextWith(content -> {
 					String[] actualRanges = StringUtils.tokenizeToStringArray(content, "\r\n", false, true);
 					String[] expected = new String[] {
@@ -148,4 +185,36 @@ public class ResourceHttpMessageWriterTests {
 		return HttpRange.createByteRange(first, last);
 	}
 
+	private static Resource fileResource(Path tempDir) throws Exception {
+		Path file = tempDir.resolve("resource.txt");
+		Files.write(file, "Spring Framework test resource content.".getBytes(StandardCharsets.UTF_8));
+		return new FileSystemResource(file);
+	}
+
+
+	/**
+	 * Records file transfers, using the default {@link #writePartsWith} implementation.
+	 */
+	private static class ZeroCopyResponse extends MockServerHttpResponse implements ZeroCopyHttpOutputMessage {
+
+		final List<String> transfers = new ArrayList<>();
+
+		@Override
+		public Mono<Void> writeWith(Path file, long position, long count) {
+			this.transfers.add(position + "-" + count);
+			return writeWith(Mono.fromCallable(() -> {
+				byte[] bytes = Files.readAllBytes(file);
+				return bufferFactory().wrap(bytes).slice((int) position, (int) count);
+			}));
+		}
+
+		@Override
+		public Mono<Void> writePartsWith(List<?> parts) {
+			parts.stream().filter(part -> !(part instanceof DataBuffer))
+					.map(part -> (ResourceRegion) part)
+					.forEach(region -> this.transfers.add(region.getPosition() + "-" + region.getCount()));
+			return ZeroCopyHttpOutputMessage.super.writePartsWith(parts);
+		}
+	}
+
 }
@@ -76,6 +76,34 @@ public class RequestScopeTests {
 		assertThat(this.beanFactory.getBean(name)).isSameAs(bean);
 	}
 
+	@Test
+	public void getFromScopeWithinSameRequest() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		ServletRequestAttributes requestAttributes = new ServletRequestAttributes(request);
+		RequestContextHolder.setRequestAttributes(requestAttributes);
+
+		String name = "requestScopedObject";
+		TestBean bean = (TestBean) this.beanFactory.getBean(name);
+		assertThat(this.beanFactory.getBean(name)).isSameAs(bean);
+		assertThat(this.beanFactory.getBean("requestScopedDisposableObject")).isNotSameAs(bean);
+		assertThat(this.beanFactory.getBean(name)).isSameAs(bean);
+
+		requestAttributes.removeAttribute(name, RequestAttributes.SCOPE_REQUEST);
+		TestBean newBean = (TestBean) this.beanFactory.getBean(name);
+		assertThat(newBean).isNotSameAs(bean);
+		assertThat(request.getAttribute(name)).isSameAs(newBean);
+		assertThat(this.beanFactory.getBean(name)).isSameAs(newBean);
+
+		TestBean nativeBean = new TestBean();
+		request.setAttribute(name, nativeBean);
+		assertThat(this.beanFactory.getBean(name)).isSameAs(nativeBean);
+		request.removeAttribute(name);
+		assertThat(this.beanFactory.getBean(name)).isNotSameAs(nativeBean).isNotSameAs(newBean);
+
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		assertThat(this.beanFactory.getBean(name)).isNotSameAs(newBean);
+	}
+
 	@Test
 	public void destructionAtRequestCompletion() throws Exception {
 		MockHttpServletRequest request = new MockHttpServletRequest();